@@ -29,6 +29,7 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 // Internal Imports
+import com.asbtechnologies.android.tiluxe.board.solver.Hint;
 import com.asbtechnologies.android.tiluxe.manager.GameManager;
 import com.asbtechnologies.android.tiluxe.manager.GameManagerListener;
 
@@ -47,6 +48,9 @@ public class GameActivity extends Activity implements GameManagerListener{
 	/** Bundle key for passing the bundle between activities. */
 	public static final String BUNDLE_KEY = "bundleKey";
 	
+	/** Name of the file the game in progress is saved to when paused. */
+	private static final String SNAPSHOT_FILE_NAME = "game.snapshot";
+	
 	/** Game manager that keeps the game moving along. */
 	private GameManager gameManager;
 	
@@ -145,7 +149,21 @@ public class GameActivity extends Activity implements GameManagerListener{
 							R.string.ten_by_ten_notes));
 		}
 		
-		playNewGame();
+		// Start filling the puzzle pool for the current game options, so new 
+		// games take a ready board.
+		GameManager.prefillPool(this);
+		
+		// Being created again after the process was killed, so carry on with 
+		// the game that was saved when it was paused.
+		if (savedInstanceState != null) {
+			gameManager = GameManager.restoreGame(this, SNAPSHOT_FILE_NAME);
+		}
+		
+		if (gameManager != null) {
+			showGame();
+		} else {
+			playNewGame();
+		}
 	
 	}
 
@@ -165,6 +183,7 @@ public class GameActivity extends Activity implements GameManagerListener{
 	protected void onPause() {
 		super.onPause();
 		gameManager.pauseGame();
+		gameManager.saveGame(SNAPSHOT_FILE_NAME);
 	}
 
 	/* (non-Javadoc)
@@ -199,6 +218,9 @@ public class GameActivity extends Activity implements GameManagerListener{
 			if (previousDifficulty != options[0] ||
 					previousBoardSize != options[1]) {
 				
+				// Normally filled while the options were being changed.
+				GameManager.prefillPool(this);
+				
 				playNewGame();
 			}
 			
@@ -240,6 +262,32 @@ public class GameActivity extends Activity implements GameManagerListener{
 		
 		switch(item.getItemId()) {
 		
+		// Taking back a move loses nothing, so there is no prompt.
+		case R.id.qm_undo:
+			
+			gameManager.undoMove();
+			return true;
+		
+		case R.id.qm_redo:
+			
+			gameManager.redoMove();
+			return true;
+		
+		case R.id.qm_hint:
+			
+			builder.setMessage(getHintMessage(gameManager.getHint()));
+			builder.setNeutralButton(R.string.ok_button, 
+					new DialogInterface.OnClickListener() {
+				
+				@Override
+				public void onClick(DialogInterface dialog, int which) {
+					dialog.cancel();
+				}
+			});
+			
+			alert = builder.create();
+			break;
+		
 		case R.id.qm_reset_game:
 			
 			builder.setMessage(R.string.qm_reset_game_message);
@@ -394,6 +442,15 @@ public class GameActivity extends Activity implements GameManagerListener{
 		// Create a new GameManager and pass in this activity as the context.
 		gameManager = new GameManager(this);
 		
+		showGame();
+	}
+	
+	/**
+	 * Show the game of the current GameManager, then wait for the ready 
+	 * message to play it.
+	 */
+	private void showGame() {
+		
 		// Get the view created by the GameManager and use that as our view.
 		setContentView(gameManager.getView());
 		
@@ -425,6 +482,55 @@ public class GameActivity extends Activity implements GameManagerListener{
 		gameManager.registerListener(this);
 	}
 
+	/**
+	 * Put a hint into words.
+	 * 
+	 * @param hint Hint from the GameManager, may be null
+	 * @return Message to show the player
+	 */
+	private String getHintMessage(Hint hint) {
+		
+		if (hint == null) {
+			return getString(R.string.hint_none).trim();
+		}
+		
+		int ruleText;
+		
+		switch (hint.getRule()) {
+		case Hint.RULE_MISTAKE:
+			ruleText = R.string.hint_rule_mistake;
+			break;
+		
+		case Hint.RULE_ROW:
+			ruleText = R.string.hint_rule_row;
+			break;
+		
+		case Hint.RULE_COLUMN:
+			ruleText = R.string.hint_rule_column;
+			break;
+		
+		case Hint.RULE_DIAGONAL:
+			ruleText = R.string.hint_rule_diagonal;
+			break;
+		
+		case Hint.RULE_CLOSE_RUN:
+			ruleText = R.string.hint_rule_close_run;
+			break;
+		
+		default:
+			ruleText = R.string.hint_rule_fit;
+		}
+		
+		// Columns and rows are counted from 1 for the player.
+		return getString(
+				R.string.hint_message, 
+				hint.getX() + 1, 
+				hint.getY() + 1, 
+				getString(hint.isShip() ? 
+						R.string.hint_target : R.string.hint_empty), 
+				getString(ruleText).trim());
+	}
+	
 	/**
 	 * Reset the board to its starting state.
 	 */
@@ -22,6 +22,7 @@ import android.os.Bundle;
 import android.view.View;
 
 // Internal Import
+import com.asbtechnologies.android.tiluxe.manager.GameManager;
 
 /**
  * Entry point for game. Displays the initial view for selection options or 
@@ -129,6 +130,10 @@ public class MainActivity extends Activity {
 		SharedPreferences.Editor editor = preferences.edit();
 		editor.putString(PREVIOUS_VERSION_KEY, versionInfo);
 		editor.commit();
+		
+		// Start filling the puzzle pool for the current game options, so the 
+		// first game does not have to generate its board.
+		GameManager.prefillPool(this);
         
     }
     
@@ -10,12 +10,15 @@
 package com.asbtechnologies.android.tiluxe;
 
 // External Import
+import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.preference.PreferenceActivity;
 
 // Internal Import
+import com.asbtechnologies.android.tiluxe.manager.GameManager;
 
-public class SetPreferencesActivity extends PreferenceActivity {
+public class SetPreferencesActivity extends PreferenceActivity 
+	implements SharedPreferences.OnSharedPreferenceChangeListener {
 	
 	/** Name of stored preferences */
 	public static final String PREFERENCE_NAME = "TiluxePrefs";
@@ -32,4 +35,35 @@ public class SetPreferencesActivity extends PreferenceActivity {
         addPreferencesFromResource(R.xml.preferences);
 
     }
+	
+	@Override
+	protected void onResume() {
+		
+		super.onResume();
+		
+		getPreferenceManager().getSharedPreferences()
+			.registerOnSharedPreferenceChangeListener(this);
+	}
+	
+	@Override
+	protected void onPause() {
+		
+		super.onPause();
+		
+		getPreferenceManager().getSharedPreferences()
+			.unregisterOnSharedPreferenceChangeListener(this);
+	}
+	
+	/**
+	 * Start filling the puzzle pool for the new options while the player is 
+	 * still on this screen, so the new game they start on return takes a 
+	 * ready board.
+	 */
+	@Override
+	public void onSharedPreferenceChanged(
+			SharedPreferences sharedPreferences, 
+			String key) {
+		
+		GameManager.prefillPool(this);
+	}
 }
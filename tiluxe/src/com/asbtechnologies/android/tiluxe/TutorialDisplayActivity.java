@@ -39,6 +39,9 @@ public class TutorialDisplayActivity extends Activity implements
 	/** Bundle key to identify the bundle with. */
 	public static final String TUTORIAL_BUNDLE = "tutorialBundle";
 	
+	/** Name of the file the tutorial game is saved to when paused. */
+	private static final String SNAPSHOT_FILE_NAME = "tutorial.snapshot";
+	
 	/** Game manager that keeps the game moving along. */
 	private GameManager gameManager;
 	
@@ -46,19 +49,19 @@ public class TutorialDisplayActivity extends Activity implements
 	private TextView glText;
 	
 	/** Instructions for each tutorial played. */
-	private static String tutorialLevelInstructions;
+	private String tutorialLevelInstructions;
 	
 	/** Board sizes for each tutorial played. */
-	private static int tutorialBoardSize;
+	private int tutorialBoardSize;
 	
 	/** Target lengths for each tutorial played. */
-	private static int[] tutorialLevelTargetLengths;
+	private int[] tutorialLevelTargetLengths;
 	
 	/** Number of free targets for each tutorial played. */
-	private static int tutorialLevelFreeTargets;
+	private int tutorialLevelFreeTargets;
 	
 	/** Number of free empty tiles for each tutorial played. */
-	private static int tutorialLevelFreeEmpty;
+	private int tutorialLevelFreeEmpty;
 	
 	/** Tutorial index tracking which tutorial to execute. */
 	private int tutorialIndex;
@@ -104,8 +107,45 @@ public class TutorialDisplayActivity extends Activity implements
 		
 		tmpBundle = null;
 
+		// Being created again after the process was killed, so carry on with 
+		// the tutorial game that was saved when it was paused.
+		if (savedInstanceState != null) {
+			gameManager = GameManager.restoreGame(this, SNAPSHOT_FILE_NAME);
+		}
+		
 		// Kick off the tutorial setup and then execution.
-		beginTutorial();
+		if (gameManager != null) {
+			showTutorial();
+		} else {
+			beginTutorial();
+		}
+	}
+	
+	/* (non-Javadoc)
+	 * @see android.app.Activity#onSaveInstanceState(android.os.Bundle)
+	 */
+	@Override
+	protected void onSaveInstanceState(Bundle outState) {
+		
+		super.onSaveInstanceState(outState);
+		
+		// Keep the level so it can be picked up again if the process is 
+		// killed. The board itself is saved when the activity is paused.
+		outState.putString(
+				TutorialActivity.TUTORIAL_INSTRUCTIONS, 
+				tutorialLevelInstructions);
+		outState.putInt(
+				TutorialActivity.TUTORIAL_BOARD_SIZE, 
+				tutorialBoardSize);
+		outState.putIntArray(
+				TutorialActivity.TUTORIAL_TARGET_LENGTHS, 
+				tutorialLevelTargetLengths);
+		outState.putInt(
+				TutorialActivity.TUTORIAL_FREE_TARGETS, 
+				tutorialLevelFreeTargets);
+		outState.putInt(
+				TutorialActivity.TUTORIAL_FREE_EMPTY, 
+				tutorialLevelFreeEmpty);
 	}
 
 	/* (non-Javadoc)
@@ -124,6 +164,7 @@ public class TutorialDisplayActivity extends Activity implements
 	protected void onPause() {
 		super.onPause();
 		gameManager.pauseGame();
+		gameManager.saveGame(SNAPSHOT_FILE_NAME);
 	}
 
 	/* (non-Javadoc)
@@ -198,6 +239,17 @@ public class TutorialDisplayActivity extends Activity implements
 				tutorialLevelFreeEmpty, 
 				tutorialLevelFreeTargets);
 
+		tutorialIndex++;
+		
+		showTutorial();
+	}
+	
+	/**
+	 * Show the game of the current GameManager with the tutorial 
+	 * instructions, then wait for the ready message to play it.
+	 */
+	private void showTutorial() {
+		
 		// Get the view created by the GameManager and use that as our view.
 		setContentView(gameManager.getView());
 		
@@ -214,8 +266,6 @@ public class TutorialDisplayActivity extends Activity implements
 		glText = (TextView) findViewById(R.id.glText);
 		glText.setText(tutorialLevelInstructions);
 		
-		tutorialIndex++;
-
 		// Register the activity with the game manager and wait for notification
 		// that it is ready to play the game.
 		gameManager.registerListener(this);
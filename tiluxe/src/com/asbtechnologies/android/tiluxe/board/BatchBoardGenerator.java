@@ -0,0 +1,253 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.board;
+
+//External Imports
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Internal Imports
+import com.asbtechnologies.android.tiluxe.util.SplitMix64;
+
+/**
+ * Generates batches of custom boards on several threads. Each thread has its
+ * own DefaultBoardGenerator, and the only thing the threads share is the 
+ * counter handing out board indexes, so the batch scales with the number of 
+ * cores. Boards are passed to a BoardConsumer as they are made rather than
+ * collected.
+ * 
+ * The seed of each board is mixed from one seed drawn for the batch and the
+ * board's index, so the board at each index does not depend on which thread
+ * generated it. Batches drawn from seed sources with the same seed are the
+ * same, whatever the parallelism.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class BatchBoardGenerator {
+	
+	/** Seeds each batch. */
+	private Random seedSource;
+	
+	/**
+	 * Default constructor.
+	 */
+	public BatchBoardGenerator() {
+		
+		this(new Random());
+	}
+	
+	/**
+	 * Create a batch generator whose batches are seeded from a random number
+	 * stream.
+	 * 
+	 * @param seedSource Seeds each batch
+	 */
+	public BatchBoardGenerator(Random seedSource) {
+		
+		this.seedSource = seedSource;
+	}
+	
+	//--------------------------------------------------------------------------
+	// Public methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Generate a batch of boards, passing each to the consumer as it is made.
+	 * Blocks until the whole batch has been generated. If the calling thread
+	 * is interrupted the batch is abandoned and the boards passed on so far
+	 * are counted.
+	 * 
+	 * @param spec Parameters of the boards to generate
+	 * @param count Number of boards to generate
+	 * @param parallelism Number of threads to generate on
+	 * @param consumer Receives each board, from several threads at once
+	 * @return Number of boards passed to the consumer
+	 * @throws IllegalArgumentException if count is negative, parallelism is
+	 * less than 1, or the pieces do not fit on the board
+	 */
+	public int generateBatch(
+			BoardSpec spec,
+			int count,
+			int parallelism,
+			BoardConsumer consumer) {
+		
+		if (count < 0) {
+			throw new IllegalArgumentException(
+					"Batch size can not be negative: " + count);
+		} else if (parallelism < 1) {
+			throw new IllegalArgumentException(
+					"Parallelism must be at least 1: " + parallelism);
+		}
+		
+		int workerCount = Math.min(parallelism, count);
+		
+		if (workerCount == 0) {
+			return 0;
+		}
+		
+		long batchSeed = seedSource.nextLong();
+		AtomicInteger nextIndex = new AtomicInteger();
+		AtomicInteger consumedCount = new AtomicInteger();
+		
+		ExecutorService executor = Executors.newFixedThreadPool(workerCount);
+		List<Future<Object>> workers = new ArrayList<Future<Object>>();
+		
+		try {
+			
+			for (int i = 0; i < workerCount; i++) {
+				
+				workers.add(executor.submit(new BatchWorker(
+						spec,
+						count,
+						nextIndex,
+						consumedCount,
+						consumer,
+						batchSeed)));
+			}
+			
+			for (int i = 0; i < workers.size(); i++) {
+				workers.get(i).get();
+			}
+			
+		} catch (InterruptedException e) {
+			
+			Thread.currentThread().interrupt();
+			
+		} catch (ExecutionException e) {
+			
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			
+			throw new IllegalStateException(e.getCause());
+			
+		} finally {
+			
+			// Stops any workers still running after a failure or interrupt.
+			nextIndex.set(count);
+			executor.shutdownNow();
+		}
+		
+		return consumedCount.get();
+	}
+	
+	/**
+	 * Get the seed of the board at an index of a batch. Mixes the batch seed
+	 * and the index with the SplitMix64 finalizer, so neighbouring indexes 
+	 * get unrelated seeds.
+	 * 
+	 * @param batchSeed Seed drawn for the batch
+	 * @param index Index of the board in the batch
+	 * @return Seed of the board
+	 */
+	public static long getBoardSeed(long batchSeed, int index) {
+		
+		return SplitMix64.mix(batchSeed + (index + 1) * 0x9E3779B97F4A7C15L);
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private classes
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Generates boards on one thread until the batch runs out of indexes.
+	 */
+	private static class BatchWorker implements Callable<Object> {
+		
+		/** Parameters of the boards to generate. */
+		private BoardSpec spec;
+		
+		/** Number of boards in the batch. */
+		private int count;
+		
+		/** Next board index to hand out, shared by the workers. */
+		private AtomicInteger nextIndex;
+		
+		/** Number of boards passed on, shared by the workers. */
+		private AtomicInteger consumedCount;
+		
+		/** Receives each board. */
+		private BoardConsumer consumer;
+		
+		/** Seed drawn for the batch. */
+		private long batchSeed;
+		
+		/** Generator owned by this worker. */
+		private DefaultBoardGenerator generator;
+		
+		/**
+		 * Default constructor.
+		 * 
+		 * @param spec Parameters of the boards to generate
+		 * @param count Number of boards in the batch
+		 * @param nextIndex Next board index to hand out
+		 * @param consumedCount Number of boards passed on
+		 * @param consumer Receives each board
+		 * @param batchSeed Seed drawn for the batch
+		 */
+		BatchWorker(
+				BoardSpec spec,
+				int count,
+				AtomicInteger nextIndex,
+				AtomicInteger consumedCount,
+				BoardConsumer consumer,
+				long batchSeed) {
+			
+			this.spec = spec;
+			this.count = count;
+			this.nextIndex = nextIndex;
+			this.consumedCount = consumedCount;
+			this.consumer = consumer;
+			this.batchSeed = batchSeed;
+			
+			generator = new DefaultBoardGenerator();
+		}
+		
+		/* (non-Javadoc)
+		 * @see java.util.concurrent.Callable#call()
+		 */
+		@Override
+		public Object call() {
+			
+			int index = nextIndex.getAndIncrement();
+			
+			while (index < count && !Thread.currentThread().isInterrupted()) {
+				
+				Board board = generator.generateBoard(
+						spec, getBoardSeed(batchSeed, index));
+				
+				if (board == null) {
+					
+					nextIndex.set(count);
+					
+					throw new IllegalArgumentException(
+							"Board pieces do not fit on a " +
+							spec.getBoardWidth() + "x" +
+							spec.getBoardHeight() + " board.");
+				}
+				
+				consumer.consumeBoard(index, board);
+				consumedCount.incrementAndGet();
+				
+				index = nextIndex.getAndIncrement();
+			}
+			
+			return null;
+		}
+	}
+}
@@ -44,6 +44,31 @@ public interface Board {
 	 */
 	public BoardPiece[][] getBoardPieces();
 	
+	/**
+	 * Fill in the pieces on the board without allocating a new array.
+	 * 
+	 * @param boardPieces Array of [width][height] to fill
+	 * @return The boardPieces array passed in
+	 */
+	public BoardPiece[][] getBoardPieces(BoardPiece[][] boardPieces);
+	
+	/**
+	 * Get the piece at a board location without copying the board or changing
+	 * the last pick.
+	 * 
+	 * @param xPos Horizontal column number
+	 * @param yPos Vertical row number
+	 * @return BoardPiece at the location
+	 */
+	public BoardPiece getBoardPiece(int xPos, int yPos);
+	
+	/**
+	 * Call the visitor for each location on the board, column by column.
+	 * 
+	 * @param visitor Visitor to call
+	 */
+	public void forEachCell(BoardCellVisitor visitor);
+	
 	/**
 	 * Get the parent target pieces that contain the individual sub pieces to 
 	 * find.
@@ -52,6 +77,22 @@ public interface Board {
 	 */
 	public BoardPiece[] getParentTargetPieces();
 	
+	/**
+	 * Get the number of parent target pieces.
+	 * 
+	 * @return Number of parent board pieces
+	 */
+	public int getParentTargetPieceCount();
+	
+	/**
+	 * Fill in the parent target pieces without allocating a new array.
+	 * 
+	 * @param parentTargetPieces Array of at least getParentTargetPieceCount()
+	 * entries to fill
+	 * @return Number of entries filled in
+	 */
+	public int getParentTargetPieces(BoardPiece[] parentTargetPieces);
+	
 	/**
 	 * Add a new piece to the board.
 	 * 
@@ -0,0 +1,43 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.board;
+
+//External Imports
+
+//Internal Imports
+
+/**
+ * Visitor called for each location on a board. The values of the location are
+ * passed as primitives, so visiting a board does not create or copy any 
+ * BoardPieces.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public interface BoardCellVisitor {
+	
+	/**
+	 * Visit a single board location.
+	 * 
+	 * @param xPos Horizontal column number
+	 * @param yPos Vertical row number
+	 * @param pieceID Unique id of the piece at the location
+	 * @param groupID Group id of the piece at the location
+	 * @param matchState BoardPieceState the location must be matched to
+	 * @param currentState Current BoardPieceState of the location
+	 */
+	public void visitCell(
+			int xPos, 
+			int yPos, 
+			int pieceID, 
+			int groupID, 
+			int matchState, 
+			int currentState);
+}
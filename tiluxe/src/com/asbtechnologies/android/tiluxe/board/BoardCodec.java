@@ -0,0 +1,533 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.board;
+
+//External Imports
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+//Internal Imports
+import com.asbtechnologies.android.tiluxe.util.UrlSafeBase64;
+
+/**
+ * Writes a DefaultBoard, including the state of play, to a compact binary
+ * form and reads it back. Reads and writes go straight to and from a
+ * ByteBuffer, and the bit packing state is kept in the codec, so encoding
+ * allocates nothing. Reuse one codec rather than creating one per board.
+ * 
+ * Version 1 of the format is three bytes, the format version, board width
+ * and board height, followed by a bit stream, high bits first:
+ * 
+ * 8 bits number of target pieces.
+ * For each target piece x, y, 1 bit orientation and length, with x, y and
+ * length in just enough bits for the larger of width and height.
+ * 3 bits per cell, 1 bit set for target tiles given away to the player
+ * then 2 bits for the current state, LIMBO, ALIVE, DEAD or EMPTY. EMPTY
+ * cells are the empty tiles given away.
+ * 2 bits win rule.
+ * 1 bit set if the board has a puzzle ID, followed by 16 bits number of
+ * free empty tiles, 16 bits number of free target tiles, 1 bit unique
+ * solution and 64 bits seed.
+ * 
+ * The stream is padded with zero bits to a whole byte. Cells are in the
+ * board's cell order, column by column. A 10x10 board with the default fleet
+ * and a puzzle ID takes 71 bytes, or 95 characters as a share code.
+ * 
+ * Not thread safe.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class BoardCodec {
+	
+	/** Version of the format written. */
+	public static final int FORMAT_VERSION = 1;
+	
+	/** Largest board width or height that can be written. */
+	public static final int MAX_DIMENSION = 255;
+	
+	/** Largest number of target pieces that can be written. */
+	public static final int MAX_PIECE_COUNT = 255;
+	
+	/** Bytes before the bit stream, version, width and height. */
+	private static final int HEADER_SIZE = 3;
+	
+	/** Bits used for the number of target pieces. */
+	private static final int PIECE_COUNT_BITS = 8;
+	
+	/** Bits used for the state of a cell. */
+	private static final int CELL_STATE_BITS = 2;
+	
+	/** Bits used for a cell, the given away flag and the state. */
+	private static final int CELL_BITS = 1 + CELL_STATE_BITS;
+	
+	/** Number of cells packed together before going to the bit stream. */
+	private static final int CELLS_PER_GROUP = 8;
+	
+	/** Bits used for the win rule. */
+	private static final int WIN_RULE_BITS = 2;
+	
+	/** Bits used for each number of free tiles of the puzzle ID. */
+	private static final int FREE_COUNT_BITS = 16;
+	
+	/** Cell state code for LIMBO. */
+	private static final int CODE_LIMBO = 0;
+	
+	/** Cell state code for ALIVE. */
+	private static final int CODE_ALIVE = 1;
+	
+	/** Cell state code for DEAD. */
+	private static final int CODE_DEAD = 2;
+	
+	/** Cell state code for EMPTY. */
+	private static final int CODE_EMPTY = 3;
+	
+	/** Buffer being read or written. */
+	private ByteBuffer buffer;
+	
+	/** Bits read or written but not yet taken or put, in the low bits. */
+	private long bits;
+	
+	/** Number of bits waiting in bits. */
+	private int bitCount;
+	
+	/** Scratch buffer for share codes, grown when needed. */
+	private ByteBuffer shareBuffer;
+	
+	/**
+	 * Default constructor.
+	 */
+	public BoardCodec() {
+		
+		shareBuffer = ByteBuffer.allocate(128);
+	}
+	
+	//--------------------------------------------------------------------------
+	// Public methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Get the number of bytes write() will put for a board.
+	 * 
+	 * @param board Board to write
+	 * @return Number of bytes
+	 */
+	public int getEncodedSize(DefaultBoard board) {
+		
+		return getEncodedSize(
+				board.getWidth(),
+				board.getHeight(),
+				board.getParentTargetPieceCount(),
+				board.getPuzzleId() != null);
+	}
+	
+	/**
+	 * Get the number of bytes write() will put for any board of a size and
+	 * number of target pieces.
+	 *
+	 * @param width Width of the board
+	 * @param height Height of the board
+	 * @param pieceCount Number of target pieces
+	 * @param hasPuzzleId True if the board has a puzzle ID
+	 * @return Number of bytes
+	 */
+	public static int getEncodedSize(
+			int width,
+			int height,
+			int pieceCount,
+			boolean hasPuzzleId) {
+		
+		int sizeBits = getSizeBits(width, height);
+		
+		int streamBits = PIECE_COUNT_BITS +
+			pieceCount * (3 * sizeBits + 1) +
+			width * height * CELL_BITS +
+			WIN_RULE_BITS +
+			1;
+		
+		if (hasPuzzleId) {
+			streamBits += 2 * FREE_COUNT_BITS + 1 + 64;
+		}
+		
+		return HEADER_SIZE + (streamBits + 7) / 8;
+	}
+	
+	/**
+	 * Write a board at the buffer position. The position is moved past the
+	 * board.
+	 * 
+	 * @param board Board to write
+	 * @param target Buffer with getEncodedSize(board) bytes remaining
+	 * @throws IllegalArgumentException if the board is too large or has too
+	 * many target pieces to be written
+	 * @throws java.nio.BufferOverflowException if the buffer is too small
+	 */
+	public void write(DefaultBoard board, ByteBuffer target) {
+		
+		int width = board.getWidth();
+		int height = board.getHeight();
+		int pieceCount = board.getParentTargetPieceCount();
+		
+		if (width > MAX_DIMENSION || height > MAX_DIMENSION) {
+			throw new IllegalArgumentException(
+					"Board is too large to write: " + width + "x" + height);
+		} else if (pieceCount > MAX_PIECE_COUNT) {
+			throw new IllegalArgumentException(
+					"Board has too many target pieces to write: " + pieceCount);
+		}
+		
+		int sizeBits = getSizeBits(width, height);
+		int cellCount = width * height;
+		
+		buffer = target;
+		bits = 0;
+		bitCount = 0;
+		
+		buffer.put((byte) FORMAT_VERSION);
+		buffer.put((byte) width);
+		buffer.put((byte) height);
+		
+		writeBits(pieceCount, PIECE_COUNT_BITS);
+		
+		for (int i = 0; i < pieceCount; i++) {
+			
+			DefaultBoardPiece piece = board.getTargetParentPiece(i);
+			
+			writeBits(piece.getX(), sizeBits);
+			writeBits(piece.getY(), sizeBits);
+			writeBits(piece.getOrientation() ==
+				BoardPiece.VERTICAL_ORIENTATION ? 1 : 0, 1);
+			writeBits(piece.getLength(), sizeBits);
+		}
+		
+		// Cells are packed a group at a time to save on calls to writeBits.
+		int group = 0;
+		int groupSize = 0;
+		
+		for (int i = 0; i < cellCount; i++) {
+			
+			int cell = getStateCode(board.getCellCurrentState(i));
+			
+			if (board.getCellStartingState(i) == BoardPieceState.STATE_ALIVE) {
+				cell |= 1 << CELL_STATE_BITS;
+			}
+			
+			group = (group << CELL_BITS) | cell;
+			groupSize++;
+			
+			if (groupSize == CELLS_PER_GROUP) {
+				
+				writeBits(group, CELLS_PER_GROUP * CELL_BITS);
+				group = 0;
+				groupSize = 0;
+			}
+		}
+		
+		writeBits(group, groupSize * CELL_BITS);
+		
+		writeBits(board.getWinRule(), WIN_RULE_BITS);
+		
+		PuzzleId puzzleId = board.getPuzzleId();
+		
+		if (puzzleId == null) {
+			
+			writeBits(0, 1);
+			
+		} else {
+			
+			BoardSpec spec = puzzleId.getSpec();
+			long seed = puzzleId.getSeed();
+			
+			writeBits(1, 1);
+			writeBits(spec.getNumberOfFreeEmpty(), FREE_COUNT_BITS);
+			writeBits(spec.getNumberOfFreeTargets(), FREE_COUNT_BITS);
+			writeBits(spec.isUniqueSolution() ? 1 : 0, 1);
+			writeBits((int) (seed >>> 32), 32);
+			writeBits((int) seed, 32);
+		}
+		
+		flushBits();
+		buffer = null;
+	}
+	
+	/**
+	 * Read a board from the buffer position. The position is moved past the
+	 * board.
+	 * 
+	 * @param source Buffer holding a board written by write()
+	 * @return Board, with the state of play it was written with
+	 * @throws IllegalArgumentException if the buffer does not hold a board
+	 * this codec can read
+	 * @throws java.nio.BufferUnderflowException if the board is cut short
+	 */
+	public DefaultBoard read(ByteBuffer source) {
+		
+		buffer = source;
+		bits = 0;
+		bitCount = 0;
+		
+		int version = buffer.get() & 0xFF;
+		int width = buffer.get() & 0xFF;
+		int height = buffer.get() & 0xFF;
+		
+		if (version != FORMAT_VERSION) {
+			throw new IllegalArgumentException(
+					"Unknown board format version: " + version);
+		} else if (width == 0 || height == 0) {
+			throw new IllegalArgumentException(
+					"Board has no cells: " + width + "x" + height);
+		}
+		
+		int sizeBits = getSizeBits(width, height);
+		int cellCount = width * height;
+		DefaultBoard board = new DefaultBoard(width, height);
+		int pieceCount = readBits(PIECE_COUNT_BITS);
+		
+		for (int i = 0; i < pieceCount; i++) {
+			
+			int xPos = readBits(sizeBits);
+			int yPos = readBits(sizeBits);
+			int orientation = readBits(1) == 1 ?
+					BoardPiece.VERTICAL_ORIENTATION :
+					BoardPiece.HORIZONTAL_ORIENTATION;
+			int length = readBits(sizeBits);
+			
+			int xEnd = xPos;
+			int yEnd = yPos;
+			
+			if (orientation == BoardPiece.HORIZONTAL_ORIENTATION) {
+				xEnd += length - 1;
+			} else {
+				yEnd += length - 1;
+			}
+			
+			if (length < 1 || xEnd >= width || yEnd >= height) {
+				throw new IllegalArgumentException(
+						"Target piece is off the board at " + xPos + "," +
+						yPos);
+			}
+			
+			board.addBoardPiece(new DefaultBoardPiece(
+					xPos,
+					yPos,
+					orientation,
+					length,
+					BoardPieceState.STATE_ALIVE,
+					board.generateGroupID()));
+		}
+		
+		for (int first = 0; first < cellCount; first += CELLS_PER_GROUP) {
+			
+			int groupSize = Math.min(CELLS_PER_GROUP, cellCount - first);
+			int group = readBits(groupSize * CELL_BITS);
+			
+			for (int i = first + groupSize - 1; i >= first; i--) {
+				
+				int currentState = getState(group & ((1 << CELL_STATE_BITS) - 1));
+				
+				if ((group & (1 << CELL_STATE_BITS)) != 0) {
+					board.restoreCell(
+							i, currentState, BoardPieceState.STATE_ALIVE);
+				} else if (currentState != BoardPieceState.STATE_LIMBO) {
+					board.restoreCell(
+							i, currentState, BoardPieceState.STATE_LIMBO);
+				}
+				
+				group >>>= CELL_BITS;
+			}
+		}
+		
+		board.setWinRule(readBits(WIN_RULE_BITS));
+		
+		if (readBits(1) == 1) {
+			
+			int numberOfFreeEmpty = readBits(FREE_COUNT_BITS);
+			int numberOfFreeTargets = readBits(FREE_COUNT_BITS);
+			boolean uniqueSolution = readBits(1) == 1;
+			long seed = ((long) readBits(32) << 32) |
+				(readBits(32) & 0xFFFFFFFFL);
+			
+			int[] pieceLengths = new int[pieceCount];
+			
+			for (int i = 0; i < pieceCount; i++) {
+				pieceLengths[i] = board.getTargetParentPiece(i).getLength();
+			}
+			
+			board.setPuzzleId(new PuzzleId(
+					new BoardSpec(
+							width,
+							height,
+							pieceLengths,
+							numberOfFreeEmpty,
+							numberOfFreeTargets,
+							uniqueSolution),
+					seed));
+		}
+		
+		buffer = null;
+		
+		return board;
+	}
+	
+	/**
+	 * Get a short code for a board that is safe to put in a URL. The code is
+	 * the board as written by write(), in URL safe base64.
+	 * 
+	 * @param board Board to encode
+	 * @return Share code
+	 */
+	public String toShareCode(DefaultBoard board) {
+		
+		int size = getEncodedSize(board);
+		
+		if (shareBuffer.capacity() < size) {
+			shareBuffer = ByteBuffer.allocate(size);
+		}
+		
+		shareBuffer.clear();
+		write(board, shareBuffer);
+		shareBuffer.flip();
+		
+		return UrlSafeBase64.encode(shareBuffer);
+	}
+	
+	/**
+	 * Read a board from a share code.
+	 * 
+	 * @param shareCode Code returned by toShareCode()
+	 * @return Board
+	 * @throws IllegalArgumentException if the code is not a board this codec
+	 * can read
+	 */
+	public DefaultBoard fromShareCode(String shareCode) {
+		
+		int size = UrlSafeBase64.getDecodedLength(shareCode);
+		
+		if (shareBuffer.capacity() < size) {
+			shareBuffer = ByteBuffer.allocate(size);
+		}
+		
+		shareBuffer.clear();
+		UrlSafeBase64.decode(shareCode, shareBuffer);
+		shareBuffer.flip();
+		
+		try {
+			return read(shareBuffer);
+		} catch (BufferUnderflowException e) {
+			throw new IllegalArgumentException(
+					"Board share code is cut short: " + shareCode);
+		}
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Get the number of bits used for x, y and length values.
+	 * 
+	 * @param width Width of the board
+	 * @param height Height of the board
+	 * @return Number of bits that hold the larger of width and height
+	 */
+	private static int getSizeBits(int width, int height) {
+		
+		return 32 - Integer.numberOfLeadingZeros(Math.max(width, height));
+	}
+	
+	/**
+	 * Get the code written for a cell state.
+	 * 
+	 * @param state BoardPieceState value
+	 * @return Cell state code
+	 */
+	private static int getStateCode(int state) {
+		
+		switch (state) {
+			case BoardPieceState.STATE_ALIVE:
+				return CODE_ALIVE;
+			case BoardPieceState.STATE_DEAD:
+				return CODE_DEAD;
+			case BoardPieceState.EMPTY:
+				return CODE_EMPTY;
+			default:
+				return CODE_LIMBO;
+		}
+	}
+	
+	/**
+	 * Get the cell state a code was written for.
+	 * 
+	 * @param code Cell state code
+	 * @return BoardPieceState value
+	 */
+	private static int getState(int code) {
+		
+		switch (code) {
+			case CODE_ALIVE:
+				return BoardPieceState.STATE_ALIVE;
+			case CODE_DEAD:
+				return BoardPieceState.STATE_DEAD;
+			case CODE_EMPTY:
+				return BoardPieceState.EMPTY;
+			default:
+				return BoardPieceState.STATE_LIMBO;
+		}
+	}
+	
+	/**
+	 * Add bits to the stream, putting each whole byte to the buffer.
+	 * 
+	 * @param value Value to write, in the low bits
+	 * @param count Number of bits to write, 32 or fewer
+	 */
+	private void writeBits(int value, int count) {
+		
+		bits = (bits << count) | (value & ((1L << count) - 1));
+		bitCount += count;
+		
+		while (bitCount >= 8) {
+			
+			bitCount -= 8;
+			buffer.put((byte) (bits >>> bitCount));
+		}
+	}
+	
+	/**
+	 * Put any bits left in the stream, padded with zeros to a whole byte.
+	 */
+	private void flushBits() {
+		
+		if (bitCount > 0) {
+			
+			buffer.put((byte) (bits << (8 - bitCount)));
+			bitCount = 0;
+		}
+	}
+	
+	/**
+	 * Take bits from the stream, getting bytes from the buffer as needed.
+	 * 
+	 * @param count Number of bits to read, 32 or fewer
+	 * @return Value read, in the low bits
+	 */
+	private int readBits(int count) {
+		
+		while (bitCount < count) {
+			
+			bits = (bits << 8) | (buffer.get() & 0xFF);
+			bitCount += 8;
+		}
+		
+		bitCount -= count;
+		
+		return (int) ((bits >>> bitCount) & ((1L << count) - 1));
+	}
+}
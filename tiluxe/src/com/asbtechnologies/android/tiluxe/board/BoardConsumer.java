@@ -0,0 +1,33 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.board;
+
+//External Imports
+
+//Internal Imports
+
+/**
+ * Receives the boards of a batch as they are generated, so the batch never
+ * has to be held in memory at once.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public interface BoardConsumer {
+	
+	/**
+	 * Take a newly generated board. Called from the generating threads,
+	 * several at a time, so implementations must be thread safe.
+	 * 
+	 * @param index Index of the board in the batch, from 0 to count - 1
+	 * @param board Generated board
+	 */
+	public void consumeBoard(int index, Board board);
+}
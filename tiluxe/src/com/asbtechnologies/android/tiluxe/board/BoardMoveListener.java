@@ -0,0 +1,34 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.board;
+
+//External Imports
+
+//Internal Imports
+
+/**
+ * Listener for the cells of a board changing state. Unlike 
+ * BoardStateListener the notification says which cell changed and what to, 
+ * so every change can be recorded or drawn. Notifications are sent on the 
+ * thread that changed the cell, after the board's counts are updated.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public interface BoardMoveListener {
+	
+	/**
+	 * Receives notification that a cell of the board changed state.
+	 * 
+	 * @param cellIndex Index of the cell, which is also its piece ID.
+	 * @param state New BoardPieceState value.
+	 */
+	public void boardMoveNotification(int cellIndex, int state);
+}
@@ -54,6 +54,24 @@ public interface BoardPerimeterLegend {
 	 */
 	public int[] getHorizontalLegend();
 	
+	/**
+	 * Fill in the vertical legend for the Board without allocating a new 
+	 * array.
+	 * 
+	 * @param verticalLegend Array with one entry per row to fill
+	 * @return The verticalLegend array passed in
+	 */
+	public int[] getVerticalLegend(int[] verticalLegend);
+	
+	/**
+	 * Fill in the horizontal legend for the Board without allocating a new 
+	 * array.
+	 * 
+	 * @param horizontalLegend Array with one entry per column to fill
+	 * @return The horizontalLegend array passed in
+	 */
+	public int[] getHorizontalLegend(int[] horizontalLegend);
+	
 	/**
 	 * Get the vertical legend hint values for the Board. These correlate with 
 	 * the rows and the values can be: HINT_ALL_CORRECT, HINT_ALMOST_CORRECT, 
@@ -71,4 +89,22 @@ public interface BoardPerimeterLegend {
 	 * @return Hint value
 	 */
 	public int[] getHorizontalLegendHint();
+	
+	/**
+	 * Fill in the vertical legend hint values for the Board without 
+	 * allocating a new array.
+	 * 
+	 * @param verticalLegendHint Array with one entry per row to fill
+	 * @return The verticalLegendHint array passed in
+	 */
+	public int[] getVerticalLegendHint(int[] verticalLegendHint);
+	
+	/**
+	 * Fill in the horizontal legend hint values for the Board without 
+	 * allocating a new array.
+	 * 
+	 * @param horizontalLegendHint Array with one entry per column to fill
+	 * @return The horizontalLegendHint array passed in
+	 */
+	public int[] getHorizontalLegendHint(int[] horizontalLegendHint);
 }
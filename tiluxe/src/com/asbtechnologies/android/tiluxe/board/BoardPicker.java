@@ -45,4 +45,12 @@ public interface BoardPicker {
 	 * @return BoardPiece requested.
 	 */
 	public BoardPiece pickByID(int pieceID);
+	
+	/**
+	 * Get the pieces picked by their own unique ids.
+	 * 
+	 * @param pieceIDs Unique piece IDs to look up.
+	 * @return BoardPieces requested, in the order of the pieceIDs.
+	 */
+	public BoardPiece[] pickByIDs(int[] pieceIDs);
 }
@@ -28,8 +28,15 @@ public interface BoardPiece {
 	/** Vertical piece orientation constant. */
 	public static final int VERTICAL_ORIENTATION = 1;
 	
+	/** Piece ID of a piece that has not been placed on a board. */
+	public static final int NO_ID = -1;
+	
+	/** Group ID of a piece that does not belong to a group. */
+	public static final int NO_GROUP = -1;
+	
 	/**
-	 * Get the unique identification number for the piece.
+	 * Get the unique identification number for the piece. Pieces on a board 
+	 * are identified by their location, pieces not on a board return NO_ID.
 	 * 
 	 * @return Unique idenfication number.
 	 */
@@ -50,6 +57,29 @@ public interface BoardPiece {
 	 */
 	public int[] getLocation();
 	
+	/**
+	 * Fill in the location of the piece on the board without allocating a new
+	 * array.
+	 * 
+	 * @param location Array of at least 2 entries, [0] = x, [1] = y
+	 * @return The location array passed in
+	 */
+	public int[] getLocation(int[] location);
+	
+	/**
+	 * Get the horizontal position of the piece on the board.
+	 * 
+	 * @return Column number
+	 */
+	public int getX();
+	
+	/**
+	 * Get the vertical position of the piece on the board.
+	 * 
+	 * @return Row number
+	 */
+	public int getY();
+	
 	/**
 	 * Get the orientation of the piece on the board, either horizontal or
 	 * vertical.
@@ -71,4 +101,19 @@ public interface BoardPiece {
 	 * @return Array of sub BoardPieces
 	 */
 	public BoardPiece[] getSubPieces();
+	
+	/**
+	 * Get the number of sub pieces of the BoardPiece.
+	 * 
+	 * @return Number of sub pieces, 0 if there are none
+	 */
+	public int getSubPieceCount();
+	
+	/**
+	 * Get a single sub piece of the BoardPiece without copying the sub pieces.
+	 * 
+	 * @param index Index of the sub piece, from 0 to getSubPieceCount() - 1
+	 * @return Sub BoardPiece
+	 */
+	public BoardPiece getSubPiece(int index);
 }
@@ -0,0 +1,140 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.board;
+
+//External Imports
+
+//Internal Imports
+
+/**
+ * The parameters of a custom board, as passed to
+ * BoardGenerator.generateCustomBoard. Immutable, so one spec can be shared
+ * by many generators.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class BoardSpec {
+	
+	/** Width of the board. */
+	private int boardWidth;
+	
+	/** Height of the board. */
+	private int boardHeight;
+	
+	/** Piece lengths to be generated on the board. */
+	private int[] pieceLengths;
+	
+	/** Number of empty tiles to give away. */
+	private int numberOfFreeEmpty;
+	
+	/** Number of target tiles to give away. */
+	private int numberOfFreeTargets;
+	
+	/** True if the board must have exactly one solution. */
+	private boolean uniqueSolution;
+	
+	/**
+	 * Default constructor.
+	 * 
+	 * @param boardWidth Width of the board
+	 * @param boardHeight Height of the board
+	 * @param pieceLengths Piece lengths to be generated on the board.
+	 * @param numberOfFreeEmpty Number of empty tiles to give away.
+	 * @param numberOfFreeTargets Number of target tiles to give away.
+	 * @param uniqueSolution True if the board must have exactly one solution.
+	 */
+	public BoardSpec(
+			int boardWidth,
+			int boardHeight,
+			int[] pieceLengths,
+			int numberOfFreeEmpty,
+			int numberOfFreeTargets,
+			boolean uniqueSolution) {
+		
+		this.boardWidth = boardWidth;
+		this.boardHeight = boardHeight;
+		this.pieceLengths = new int[pieceLengths.length];
+		this.numberOfFreeEmpty = numberOfFreeEmpty;
+		this.numberOfFreeTargets = numberOfFreeTargets;
+		this.uniqueSolution = uniqueSolution;
+		
+		System.arraycopy(
+				pieceLengths, 0, this.pieceLengths, 0, pieceLengths.length);
+	}
+	
+	//--------------------------------------------------------------------------
+	// Public methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Get the width of the board.
+	 * 
+	 * @return Width of the board.
+	 */
+	public int getBoardWidth() {
+		
+		return boardWidth;
+	}
+	
+	/**
+	 * Get the height of the board.
+	 * 
+	 * @return Height of the board.
+	 */
+	public int getBoardHeight() {
+		
+		return boardHeight;
+	}
+	
+	/**
+	 * Get a copy of the piece lengths. The generator sorts the lengths it is
+	 * given, so each caller gets its own copy.
+	 * 
+	 * @return Piece lengths to be generated on the board.
+	 */
+	public int[] getPieceLengths() {
+		
+		int[] copy = new int[pieceLengths.length];
+		System.arraycopy(pieceLengths, 0, copy, 0, copy.length);
+		
+		return copy;
+	}
+	
+	/**
+	 * Get the number of empty tiles to give away.
+	 * 
+	 * @return Number of empty tiles to give away.
+	 */
+	public int getNumberOfFreeEmpty() {
+		
+		return numberOfFreeEmpty;
+	}
+	
+	/**
+	 * Get the number of target tiles to give away.
+	 * 
+	 * @return Number of target tiles to give away.
+	 */
+	public int getNumberOfFreeTargets() {
+		
+		return numberOfFreeTargets;
+	}
+	
+	/**
+	 * Check if the board must have exactly one solution.
+	 * 
+	 * @return True if one solution is required, false otherwise.
+	 */
+	public boolean isUniqueSolution() {
+		
+		return uniqueSolution;
+	}
+}
@@ -20,6 +20,21 @@ package com.asbtechnologies.android.tiluxe.board;
 * @version $Revision: 1.2 $
 */
 public interface BoardState {
+	
+	/** 
+	 * Game is over when only the pieces that should be marked alive are set 
+	 * to alive. Pieces that must match EMPTY are ignored.
+	 */
+	public static final int WIN_RULE_ALIVE_MATCH = 0;
+	
+	/** 
+	 * Game is over when only the pieces that should be marked dead are set to
+	 * dead. Pieces that must match EMPTY are ignored.
+	 */
+	public static final int WIN_RULE_DEAD_MATCH = 1;
+	
+	/** Game is over when either the alive or the dead match rule is met. */
+	public static final int WIN_RULE_ALIVE_OR_DEAD_MATCH = 2;
 
 	/**
 	 * See if the game is over.
@@ -27,5 +42,22 @@ public interface BoardState {
 	 * @return True if the game is over, false otherwise
 	 */
 	public boolean isGameOver();
+	
+	/**
+	 * Set the rule used to decide if the game is over. Defaults to 
+	 * WIN_RULE_ALIVE_MATCH.
+	 * 
+	 * @param winRule WIN_RULE_ALIVE_MATCH, WIN_RULE_DEAD_MATCH or 
+	 * WIN_RULE_ALIVE_OR_DEAD_MATCH
+	 */
+	public void setWinRule(int winRule);
+	
+	/**
+	 * Get the rule used to decide if the game is over.
+	 * 
+	 * @return WIN_RULE_ALIVE_MATCH, WIN_RULE_DEAD_MATCH or 
+	 * WIN_RULE_ALIVE_OR_DEAD_MATCH
+	 */
+	public int getWinRule();
 
 }
@@ -0,0 +1,51 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.board;
+
+//External Imports
+
+//Internal Imports
+
+/**
+ * Listener for changes in the state of a board. BoardStateListeners can be 
+ * registered with a DefaultBoard and will be notified as the pieces on the 
+ * board change state. Notifications are sent on the thread that changed the 
+ * piece.
+ *
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public interface BoardStateListener {
+	
+	//--------------------------------------------------------------------------
+	// Board state listener messages
+	//--------------------------------------------------------------------------
+	
+	/** A piece on the board changed state. */
+	public static final int BOARD_STATE_CHANGED = 0;
+	
+	/** 
+	 * The piece that just changed state completed the board. Sent after the 
+	 * BOARD_STATE_CHANGED message for the same change.
+	 */
+	public static final int BOARD_GAME_OVER = 1;
+	
+	//--------------------------------------------------------------------------
+	// Method definitions
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Receives notification from the board with a message value. Message value
+	 * can be one of the message constants defined by BoardStateListener.
+	 * 
+	 * @param message Message value from BoardStateListener.
+	 */
+	public void boardStateNotification(int message);
+}
@@ -0,0 +1,513 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.board;
+
+//External Imports
+
+//Internal Imports
+
+/**
+ * Follows the player's marks on a board and keeps the set of marked cells
+ * that can not be part of any solution, whatever the rest of the board
+ * turns out to be. Only the marks and the clues are used, never the answer,
+ * and tiles given away are never in conflict.
+ * 
+ * A target mark is in conflict if its row or column has more target marks
+ * than its legend, if it touches another target mark corner to corner, if
+ * it has target marks beside it both across and down, or if it is part of
+ * a straight run longer than the longest piece. An empty mark is in
+ * conflict if its row or column has too few cells left unmarked or marked
+ * as targets to meet the legend.
+ * 
+ * Each move only checks the row and column of the cell, the runs through
+ * it and its neighbours, so the cost of a move is a few dozen cells on any
+ * board. The cells whose conflict changed on the last move are kept for
+ * the caller to redraw.
+ * 
+ * Register the checker with DefaultBoard.registerMoveListener for as long
+ * as it is used. Not thread safe.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class ContradictionChecker implements BoardMoveListener {
+	
+	/** Width of the board. */
+	private int width;
+	
+	/** Height of the board. */
+	private int height;
+	
+	/** Length of the longest target piece. */
+	private int maxLength;
+	
+	/** Number of target cells in each row. */
+	private int[] rowLegend;
+	
+	/** Number of target cells in each column. */
+	private int[] columnLegend;
+	
+	/** True for each cell marked as a target. */
+	private boolean[] shipMarks;
+	
+	/** True for each cell marked or given as empty. */
+	private boolean[] waterMarks;
+	
+	/** True for each cell given away, whose mark can not be wrong. */
+	private boolean[] given;
+	
+	/** Number of target marks in each row. */
+	private int[] rowShipCount;
+	
+	/** Number of empty marks in each row. */
+	private int[] rowWaterCount;
+	
+	/** Number of target marks in each column. */
+	private int[] columnShipCount;
+	
+	/** Number of empty marks in each column. */
+	private int[] columnWaterCount;
+	
+	/** True for each cell in conflict. */
+	private boolean[] conflicted;
+	
+	/** Number of cells in conflict. */
+	private int conflictCount;
+	
+	/** Cells to check on the current move. */
+	private int[] checkCells;
+	
+	/** Number of entries in checkCells. */
+	private int checkCount;
+	
+	/** Move number each cell was last added to checkCells on. */
+	private int[] checkStamp;
+	
+	/** Number of the current move, to tell checkStamp entries apart. */
+	private int moveNumber;
+	
+	/** Cells whose conflict changed on the last move. */
+	private int[] changedCells;
+	
+	/** Number of entries in changedCells. */
+	private int changedCount;
+	
+	/**
+	 * Create a checker for a board, checking the marks made so far.
+	 * 
+	 * @param board Board to follow
+	 */
+	public ContradictionChecker(DefaultBoard board) {
+		
+		width = board.getWidth();
+		height = board.getHeight();
+		
+		int cellCount = width * height;
+		
+		rowLegend = board.getVerticalLegend(new int[height]);
+		columnLegend = board.getHorizontalLegend(new int[width]);
+		
+		BoardPiece[] targetPieces =
+			new BoardPiece[board.getParentTargetPieceCount()];
+		board.getParentTargetPieces(targetPieces);
+		
+		for (int i = 0; i < targetPieces.length; i++) {
+			maxLength = Math.max(maxLength, targetPieces[i].getLength());
+		}
+		
+		shipMarks = new boolean[cellCount];
+		waterMarks = new boolean[cellCount];
+		given = new boolean[cellCount];
+		rowShipCount = new int[height];
+		rowWaterCount = new int[height];
+		columnShipCount = new int[width];
+		columnWaterCount = new int[width];
+		conflicted = new boolean[cellCount];
+		checkCells = new int[cellCount];
+		checkStamp = new int[cellCount];
+		changedCells = new int[cellCount];
+		
+		for (int i = 0; i < cellCount; i++) {
+			
+			int xPos = i / height;
+			int yPos = i % height;
+			
+			given[i] =
+				board.getMatchState(xPos, yPos) == BoardPieceState.EMPTY ||
+				board.getStartingState(xPos, yPos) ==
+					BoardPieceState.STATE_ALIVE;
+			setMark(i, board.getCurrentState(xPos, yPos));
+		}
+		
+		moveNumber++;
+		
+		for (int i = 0; i < cellCount; i++) {
+			addCheck(i);
+		}
+		
+		runChecks();
+	}
+	
+	//--------------------------------------------------------------------------
+	// Methods required by BoardMoveListener
+	//--------------------------------------------------------------------------
+	
+	/* (non-Javadoc)
+	 * @see com.asbtechnologies.android.tiluxe.board.BoardMoveListener#boardMoveNotification(int, int)
+	 */
+	@Override
+	public void boardMoveNotification(int cellIndex, int state) {
+		
+		int xPos = cellIndex / height;
+		int yPos = cellIndex % height;
+		
+		boolean rowWasOver = isRowShipOver(yPos);
+		boolean rowWasShort = isRowWaterOver(yPos);
+		boolean columnWasOver = isColumnShipOver(xPos);
+		boolean columnWasShort = isColumnWaterOver(xPos);
+		
+		// Runs through the cell before the move, which a new empty mark
+		// splits.
+		moveNumber++;
+		addRuns(xPos, yPos);
+		
+		setMark(cellIndex, state);
+		
+		// Runs through the cell after the move, which a new target mark joins.
+		addRuns(xPos, yPos);
+		
+		// Cells touching the cell across, down or corner to corner.
+		for (int x = Math.max(0, xPos - 1);
+				x <= Math.min(width - 1, xPos + 1);
+				x++) {
+			for (int y = Math.max(0, yPos - 1);
+					y <= Math.min(height - 1, yPos + 1);
+					y++) {
+				addCheck(x * height + y);
+			}
+		}
+		
+		// Whole row and column when their counts cross the legend.
+		if (rowWasOver != isRowShipOver(yPos) ||
+				rowWasShort != isRowWaterOver(yPos)) {
+			
+			for (int x = 0; x < width; x++) {
+				addCheck(x * height + yPos);
+			}
+		}
+		
+		if (columnWasOver != isColumnShipOver(xPos) ||
+				columnWasShort != isColumnWaterOver(xPos)) {
+			
+			for (int y = 0; y < height; y++) {
+				addCheck(xPos * height + y);
+			}
+		}
+		
+		runChecks();
+	}
+	
+	//--------------------------------------------------------------------------
+	// Public methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Check if a marked cell can not be part of any solution.
+	 * 
+	 * @param cellIndex Index of the cell, x * height + y
+	 * @return True if the cell is in conflict
+	 */
+	public boolean isConflicted(int cellIndex) {
+		
+		return conflicted[cellIndex];
+	}
+	
+	/**
+	 * Get the number of cells in conflict.
+	 * 
+	 * @return Number of cells
+	 */
+	public int getConflictCount() {
+		
+		return conflictCount;
+	}
+	
+	/**
+	 * Get every cell in conflict.
+	 * 
+	 * @param cellIndexes Array with room for getConflictCount() entries
+	 * @return Number of entries filled
+	 */
+	public int getConflictedCells(int[] cellIndexes) {
+		
+		int count = 0;
+		
+		for (int i = 0; i < conflicted.length; i++) {
+			
+			if (conflicted[i]) {
+				cellIndexes[count++] = i;
+			}
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Get the number of cells whose conflict changed on the last move.
+	 * 
+	 * @return Number of cells
+	 */
+	public int getChangedCount() {
+		
+		return changedCount;
+	}
+	
+	/**
+	 * Get a cell whose conflict changed on the last move. Use isConflicted
+	 * to find which way it changed.
+	 * 
+	 * @param index Index from 0 to getChangedCount() - 1
+	 * @return Index of the cell
+	 */
+	public int getChangedCell(int index) {
+		
+		return changedCells[index];
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Take in the mark on a cell and update the row and column counts.
+	 * 
+	 * @param cellIndex Index of the cell
+	 * @param state Current BoardPieceState of the cell
+	 */
+	private void setMark(int cellIndex, int state) {
+		
+		int xPos = cellIndex / height;
+		int yPos = cellIndex % height;
+		
+		if (shipMarks[cellIndex]) {
+			rowShipCount[yPos]--;
+			columnShipCount[xPos]--;
+		}
+		
+		if (waterMarks[cellIndex]) {
+			rowWaterCount[yPos]--;
+			columnWaterCount[xPos]--;
+		}
+		
+		shipMarks[cellIndex] = state == BoardPieceState.STATE_ALIVE;
+		waterMarks[cellIndex] = state == BoardPieceState.STATE_DEAD ||
+			state == BoardPieceState.EMPTY;
+		
+		if (shipMarks[cellIndex]) {
+			rowShipCount[yPos]++;
+			columnShipCount[xPos]++;
+		}
+		
+		if (waterMarks[cellIndex]) {
+			rowWaterCount[yPos]++;
+			columnWaterCount[xPos]++;
+		}
+	}
+	
+	/**
+	 * Add the cells of the runs of target marks across and down through a
+	 * cell to the cells to check, with the cell itself.
+	 * 
+	 * @param xPos Horizontal column number
+	 * @param yPos Vertical row number
+	 */
+	private void addRuns(int xPos, int yPos) {
+		
+		addCheck(xPos * height + yPos);
+		
+		for (int x = xPos - 1; x >= 0 && isShip(x, yPos); x--) {
+			addCheck(x * height + yPos);
+		}
+		
+		for (int x = xPos + 1; x < width && isShip(x, yPos); x++) {
+			addCheck(x * height + yPos);
+		}
+		
+		for (int y = yPos - 1; y >= 0 && isShip(xPos, y); y--) {
+			addCheck(xPos * height + y);
+		}
+		
+		for (int y = yPos + 1; y < height && isShip(xPos, y); y++) {
+			addCheck(xPos * height + y);
+		}
+	}
+	
+	/**
+	 * Add a cell to the cells to check on this move, once.
+	 * 
+	 * @param cellIndex Index of the cell
+	 */
+	private void addCheck(int cellIndex) {
+		
+		if (checkStamp[cellIndex] != moveNumber) {
+			
+			checkStamp[cellIndex] = moveNumber;
+			checkCells[checkCount++] = cellIndex;
+		}
+	}
+	
+	/**
+	 * Check each cell added since the last move and record the ones whose
+	 * conflict changed.
+	 */
+	private void runChecks() {
+		
+		changedCount = 0;
+		
+		for (int i = 0; i < checkCount; i++) {
+			
+			int cellIndex = checkCells[i];
+			boolean conflict = findConflict(cellIndex);
+			
+			if (conflict != conflicted[cellIndex]) {
+				
+				conflicted[cellIndex] = conflict;
+				conflictCount += conflict ? 1 : -1;
+				changedCells[changedCount++] = cellIndex;
+			}
+		}
+		
+		checkCount = 0;
+	}
+	
+	/**
+	 * Work out if the mark on a cell can not be part of any solution.
+	 * 
+	 * @param cellIndex Index of the cell
+	 * @return True if the cell is in conflict
+	 */
+	private boolean findConflict(int cellIndex) {
+		
+		int xPos = cellIndex / height;
+		int yPos = cellIndex % height;
+		
+		if (given[cellIndex]) {
+			return false;
+		}
+		
+		if (waterMarks[cellIndex]) {
+			return isRowWaterOver(yPos) || isColumnWaterOver(xPos);
+		}
+		
+		if (!shipMarks[cellIndex]) {
+			return false;
+		}
+		
+		if (isRowShipOver(yPos) || isColumnShipOver(xPos)) {
+			return true;
+		}
+		
+		// Pieces are straight and never touch, so no target mark can touch
+		// another corner to corner.
+		if (isShip(xPos - 1, yPos - 1) || isShip(xPos + 1, yPos - 1) ||
+				isShip(xPos - 1, yPos + 1) || isShip(xPos + 1, yPos + 1)) {
+			return true;
+		}
+		
+		boolean across = isShip(xPos - 1, yPos) || isShip(xPos + 1, yPos);
+		boolean down = isShip(xPos, yPos - 1) || isShip(xPos, yPos + 1);
+		
+		if (across && down) {
+			return true;
+		}
+		
+		int runLength = 1;
+		
+		if (across) {
+			
+			for (int x = xPos - 1; isShip(x, yPos); x--) {
+				runLength++;
+			}
+			
+			for (int x = xPos + 1; isShip(x, yPos); x++) {
+				runLength++;
+			}
+			
+		} else if (down) {
+			
+			for (int y = yPos - 1; isShip(xPos, y); y--) {
+				runLength++;
+			}
+			
+			for (int y = yPos + 1; isShip(xPos, y); y++) {
+				runLength++;
+			}
+		}
+		
+		return runLength > maxLength;
+	}
+	
+	/**
+	 * Check if a location is on the board and marked as a target.
+	 * 
+	 * @param xPos Horizontal column number
+	 * @param yPos Vertical row number
+	 * @return True for a target mark, false otherwise
+	 */
+	private boolean isShip(int xPos, int yPos) {
+		
+		return xPos >= 0 && xPos < width && yPos >= 0 && yPos < height &&
+			shipMarks[xPos * height + yPos];
+	}
+	
+	/**
+	 * Check if a row has more target marks than its legend.
+	 * 
+	 * @param yPos Vertical row number
+	 * @return True if the row is over its legend
+	 */
+	private boolean isRowShipOver(int yPos) {
+		
+		return rowShipCount[yPos] > rowLegend[yPos];
+	}
+	
+	/**
+	 * Check if a row has too many empty marks to meet its legend.
+	 * 
+	 * @param yPos Vertical row number
+	 * @return True if the row can not reach its legend
+	 */
+	private boolean isRowWaterOver(int yPos) {
+		
+		return rowWaterCount[yPos] > width - rowLegend[yPos];
+	}
+	
+	/**
+	 * Check if a column has more target marks than its legend.
+	 * 
+	 * @param xPos Horizontal column number
+	 * @return True if the column is over its legend
+	 */
+	private boolean isColumnShipOver(int xPos) {
+		
+		return columnShipCount[xPos] > columnLegend[xPos];
+	}
+	
+	/**
+	 * Check if a column has too many empty marks to meet its legend.
+	 * 
+	 * @param xPos Horizontal column number
+	 * @return True if the column can not reach its legend
+	 */
+	private boolean isColumnWaterOver(int xPos) {
+		
+		return columnWaterCount[xPos] > height - columnLegend[xPos];
+	}
+}
@@ -10,16 +10,27 @@
 package com.asbtechnologies.android.tiluxe.board;
 
 //External Imports
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 //Internal Imports
-import com.asbtechnologies.android.tiluxe.util.IdGenerator;
 
 /**
  * Default implementation of the board. The board has a set size and some number
  * of board pieces placed on the board. The 0,0 index of the board is presumed 
  * to be in the top left corner of the board.
  * 
+ * The state of each board location is kept in parallel primitive arrays 
+ * indexed by cell, (column * boardHeight) + row. DefaultBoardPieces handed out
+ * for a location are views of that storage, and are only created when a 
+ * location is first asked for.
+ * 
+ * IDs come from ranges owned by the board. The piece ID of a location is its 
+ * cell index, 0 to (width * height) - 1, and group IDs are handed out from 0 
+ * as the fleet is generated, so looking up an ID is an array index.
+ * 
  * @author Ben Yarger
  * @version $Revision: 1.17 $
  */
@@ -32,8 +43,26 @@ public class DefaultBoard implements Board, BoardPicker, BoardState,
 	/** Height of the board (number of rows). */
 	private int boardHeight;
 	
-	/** Playing board */
-	private DefaultBoardPiece[][] playingBoard;
+	/** Group ID of each cell. */
+	private int[] cellGroupID;
+	
+	/** BoardPiece orientation of each cell. */
+	private byte[] cellOrientation;
+	
+	/** BoardPiece length of each cell. */
+	private byte[] cellLength;
+	
+	/** BoardPieceState each cell must be matched to. */
+	private byte[] cellMatchState;
+	
+	/** Current BoardPieceState of each cell. */
+	private byte[] cellCurrentState;
+	
+	/** BoardPieceState each cell is reset to. */
+	private byte[] cellStartingState;
+	
+	/** Views of the cells handed out so far, null where none was needed. */
+	private DefaultBoardPiece[] cellViews;
 	
 	/** The last board piece picked. */
 	private BoardPiece pickedPiece;
@@ -41,6 +70,51 @@ public class DefaultBoard implements Board, BoardPicker, BoardState,
 	/** The target parent pieces (group) that need to be found. */
 	private ArrayList<DefaultBoardPiece> targetParentPieces;
 	
+	/** Number of pieces to be discovered in each row. */
+	private int[] verticalLegend;
+	
+	/** Number of pieces to be discovered in each column. */
+	private int[] horizontalLegend;
+	
+	/** Number of pieces currently set to alive in each row. */
+	private int[] rowAliveCount;
+	
+	/** Number of pieces currently set to alive in each column. */
+	private int[] columnAliveCount;
+	
+	/** Number of pieces set to alive in each row that should not be. */
+	private int[] rowIncorrectAliveCount;
+	
+	/** Number of pieces set to alive in each column that should not be. */
+	private int[] columnIncorrectAliveCount;
+	
+	/** Next group ID to hand out. */
+	private int nextGroupID;
+	
+	/** Rule used to decide if the game is over. */
+	private int winRule;
+	
+	/** Number of pieces that break the WIN_RULE_ALIVE_MATCH rule. */
+	private int aliveMismatchCount;
+	
+	/** Number of pieces that break the WIN_RULE_DEAD_MATCH rule. */
+	private int deadMismatchCount;
+	
+	/** Registered listeners. */
+	private ArrayList<BoardStateListener> listeners;
+	
+	/** Registered move listeners, null until one is registered. */
+	private ArrayList<BoardMoveListener> moveListeners;
+	
+	/** ID the board can be generated again from, null if not generated. */
+	private PuzzleId puzzleId;
+	
+	/** Undo history of the moves played, created with the first move. */
+	private MoveJournal moveJournal;
+	
+	/** Zobrist hash of the current states of the cells, see ZobristKeys. */
+	private long stateKey;
+	
 	/**
 	 * Default constructor, establishes board size and fills it with board 
 	 * pieces that must be matched to dead.
@@ -53,22 +127,50 @@ public class DefaultBoard implements Board, BoardPicker, BoardState,
 		this.boardWidth = boardWidth;
 		this.boardHeight = boardHeight;
 		
-		this.playingBoard = null;
-		this.playingBoard = new DefaultBoardPiece[this.boardWidth][this.boardHeight];
+		int numberOfCells = boardWidth * boardHeight;
+		
+		this.cellGroupID = new int[numberOfCells];
+		this.cellOrientation = new byte[numberOfCells];
+		this.cellLength = new byte[numberOfCells];
+		this.cellMatchState = new byte[numberOfCells];
+		this.cellCurrentState = new byte[numberOfCells];
+		this.cellStartingState = new byte[numberOfCells];
+		this.cellViews = new DefaultBoardPiece[numberOfCells];
 		this.pickedPiece = null;
 		this.targetParentPieces = new ArrayList<DefaultBoardPiece>();
 		
+		this.winRule = BoardState.WIN_RULE_ALIVE_MATCH;
+		this.listeners = new ArrayList<BoardStateListener>();
+		
+		this.verticalLegend = new int[boardHeight];
+		this.horizontalLegend = new int[boardWidth];
+		this.rowAliveCount = new int[boardHeight];
+		this.columnAliveCount = new int[boardWidth];
+		this.rowIncorrectAliveCount = new int[boardHeight];
+		this.columnIncorrectAliveCount = new int[boardWidth];
+		this.nextGroupID = 0;
+		
+		// Cells start out empty, which contributes nothing to the legends or
+		// counts, so placing the dead cells below brings them up to date.
+		// Empty cells do have a key, so the hash starts with all of them.
+		Arrays.fill(cellMatchState, (byte) BoardPieceState.EMPTY);
+		Arrays.fill(cellCurrentState, (byte) BoardPieceState.EMPTY);
+		
 		for (int w = 0; w < boardWidth; w++) {
 			for (int h = 0; h <boardHeight; h++) {
 				
-				playingBoard[w][h] = 
-					new DefaultBoardPiece(
-							w, 
-							h, 
-							BoardPiece.HORIZONTAL_ORIENTATION, 
-							1, 
-							BoardPieceState.STATE_DEAD,
-							IdGenerator.getInstance().generateID());
+				int cellIndex = getCellIndex(w, h);
+				stateKey ^= ZobristKeys.getStateKey(
+						cellIndex, BoardPieceState.EMPTY);
+				
+				placeCell(
+						cellIndex, 
+						BoardPiece.NO_GROUP,
+						BoardPiece.HORIZONTAL_ORIENTATION, 
+						1, 
+						BoardPieceState.STATE_DEAD,
+						BoardPieceState.STATE_LIMBO,
+						BoardPieceState.STATE_LIMBO);
 			}
 		}
 	}
@@ -114,13 +216,78 @@ public class DefaultBoard implements Board, BoardPicker, BoardState,
 		for (int w = 0; w < boardWidth; w++) {
 			for (int h = 0; h < boardHeight; h++) {
 				
-				boardPieceSet[w][h] = playingBoard[w][h];
+				boardPieceSet[w][h] = getCellView(w, h);
 			}
 		}
 		
 		return boardPieceSet;
 	}
 	
+	/* (non-Javadoc)
+	 * @see com.asbtechnologies.android.tiluxe.board.Board#getBoardPieces(com.asbtechnologies.android.tiluxe.board.BoardPiece[][])
+	 */
+	@Override
+	public BoardPiece[][] getBoardPieces(BoardPiece[][] boardPieces) {
+		
+		for (int w = 0; w < boardWidth; w++) {
+			for (int h = 0; h < boardHeight; h++) {
+				
+				boardPieces[w][h] = getCellView(w, h);
+			}
+		}
+		
+		return boardPieces;
+	}
+	
+	/**
+	 * Get the piece at a board location without copying the board or changing
+	 * the last pick.
+	 * 
+	 * @param xPos Horizontal column number
+	 * @param yPos Vertical row number
+	 * @return BoardPiece at the location, or null if the location is off the 
+	 * board
+	 */
+	@Override
+	public BoardPiece getBoardPiece(int xPos, int yPos) {
+		
+		if (xPos >= boardWidth || xPos < 0) {
+			return null;
+		} else if (yPos >= boardHeight || yPos < 0) {
+			return null;
+		}
+		
+		return getCellView(xPos, yPos);
+	}
+	
+	/**
+	 * Call the visitor for each location on the board, column by column. The
+	 * values are read straight from the cell storage, so no BoardPieces are 
+	 * created.
+	 * 
+	 * @param visitor Visitor to call
+	 */
+	@Override
+	public void forEachCell(BoardCellVisitor visitor) {
+		
+		int cellIndex = 0;
+		
+		for (int w = 0; w < boardWidth; w++) {
+			for (int h = 0; h < boardHeight; h++) {
+				
+				visitor.visitCell(
+						w, 
+						h, 
+						cellIndex, 
+						cellGroupID[cellIndex], 
+						cellMatchState[cellIndex], 
+						cellCurrentState[cellIndex]);
+				
+				cellIndex++;
+			}
+		}
+	}
+	
 	/* (non-Javadoc)
 	 * @see com.asbtechnologies.android.tiluxe.board.Board#getParentTargetPieces()
 	 */
@@ -134,73 +301,137 @@ public class DefaultBoard implements Board, BoardPicker, BoardState,
 		
 		return tmpPieces;
 	}
+	
+	/* (non-Javadoc)
+	 * @see com.asbtechnologies.android.tiluxe.board.Board#getParentTargetPieceCount()
+	 */
+	@Override
+	public int getParentTargetPieceCount() {
+		
+		return targetParentPieces.size();
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.asbtechnologies.android.tiluxe.board.Board#getParentTargetPieces(com.asbtechnologies.android.tiluxe.board.BoardPiece[])
+	 */
+	@Override
+	public int getParentTargetPieces(BoardPiece[] parentTargetPieces) {
+		
+		int count = targetParentPieces.size();
+		
+		for (int i = 0; i < count; i++) {
+			parentTargetPieces[i] = targetParentPieces.get(i);
+		}
+		
+		return count;
+	}
 
 	/**
 	 * Add a piece to the board. The board is populated with the board sub 
 	 * pieces. If there are no board sub pieces, then the piece itself will be 
 	 * added to the board. The add operation will overwrite existing board 
-	 * pieces.
+	 * pieces. If the sub pieces have not been created yet, the locations are
+	 * written straight into the cell storage and the sub pieces created later
+	 * are views of those locations.
 	 * 
 	 * @param Board piece to add
 	 */
 	@Override
 	public void addBoardPiece(BoardPiece boardPiece) {
 		
-		if (((DefaultBoardPiece)boardPiece).getMatchState() == BoardPieceState.STATE_ALIVE) {
-			targetParentPieces.add((DefaultBoardPiece)boardPiece);
+		DefaultBoardPiece defaultPiece = (DefaultBoardPiece) boardPiece;
+		
+		if (defaultPiece.getMatchState() == BoardPieceState.STATE_ALIVE) {
+			targetParentPieces.add(defaultPiece);
 		}
-		BoardPiece[] subPieces = boardPiece.getSubPieces();
 		
-		// The pos array we get from the boardPiece has two indices.
-		// 0 - The x position
-		// 1 - The y position
-		int[] pos;
+		int xPos = defaultPiece.getX();
+		int yPos = defaultPiece.getY();
 
-		if (subPieces == null || subPieces.length == 1) {
+		if (defaultPiece.getLength() <= 1) {
+			
+			placeBoardPiece(xPos, yPos, defaultPiece);
 			
-			pos = boardPiece.getLocation();
-			playingBoard[pos[0]][pos[1]] = (DefaultBoardPiece) boardPiece;
+		} else if (defaultPiece.hasSubPieces()) {
+			
+			DefaultBoardPiece subPiece;
+			
+			for (int i = 0; i < defaultPiece.getSubPieceCount(); i++) {
+				
+				subPiece = defaultPiece.getSubPiece(i);
+				placeBoardPiece(subPiece.getX(), subPiece.getY(), subPiece);
+			}
 			
 		} else {
 			
-			for (int i = 0; i < subPieces.length; i++) {
+			int initialState = BoardPieceState.STATE_LIMBO;
+			
+			if (defaultPiece.getMatchState() == BoardPieceState.EMPTY) {
+				initialState = BoardPieceState.EMPTY;
+			}
+			
+			for (int i = 0; i < defaultPiece.getLength(); i++) {
+				
+				int cellIndex;
 				
-				pos = subPieces[i].getLocation();
-				playingBoard[pos[0]][pos[1]] = (DefaultBoardPiece) subPieces[i];
+				if (defaultPiece.getOrientation() == 
+					BoardPiece.HORIZONTAL_ORIENTATION) {
+					cellIndex = getCellIndex(xPos + i, yPos);
+				} else {
+					cellIndex = getCellIndex(xPos, yPos + i);
+				}
+				
+				releaseCellView(cellIndex);
+				placeCell(
+						cellIndex, 
+						defaultPiece.getGroupID(), 
+						defaultPiece.getOrientation(), 
+						1, 
+						defaultPiece.getMatchState(), 
+						initialState, 
+						BoardPieceState.STATE_LIMBO);
 			}
 			
+			defaultPiece.setGroupBoard(this);
 		}
-		
 	}
 
 	/**
 	 * Remove a piece from the board. All pieces with the matching group id 
 	 * of the piece to be removed will also be removed. Removing a board piece
-	 * sets that board location to an EMPTY board piece with a group id of -1.
+	 * sets that board location to an EMPTY board piece with a group id of 
+	 * NO_GROUP. A piece outside of any group is only removed from the location
+	 * it is a view of.
 	 * 
 	 * @param Board piece to remove
 	 */
 	@Override
 	public void removeBoardPiece(BoardPiece boardPiece) {
 		
-		targetParentPieces.remove((DefaultBoardPiece) boardPiece);
-		DefaultBoardPiece tempPiece;
+		DefaultBoardPiece defaultPiece = (DefaultBoardPiece) boardPiece;
+		int groupID = boardPiece.getGroupID();
 		
-		for (int w = 0; w < boardWidth; w++) {
-			for (int h = 0; h < boardHeight; h++) {
-				if (playingBoard[w][h].getGroupID() == boardPiece.getGroupID()) {
-					
-					tempPiece = (DefaultBoardPiece) playingBoard[w][h];
-					
-					playingBoard[w][h] = new DefaultBoardPiece(
-							w, 
-							h, 
-							tempPiece.getOrientation(), 
-							tempPiece.getLength(), 
-							BoardPieceState.EMPTY, 
-							-1);
-					
-				}
+		targetParentPieces.remove(defaultPiece);
+		
+		// Sub pieces that have not been created yet would be views of the 
+		// locations about to be cleared. Create them now so they keep the 
+		// state they had on the board.
+		if (defaultPiece.getBoard() == this && !defaultPiece.isCellView()) {
+			defaultPiece.getSubPieces();
+		}
+		
+		if (groupID == BoardPiece.NO_GROUP) {
+			
+			if (defaultPiece.getBoard() == this && defaultPiece.isCellView()) {
+				clearCell(defaultPiece.getCellIndex());
+			}
+			
+			return;
+		}
+		
+		for (int i = 0; i < cellGroupID.length; i++) {
+			if (cellGroupID[i] == groupID) {
+				clearCell(i);
 			}
 		}
 	}
@@ -236,10 +467,10 @@ public class DefaultBoard implements Board, BoardPicker, BoardState,
 			
 			for (int w = 0; w < boardWidth; w++) {
 				
-				if (((BoardPieceState)playingBoard[w][h]).getMatchState() == 
+				if (cellMatchState[getCellIndex(w, h)] == 
 					BoardPieceState.STATE_ALIVE) {
 					rowData = rowData + "X ";
-				} else if (((BoardPieceState)playingBoard[w][h]).getMatchState()
+				} else if (cellMatchState[getCellIndex(w, h)]
 						== BoardPieceState.EMPTY) {
 					rowData = rowData + "E ";
 				} else {
@@ -274,17 +505,20 @@ public class DefaultBoard implements Board, BoardPicker, BoardState,
 		
 		int startingState;
 		
-		for (int w = 0; w < boardWidth; w++) {
-			for (int h = 0; h < boardHeight; h++) {
-				startingState = playingBoard[w][h].getStartingState();
-				
-				if (startingState == BoardPieceState.STATE_ALIVE) {
-					playingBoard[w][h].setState(BoardPieceState.STATE_ALIVE);
-				} else if (startingState == BoardPieceState.STATE_LIMBO) {
-					playingBoard[w][h].setState(BoardPieceState.STATE_LIMBO);
-				}
+		for (int i = 0; i < cellStartingState.length; i++) {
+			
+			startingState = cellStartingState[i];
+			
+			if (startingState == BoardPieceState.STATE_ALIVE) {
+				setCellState(i, BoardPieceState.STATE_ALIVE);
+			} else if (startingState == BoardPieceState.STATE_LIMBO) {
+				setCellState(i, BoardPieceState.STATE_LIMBO);
 			}
 		}
+		
+		if (moveJournal != null) {
+			moveJournal.clear();
+		}
 	}
 
 	//--------------------------------------------------------------------------
@@ -306,18 +540,13 @@ public class DefaultBoard implements Board, BoardPicker, BoardState,
 		pickedPiece = null;
 		
 		// Must be an appropriately bounded check
-		if (xBoardLocation > boardWidth || xBoardLocation < 0) {
+		if (xBoardLocation >= boardWidth || xBoardLocation < 0) {
 			return false;
-		} else if (yBoardLocation > boardHeight || xBoardLocation < 0) {
+		} else if (yBoardLocation >= boardHeight || yBoardLocation < 0) {
 			return false;
 		}
 		
-		pickedPiece = playingBoard[xBoardLocation][yBoardLocation];
-		
-		// If the piece picked was not set, return null
-		if (pickedPiece == null) {
-			return false;
-		}
+		pickedPiece = getCellView(xBoardLocation, yBoardLocation);
 		
 		return true;
 	}
@@ -333,23 +562,44 @@ public class DefaultBoard implements Board, BoardPicker, BoardState,
 		return pickedPiece;
 	}
 	
-	/* (non-Javadoc)
-	 * @see com.asbtechnologies.android.tiluxe.board.BoardPicker#pickByID(int)
+	/**
+	 * Get the piece picked by it's own unique id. The piece ID is the index 
+	 * of the location, so this does not depend on the size of the board.
+	 * 
+	 * @param pieceID Unique piece ID to look up.
+	 * @return BoardPiece requested, or null if no piece on the board has the ID
 	 */
+	@Override
 	public BoardPiece pickByID(int pieceID) {
 		
-		pickedPiece = null;
+		pickedPiece = lookUpPieceID(pieceID);
 		
-		for (int w = 0; w < boardWidth; w++) {
-			for (int h = 0; h < boardHeight; h++) {
-				if (playingBoard[w][h].getPieceID() == pieceID) {
-					pickedPiece = playingBoard[w][h];
-					return pickedPiece;
-				}
-			}
+		return pickedPiece;
+	}
+	
+	/**
+	 * Get the pieces picked by their own unique ids. Equivalent to calling 
+	 * pickByID for each id in turn, so the last pick is left set to the piece
+	 * of the last id.
+	 * 
+	 * @param pieceIDs Unique piece IDs to look up
+	 * @return BoardPieces requested, in the order of the pieceIDs. Entries are 
+	 * null where no piece on the board has the ID.
+	 */
+	@Override
+	public BoardPiece[] pickByIDs(int[] pieceIDs) {
+		
+		BoardPiece[] pickedPieces = new BoardPiece[pieceIDs.length];
+		
+		for (int i = 0; i < pieceIDs.length; i++) {
+			pickedPieces[i] = lookUpPieceID(pieceIDs[i]);
 		}
 		
-		return pickedPiece;
+		if (pieceIDs.length > 0) {
+			pickedPiece = pickedPieces[pieceIDs.length - 1];
+		}
+		
+		return pickedPieces;
 	}
 	
 	//--------------------------------------------------------------------------
@@ -357,7 +607,9 @@ public class DefaultBoard implements Board, BoardPicker, BoardState,
 	//--------------------------------------------------------------------------
 	
 	/**
-	 * See if the game is over.
+	 * See if the game is over. The number of pieces breaking each win rule is
+	 * kept up to date as pieces change state, so this only reads the count 
+	 * for the selected rule.
 	 * 
 	 * @return True if the game is over, false otherwise
 	 */
@@ -367,90 +619,43 @@ public class DefaultBoard implements Board, BoardPicker, BoardState,
 		// The only way a game is considered over is if either...
 		// A) Only the pieces that should be marked alive are set to alive.
 		// B) Only the pieces that should be in limbo or dead are marked dead.
-		// Eliminating option B for the time being.
-		
-		// Check for case A - alive check
-		boolean caseACorrect = true;
-		int currentAState = -1;
-		int matchAState = -1;
-		
-		for (int h = 0; h < boardHeight; h++) {
-			for (int w = 0; w < boardWidth; w++) {
-				
-				// Expectation is that a piece that should be in limbo or dead
-				// is not marked as alive, and that a piece that should be 
-				// marked alive is marked alive.
-				currentAState = 
-					((BoardPieceState)playingBoard[w][h]).getCurrentState();
-				
-				matchAState =
-					((BoardPieceState)playingBoard[w][h]).getMatchState();
-
-				if ((matchAState == BoardPieceState.STATE_LIMBO || 
-						matchAState == BoardPieceState.STATE_DEAD) && 
-						currentAState == BoardPieceState.STATE_ALIVE) {
-					
-					caseACorrect = false;
-					break;
-					
-				} else if (matchAState == BoardPieceState.STATE_ALIVE && 
-						currentAState != BoardPieceState.STATE_ALIVE) {
-					
-					caseACorrect = false;
-					break;
-					
-				}
-			}
+		switch (winRule) {
+		case BoardState.WIN_RULE_DEAD_MATCH:
+			return deadMismatchCount == 0;
 			
-			if (!caseACorrect) {
-				break;
-			}
+		case BoardState.WIN_RULE_ALIVE_OR_DEAD_MATCH:
+			return aliveMismatchCount == 0 || deadMismatchCount == 0;
+			
+		default:
+			return aliveMismatchCount == 0;
 		}
-/*		
-		// Check for case B - dead check
-		boolean caseBCorrect = true;
-		int currentBState = -1;
-		int matchBState = -1;
+	}
+	
+	/**
+	 * Set the rule used to decide if the game is over. Illegal values are 
+	 * ignored.
+	 * 
+	 * @param winRule WIN_RULE_ALIVE_MATCH, WIN_RULE_DEAD_MATCH or 
+	 * WIN_RULE_ALIVE_OR_DEAD_MATCH
+	 */
+	@Override
+	public void setWinRule(int winRule) {
 		
-		for (int h = 0; h < boardHeight; h++) {
-			for (int w = 0; w < boardWidth; w++) {
-				
-				// Expectation is that a piece that should be in limbo or alive
-				// is not marked as dead and that a piece that should be marked
-				// dead is marked dead.
-				currentBState = 
-					((BoardPieceState)playingBoard[w][h]).getCurrentState();
-				
-				matchBState =
-					((BoardPieceState)playingBoard[w][h]).getMatchState();
-
-				if ((matchBState == BoardPieceState.STATE_LIMBO || 
-						matchBState == BoardPieceState.STATE_ALIVE) && 
-						currentBState == BoardPieceState.STATE_DEAD) {
-					
-					caseBCorrect = false;
-					break;
-					
-				} else if (matchBState == BoardPieceState.STATE_DEAD && 
-						currentBState != BoardPieceState.STATE_DEAD) {
-					
-					caseBCorrect = false;
-					break;
-					
-				}
-			}
+		if (winRule == BoardState.WIN_RULE_ALIVE_MATCH || 
+				winRule == BoardState.WIN_RULE_DEAD_MATCH ||
+				winRule == BoardState.WIN_RULE_ALIVE_OR_DEAD_MATCH) {
 			
-			if (!caseBCorrect) {
-				break;
-			}
-		}
-*/		
-//		if (caseACorrect || caseBCorrect) {
-		if (caseACorrect) {
-			return true;
+			this.winRule = winRule;
 		}
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.asbtechnologies.android.tiluxe.board.BoardState#getWinRule()
+	 */
+	@Override
+	public int getWinRule() {
 		
-		return false;
+		return winRule;
 	}
 
 	//--------------------------------------------------------------------------
@@ -459,60 +664,68 @@ public class DefaultBoard implements Board, BoardPicker, BoardState,
 	
 	/**
 	 * Get the vertical legend for the Board. This shows how many pieces are to
-	 * be discovered in each row of the Board.
+	 * be discovered in each row of the Board. The legend is kept up to date as
+	 * pieces are placed, so this only copies it.
 	 * 
 	 * @return Array of int values tied to each row of the board
 	 */
 	@Override
 	public int[] getVerticalLegend() {
 		
-		int[] verticalLegend = new int[boardHeight];
-		
-		for (int h = 0; h < boardHeight; h++) {
-			
-			verticalLegend[h] = 0;
-			
-			for (int w = 0; w < boardWidth; w++) {
-				
-				if (((BoardPieceState)playingBoard[w][h]).getMatchState() == 
-					BoardPieceState.STATE_ALIVE) {
-					
-					verticalLegend[h]++;
-				}
-			}
-		}
+		int[] verticalLegendCopy = new int[boardHeight];
+		System.arraycopy(verticalLegend, 0, verticalLegendCopy, 0, boardHeight);
 		
-		return verticalLegend;
+		return verticalLegendCopy;
 	}
 
 	/**
 	 * Get the horizontal legend for the Board. This shows how many pieces are 
-	 * to be discovered in each column of the Board.
+	 * to be discovered in each column of the Board. The legend is kept up to 
+	 * date as pieces are placed, so this only copies it.
 	 * 
 	 * @return Array of int values tied to each column of the board
 	 */
 	@Override
 	public int[] getHorizontalLegend() {
 		
-		int[] horizontalLegend = new int[boardWidth];
+		int[] horizontalLegendCopy = new int[boardWidth];
+		System.arraycopy(
+				horizontalLegend, 0, horizontalLegendCopy, 0, boardWidth);
 		
-		for (int w = 0; w < boardWidth; w++) {
-			
-			horizontalLegend[w] = 0;
-			
-			for (int h = 0; h < boardHeight; h++) {
-				
-				if (((BoardPieceState)playingBoard[w][h]).getMatchState() == 
-					BoardPieceState.STATE_ALIVE) {
-					
-					horizontalLegend[w]++;
-				}
-			}
-		}
+		return horizontalLegendCopy;
+	}
+
+	/**
+	 * Fill in the vertical legend for the Board without allocating a new 
+	 * array.
+	 * 
+	 * @param verticalLegend Array of length board height to fill
+	 * @return The verticalLegend array passed in
+	 */
+	@Override
+	public int[] getVerticalLegend(int[] verticalLegend) {
+		
+		System.arraycopy(this.verticalLegend, 0, verticalLegend, 0, boardHeight);
+		
+		return verticalLegend;
+	}
+	
+	/**
+	 * Fill in the horizontal legend for the Board without allocating a new 
+	 * array.
+	 * 
+	 * @param horizontalLegend Array of length board width to fill
+	 * @return The horizontalLegend array passed in
+	 */
+	@Override
+	public int[] getHorizontalLegend(int[] horizontalLegend) {
+		
+		System.arraycopy(
+				this.horizontalLegend, 0, horizontalLegend, 0, boardWidth);
 		
 		return horizontalLegend;
 	}
-
+	
 	/**
 	 * Get the vertical legend hint values for the Board. These correlate with 
 	 * the rows and the values can be: HINT_ALL_CORRECT, HINT_ALMOST_CORRECT, 
@@ -528,59 +741,7 @@ public class DefaultBoard implements Board, BoardPicker, BoardState,
 	@Override
 	public int[] getVerticalLegendHint() {
 		
-		// Get the vertical legend so we know how many pieces we are trying to 
-		// match against. Then determine how many in each row are set to alive
-		// and compare that against the expectation to get our hint value.
-		int[] verticalHintLegend = getVerticalLegend();
-		int numberOfAliveSet = 0;
-		boolean correctLocations = true;
-		
-		for (int h = 0; h < boardHeight; h++) {		
-			
-			numberOfAliveSet = 0;
-			correctLocations = true;
-			
-			for (int w = 0; w < boardWidth; w++) {
-				
-				if (((BoardPieceState)playingBoard[w][h]).getCurrentState() == 
-					BoardPieceState.STATE_ALIVE) {
-					
-					numberOfAliveSet++;
-					
-					if (!((BoardPieceState)
-							playingBoard[w][h]).isStateCorrect()) {
-						
-						correctLocations = false;
-					}
-				}
-			}
-			
-			// Replace the verticalHintLegend value with the correct hint val
-			if (verticalHintLegend[h] == numberOfAliveSet && 
-					correctLocations) {
-				
-				verticalHintLegend[h] = BoardPerimeterLegend.HINT_ALL_CORRECT;
-				
-			} else if (verticalHintLegend[h] == numberOfAliveSet && 
-					!correctLocations) {
-				
-				verticalHintLegend[h] = 
-					BoardPerimeterLegend.HINT_ALMOST_CORRECT;
-				
-			} else if (verticalHintLegend[h] > numberOfAliveSet) {
-				
-				verticalHintLegend[h] = BoardPerimeterLegend.HINT_TOO_FEW;
-				
-			} else if (verticalHintLegend[h] < numberOfAliveSet) {
-				
-				verticalHintLegend[h] = BoardPerimeterLegend.HINT_TOO_MANY;
-				
-			}
-			
-//			Log.i("VERTICAL LEGEND HINT CALCULATION ROW: "+h,""+verticalHintLegend[h]);
-		}
-		
-		return verticalHintLegend;
+		return getVerticalLegendHint(new int[boardHeight]);
 	}
 
 	/**
@@ -598,57 +759,790 @@ public class DefaultBoard implements Board, BoardPicker, BoardState,
 	@Override
 	public int[] getHorizontalLegendHint() {
 		
-		// Get the horizontal legend so we know how many pieces we are trying to 
-		// match against. Then determine how many in each column are set to 
-		// alive and compare that against the expectation to get our hint value.
-		int[] horizontalHintLegend = getHorizontalLegend();
-		int numberOfAliveSet = 0;
-		boolean correctLocations = true;
+		return getHorizontalLegendHint(new int[boardWidth]);
+	}
+	
+	/**
+	 * Fill in the vertical legend hint values for the Board. Hints are worked
+	 * out from the row counts kept as pieces change state, so this is a 
+	 * single pass over the rows.
+	 * 
+	 * @param verticalLegendHint Array of length board height to fill
+	 * @return The verticalLegendHint array passed in
+	 */
+	@Override
+	public int[] getVerticalLegendHint(int[] verticalLegendHint) {
 		
-		for (int w = 0; w < boardWidth; w++) {		
-			
-			numberOfAliveSet = 0;
-			correctLocations = true;
+		for (int h = 0; h < boardHeight; h++) {
 			
-			for (int h = 0; h < boardHeight; h++) {
-				
-				if (((BoardPieceState)playingBoard[w][h]).getCurrentState() == 
-					BoardPieceState.STATE_ALIVE) {
-					
-					numberOfAliveSet++;
-					
-					if (!((BoardPieceState)
-							playingBoard[w][h]).isStateCorrect()) {
-						
-						correctLocations = false;
-					}
-				}
-			}
-
-			// Replace the horizontalHintLegend value with the correct hint val
-			if (horizontalHintLegend[w] == numberOfAliveSet && 
-					correctLocations) {
-				
-				horizontalHintLegend[w] = BoardPerimeterLegend.HINT_ALL_CORRECT;
-				
-			} else if (horizontalHintLegend[w] == numberOfAliveSet && 
-					!correctLocations) {
-				
-				horizontalHintLegend[w] = 
-					BoardPerimeterLegend.HINT_ALMOST_CORRECT;
-				
-			} else if (horizontalHintLegend[w] > numberOfAliveSet) {
-				
-				horizontalHintLegend[w] = BoardPerimeterLegend.HINT_TOO_FEW;
-				
-			} else if (horizontalHintLegend[w] < numberOfAliveSet) {
-				
-				horizontalHintLegend[w] = BoardPerimeterLegend.HINT_TOO_MANY;
-				
-			}
+			verticalLegendHint[h] = calculateHint(
+					verticalLegend[h], 
+					rowAliveCount[h], 
+					rowIncorrectAliveCount[h]);
 		}
 		
-		return horizontalHintLegend;
+		return verticalLegendHint;
+	}
+	
+	/**
+	 * Fill in the horizontal legend hint values for the Board. Hints are 
+	 * worked out from the column counts kept as pieces change state, so this
+	 * is a single pass over the columns.
+	 * 
+	 * @param horizontalLegendHint Array of length board width to fill
+	 * @return The horizontalLegendHint array passed in
+	 */
+	@Override
+	public int[] getHorizontalLegendHint(int[] horizontalLegendHint) {
+		
+		for (int w = 0; w < boardWidth; w++) {
+			
+			horizontalLegendHint[w] = calculateHint(
+					horizontalLegend[w], 
+					columnAliveCount[w], 
+					columnIncorrectAliveCount[w]);
+		}
+		
+		return horizontalLegendHint;
+	}
+
+	//--------------------------------------------------------------------------
+	// Public methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Register a listener for callback when pieces on the board change state.
+	 * 
+	 * @param listener Listener to call back.
+	 */
+	public void registerListener(BoardStateListener listener) {
+		listeners.add(listener);
+	}
+	
+	/**
+	 * Register a listener for callback with each cell that changes state.
+	 * 
+	 * @param listener Listener to call back.
+	 */
+	public void registerMoveListener(BoardMoveListener listener) {
+		
+		if (moveListeners == null) {
+			moveListeners = new ArrayList<BoardMoveListener>();
+		}
+		
+		moveListeners.add(listener);
+	}
+	
+	/**
+	 * Remove a listener registered with registerMoveListener().
+	 * 
+	 * @param listener Listener to remove.
+	 */
+	public void removeMoveListener(BoardMoveListener listener) {
+		
+		if (moveListeners != null) {
+			moveListeners.remove(listener);
+		}
+	}
+	
+	/**
+	 * Hand out the next group ID of the board. Group IDs start at 0 and are
+	 * only unique within the board.
+	 * 
+	 * @return Group ID for the next piece of the fleet
+	 */
+	public int generateGroupID() {
+		
+		int groupID = nextGroupID;
+		nextGroupID++;
+		
+		return groupID;
+	}
+	
+	/**
+	 * Get the BoardPieceState a location must be matched to, without going 
+	 * through a BoardPiece.
+	 * 
+	 * @param xPos Horizontal column number
+	 * @param yPos Vertical row number
+	 * @return Match state of the location
+	 */
+	public int getMatchState(int xPos, int yPos) {
+		
+		return cellMatchState[getCellIndex(xPos, yPos)];
+	}
+	
+	/**
+	 * Get the current BoardPieceState of a location, without going through a 
+	 * BoardPiece.
+	 * 
+	 * @param xPos Horizontal column number
+	 * @param yPos Vertical row number
+	 * @return Current state of the location
+	 */
+	public int getCurrentState(int xPos, int yPos) {
+		
+		return cellCurrentState[getCellIndex(xPos, yPos)];
+	}
+	
+	/**
+	 * Get the BoardPieceState a location is reset to, without going through a
+	 * BoardPiece. Target locations given away to the player start ALIVE.
+	 * 
+	 * @param xPos Horizontal column number
+	 * @param yPos Vertical row number
+	 * @return Starting state of the location
+	 */
+	public int getStartingState(int xPos, int yPos) {
+		
+		return cellStartingState[getCellIndex(xPos, yPos)];
+	}
+	
+	/**
+	 * Get a 64-bit Zobrist hash of the current states of the cells. The hash
+	 * is kept up to date on every change of state, and goes back to what it
+	 * was when a change is undone, so positions met before can be looked up
+	 * by it. Boards of the same size in the same state hash the same.
+	 * 
+	 * @return Hash of the current states, see ZobristKeys
+	 */
+	public long getStateKey() {
+		
+		return stateKey;
+	}
+	
+	/**
+	 * Get the ID the board can be generated again from with 
+	 * DefaultBoardGenerator.generateBoard(PuzzleId).
+	 * 
+	 * @return Puzzle ID, null if the board was not generated
+	 */
+	public PuzzleId getPuzzleId() {
+		
+		return puzzleId;
+	}
+	
+	/**
+	 * Save the board and the state of play, in the form written by 
+	 * BoardCodec. Only takes a few microseconds, so it is safe to call while 
+	 * the activity is pausing.
+	 * 
+	 * @return Snapshot the board can be restored from
+	 */
+	public byte[] saveSnapshot() {
+		
+		BoardCodec codec = new BoardCodec();
+		ByteBuffer snapshot = ByteBuffer.allocate(codec.getEncodedSize(this));
+		
+		codec.write(this, snapshot);
+		
+		return snapshot.array();
+	}
+	
+	/**
+	 * Restore a board saved by saveSnapshot(), along with the marks the 
+	 * player had made. The board is rebuilt from the snapshot rather than 
+	 * generated again.
+	 * 
+	 * @param snapshot Snapshot returned by saveSnapshot()
+	 * @return Board
+	 * @throws IllegalArgumentException if the bytes are not a snapshot
+	 */
+	public static DefaultBoard restoreSnapshot(byte[] snapshot) {
+		
+		ByteBuffer source = ByteBuffer.wrap(snapshot);
+		DefaultBoard board;
+		
+		try {
+			board = new BoardCodec().read(source);
+		} catch (BufferUnderflowException e) {
+			throw new IllegalArgumentException("Board snapshot is cut short.");
+		}
+		
+		if (source.hasRemaining()) {
+			throw new IllegalArgumentException(
+					"Board snapshot has " + source.remaining() + 
+					" bytes left over.");
+		}
+		
+		return board;
+	}
+	
+	/**
+	 * Undo the last move played with BoardPieceState.setNextState(). The 
+	 * legends and game over state are updated as for any other change.
+	 * 
+	 * @return Piece ID of the cell changed, -1 if there was nothing to undo
+	 */
+	public int undoMove() {
+		
+		if (moveJournal == null) {
+			return MoveJournal.NO_MOVE;
+		}
+		
+		int move = moveJournal.undo();
+		
+		if (move == MoveJournal.NO_MOVE) {
+			return MoveJournal.NO_MOVE;
+		}
+		
+		int cellIndex = MoveJournal.getCellIndex(move);
+		
+		// The cell was changed outside of play, so the history no longer 
+		// leads back to the state of the board.
+		if (cellCurrentState[cellIndex] != MoveJournal.getToState(move)) {
+			moveJournal.clear();
+			return MoveJournal.NO_MOVE;
+		}
+		
+		setCellState(cellIndex, MoveJournal.getFromState(move));
+		
+		return cellIndex;
+	}
+	
+	/**
+	 * Play the last move undone again.
+	 * 
+	 * @return Piece ID of the cell changed, -1 if there was nothing to redo
+	 */
+	public int redoMove() {
+		
+		if (moveJournal == null) {
+			return MoveJournal.NO_MOVE;
+		}
+		
+		int move = moveJournal.redo();
+		
+		if (move == MoveJournal.NO_MOVE) {
+			return MoveJournal.NO_MOVE;
+		}
+		
+		int cellIndex = MoveJournal.getCellIndex(move);
+		
+		if (cellCurrentState[cellIndex] != MoveJournal.getFromState(move)) {
+			moveJournal.clear();
+			return MoveJournal.NO_MOVE;
+		}
+		
+		setCellState(cellIndex, MoveJournal.getToState(move));
+		
+		return cellIndex;
+	}
+	
+	/**
+	 * Check if there is a move to undo.
+	 * 
+	 * @return True if undoMove() will change the board
+	 */
+	public boolean canUndoMove() {
+		
+		return moveJournal != null && moveJournal.getUndoCount() > 0;
+	}
+	
+	/**
+	 * Check if there is a move to redo.
+	 * 
+	 * @return True if redoMove() will change the board
+	 */
+	public boolean canRedoMove() {
+		
+		return moveJournal != null && moveJournal.getRedoCount() > 0;
+	}
+	
+	//--------------------------------------------------------------------------
+	// Package methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Set the ID the board can be generated again from.
+	 * 
+	 * @param puzzleId Puzzle ID
+	 */
+	void setPuzzleId(PuzzleId puzzleId) {
+		
+		this.puzzleId = puzzleId;
+	}
+	
+	/**
+	 * Get the view of the board location, creating it if this is the first 
+	 * time the location has been asked for.
+	 * 
+	 * @param xPos Column of the location
+	 * @param yPos Row of the location
+	 * @return DefaultBoardPiece view of the location
+	 */
+	DefaultBoardPiece getCellView(int xPos, int yPos) {
+		
+		return getCellView(getCellIndex(xPos, yPos));
+	}
+	
+	/**
+	 * Get one of the target pieces, in the order they were added, without
+	 * copying the list.
+	 * 
+	 * @param index Index of the piece, from 0 to getParentTargetPieceCount()-1
+	 * @return Target piece
+	 */
+	DefaultBoardPiece getTargetParentPiece(int index) {
+		
+		return targetParentPieces.get(index);
+	}
+	
+	/**
+	 * Get the piece ID of a cell.
+	 * 
+	 * @param cellIndex Index of the cell
+	 * @return Piece ID
+	 */
+	int getCellPieceID(int cellIndex) {
+		
+		return cellIndex;
+	}
+	
+	/**
+	 * Get the group ID of a cell.
+	 * 
+	 * @param cellIndex Index of the cell
+	 * @return Group ID
+	 */
+	int getCellGroupID(int cellIndex) {
+		
+		return cellGroupID[cellIndex];
+	}
+	
+	/**
+	 * Get the orientation of a cell.
+	 * 
+	 * @param cellIndex Index of the cell
+	 * @return HORIZONTAL_ORIENTATION or VERTICAL_ORIENTATION
+	 */
+	int getCellOrientation(int cellIndex) {
+		
+		return cellOrientation[cellIndex];
+	}
+	
+	/**
+	 * Get the length of a cell.
+	 * 
+	 * @param cellIndex Index of the cell
+	 * @return Length
+	 */
+	int getCellLength(int cellIndex) {
+		
+		return cellLength[cellIndex];
+	}
+	
+	/**
+	 * Get the state a cell must be matched to.
+	 * 
+	 * @param cellIndex Index of the cell
+	 * @return BoardPieceState value
+	 */
+	int getCellMatchState(int cellIndex) {
+		
+		return cellMatchState[cellIndex];
+	}
+	
+	/**
+	 * Get the current state of a cell.
+	 * 
+	 * @param cellIndex Index of the cell
+	 * @return BoardPieceState value
+	 */
+	int getCellCurrentState(int cellIndex) {
+		
+		return cellCurrentState[cellIndex];
+	}
+	
+	/**
+	 * Get the state a cell is reset to.
+	 * 
+	 * @param cellIndex Index of the cell
+	 * @return BoardPieceState value
+	 */
+	int getCellStartingState(int cellIndex) {
+		
+		return cellStartingState[cellIndex];
+	}
+	
+	/**
+	 * Change the current state of a cell. Keeps the counts in step with the 
+	 * cell and notifies the listeners.
+	 * 
+	 * @param cellIndex Index of the cell
+	 * @param state New BoardPieceState value
+	 */
+	void setCellState(int cellIndex, int state) {
+		
+		int xPos = cellIndex / boardHeight;
+		int yPos = cellIndex % boardHeight;
+		int matchState = cellMatchState[cellIndex];
+		boolean gameOver = isGameOver();
+		
+		updateCounts(xPos, yPos, matchState, cellCurrentState[cellIndex], -1);
+		cellCurrentState[cellIndex] = (byte) state;
+		updateCounts(xPos, yPos, matchState, state, 1);
+		
+		if (moveListeners != null) {
+			
+			for (int i = 0; i < moveListeners.size(); i++) {
+				moveListeners.get(i).boardMoveNotification(cellIndex, state);
+			}
+		}
+		
+		notifyListeners(BoardStateListener.BOARD_STATE_CHANGED);
+		
+		if (!gameOver && isGameOver()) {
+			notifyListeners(BoardStateListener.BOARD_GAME_OVER);
+		}
+	}
+	
+	/**
+	 * Change the current state of a cell as a move by the player, recording 
+	 * it in the undo history.
+	 * 
+	 * @param cellIndex Index of the cell
+	 * @param state New BoardPieceState value
+	 */
+	void playCellState(int cellIndex, int state) {
+		
+		if (moveJournal == null) {
+			moveJournal = new MoveJournal();
+		}
+		
+		moveJournal.record(cellIndex, cellCurrentState[cellIndex], state);
+		setCellState(cellIndex, state);
+	}
+	
+	/**
+	 * Change the current state of a cell and lock it in as the state the cell
+	 * is reset to.
+	 * 
+	 * @param cellIndex Index of the cell
+	 * @param state New BoardPieceState value
+	 */
+	void setCellDefaultState(int cellIndex, int state) {
+		
+		cellStartingState[cellIndex] = (byte) state;
+		setCellState(cellIndex, state);
+	}
+	
+	/**
+	 * Load the state of play of a cell without notifying the listeners, for 
+	 * rebuilding a board before it is handed out. An EMPTY current state 
+	 * turns the cell into an empty tile given away, outside of any group.
+	 * 
+	 * @param cellIndex Index of the cell
+	 * @param currentState Current BoardPieceState value
+	 * @param startingState BoardPieceState the cell is reset to
+	 */
+	void restoreCell(int cellIndex, int currentState, int startingState) {
+		
+		if (currentState == BoardPieceState.EMPTY) {
+			
+			releaseCellView(cellIndex);
+			placeCell(
+					cellIndex, 
+					BoardPiece.NO_GROUP, 
+					BoardPiece.HORIZONTAL_ORIENTATION, 
+					1, 
+					BoardPieceState.EMPTY, 
+					BoardPieceState.EMPTY, 
+					BoardPieceState.EMPTY);
+			
+			return;
+		}
+		
+		int xPos = cellIndex / boardHeight;
+		int yPos = cellIndex % boardHeight;
+		int matchState = cellMatchState[cellIndex];
+		
+		updateCounts(xPos, yPos, matchState, cellCurrentState[cellIndex], -1);
+		cellCurrentState[cellIndex] = (byte) currentState;
+		cellStartingState[cellIndex] = (byte) startingState;
+		updateCounts(xPos, yPos, matchState, currentState, 1);
+	}
+	
+	/**
+	 * Stop handing out the current view of a cell. The view keeps the values
+	 * the cell had, and a new view is created the next time the cell is asked
+	 * for.
+	 * 
+	 * @param cellIndex Index of the cell
+	 */
+	void releaseCellView(int cellIndex) {
+		
+		DefaultBoardPiece cellView = cellViews[cellIndex];
+		
+		if (cellView != null) {
+			
+			cellViews[cellIndex] = null;
+			cellView.detachFromCell();
+		}
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Put a piece at a board location, replacing the piece that was there. The
+	 * piece values are copied into the cell storage and the piece becomes the 
+	 * view of the location.
+	 * 
+	 * @param xPos Column to place the piece at
+	 * @param yPos Row to place the piece at
+	 * @param boardPiece Piece to place
+	 */
+	private void placeBoardPiece(
+			int xPos, 
+			int yPos, 
+			DefaultBoardPiece boardPiece) {
+		
+		int cellIndex = getCellIndex(xPos, yPos);
+		
+		// A piece can only view one cell, so let go of any other cell it is 
+		// already a view of.
+		if (boardPiece.isCellView() && (boardPiece.getBoard() != this || 
+				boardPiece.getCellIndex() != cellIndex)) {
+			
+			boardPiece.getBoard().releaseCellView(boardPiece.getCellIndex());
+		}
+		
+		if (cellViews[cellIndex] != boardPiece) {
+			releaseCellView(cellIndex);
+		}
+		
+		placeCell(
+				cellIndex, 
+				boardPiece.getGroupID(), 
+				boardPiece.getOrientation(), 
+				boardPiece.getLength(), 
+				boardPiece.getMatchState(), 
+				boardPiece.getCurrentState(), 
+				boardPiece.getStartingState());
+		
+		cellViews[cellIndex] = boardPiece;
+		boardPiece.attachToCell(this, cellIndex);
+	}
+	
+	/**
+	 * Write a cell into the cell storage, replacing what was there, and bring
+	 * the legends and counts up to date with the new values. The piece ID of
+	 * the cell is always the cell index.
+	 * 
+	 * @param cellIndex Index of the cell
+	 * @param groupID Group ID
+	 * @param orientation HORIZONTAL_ORIENTATION or VERTICAL_ORIENTATION
+	 * @param length Length
+	 * @param matchState BoardPieceState the cell must be matched to
+	 * @param currentState Current BoardPieceState
+	 * @param startingState BoardPieceState the cell is reset to
+	 */
+	private void placeCell(
+			int cellIndex,
+			int groupID,
+			int orientation,
+			int length,
+			int matchState,
+			int currentState,
+			int startingState) {
+		
+		int xPos = cellIndex / boardHeight;
+		int yPos = cellIndex % boardHeight;
+		
+		updateLegends(xPos, yPos, cellMatchState[cellIndex], -1);
+		updateCounts(
+				xPos, 
+				yPos, 
+				cellMatchState[cellIndex], 
+				cellCurrentState[cellIndex], 
+				-1);
+		
+		cellGroupID[cellIndex] = groupID;
+		cellOrientation[cellIndex] = (byte) orientation;
+		cellLength[cellIndex] = (byte) length;
+		cellMatchState[cellIndex] = (byte) matchState;
+		cellCurrentState[cellIndex] = (byte) currentState;
+		cellStartingState[cellIndex] = (byte) startingState;
+		
+		updateLegends(xPos, yPos, matchState, 1);
+		updateCounts(xPos, yPos, matchState, currentState, 1);
+	}
+		
+	/**
+	 * Replace a cell with an EMPTY location outside of any group.
+	 * 
+	 * @param cellIndex Index of the cell
+	 */
+	private void clearCell(int cellIndex) {
+		
+		releaseCellView(cellIndex);
+		placeCell(
+				cellIndex, 
+				BoardPiece.NO_GROUP, 
+				cellOrientation[cellIndex], 
+				cellLength[cellIndex], 
+				BoardPieceState.EMPTY, 
+				BoardPieceState.EMPTY, 
+				BoardPieceState.STATE_LIMBO);
+	}
+	
+	/**
+	 * Get the view of a cell, creating it if this is the first time the cell 
+	 * has been asked for.
+	 * 
+	 * @param cellIndex Index of the cell
+	 * @return DefaultBoardPiece view of the cell
+	 */
+	private DefaultBoardPiece getCellView(int cellIndex) {
+		
+		DefaultBoardPiece cellView = cellViews[cellIndex];
+		
+		if (cellView == null) {
+			
+			cellView = new DefaultBoardPiece(
+					this, 
+					cellIndex, 
+					cellIndex / boardHeight, 
+					cellIndex % boardHeight);
+			
+			cellViews[cellIndex] = cellView;
+		}
+		
+		return cellView;
+	}
+	
+	/**
+	 * Get the index of a board location in the cell storage.
+	 * 
+	 * @param xPos Column of the location
+	 * @param yPos Row of the location
+	 * @return Cell index
+	 */
+	private int getCellIndex(int xPos, int yPos) {
+		
+		return (xPos * boardHeight) + yPos;
+	}
+	
+	/**
+	 * Issue a board state message to each of the listeners.
+	 * 
+	 * @param message Message value to send to each listener.
+	 */
+	private void notifyListeners(int message) {
+		
+		for (int i = 0; i < listeners.size(); i++) {
+			listeners.get(i).boardStateNotification(message);
+		}
+	}
+	
+	/**
+	 * Find the piece on the board with the piece ID. Piece IDs are cell 
+	 * indices, so this is a range check.
+	 * 
+	 * @param pieceID Piece ID to look up
+	 * @return BoardPiece with the ID, or null if the ID is not on the board
+	 */
+	private DefaultBoardPiece lookUpPieceID(int pieceID) {
+		
+		if (pieceID < 0 || pieceID >= cellGroupID.length) {
+			return null;
+		}
+		
+		return getCellView(pieceID);
+	}
+	
+	/**
+	 * Add or remove the contribution of a piece's match state to the legends.
+	 * 
+	 * @param xPos Column of the piece
+	 * @param yPos Row of the piece
+	 * @param matchState Match state of the piece
+	 * @param delta 1 to add the piece, -1 to remove it
+	 */
+	private void updateLegends(int xPos, int yPos, int matchState, int delta) {
+		
+		if (matchState == BoardPieceState.STATE_ALIVE) {
+			verticalLegend[yPos] += delta;
+			horizontalLegend[xPos] += delta;
+		}
+	}
+	
+	/**
+	 * Add or remove the contribution of a piece's current state to the row and
+	 * column alive counts and to the win rule mismatch counts.
+	 * 
+	 * @param xPos Column of the piece
+	 * @param yPos Row of the piece
+	 * @param matchState Match state of the piece
+	 * @param currentState Current state of the piece
+	 * @param delta 1 to add the piece, -1 to remove it
+	 */
+	private void updateCounts(
+			int xPos, 
+			int yPos, 
+			int matchState, 
+			int currentState, 
+			int delta) {
+		
+		// Adding and removing a key are both an exclusive or.
+		stateKey ^= ZobristKeys.getStateKey(
+				getCellIndex(xPos, yPos), currentState);
+		
+		// Pieces that must match EMPTY never break a win rule.
+		if (matchState != BoardPieceState.EMPTY) {
+			
+			// Case A - a piece that should be alive is not marked alive, or a
+			// piece that should be in limbo or dead is marked alive.
+			if ((matchState == BoardPieceState.STATE_ALIVE) != 
+					(currentState == BoardPieceState.STATE_ALIVE)) {
+				aliveMismatchCount += delta;
+			}
+			
+			// Case B - a piece that should be dead is not marked dead, or a 
+			// piece that should be in limbo or alive is marked dead.
+			if ((matchState == BoardPieceState.STATE_DEAD) != 
+					(currentState == BoardPieceState.STATE_DEAD)) {
+				deadMismatchCount += delta;
+			}
+		}
+		
+		if (currentState != BoardPieceState.STATE_ALIVE) {
+			return;
+		}
+		
+		rowAliveCount[yPos] += delta;
+		columnAliveCount[xPos] += delta;
+		
+		if (matchState != BoardPieceState.STATE_ALIVE) {
+			rowIncorrectAliveCount[yPos] += delta;
+			columnIncorrectAliveCount[xPos] += delta;
+		}
+	}
+	
+	/**
+	 * Work out the hint value for a single row or column.
+	 * 
+	 * @param legendCount Number of pieces to be discovered
+	 * @param numberOfAliveSet Number of pieces set to alive
+	 * @param numberOfIncorrectAlive Number of pieces set to alive that should 
+	 * not be
+	 * @return BoardPerimeterLegend hint value
+	 */
+	private static int calculateHint(
+			int legendCount, 
+			int numberOfAliveSet, 
+			int numberOfIncorrectAlive) {
+		
+		if (legendCount > numberOfAliveSet) {
+			return BoardPerimeterLegend.HINT_TOO_FEW;
+		} else if (legendCount < numberOfAliveSet) {
+			return BoardPerimeterLegend.HINT_TOO_MANY;
+		} else if (numberOfIncorrectAlive > 0) {
+			return BoardPerimeterLegend.HINT_ALMOST_CORRECT;
+		}
+		
+		return BoardPerimeterLegend.HINT_ALL_CORRECT;
 	}
-
 }
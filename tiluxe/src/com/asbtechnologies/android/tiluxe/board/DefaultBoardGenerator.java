@@ -10,25 +10,29 @@
 package com.asbtechnologies.android.tiluxe.board;
 
 //External Imports
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Random;
 
 //Internal Imports
-import com.asbtechnologies.android.tiluxe.util.IdGenerator;
+import com.asbtechnologies.android.tiluxe.board.solver.Puzzle;
+import com.asbtechnologies.android.tiluxe.board.solver.PuzzleSolver;
+import com.asbtechnologies.android.tiluxe.board.solver.SolverCache;
+import com.asbtechnologies.android.tiluxe.board.solver.SolverResult;
+import com.asbtechnologies.android.tiluxe.board.solver.TranspositionTable;
 
 /**
  * Default implementation of the board generator. The board generator creates a 
  * board and populates it with board pieces.
  * 
+ * Each board is generated from its own random number stream, seeded from the 
+ * generator's seed source. The same spec and seed always give the same board,
+ * so each generated board carries a PuzzleId it can be generated again from.
+ * 
  * @author Ben Yarger
  * @version $Revision: 1.10 $
  */
 public class DefaultBoardGenerator implements BoardGenerator {
 	
-	/** Number of times we can attempt to perform an action before it fails. */
-	private static final int ATTEMPT_LIMIT = 10;
-	
 	/**
 	 * Default board width.
 	 */
@@ -55,11 +59,61 @@ public class DefaultBoardGenerator implements BoardGenerator {
 	 */
 	private DefaultBoard playingBoard;
 	
+	/**
+	 * Seeds the random number stream of each board.
+	 */
+	private Random seedSource;
+	
+	/**
+	 * Source of the random placements and tiles given away on the current 
+	 * board.
+	 */
+	private Random random;
+	
+	/**
+	 * True if custom boards must have exactly one solution.
+	 */
+	private boolean uniqueSolution;
+	
+	/**
+	 * Solver used to check custom boards have one solution, created when 
+	 * first needed.
+	 */
+	private PuzzleSolver puzzleSolver;
+	
+	/**
+	 * Results of puzzles solved before, null to always solve.
+	 */
+	private SolverCache solverCache;
+	
+	/**
+	 * Sets of locations known to have no solution, null to keep none.
+	 */
+	private TranspositionTable transpositionTable;
+	
+	/**
+	 * Number of tiles given away on the last custom board to make its 
+	 * solution unique.
+	 */
+	private int extraRevealCount;
+	
 	/**
 	 * Default constructor.
 	 */
 	public DefaultBoardGenerator() {
 		
+		this(new Random());
+	}
+	
+	/**
+	 * Create a generator whose boards are seeded from a random number stream.
+	 * Generators used on different threads should each be given their own.
+	 * 
+	 * @param seedSource Seeds the random number stream of each board.
+	 */
+	public DefaultBoardGenerator(Random seedSource) {
+		
+		this.seedSource = seedSource;
 	}
 	
 	//--------------------------------------------------------------------------
@@ -76,16 +130,15 @@ public class DefaultBoardGenerator implements BoardGenerator {
 	@Override
 	public Board generateDefaultBoard() {
 		
-		this.playingBoard = null;
-		this.boardPieces = null;
-		this.playingBoard = 
-			new DefaultBoard(DEFAULT_BOARD_WIDTH, DEFAULT_BOARD_HEIGHT);
-		
-		this.boardPieces = new BoardPiece[DEFAULT_PIECE_LENGTHS.length];
-
-		randomlyPlaceActivePieces(DEFAULT_PIECE_LENGTHS);
-		
-		return playingBoard;
+		return generateBoard(
+				new BoardSpec(
+						DEFAULT_BOARD_WIDTH, 
+						DEFAULT_BOARD_HEIGHT, 
+						DEFAULT_PIECE_LENGTHS, 
+						0, 
+						0, 
+						false),
+				seedSource.nextLong());
 	}
 
 	/* (non-Javadoc)
@@ -99,19 +152,28 @@ public class DefaultBoardGenerator implements BoardGenerator {
 			int numberOfFreeEmpty,
 			int numberOfFreeTargets ) {
 		
-		this.playingBoard = null;
-		this.boardPieces = null;
-		this.playingBoard = new DefaultBoard(boardWidth, boardHeight);
-		this.boardPieces = new BoardPiece[pieceLengths.length];
-		
-		if (!randomlyPlaceActivePieces(pieceLengths)) {
+		// Catch null cases
+		if (pieceLengths == null) {
 			return null;
 		}
 		
-		setupTargetTileHints(numberOfFreeTargets);
-		randomlyPlaceEmptyPieces(numberOfFreeEmpty);
+		// Sort a copy of the pieceLengths passed in so the spec lists them in
+		// the same ascending order as the target pieces. The caller's array
+		// is left as it is.
+		int[] sortedLengths = new int[pieceLengths.length];
+		System.arraycopy(
+				pieceLengths, 0, sortedLengths, 0, pieceLengths.length);
+		Arrays.sort(sortedLengths);
 
-		return playingBoard;
+		return generateBoard(
+				new BoardSpec(
+						boardWidth, 
+						boardHeight, 
+						sortedLengths, 
+						numberOfFreeEmpty, 
+						numberOfFreeTargets, 
+						uniqueSolution),
+				seedSource.nextLong());
 	}
 
 	/**
@@ -129,6 +191,56 @@ public class DefaultBoardGenerator implements BoardGenerator {
 	// Public methods
 	//--------------------------------------------------------------------------
 	
+	/**
+	 * Generate a board from a spec and the seed of its random number stream.
+	 * The same spec and seed always give the same board. The unique solution
+	 * setting of the spec is used rather than the generator's.
+	 * 
+	 * @param spec Parameters of the board.
+	 * @param seed Seed of the random number stream.
+	 * @return Generated Board, null if the pieces do not fit on the board.
+	 */
+	public Board generateBoard(BoardSpec spec, long seed) {
+		
+		int[] pieceLengths = spec.getPieceLengths();
+		
+		this.random = new Random(seed);
+		this.playingBoard = null;
+		this.boardPieces = null;
+		this.playingBoard = 
+			new DefaultBoard(spec.getBoardWidth(), spec.getBoardHeight());
+		this.boardPieces = new BoardPiece[pieceLengths.length];
+		
+		if (!randomlyPlaceActivePieces(pieceLengths)) {
+			return null;
+		}
+		
+		setupTargetTileHints(spec.getNumberOfFreeTargets());
+		randomlyPlaceEmptyPieces(spec.getNumberOfFreeEmpty());
+		
+		extraRevealCount = 0;
+		
+		if (spec.isUniqueSolution()) {
+			revealUntilUnique();
+		}
+		
+		playingBoard.setPuzzleId(new PuzzleId(spec, seed));
+		
+		return playingBoard;
+	}
+	
+	/**
+	 * Generate the board a puzzle ID names.
+	 * 
+	 * @param puzzleId ID of the board, as returned by 
+	 * DefaultBoard.getPuzzleId().
+	 * @return Generated Board, null if the pieces do not fit on the board.
+	 */
+	public Board generateBoard(PuzzleId puzzleId) {
+		
+		return generateBoard(puzzleId.getSpec(), puzzleId.getSeed());
+	}
+	
 	/**
 	 * Confirm if the placement of the proposed piece is legal on the current
 	 * board.
@@ -149,12 +261,76 @@ public class DefaultBoardGenerator implements BoardGenerator {
 		return validatePiecePlacement(xPos, yPos, orientation, length);
 	}
 	
+	/**
+	 * Set whether custom boards must have exactly one solution. When set, 
+	 * the tiles given away are checked with a PuzzleSolver, and more tiles 
+	 * are given away until the legends and free tiles lead to only one 
+	 * arrangement of the pieces. Off by default.
+	 * 
+	 * @param uniqueSolution True to require one solution, false otherwise.
+	 */
+	public void setUniqueSolution(boolean uniqueSolution) {
+		
+		this.uniqueSolution = uniqueSolution;
+	}
+	
+	/**
+	 * Set a cache to look up the puzzles checked for one solution in before
+	 * solving them. Generating a board again from its PuzzleId checks the
+	 * same puzzles as the first time, so each is then looked up rather than
+	 * solved. The cache can be shared with generators on other threads.
+	 * 
+	 * @param solverCache Cache to use, null to always solve.
+	 */
+	public void setSolverCache(SolverCache solverCache) {
+		
+		this.solverCache = solverCache;
+	}
+	
+	/**
+	 * Set a table for the solver to keep the sets of locations that lead to
+	 * no solution in. Each tile given away to make a board unique leaves the
+	 * legends and pieces as they were, so the puzzle checked next meets many
+	 * of the dead ends of the one before. The table can be shared with 
+	 * generators on other threads.
+	 * 
+	 * @param transpositionTable Table to use, null to keep none.
+	 */
+	public void setTranspositionTable(TranspositionTable transpositionTable) {
+		
+		this.transpositionTable = transpositionTable;
+	}
+	
+	/**
+	 * Check if custom boards must have exactly one solution.
+	 * 
+	 * @return True if one solution is required, false otherwise.
+	 */
+	public boolean isUniqueSolution() {
+		
+		return uniqueSolution;
+	}
+	
+	/**
+	 * Get the number of tiles given away on the last custom board, beyond 
+	 * those asked for, to make its solution unique.
+	 * 
+	 * @return Number of extra tiles given away.
+	 */
+	public int getExtraRevealCount() {
+		
+		return extraRevealCount;
+	}
+	
 	//--------------------------------------------------------------------------
 	// Private methods
 	//--------------------------------------------------------------------------
 	
 	/**
 	 * Randomly populate the playing board with the pseudo random placement.
+	 * Pieces are only drawn from the placements that are still legal, and 
+	 * the placer backs up when a piece no longer fits, so this only fails if
+	 * the fleet can not be placed on the board.
 	 * 
 	 * @param pieceLengths The set of piece lengths to be created on the board.
 	 * @return True if successful, false otherwise.
@@ -167,73 +343,35 @@ public class DefaultBoardGenerator implements BoardGenerator {
 			return false;
 		}
 		
-		Random randomNumbers = new Random();
+		if (playingBoard.getWidth() > FleetPlacer.MAX_DIMENSION || 
+				playingBoard.getHeight() > FleetPlacer.MAX_DIMENSION) {
+			return false;
+		}
 		
-		// Sort the pieceLengths so we deal with the longest pieces first.
-		// Unfortunately, this sort orders them in ascending order, so we have
-		// to run our for loop backwards through the array.
+		// Sort the pieceLengths so the target pieces are in ascending length
+		// order, matching the order of the lengths passed in.
 		Arrays.sort(pieceLengths);
+		
+		FleetPlacer fleetPlacer = new FleetPlacer(
+				playingBoard.getWidth(), 
+				playingBoard.getHeight());
+		
+		if (!fleetPlacer.placeFleet(pieceLengths, random)) {
+			return false;
+		}
 
 		for (int i = (pieceLengths.length - 1); i >= 0; i--) {
 			
-			// Attempt to place the piece at a location on the board abiding by
-			// placement rules. Placement rules are that no piece can have 
-			// another piece touching it. This is a brute force method.
-			boolean done = false;
-			int xPos = -1;
-			int yPos = -1;
-			int length = pieceLengths[i];
-			int orientation = -1;
-			
-			// Calculate the width/height limits to choose the random 
-			// number generation range to use.
-			int widthLimit = playingBoard.getWidth();
-			int heightLimit = playingBoard.getHeight();
-		
-			if (orientation == 0) {
-				widthLimit -= (length-1);
-			} else {
-				heightLimit -= (length-1);
-			}
-			
-			int counter = 0;
+			DefaultBoardPiece newBoardPiece = new DefaultBoardPiece(
+					fleetPlacer.getX(i), 
+					fleetPlacer.getY(i), 
+					fleetPlacer.getOrientation(i), 
+					pieceLengths[i], 
+					BoardPieceState.STATE_ALIVE, 
+					playingBoard.generateGroupID());
 			
-			while(!done) {
-				
-				// Randomly determine orientation (0 = horizontal, 1 = vertical)
-				orientation = randomNumbers.nextInt(2);
-
-				xPos = randomNumbers.nextInt(widthLimit);
-				yPos = randomNumbers.nextInt(heightLimit);
-				
-				// If this is not an illegal placement, add the piece to the 
-				// board.
-				if (validatePiecePlacement(
-						xPos, 
-						yPos, 
-						orientation, 
-						length)) {
-					
-					DefaultBoardPiece newBoardPiece = new DefaultBoardPiece(
-							xPos, 
-							yPos, 
-							orientation, 
-							length, 
-							BoardPieceState.STATE_ALIVE, 
-							IdGenerator.getInstance().generateID());
-					
-					boardPieces[i] = newBoardPiece;
-					playingBoard.addBoardPiece(newBoardPiece);
-					
-					done = true;
-				}
-				
-				counter++;
-				
-				if (counter > ATTEMPT_LIMIT) {
-					return false;
-				}
-			}
+			boardPieces[i] = newBoardPiece;
+			playingBoard.addBoardPiece(newBoardPiece);
 		}
 		
 		return true;
@@ -248,26 +386,28 @@ public class DefaultBoardGenerator implements BoardGenerator {
 	 */
 	private void randomlyPlaceEmptyPieces(int numberToShow) {
 		
-		// All empty pieces should be of length one and the orientation
-		// doesn't matter.
-		int length = 1;
-		int orientation = BoardPiece.HORIZONTAL_ORIENTATION;
-		ArrayList<DefaultBoardPiece> emptySpots = 
-			new ArrayList<DefaultBoardPiece>();
+		int boardWidth = playingBoard.getWidth();
+		int boardHeight = playingBoard.getHeight();
 		
-		DefaultBoardPiece tmpPiece;
+		// Candidate locations packed as x * boardHeight + y.
+		int[] emptySpots = new int[boardWidth * boardHeight];
+		int emptySpotCount = 0;
 
 		// Get the legends and legend hints to determine where free spaces
 		// should be placed. We will not place a free space in a row or column
 		// that has 0 targets in it or is already solved by the free tiles 
 		// given away.
-		int[] horizontalLegend = playingBoard.getHorizontalLegend();
-		int[] horizontalLegendHint = playingBoard.getHorizontalLegendHint();
-		int[] verticalLegend = playingBoard.getVerticalLegend();
-		int[] verticalLegendHint = playingBoard.getVerticalLegendHint();
+		int[] horizontalLegend = 
+			playingBoard.getHorizontalLegend(new int[boardWidth]);
+		int[] horizontalLegendHint = 
+			playingBoard.getHorizontalLegendHint(new int[boardWidth]);
+		int[] verticalLegend = 
+			playingBoard.getVerticalLegend(new int[boardHeight]);
+		int[] verticalLegendHint = 
+			playingBoard.getVerticalLegendHint(new int[boardHeight]);
 		
 		// Figure out how many spaces can accept empty pieces. Brute force.
-		for (int w = 0; w < playingBoard.getWidth(); w++) {
+		for (int w = 0; w < boardWidth; w++) {
 			
 			if (horizontalLegend[w] == 0 || 
 					horizontalLegendHint[w] == 
@@ -275,7 +415,7 @@ public class DefaultBoardGenerator implements BoardGenerator {
 				continue;
 			}
 			
-			for (int h = 0; h < playingBoard.getHeight(); h++) {
+			for (int h = 0; h < boardHeight; h++) {
 				
 				if (verticalLegend[h] == 0 || 
 						verticalLegendHint[h] ==
@@ -283,45 +423,133 @@ public class DefaultBoardGenerator implements BoardGenerator {
 					continue;
 				}
 				
-				tmpPiece = (DefaultBoardPiece) 
-					playingBoard.getBoardPieces()[w][h];
+				if (playingBoard.getMatchState(w, h) == 
+					BoardPieceState.STATE_DEAD) {
 				
-				if (tmpPiece.getMatchState() == BoardPieceState.STATE_DEAD) {
-					emptySpots.add(tmpPiece);
+					emptySpots[emptySpotCount] = w * boardHeight + h;
+					emptySpotCount++;
 				}
 			}
 		}
 		
-		Random randomNumbers = new Random();
-		
-		if (emptySpots.size() < numberToShow) {
-			numberToShow = emptySpots.size();
+		if (emptySpotCount < numberToShow) {
+			numberToShow = emptySpotCount;
 		}
 		
 		int index;
-		int[] location = new int[2];
+		int spot;
 
 		for (int i = 0; i < numberToShow; i++) {
 			
-			index = randomNumbers.nextInt(emptySpots.size());
-			location = emptySpots.get(index).getLocation();
+			index = random.nextInt(emptySpotCount);
+			spot = emptySpots[index];
 			
-			DefaultBoardPiece newBoardPiece = new DefaultBoardPiece(
-				location[0], 
-				location[1], 
-				orientation, 
-				length, 
+			placeEmptyPiece(spot / boardHeight, spot % boardHeight);
+			
+			// Order of the candidates does not matter, so fill the hole with
+			// the last candidate.
+			emptySpotCount--;
+			emptySpots[index] = emptySpots[emptySpotCount];
+		}
+	}
+	
+	/**
+	 * Place an empty piece, giving away a tile with no target on it.
+	 * 
+	 * @param xPos Horizontal board position.
+	 * @param yPos Vertical board position.
+	 */
+	private void placeEmptyPiece(int xPos, int yPos) {
+		
+		// All empty pieces should be of length one and the orientation
+		// doesn't matter.
+		DefaultBoardPiece newBoardPiece = new DefaultBoardPiece(
+				xPos, 
+				yPos, 
+				BoardPiece.HORIZONTAL_ORIENTATION, 
+				1, 
 				BoardPieceState.EMPTY, 
-				IdGenerator.getInstance().generateID());
+				BoardPiece.NO_GROUP);
+		
+		newBoardPiece.setDefaultState(BoardPieceState.EMPTY);
+		
+		playingBoard.addBoardPiece(newBoardPiece);
+	}
+
+	/**
+	 * Give away tiles until the board has only one solution. While the 
+	 * solver finds two solutions, one of the tiles they disagree about is 
+	 * given away, which rules out at least one of them. The real layout is 
+	 * always a solution, so this ends with it as the only one.
+	 */
+	private void revealUntilUnique() {
+		
+		if (puzzleSolver == null) {
+			puzzleSolver = new PuzzleSolver();
+		}
+		
+		puzzleSolver.setTranspositionTable(transpositionTable);
+		
+		int boardWidth = playingBoard.getWidth();
+		int boardHeight = playingBoard.getHeight();
+		
+		// Candidate locations packed as x * boardHeight + y.
+		int[] candidates = new int[boardWidth * boardHeight];
+		
+		Puzzle puzzle = Puzzle.fromBoard(playingBoard);
+		SolverResult result = solve(puzzle);
+		
+		while (result.getStatus() == SolverResult.AMBIGUOUS) {
+			
+			int candidateCount = 0;
 			
-			newBoardPiece.setDefaultState(BoardPieceState.EMPTY);
+			for (int w = 0; w < boardWidth; w++) {
+				for (int h = 0; h < boardHeight; h++) {
 					
-			playingBoard.addBoardPiece(newBoardPiece);
-
-			emptySpots.remove(index);
+					if (result.isAmbiguousAt(w, h)) {
+						candidates[candidateCount] = w * boardHeight + h;
+						candidateCount++;
+					}
+				}
+			}
+			
+			int spot = candidates[random.nextInt(candidateCount)];
+			int xPos = spot / boardHeight;
+			int yPos = spot % boardHeight;
+			
+			if (playingBoard.getMatchState(xPos, yPos) == 
+				BoardPieceState.STATE_ALIVE) {
+				
+				playingBoard.getCellView(xPos, yPos).setDefaultState(
+						BoardPieceState.STATE_ALIVE);
+				puzzle.setCell(xPos, yPos, Puzzle.SHIP);
+				
+			} else {
+				
+				placeEmptyPiece(xPos, yPos);
+				puzzle.setCell(xPos, yPos, Puzzle.WATER);
+			}
+			
+			extraRevealCount++;
+			result = solve(puzzle);
 		}
 	}
 	
+	/**
+	 * Solve a puzzle, looking it up in the solver cache first if one is set.
+	 * 
+	 * @param puzzle Puzzle to solve.
+	 * @return Result of the puzzle.
+	 */
+	private SolverResult solve(Puzzle puzzle) {
+		
+		if (solverCache != null) {
+			return solverCache.solve(puzzleSolver, puzzle);
+		}
+		
+		return puzzleSolver.solve(puzzle);
+	}
+	
 	/**
 	 * Give away some number of hidden target tiles to the user.
 	 * 
@@ -330,7 +558,6 @@ public class DefaultBoardGenerator implements BoardGenerator {
 	 */
 	private void setupTargetTileHints(int numberToShow) {
 		
-		Random random = new Random();
 		int selection = 0;
 		int subSelection = 0;
 		boolean hintMade = false;
@@ -344,12 +571,12 @@ public class DefaultBoardGenerator implements BoardGenerator {
 			
 				selection = random.nextInt(boardPieces.length);
 			
-				if (boardPieces[selection].getSubPieces() != null) {
+				if (boardPieces[selection].getSubPieceCount() > 0) {
 					subSelection = random.nextInt(
-							boardPieces[selection].getSubPieces().length);
+							boardPieces[selection].getSubPieceCount());
 					
 					subPiece = (DefaultBoardPiece) 
-						boardPieces[selection].getSubPieces()[subSelection];
+						boardPieces[selection].getSubPiece(subSelection);
 				} else {
 					subPiece = (DefaultBoardPiece) boardPieces[selection];
 				}
@@ -362,7 +589,6 @@ public class DefaultBoardGenerator implements BoardGenerator {
 		}
 		
 		subPiece = null;
-		random = null;
 	}
 	
 	/**
@@ -434,12 +660,10 @@ public class DefaultBoardGenerator implements BoardGenerator {
 						continue;
 					}
 					
-					playingBoard.pickBoardLocation(testXPos, testYPos);
-					
 					// This is an illegal placement if the checked 
 					// board piece match state is not equal to dead.
-					if (((DefaultBoardPiece)playingBoard.getLastPick()
-							).getMatchState() != BoardPieceState.STATE_DEAD) {
+					if (playingBoard.getMatchState(testXPos, testYPos) != 
+						BoardPieceState.STATE_DEAD) {
 						
 						return false;
 					}
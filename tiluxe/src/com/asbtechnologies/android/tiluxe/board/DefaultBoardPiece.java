@@ -9,8 +9,6 @@
 
 package com.asbtechnologies.android.tiluxe.board;
 
-import com.asbtechnologies.android.tiluxe.util.IdGenerator;
-
 //External Imports
 
 //Internal Imports
@@ -19,6 +17,12 @@ import com.asbtechnologies.android.tiluxe.util.IdGenerator;
  * Default BoardPiece implementation. Board pieces occupy space on the 
  * board, can have length and orientation.
  * 
+ * A piece holds its own state until it is placed on a DefaultBoard. A piece
+ * that occupies a single board location then becomes a view of that location
+ * in the board's cell storage, and reads and writes go straight to the board.
+ * If the location is later taken by another piece, the piece goes back to 
+ * holding its own state, keeping the values it had on the board.
+ * 
  * @author Ben Yarger
  * @version $Revision: 1.10 $
  */
@@ -42,7 +46,7 @@ public class DefaultBoardPiece implements BoardPiece, BoardPieceState {
 	/** Unique group id identifying the piece, and any sub pieces. */
 	private int groupID;
 	
-	/** Unique id to identify the individual piece. */
+	/** Unique id to identify the individual piece, NO_ID until placed. */
 	private int pieceID;
 	
 	/** Hold the desired state of the piece the user must match. */
@@ -57,6 +61,16 @@ public class DefaultBoardPiece implements BoardPiece, BoardPieceState {
 	/** The default state of the piece for resetting to. */
 	private int defaultPieceState = BoardPieceState.STATE_LIMBO;
 	
+	/** 
+	 * Board the piece is placed on. For a piece with sub pieces this is the 
+	 * board the sub pieces are located on, otherwise the board whose cell 
+	 * storage the piece is a view of.
+	 */
+	private DefaultBoard board;
+	
+	/** Board cell the piece is a view of, -1 if it holds its own state. */
+	private int cellIndex = -1;
+	
 	/**
 	 * Default constructor. Position refers to head of piece when length is 
 	 * greater than 1. The head is the tile closest to 0,0 board position.
@@ -130,8 +144,8 @@ public class DefaultBoardPiece implements BoardPiece, BoardPieceState {
 			currentState = BoardPieceState.STATE_LIMBO;
 		}
 		
-		pieceID = IdGenerator.getInstance().generateID();
-		subDividePieces();
+		// The piece ID is given by the board the piece is placed on.
+		pieceID = BoardPiece.NO_ID;
 	}
 	
 	/**
@@ -159,6 +173,24 @@ public class DefaultBoardPiece implements BoardPiece, BoardPieceState {
 		this(xPos, yPos, orientation, length, expectedState, groupID);
 //		parent = parent;
 	}
+	
+	/**
+	 * Board cell constructor. Creates a view of a location in the board's cell
+	 * storage. Does not generate a piece ID, the ID is held by the board.
+	 * 
+	 * @param board Board holding the cell storage
+	 * @param cellIndex Index of the location in the board's cell storage
+	 * @param xPos X axis board position
+	 * @param yPos Y axis board position
+	 */
+	DefaultBoardPiece(DefaultBoard board, int cellIndex, int xPos, int yPos) {
+		
+		this.board = board;
+		this.cellIndex = cellIndex;
+		this.xPos = xPos;
+		this.yPos = yPos;
+		this.parent = null;
+	}
 
 	//--------------------------------------------------------------------------
 	// Required by BoardPiece
@@ -169,6 +201,11 @@ public class DefaultBoardPiece implements BoardPiece, BoardPieceState {
 	 */
 	@Override
 	public int getPieceID() {
+		
+		if (cellIndex >= 0) {
+			return board.getCellPieceID(cellIndex);
+		}
+		
 		return pieceID;
 	}
 	
@@ -177,6 +214,11 @@ public class DefaultBoardPiece implements BoardPiece, BoardPieceState {
 	 */
 	@Override
 	public int getGroupID() {
+		
+		if (cellIndex >= 0) {
+			return board.getCellGroupID(cellIndex);
+		}
+		
 		return groupID;
 	}
 	
@@ -190,12 +232,45 @@ public class DefaultBoardPiece implements BoardPiece, BoardPieceState {
 		return location;
 	}
 
+	/* (non-Javadoc)
+	 * @see com.asbtechnologies.android.tiluxe.board.BoardPiece#getLocation(int[])
+	 */
+	@Override
+	public int[] getLocation(int[] location) {
+		
+		location[0] = xPos;
+		location[1] = yPos;
+		return location;
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.asbtechnologies.android.tiluxe.board.BoardPiece#getX()
+	 */
+	@Override
+	public int getX() {
+		
+		return xPos;
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.asbtechnologies.android.tiluxe.board.BoardPiece#getY()
+	 */
+	@Override
+	public int getY() {
+		
+		return yPos;
+	}
+	
 	/* (non-Javadoc)
 	 * @see com.asbtechnologies.android.tiluxe.board.BoardPiece#getOrientation()
 	 */
 	@Override
 	public int getOrientation() {
 		
+		if (cellIndex >= 0) {
+			return board.getCellOrientation(cellIndex);
+		}
+		
 		return orientation;
 	}
 
@@ -204,16 +279,28 @@ public class DefaultBoardPiece implements BoardPiece, BoardPieceState {
 	 */
 	@Override
 	public int getLength() {
+		
+		if (cellIndex >= 0) {
+			return board.getCellLength(cellIndex);
+		}
 
 		return length;
 	}
 
-	/* (non-Javadoc)
-	 * @see com.asbtechnologies.android.tiluxe.board.BoardPiece#getSubPieces()
+	/**
+	 * Get the sub pieces of the BoardPiece. Sub pieces are only created when
+	 * first asked for. If the piece has been placed on a board by then, the 
+	 * sub pieces are the board's views of the locations the piece covers.
+	 * 
+	 * @return Array of sub BoardPieces, null if the length is one or less
 	 */
 	@Override
 	public DefaultBoardPiece[] getSubPieces() {
 	
+		if (subPieces == null) {
+			subDividePieces();
+		}
+		
 		if (subPieces == null) {
 			return null;
 		}
@@ -228,6 +315,36 @@ public class DefaultBoardPiece implements BoardPiece, BoardPieceState {
 		return subPiecesCopy;
 	}
 	
+	/* (non-Javadoc)
+	 * @see com.asbtechnologies.android.tiluxe.board.BoardPiece#getSubPieceCount()
+	 */
+	@Override
+	public int getSubPieceCount() {
+		
+		if (getLength() <= 1) {
+			return 0;
+		}
+		
+		return getLength();
+	}
+	
+	/**
+	 * Get a single sub piece of the BoardPiece without copying the sub pieces.
+	 * Sub pieces are created the first time any are asked for.
+	 * 
+	 * @param index Index of the sub piece, from 0 to getSubPieceCount() - 1
+	 * @return Sub BoardPiece
+	 */
+	@Override
+	public DefaultBoardPiece getSubPiece(int index) {
+		
+		if (subPieces == null) {
+			subDividePieces();
+		}
+		
+		return subPieces[index];
+	}
+	
 	//--------------------------------------------------------------------------
 	// Methods required by BoardPieceState
 	//--------------------------------------------------------------------------
@@ -238,7 +355,7 @@ public class DefaultBoardPiece implements BoardPiece, BoardPieceState {
 	@Override
 	public boolean isEmpty() {
 		
-		if (currentState == BoardPieceState.EMPTY) {
+		if (getCurrentState() == BoardPieceState.EMPTY) {
 			return true;
 		}
 		
@@ -251,7 +368,7 @@ public class DefaultBoardPiece implements BoardPiece, BoardPieceState {
 	@Override
 	public boolean isAlive() {
 		
-		if (currentState == BoardPieceState.STATE_ALIVE) {
+		if (getCurrentState() == BoardPieceState.STATE_ALIVE) {
 			return true;
 		}
 		
@@ -264,7 +381,7 @@ public class DefaultBoardPiece implements BoardPiece, BoardPieceState {
 	@Override
 	public boolean isDead() {
 		
-		if (currentState == BoardPieceState.STATE_DEAD) {
+		if (getCurrentState() == BoardPieceState.STATE_DEAD) {
 			return true;
 		}
 		
@@ -277,7 +394,7 @@ public class DefaultBoardPiece implements BoardPiece, BoardPieceState {
 	@Override
 	public boolean isInLimbo() {
 		
-		if (currentState == BoardPieceState.STATE_LIMBO) {
+		if (getCurrentState() == BoardPieceState.STATE_LIMBO) {
 			return true;
 		}
 		
@@ -290,6 +407,11 @@ public class DefaultBoardPiece implements BoardPiece, BoardPieceState {
 	@Override
 	public void setState(int boardState) {
 		
+		if (cellIndex >= 0) {
+			board.setCellState(cellIndex, boardState);
+			return;
+		}
+		
 		currentState = boardState;
 	}
 	
@@ -298,6 +420,11 @@ public class DefaultBoardPiece implements BoardPiece, BoardPieceState {
 	 */
 	@Override
 	public void setDefaultState(int boardState) {
+		
+		if (cellIndex >= 0) {
+			board.setCellDefaultState(cellIndex, boardState);
+			return;
+		}
 	
 		defaultPieceState = boardState;
 		currentState = boardState;
@@ -309,6 +436,10 @@ public class DefaultBoardPiece implements BoardPiece, BoardPieceState {
 	@Override
 	public int getCurrentState() {
 		
+		if (cellIndex >= 0) {
+			return board.getCellCurrentState(cellIndex);
+		}
+		
 		return currentState;
 	}
 
@@ -318,19 +449,19 @@ public class DefaultBoardPiece implements BoardPiece, BoardPieceState {
 	@Override
 	public boolean isGroupStateCorrect() {
 		
-		DefaultBoardPiece[] subPieces = getSubPieces();
+		int subPieceCount = getSubPieceCount();
 		
-		if (subPieces == null && parent == null) {
+		if (subPieceCount == 0 && parent == null) {
 			
 			return isStateCorrect();
 			//return false;
-		} else if (subPieces == null){
+		} else if (subPieceCount == 0){
 			return false;
 		}
 		
-		for (int i = 0; i < subPieces.length; i++) {
+		for (int i = 0; i < subPieceCount; i++) {
 			
-			if (!subPieces[i].isStateCorrect()) {
+			if (!getSubPiece(i).isStateCorrect()) {
 				return false;
 			}
 		}
@@ -344,7 +475,7 @@ public class DefaultBoardPiece implements BoardPiece, BoardPieceState {
 	@Override
 	public boolean isStateCorrect() {
 		
-		if (currentState == expectedState) {
+		if (getCurrentState() == getMatchState()) {
 			return true;
 		}
 		
@@ -356,6 +487,11 @@ public class DefaultBoardPiece implements BoardPiece, BoardPieceState {
 	 */
 	@Override
 	public int getMatchState() {
+		
+		if (cellIndex >= 0) {
+			return board.getCellMatchState(cellIndex);
+		}
+		
 		return expectedState;
 	}
 	
@@ -367,13 +503,23 @@ public class DefaultBoardPiece implements BoardPiece, BoardPieceState {
 		
 		if (!isEmpty()) {
 			
+			int nextState;
+			
 			if (getCurrentState() == BoardPieceState.STATE_LIMBO) {
-				setState(BoardPieceState.STATE_ALIVE);
+				nextState = BoardPieceState.STATE_ALIVE;
 			} else if (getCurrentState() == BoardPieceState.STATE_ALIVE) {
-				setState(BoardPieceState.STATE_DEAD);
+				nextState = BoardPieceState.STATE_DEAD;
 			} else {
-				setState(BoardPieceState.STATE_LIMBO);
+				nextState = BoardPieceState.STATE_LIMBO;
+			}
+			
+			// Moves on the board go in its undo history.
+			if (cellIndex >= 0) {
+				board.playCellState(cellIndex, nextState);
+				return;
 			}
+			
+			currentState = nextState;
 		}
 	}
 	
@@ -383,9 +529,103 @@ public class DefaultBoardPiece implements BoardPiece, BoardPieceState {
 	@Override
 	public int getStartingState() {
 		
+		if (cellIndex >= 0) {
+			return board.getCellStartingState(cellIndex);
+		}
+		
 		return defaultPieceState;
 	}
 	
+	//--------------------------------------------------------------------------
+	// Package methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Check if the piece is a view of a board cell.
+	 * 
+	 * @return True if the piece reads and writes the board's cell storage
+	 */
+	boolean isCellView() {
+		
+		return cellIndex >= 0;
+	}
+	
+	/**
+	 * Check if the sub pieces of the piece have been created.
+	 * 
+	 * @return True if the sub pieces exist
+	 */
+	boolean hasSubPieces() {
+		
+		return subPieces != null;
+	}
+	
+	/**
+	 * Get the board the piece is placed on.
+	 * 
+	 * @return Board, or null if the piece is not placed on a board
+	 */
+	DefaultBoard getBoard() {
+		
+		return board;
+	}
+	
+	/**
+	 * Get the board cell the piece is a view of.
+	 * 
+	 * @return Index of the cell in the board's storage, -1 if not a view
+	 */
+	int getCellIndex() {
+		
+		return cellIndex;
+	}
+	
+	/**
+	 * Make the piece a view of a board cell. The board must already hold the
+	 * values of the piece in its cell storage.
+	 * 
+	 * @param board Board holding the cell storage
+	 * @param cellIndex Index of the cell in the board's storage
+	 */
+	void attachToCell(DefaultBoard board, int cellIndex) {
+		
+		this.board = board;
+		this.cellIndex = cellIndex;
+	}
+	
+	/**
+	 * Stop viewing the board cell, copying the cell values into the piece so 
+	 * it keeps the values it had on the board.
+	 */
+	void detachFromCell() {
+		
+		if (cellIndex < 0) {
+			return;
+		}
+		
+		pieceID = board.getCellPieceID(cellIndex);
+		groupID = board.getCellGroupID(cellIndex);
+		orientation = board.getCellOrientation(cellIndex);
+		length = board.getCellLength(cellIndex);
+		expectedState = board.getCellMatchState(cellIndex);
+		currentState = board.getCellCurrentState(cellIndex);
+		defaultPieceState = board.getCellStartingState(cellIndex);
+		
+		board = null;
+		cellIndex = -1;
+	}
+	
+	/**
+	 * Set the board the sub pieces of the piece have been placed on, so sub 
+	 * pieces created later are the board's views of those locations.
+	 * 
+	 * @param board Board the sub pieces are located on
+	 */
+	void setGroupBoard(DefaultBoard board) {
+		
+		this.board = board;
+	}
+	
 	//--------------------------------------------------------------------------
 	// Private class methods
 	//--------------------------------------------------------------------------
@@ -393,6 +633,8 @@ public class DefaultBoardPiece implements BoardPiece, BoardPieceState {
 	/**
 	 * Generate the sub pieces of the piece. The sub pieces are created based on
 	 * length. 1 piece per length size (length = 5, 5 sub pieces are created).
+	 * If the piece is placed on a board, the sub pieces are the board's views
+	 * of the locations it covers.
 	 */
 	private void subDividePieces() {
 		
@@ -409,7 +651,15 @@ public class DefaultBoardPiece implements BoardPiece, BoardPieceState {
 		// associated with the parent piece.
 		for (int i = 0; i < length; i++) {
 			
-			if (orientation == BoardPiece.HORIZONTAL_ORIENTATION) {
+			if (board != null) {
+				
+				if (orientation == BoardPiece.HORIZONTAL_ORIENTATION) {
+					subPieces[i] = board.getCellView(xPos+i, yPos);
+				} else {
+					subPieces[i] = board.getCellView(xPos, yPos+i);
+				}
+				
+			} else if (orientation == BoardPiece.HORIZONTAL_ORIENTATION) {
 				subPieces[i] = 
 					new DefaultBoardPiece(
 						xPos+i, 
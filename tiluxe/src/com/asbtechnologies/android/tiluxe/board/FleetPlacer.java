@@ -0,0 +1,938 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ * 
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ * 
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.board;
+
+//External Imports
+import java.util.Arrays;
+import java.util.Random;
+
+//Internal Imports
+
+/**
+ * Places a fleet of pieces on a board so that no two pieces touch, including
+ * diagonally.
+ * 
+ * Locations that can no longer take a piece, the pieces placed so far and
+ * the ring of locations around them, are kept as bitmasks, one long per row
+ * and one long per column. Checking if a piece fits at a location is then a
+ * single mask test, so each piece is tried in turn at the legal placements
+ * that remain rather than at random guesses. When a piece has nowhere left
+ * to go the search backs up and moves an earlier piece.
+ * 
+ * Every search draws a random rank for each placement of each length, and
+ * tries the placements in rank order. Pieces of the same length can swap
+ * places, so each one only takes a placement ranked after the one taken by
+ * the piece of that length before it. The search then tries each layout once
+ * rather than once for every order of the pieces, which is what lets it rule
+ * out a dense fleet, and trying the lowest ranks first leaves room for the
+ * pieces of that length still to come.
+ * 
+ * Each search is bounded by a node limit, as a search that goes down a bad
+ * early choice can take far longer than starting over. When the limit is
+ * reached the search starts over with fresh random choices and twice the
+ * limit, so a fleet that fits is found quickly, and a search that runs to
+ * the end without reaching its limit proves the fleet can not fit. The
+ * searches of one call stop at MAX_NODE_COUNT placements in all, so a fleet
+ * that fits only in a few layouts, or not at all, fails in bounded time.
+ * 
+ * The placer can also sample fleets that match a puzzle, see setUpSampling
+ * and sampleFleet. Sampling makes one pass without backing up, and weighs
+ * each fleet it finds by the number of choices it had on the way, so that
+ * averages over many samples count every matching fleet equally.
+ * 
+ * Boards can be at most MAX_DIMENSION locations wide and high. Not thread
+ * safe, use one placer per thread.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class FleetPlacer {
+	
+	/** Largest board width or height supported. */
+	public static final int MAX_DIMENSION = 64;
+	
+	/** Number of placements tried in the first search before starting over. */
+	private static final int NODE_LIMIT = 20000;
+	
+	/** Number of placements tried by all the searches of one placeFleet. */
+	private static final int MAX_NODE_COUNT = 2000000;
+	
+	/** Bits of a ranked placement below the rank, see rankPlacements. */
+	private static final int RANK_SHIFT = 17;
+	
+	/** Mask of the placement in a ranked placement. */
+	private static final int PLACEMENT_MASK = (1 << RANK_SHIFT) - 1;
+	
+	/** Width of the board (number of columns). */
+	private int boardWidth;
+	
+	/** Height of the board (number of rows). */
+	private int boardHeight;
+	
+	/** Blocked locations of each row, bit x set for column x. */
+	private long[] rowBlocked;
+	
+	/** Blocked locations of each column, bit y set for row y. */
+	private long[] columnBlocked;
+	
+	/** Row masks saved before the piece at each depth was placed. */
+	private long[][] savedRowBlocked;
+	
+	/** Column masks saved before the piece at each depth was placed. */
+	private long[][] savedColumnBlocked;
+	
+	/** Legal placements found at each depth, see encodePlacement. */
+	private int[][] candidates;
+	
+	/** Piece lengths in the order they are placed, longest first. */
+	private int[] placementLengths;
+	
+	/** Index into the caller's piece lengths for each placement depth. */
+	private int[] placementOrder;
+	
+	/** Sum of the lengths of the pieces from each depth to the end. */
+	private int[] remainingLength;
+	
+	/** Number of pieces from each depth on with the length of that depth. */
+	private int[] sameLengthLeft;
+	
+	/**
+	 * Rank of each placement for the piece at each depth, see 
+	 * placementIndex. Depths with the same length share one array.
+	 */
+	private int[][] placementRank;
+	
+	/** Placement chosen at each depth, see encodePlacement. */
+	private int[] chosenPlacement;
+	
+	/** Column of each placed piece, in the caller's order. */
+	private int[] pieceX;
+	
+	/** Row of each placed piece, in the caller's order. */
+	private int[] pieceY;
+	
+	/** Orientation of each placed piece, in the caller's order. */
+	private int[] pieceOrientation;
+	
+	/** Random number source for the current placement. */
+	private Random random;
+	
+	/** Number of placements tried in the current search. */
+	private int nodeCount;
+	
+	/** Number of placements the current search may try. */
+	private int nodeLimit;
+	
+	/** Number of placements tried by the last call to placeFleet. */
+	private int lastNodeCount;
+	
+	/** Number of target locations each sampled row must have. */
+	private int[] rowLimit;
+	
+	/** Number of target locations each sampled column must have. */
+	private int[] columnLimit;
+	
+	/** Number of locations of each row covered by sampled pieces. */
+	private int[] rowPlaced;
+	
+	/** Number of locations of each column covered by sampled pieces. */
+	private int[] columnPlaced;
+	
+	/** Known target locations of each row, bit x set for column x. */
+	private long[] rowShip;
+	
+	/** Known clear locations of each row, bit x set for column x. */
+	private long[] rowWater;
+	
+	/** Known clear locations of each column, bit y set for row y. */
+	private long[] columnWater;
+	
+	/** Number of known target locations. */
+	private int shipCount;
+	
+	/**
+	 * Default constructor.
+	 * 
+	 * @param boardWidth Width of the board, 1 to MAX_DIMENSION
+	 * @param boardHeight Height of the board, 1 to MAX_DIMENSION
+	 * @throws IllegalArgumentException if the board size is not supported
+	 */
+	public FleetPlacer(int boardWidth, int boardHeight) {
+		
+		if (boardWidth < 1 || boardWidth > MAX_DIMENSION ||
+				boardHeight < 1 || boardHeight > MAX_DIMENSION) {
+			
+			throw new IllegalArgumentException(
+					"Board size " + boardWidth + "x" + boardHeight +
+					" is not supported by the fleet placer.");
+		}
+		
+		this.boardWidth = boardWidth;
+		this.boardHeight = boardHeight;
+		this.rowBlocked = new long[boardHeight];
+		this.columnBlocked = new long[boardWidth];
+	}
+	
+	//--------------------------------------------------------------------------
+	// Public methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Check if a fleet could possibly fit on the board. Each piece together
+	 * with the locations below and to the right of it covers 2 * (length + 1)
+	 * locations of a board one larger in each direction, and these areas can
+	 * not overlap. A fleet that passes this check may still not fit.
+	 * 
+	 * @param pieceLengths Lengths of the pieces in the fleet
+	 * @return False if the fleet can not fit, true if it might
+	 */
+	public boolean canFit(int[] pieceLengths) {
+		
+		int requiredArea = 0;
+		
+		for (int i = 0; i < pieceLengths.length; i++) {
+			
+			if (pieceLengths[i] < 1 ||
+					(pieceLengths[i] > boardWidth &&
+							pieceLengths[i] > boardHeight)) {
+				return false;
+			}
+			
+			requiredArea += 2 * (pieceLengths[i] + 1);
+		}
+		
+		return requiredArea <= (boardWidth + 1) * (boardHeight + 1);
+	}
+	
+	/**
+	 * Place a fleet of pieces on an empty board. On success the location of
+	 * each piece can be read back with getX, getY and getOrientation.
+	 * 
+	 * @param pieceLengths Lengths of the pieces to place, in any order. The
+	 * array is not changed.
+	 * @param random Random number source to choose placements with
+	 * @return True if every piece was placed, false if the fleet can not be
+	 * placed on the board, or was not placed within MAX_NODE_COUNT placements
+	 */
+	public boolean placeFleet(int[] pieceLengths, Random random) {
+		
+		this.random = random;
+		lastNodeCount = 0;
+		
+		if (!setUpFleet(pieceLengths)) {
+			return false;
+		}
+		
+		nodeLimit = NODE_LIMIT;
+		
+		while (true) {
+			
+			clear();
+			shuffleRanks();
+			nodeCount = 0;
+			
+			boolean placed = placeFrom(0);
+			lastNodeCount += nodeCount;
+			
+			if (placed) {
+				
+				storePlacements();
+				return true;
+			}
+			
+			// A search that finished within its limit has tried every 
+			// placement, only one that ran out of nodes is worth starting 
+			// over.
+			if (nodeCount <= nodeLimit || lastNodeCount >= MAX_NODE_COUNT) {
+				return false;
+			}
+			
+			nodeLimit = Math.min(nodeLimit * 2, MAX_NODE_COUNT - lastNodeCount);
+		}
+	}
+	
+	/**
+	 * Get the column of a placed piece.
+	 * 
+	 * @param piece Index of the piece in the lengths passed to placeFleet
+	 * @return Column of the head of the piece
+	 */
+	public int getX(int piece) {
+		
+		return pieceX[piece];
+	}
+	
+	/**
+	 * Get the row of a placed piece.
+	 * 
+	 * @param piece Index of the piece in the lengths passed to placeFleet
+	 * @return Row of the head of the piece
+	 */
+	public int getY(int piece) {
+		
+		return pieceY[piece];
+	}
+	
+	/**
+	 * Get the orientation of a placed piece.
+	 * 
+	 * @param piece Index of the piece in the lengths passed to placeFleet
+	 * @return BoardPiece HORIZONTAL_ORIENTATION or VERTICAL_ORIENTATION
+	 */
+	public int getOrientation(int piece) {
+		
+		return pieceOrientation[piece];
+	}
+	
+	/**
+	 * Set up sampling of fleets that match a puzzle. Sampled pieces cover
+	 * every known target location and no known clear location, and no row 
+	 * or column is covered more times than its legend.
+	 * 
+	 * @param pieceLengths Lengths of the pieces to place, in any order. The
+	 * array is not changed.
+	 * @param rowCounts Number of target locations in each row
+	 * @param columnCounts Number of target locations in each column
+	 * @param shipRows Known target locations of each row, bit x set for 
+	 * column x
+	 * @param waterRows Known clear locations of each row, bit x set for 
+	 * column x
+	 * @return False if the fleet can not fit, true otherwise
+	 */
+	public boolean setUpSampling(
+			int[] pieceLengths,
+			int[] rowCounts,
+			int[] columnCounts,
+			long[] shipRows,
+			long[] waterRows) {
+		
+		if (!setUpFleet(pieceLengths)) {
+			return false;
+		}
+		
+		rowLimit = new int[boardHeight];
+		columnLimit = new int[boardWidth];
+		rowPlaced = new int[boardHeight];
+		columnPlaced = new int[boardWidth];
+		rowShip = new long[boardHeight];
+		rowWater = new long[boardHeight];
+		columnWater = new long[boardWidth];
+		shipCount = 0;
+		
+		System.arraycopy(rowCounts, 0, rowLimit, 0, boardHeight);
+		System.arraycopy(columnCounts, 0, columnLimit, 0, boardWidth);
+		System.arraycopy(shipRows, 0, rowShip, 0, boardHeight);
+		System.arraycopy(waterRows, 0, rowWater, 0, boardHeight);
+		
+		for (int y = 0; y < boardHeight; y++) {
+			
+			shipCount += Long.bitCount(rowShip[y]);
+			
+			for (int x = 0; x < boardWidth; x++) {
+				
+				if ((rowWater[y] & (1L << x)) != 0) {
+					columnWater[x] |= 1L << y;
+				}
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Place the fleet set up by setUpSampling in one pass, choosing each 
+	 * piece at random from the placements that still match the puzzle. On
+	 * success the location of each piece can be read back with getX, getY 
+	 * and getOrientation.
+	 * 
+	 * The weight returned is the product of the number of placements there
+	 * were to choose from for each piece, the inverse of the chance of the
+	 * choices made. A matching fleet found with few choices is found more
+	 * often, and the weight evens this out. Averages over samples must be
+	 * weighed by it.
+	 * 
+	 * @param random Random number source to choose placements with
+	 * @return Weight of the fleet, 0 if the pass did not find a matching 
+	 * fleet
+	 */
+	public double sampleFleet(Random random) {
+		
+		clear();
+		
+		// Clear locations can not be covered, the same as blocked ones.
+		System.arraycopy(rowWater, 0, rowBlocked, 0, boardHeight);
+		System.arraycopy(columnWater, 0, columnBlocked, 0, boardWidth);
+		
+		for (int y = 0; y < boardHeight; y++) {
+			rowPlaced[y] = 0;
+		}
+		
+		for (int x = 0; x < boardWidth; x++) {
+			columnPlaced[x] = 0;
+		}
+		
+		int uncoveredCount = shipCount;
+		double weight = 1.0;
+		
+		for (int depth = 0; depth < placementLengths.length; depth++) {
+			
+			// Every remaining piece needs its own free locations, and the
+			// known targets not yet covered must be covered by them.
+			if (countFree() < remainingLength[depth] ||
+					uncoveredCount > remainingLength[depth]) {
+				return 0.0;
+			}
+			
+			int length = placementLengths[depth];
+			int[] depthCandidates = candidates[depth];
+			int candidateCount = findPlacements(length, depthCandidates);
+			int matchCount = 0;
+			
+			for (int i = 0; i < candidateCount; i++) {
+				
+				if (matchesPuzzle(depthCandidates[i], length)) {
+					depthCandidates[matchCount] = depthCandidates[i];
+					matchCount++;
+				}
+			}
+			
+			if (matchCount == 0) {
+				return 0.0;
+			}
+			
+			weight *= matchCount;
+			
+			int placement = depthCandidates[random.nextInt(matchCount)];
+			
+			chosenPlacement[depth] = placement;
+			uncoveredCount -= cover(placement, length);
+			block(placement, length);
+		}
+		
+		if (uncoveredCount > 0) {
+			return 0.0;
+		}
+		
+		storePlacements();
+		
+		return weight;
+	}
+	
+	/**
+	 * Get the number of placements tried by the last call to placeFleet.
+	 * 
+	 * @return Number of placements tried
+	 */
+	public int getLastNodeCount() {
+		
+		return lastNodeCount;
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Set up the placement order and the per depth storage for a fleet.
+	 * 
+	 * @param pieceLengths Lengths of the pieces to place
+	 * @return False if the fleet can not fit, true otherwise
+	 */
+	private boolean setUpFleet(int[] pieceLengths) {
+		
+		if (pieceLengths == null || !canFit(pieceLengths)) {
+			return false;
+		}
+		
+		int fleetSize = pieceLengths.length;
+		int maxCandidates = 2 * boardWidth * boardHeight;
+		
+		placementLengths = new int[fleetSize];
+		placementOrder = new int[fleetSize];
+		remainingLength = new int[fleetSize + 1];
+		sameLengthLeft = new int[fleetSize];
+		placementRank = new int[fleetSize][];
+		chosenPlacement = new int[fleetSize];
+		pieceX = new int[fleetSize];
+		pieceY = new int[fleetSize];
+		pieceOrientation = new int[fleetSize];
+		
+		if (candidates == null || candidates.length < fleetSize) {
+			
+			candidates = new int[fleetSize][maxCandidates];
+			savedRowBlocked = new long[fleetSize][boardHeight];
+			savedColumnBlocked = new long[fleetSize][boardWidth];
+		}
+		
+		// Place the longest pieces first, they have the fewest placements.
+		// Insertion sort keeps pieces of the same length in the caller's
+		// order.
+		for (int i = 0; i < fleetSize; i++) {
+			
+			int j = i;
+			
+			while (j > 0 && placementLengths[j - 1] < pieceLengths[i]) {
+				
+				placementLengths[j] = placementLengths[j - 1];
+				placementOrder[j] = placementOrder[j - 1];
+				j--;
+			}
+			
+			placementLengths[j] = pieceLengths[i];
+			placementOrder[j] = i;
+		}
+		
+		for (int i = fleetSize - 1; i >= 0; i--) {
+			
+			remainingLength[i] = remainingLength[i + 1] + placementLengths[i];
+			sameLengthLeft[i] = 1;
+			
+			if (i + 1 < fleetSize &&
+					placementLengths[i + 1] == placementLengths[i]) {
+				sameLengthLeft[i] += sameLengthLeft[i + 1];
+			}
+		}
+		
+		for (int i = 0; i < fleetSize; i++) {
+			
+			if (i > 0 && placementLengths[i - 1] == placementLengths[i]) {
+				placementRank[i] = placementRank[i - 1];
+			} else {
+				placementRank[i] = new int[2 * boardWidth * boardHeight];
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Place the pieces from a depth to the end of the fleet, backing up when
+	 * a piece can not be placed.
+	 * 
+	 * @param depth Index into the placement order of the piece to place
+	 * @return True if the pieces were placed, false if they could not be or
+	 * the node limit was reached
+	 */
+	private boolean placeFrom(int depth) {
+		
+		if (depth == placementLengths.length) {
+			return true;
+		}
+		
+		// Every remaining piece needs its own free locations.
+		if (countFree() < remainingLength[depth]) {
+			return false;
+		}
+		
+		int length = placementLengths[depth];
+		int[] depthCandidates = candidates[depth];
+		int candidateCount = rankPlacements(
+				depth, findPlacements(length, depthCandidates));
+		
+		// Each piece of this length still to place needs a placement ranked
+		// after the one before it.
+		if (candidateCount < sameLengthLeft[depth]) {
+			return false;
+		}
+		
+		Arrays.sort(depthCandidates, 0, candidateCount);
+		
+		System.arraycopy(
+				rowBlocked, 0, savedRowBlocked[depth], 0, boardHeight);
+		System.arraycopy(
+				columnBlocked, 0, savedColumnBlocked[depth], 0, boardWidth);
+		
+		for (int i = 0; i < candidateCount; i++) {
+			
+			nodeCount++;
+			
+			if (nodeCount > nodeLimit) {
+				return false;
+			}
+			
+			int placement = depthCandidates[i] & PLACEMENT_MASK;
+			
+			chosenPlacement[depth] = placement;
+			block(placement, length);
+			
+			if (placeFrom(depth + 1)) {
+				return true;
+			}
+			
+			if (nodeCount > nodeLimit) {
+				return false;
+			}
+			
+			System.arraycopy(
+					savedRowBlocked[depth], 0, rowBlocked, 0, boardHeight);
+			System.arraycopy(
+					savedColumnBlocked[depth], 0, columnBlocked, 0, boardWidth);
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Find the legal placements for a piece on the board as it is now.
+	 * 
+	 * @param length Length of the piece
+	 * @param placements Array to fill with the encoded placements
+	 * @return Number of placements found
+	 */
+	private int findPlacements(int length, int[] placements) {
+		
+		int count = 0;
+		long pieceMask = lengthMask(length);
+		
+		if (length <= boardWidth) {
+			for (int y = 0; y < boardHeight; y++) {
+				
+				long free = ~rowBlocked[y];
+				
+				for (int x = 0; x + length <= boardWidth; x++) {
+					
+					if (((pieceMask << x) & ~free) == 0) {
+						placements[count] = encodePlacement(
+								x, y, BoardPiece.HORIZONTAL_ORIENTATION);
+						count++;
+					}
+				}
+			}
+		}
+		
+		// A piece of length 1 is the same in either orientation.
+		if (length > 1 && length <= boardHeight) {
+			for (int x = 0; x < boardWidth; x++) {
+				
+				long free = ~columnBlocked[x];
+				
+				for (int y = 0; y + length <= boardHeight; y++) {
+					
+					if (((pieceMask << y) & ~free) == 0) {
+						placements[count] = encodePlacement(
+								x, y, BoardPiece.VERTICAL_ORIENTATION);
+						count++;
+					}
+				}
+			}
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Put the rank of each placement found for a depth above its encoding,
+	 * so that sorting them puts them in rank order, and drop the placements
+	 * not ranked after the one taken by the piece of the same length before.
+	 * 
+	 * @param depth Index into the placement order of the piece to place
+	 * @param count Number of placements found for the depth
+	 * @return Number of placements kept, at the start of the candidates
+	 */
+	private int rankPlacements(int depth, int count) {
+		
+		int[] placements = candidates[depth];
+		int[] rank = placementRank[depth];
+		int firstRank = 0;
+		int keptCount = 0;
+		
+		if (depth > 0 && placementRank[depth - 1] == rank) {
+			firstRank = rank[placementIndex(chosenPlacement[depth - 1])] + 1;
+		}
+		
+		for (int i = 0; i < count; i++) {
+			
+			int candidateRank = rank[placementIndex(placements[i])];
+			
+			if (candidateRank >= firstRank) {
+				placements[keptCount] =
+					(candidateRank << RANK_SHIFT) | placements[i];
+				keptCount++;
+			}
+		}
+		
+		return keptCount;
+	}
+	
+	/**
+	 * Draw a new random rank for every placement of every length.
+	 */
+	private void shuffleRanks() {
+		
+		for (int depth = 0; depth < placementRank.length; depth++) {
+			
+			if (depth > 0 && placementRank[depth - 1] == placementRank[depth]) {
+				continue;
+			}
+			
+			int[] rank = placementRank[depth];
+			
+			for (int i = 0; i < rank.length; i++) {
+				
+				int j = random.nextInt(i + 1);
+				
+				rank[i] = rank[j];
+				rank[j] = i;
+			}
+		}
+	}
+	
+	/**
+	 * Get the index of an encoded placement into a rank array.
+	 * 
+	 * @param placement Encoded placement
+	 * @return Index from 0 to 2 * boardWidth * boardHeight - 1
+	 */
+	private int placementIndex(int placement) {
+		
+		return (decodeOrientation(placement) * boardWidth + 
+				decodeX(placement)) * boardHeight + decodeY(placement);
+	}
+	
+	/**
+	 * Block the locations of a placed piece and the ring around it.
+	 * 
+	 * @param placement Encoded placement of the piece
+	 * @param length Length of the piece
+	 */
+	private void block(int placement, int length) {
+		
+		int x = decodeX(placement);
+		int y = decodeY(placement);
+		int width = 1;
+		int height = 1;
+		
+		if (decodeOrientation(placement) == BoardPiece.HORIZONTAL_ORIENTATION) {
+			width = length;
+		} else {
+			height = length;
+		}
+		
+		// Grow the piece by one location on every side, clipped to the board.
+		int left = Math.max(x - 1, 0);
+		int top = Math.max(y - 1, 0);
+		int right = Math.min(x + width, boardWidth - 1);
+		int bottom = Math.min(y + height, boardHeight - 1);
+		
+		long rowMask = lengthMask(right - left + 1) << left;
+		long columnMask = lengthMask(bottom - top + 1) << top;
+		
+		for (int row = top; row <= bottom; row++) {
+			rowBlocked[row] |= rowMask;
+		}
+		
+		for (int column = left; column <= right; column++) {
+			columnBlocked[column] |= columnMask;
+		}
+	}
+	
+	/**
+	 * Check if a placement matches the puzzle set up by setUpSampling. The
+	 * piece must leave room in the legends of the lines it covers, and no 
+	 * known target may be next to it, as a target there could never be 
+	 * covered.
+	 * 
+	 * @param placement Encoded placement of the piece
+	 * @param length Length of the piece
+	 * @return True if the placement matches
+	 */
+	private boolean matchesPuzzle(int placement, int length) {
+		
+		int x = decodeX(placement);
+		int y = decodeY(placement);
+		int width = 1;
+		int height = 1;
+		
+		if (decodeOrientation(placement) == BoardPiece.HORIZONTAL_ORIENTATION) {
+			width = length;
+		} else {
+			height = length;
+		}
+		
+		for (int row = y; row < y + height; row++) {
+			
+			if (rowPlaced[row] + width > rowLimit[row]) {
+				return false;
+			}
+		}
+		
+		for (int column = x; column < x + width; column++) {
+			
+			if (columnPlaced[column] + height > columnLimit[column]) {
+				return false;
+			}
+		}
+		
+		int left = Math.max(x - 1, 0);
+		int top = Math.max(y - 1, 0);
+		int right = Math.min(x + width, boardWidth - 1);
+		int bottom = Math.min(y + height, boardHeight - 1);
+		
+		long ringMask = lengthMask(right - left + 1) << left;
+		long pieceMask = lengthMask(width) << x;
+		
+		for (int row = top; row <= bottom; row++) {
+			
+			long mask = ringMask;
+			
+			if (row >= y && row < y + height) {
+				mask &= ~pieceMask;
+			}
+			
+			if ((rowShip[row] & mask) != 0) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Count a sampled piece into the lines it covers.
+	 * 
+	 * @param placement Encoded placement of the piece
+	 * @param length Length of the piece
+	 * @return Number of known target locations the piece covers
+	 */
+	private int cover(int placement, int length) {
+		
+		int x = decodeX(placement);
+		int y = decodeY(placement);
+		int width = 1;
+		int height = 1;
+		
+		if (decodeOrientation(placement) == BoardPiece.HORIZONTAL_ORIENTATION) {
+			width = length;
+		} else {
+			height = length;
+		}
+		
+		long pieceMask = lengthMask(width) << x;
+		int coveredCount = 0;
+		
+		for (int row = y; row < y + height; row++) {
+			
+			rowPlaced[row] += width;
+			coveredCount += Long.bitCount(rowShip[row] & pieceMask);
+		}
+		
+		for (int column = x; column < x + width; column++) {
+			columnPlaced[column] += height;
+		}
+		
+		return coveredCount;
+	}
+	
+	/**
+	 * Count the locations that are not blocked.
+	 * 
+	 * @return Number of free locations
+	 */
+	private int countFree() {
+		
+		int blocked = 0;
+		
+		for (int y = 0; y < boardHeight; y++) {
+			blocked += Long.bitCount(rowBlocked[y]);
+		}
+		
+		return boardWidth * boardHeight - blocked;
+	}
+	
+	/**
+	 * Clear every blocked location.
+	 */
+	private void clear() {
+		
+		for (int y = 0; y < boardHeight; y++) {
+			rowBlocked[y] = 0;
+		}
+		
+		for (int x = 0; x < boardWidth; x++) {
+			columnBlocked[x] = 0;
+		}
+	}
+	
+	/**
+	 * Copy the chosen placements into the caller's piece order.
+	 */
+	private void storePlacements() {
+		
+		for (int depth = 0; depth < chosenPlacement.length; depth++) {
+			
+			int piece = placementOrder[depth];
+			
+			pieceX[piece] = decodeX(chosenPlacement[depth]);
+			pieceY[piece] = decodeY(chosenPlacement[depth]);
+			pieceOrientation[piece] = decodeOrientation(chosenPlacement[depth]);
+		}
+	}
+	
+	/**
+	 * Get a mask with the lowest bits set.
+	 * 
+	 * @param length Number of bits to set, 1 to 64
+	 * @return Mask
+	 */
+	private static long lengthMask(int length) {
+		
+		if (length >= 64) {
+			return -1L;
+		}
+		
+		return (1L << length) - 1;
+	}
+	
+	/**
+	 * Pack a placement into an int.
+	 * 
+	 * @param x Column of the head of the piece
+	 * @param y Row of the head of the piece
+	 * @param orientation BoardPiece orientation
+	 * @return Encoded placement
+	 */
+	private static int encodePlacement(int x, int y, int orientation) {
+		
+		return (orientation << 16) | (x << 8) | y;
+	}
+	
+	/**
+	 * Get the column of an encoded placement.
+	 * 
+	 * @param placement Encoded placement
+	 * @return Column
+	 */
+	private static int decodeX(int placement) {
+		
+		return (placement >> 8) & 0xFF;
+	}
+	
+	/**
+	 * Get the row of an encoded placement.
+	 * 
+	 * @param placement Encoded placement
+	 * @return Row
+	 */
+	private static int decodeY(int placement) {
+		
+		return placement & 0xFF;
+	}
+	
+	/**
+	 * Get the orientation of an encoded placement.
+	 * 
+	 * @param placement Encoded placement
+	 * @return BoardPiece orientation
+	 */
+	private static int decodeOrientation(int placement) {
+		
+		return placement >> 16;
+	}
+}
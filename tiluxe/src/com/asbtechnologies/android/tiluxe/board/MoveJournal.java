@@ -0,0 +1,253 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.board;
+
+//External Imports
+
+//Internal Imports
+
+/**
+ * Undo and redo history of the moves played on a board. Each move is kept as
+ * a single int, the cell index in the high bits then 2 bits each for the
+ * state the cell was changed from and to, in a ring of fixed size. Once the
+ * ring is full the oldest moves are dropped to make room.
+ * 
+ * Recording, undoing and redoing a move is constant time and allocates 
+ * nothing. The default ring of 1024 moves takes 4 KB.
+ * 
+ * Not thread safe.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class MoveJournal {
+	
+	/** Number of moves kept by default. */
+	public static final int DEFAULT_CAPACITY = 1024;
+	
+	/** Returned by undo() and redo() when there is no move to take. */
+	public static final int NO_MOVE = -1;
+	
+	/** Bits per state. */
+	private static final int STATE_BITS = 2;
+	
+	/** Mask of the bits of a state. */
+	private static final int STATE_MASK = (1 << STATE_BITS) - 1;
+	
+	/** Largest cell index that can be recorded. */
+	private static final int MAX_CELL_INDEX = Integer.MAX_VALUE >>> 
+		(2 * STATE_BITS);
+	
+	/** Ring of moves. */
+	private int[] moves;
+	
+	/** Index in the ring the next move is recorded to. */
+	private int head;
+	
+	/** Number of moves before the head that can be undone. */
+	private int undoCount;
+	
+	/** Number of moves from the head on that can be redone. */
+	private int redoCount;
+	
+	/**
+	 * Default constructor, keeps DEFAULT_CAPACITY moves.
+	 */
+	public MoveJournal() {
+		
+		this(DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Create a journal keeping a number of moves.
+	 * 
+	 * @param capacity Number of moves kept
+	 * @throws IllegalArgumentException if the capacity is less than 1
+	 */
+	public MoveJournal(int capacity) {
+		
+		if (capacity < 1) {
+			throw new IllegalArgumentException(
+					"Journal capacity must be at least 1: " + capacity);
+		}
+		
+		moves = new int[capacity];
+	}
+	
+	//--------------------------------------------------------------------------
+	// Public methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Record a move. Any moves that were undone can no longer be redone.
+	 * 
+	 * @param cellIndex Index of the cell changed
+	 * @param fromState BoardPieceState the cell was changed from
+	 * @param toState BoardPieceState the cell was changed to
+	 * @throws IllegalArgumentException if the cell index is negative or too
+	 * large to record
+	 */
+	public void record(int cellIndex, int fromState, int toState) {
+		
+		if (cellIndex < 0 || cellIndex > MAX_CELL_INDEX) {
+			throw new IllegalArgumentException(
+					"Cell index can not be recorded: " + cellIndex);
+		}
+		
+		moves[head] = cellIndex << (2 * STATE_BITS) |
+			getStateCode(fromState) << STATE_BITS |
+			getStateCode(toState);
+		
+		head = head + 1 == moves.length ? 0 : head + 1;
+		redoCount = 0;
+		
+		if (undoCount < moves.length) {
+			undoCount++;
+		}
+	}
+	
+	/**
+	 * Take the last move off the undo history, to be reversed.
+	 * 
+	 * @return Move, NO_MOVE if there is nothing to undo
+	 */
+	public int undo() {
+		
+		if (undoCount == 0) {
+			return NO_MOVE;
+		}
+		
+		head = head == 0 ? moves.length - 1 : head - 1;
+		undoCount--;
+		redoCount++;
+		
+		return moves[head];
+	}
+	
+	/**
+	 * Take the last move undone, to be played again.
+	 * 
+	 * @return Move, NO_MOVE if there is nothing to redo
+	 */
+	public int redo() {
+		
+		if (redoCount == 0) {
+			return NO_MOVE;
+		}
+		
+		int move = moves[head];
+		
+		head = head + 1 == moves.length ? 0 : head + 1;
+		redoCount--;
+		undoCount++;
+		
+		return move;
+	}
+	
+	/**
+	 * Forget all moves.
+	 */
+	public void clear() {
+		
+		head = 0;
+		undoCount = 0;
+		redoCount = 0;
+	}
+	
+	/**
+	 * Get the number of moves that can be undone.
+	 * 
+	 * @return Number of moves
+	 */
+	public int getUndoCount() {
+		
+		return undoCount;
+	}
+	
+	/**
+	 * Get the number of moves that can be redone.
+	 * 
+	 * @return Number of moves
+	 */
+	public int getRedoCount() {
+		
+		return redoCount;
+	}
+	
+	/**
+	 * Get the number of moves kept.
+	 * 
+	 * @return Number of moves
+	 */
+	public int getCapacity() {
+		
+		return moves.length;
+	}
+	
+	/**
+	 * Get the cell index of a move.
+	 * 
+	 * @param move Move returned by undo() or redo()
+	 * @return Cell index
+	 */
+	public static int getCellIndex(int move) {
+		
+		return move >>> (2 * STATE_BITS);
+	}
+	
+	/**
+	 * Get the state a move changed a cell from.
+	 * 
+	 * @param move Move returned by undo() or redo()
+	 * @return BoardPieceState value
+	 */
+	public static int getFromState(int move) {
+		
+		return getState((move >>> STATE_BITS) & STATE_MASK);
+	}
+	
+	/**
+	 * Get the state a move changed a cell to.
+	 * 
+	 * @param move Move returned by undo() or redo()
+	 * @return BoardPieceState value
+	 */
+	public static int getToState(int move) {
+		
+		return getState(move & STATE_MASK);
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Get the 2 bit code of a state. The states run from EMPTY, -1, to LIMBO, 
+	 * 2, so the code is the state plus one.
+	 * 
+	 * @param state BoardPieceState value
+	 * @return Code
+	 */
+	private static int getStateCode(int state) {
+		
+		return (state - BoardPieceState.EMPTY) & STATE_MASK;
+	}
+	
+	/**
+	 * Get the state of a 2 bit code.
+	 * 
+	 * @param code Code
+	 * @return BoardPieceState value
+	 */
+	private static int getState(int code) {
+		
+		return code + BoardPieceState.EMPTY;
+	}
+}
@@ -0,0 +1,243 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.board;
+
+//External Imports
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+//Internal Imports
+
+/**
+ * Records every change to the cells of a board to an append only replay 
+ * file, for MoveReplayer to play back. Register the recorder as a move 
+ * listener of the board once it is handed out.
+ * 
+ * A replay file is a header, the board as it was when recording started and
+ * then one record per move. Numbers are big endian.
+ * 
+ * Header: 4 bytes magic "TLXR", 2 bytes format version, 2 bytes length of 
+ * the board snapshot, 8 bytes System.currentTimeMillis() when recording 
+ * started.
+ * Board: the snapshot written by DefaultBoard.saveSnapshot().
+ * Moves: 8 bytes each, microseconds since recording started in the top 40 
+ * bits, then 16 bits cell index and 8 bits new state plus one. Times come 
+ * from System.nanoTime(), so are not thrown by changes to the clock. The 
+ * cell index limits recording to boards of at most 65,536 cells.
+ * 
+ * Moves are buffered and written 512 at a time, or when flushed. Recording 
+ * a move takes no allocation and no I/O until the buffer fills. If the 
+ * process dies, only the moves since the last flush are lost, and a record 
+ * cut short at the end of the file is skipped by the replayer.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class MoveRecorder implements BoardMoveListener {
+	
+	/** First four bytes of a replay file, "TLXR". */
+	public static final int MAGIC = 0x544C5852;
+	
+	/** Version of the file format. */
+	public static final int FORMAT_VERSION = 1;
+	
+	/** Bytes in the header, not counting the board snapshot. */
+	static final int HEADER_SIZE = 16;
+	
+	/** Bytes in each move record. */
+	static final int MOVE_SIZE = 8;
+	
+	/** Bit the cell index starts at in a move record. */
+	static final int CELL_SHIFT = 8;
+	
+	/** Bit the time starts at in a move record. */
+	static final int TIME_SHIFT = 24;
+	
+	/** Mask of the bits of the state in a move record. */
+	static final int STATE_MASK = 0xFF;
+	
+	/** Mask of the bits of the cell index in a move record. */
+	static final int CELL_MASK = 0xFFFF;
+	
+	/** Largest time a move record can hold, in microseconds. */
+	private static final long MAX_TIME = (1L << (64 - TIME_SHIFT)) - 1;
+	
+	/** Number of moves buffered before they are written. */
+	private static final int BUFFERED_MOVES = 512;
+	
+	/** Replay file. */
+	private FileOutputStream out;
+	
+	/** Channel of the replay file. */
+	private FileChannel channel;
+	
+	/** Moves not yet written. */
+	private ByteBuffer buffer;
+	
+	/** System.nanoTime() when recording started. */
+	private long startNanos;
+	
+	/** First write that failed, null if none have. */
+	private IOException writeFailure;
+	
+	/** Flag to know if the recorder has been closed. */
+	private boolean closed;
+	
+	/**
+	 * Start recording a board to a file. The header and board are written 
+	 * straight away.
+	 * 
+	 * @param file Replay file, replaced if it exists
+	 * @param board Board to record, in the state play starts from
+	 * @throws IOException if the file can not be written
+	 * @throws IllegalArgumentException if the board has too many cells to 
+	 * record
+	 */
+	public MoveRecorder(File file, DefaultBoard board) throws IOException {
+		
+		if (board.getWidth() * board.getHeight() > CELL_MASK + 1) {
+			throw new IllegalArgumentException(
+					"Board has too many cells to record: " + 
+					board.getWidth() + "x" + board.getHeight());
+		}
+		
+		byte[] snapshot = board.saveSnapshot();
+		
+		buffer = ByteBuffer.allocate(Math.max(
+				HEADER_SIZE + snapshot.length, 
+				BUFFERED_MOVES * MOVE_SIZE));
+		
+		buffer.putInt(MAGIC);
+		buffer.putShort((short) FORMAT_VERSION);
+		buffer.putShort((short) snapshot.length);
+		buffer.putLong(System.currentTimeMillis());
+		buffer.put(snapshot);
+		
+		out = new FileOutputStream(file);
+		channel = out.getChannel();
+		
+		try {
+			writeBuffer();
+		} catch (IOException e) {
+			out.close();
+			throw e;
+		}
+		
+		// Keep the buffer to a whole number of moves.
+		buffer.limit(BUFFERED_MOVES * MOVE_SIZE);
+		
+		startNanos = System.nanoTime();
+	}
+	
+	//--------------------------------------------------------------------------
+	// Methods required by BoardMoveListener
+	//--------------------------------------------------------------------------
+	
+	/* (non-Javadoc)
+	 * @see com.asbtechnologies.android.tiluxe.board.BoardMoveListener#boardMoveNotification(int, int)
+	 */
+	@Override
+	public synchronized void boardMoveNotification(int cellIndex, int state) {
+		
+		if (cellIndex < 0 || cellIndex > CELL_MASK) {
+			throw new IllegalArgumentException(
+					"Cell index can not be recorded: " + cellIndex);
+		}
+		
+		if (closed || writeFailure != null) {
+			return;
+		}
+		
+		long time = (System.nanoTime() - startNanos) / 1000;
+		
+		if (time > MAX_TIME) {
+			time = MAX_TIME;
+		}
+		
+		buffer.putLong(time << TIME_SHIFT | 
+				(long) cellIndex << CELL_SHIFT | 
+				(state - BoardPieceState.EMPTY));
+		
+		if (!buffer.hasRemaining()) {
+			
+			try {
+				writeBuffer();
+			} catch (IOException e) {
+				writeFailure = e;
+			}
+		}
+	}
+	
+	//--------------------------------------------------------------------------
+	// Public methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Write the moves recorded so far to the file.
+	 * 
+	 * @throws IOException if this or an earlier write failed
+	 */
+	public synchronized void flush() throws IOException {
+		
+		if (writeFailure != null) {
+			throw writeFailure;
+		}
+		
+		if (!closed) {
+			writeBuffer();
+		}
+	}
+	
+	/**
+	 * Write the moves recorded so far and close the file. Moves made after 
+	 * this are not recorded.
+	 * 
+	 * @throws IOException if this or an earlier write failed
+	 */
+	public synchronized void close() throws IOException {
+		
+		if (closed) {
+			return;
+		}
+		
+		try {
+			flush();
+		} finally {
+			closed = true;
+			out.close();
+		}
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Append the buffered bytes to the file and empty the buffer.
+	 * 
+	 * @throws IOException if the file can not be written
+	 */
+	private void writeBuffer() throws IOException {
+		
+		int limit = buffer.limit();
+		
+		buffer.flip();
+		
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		
+		buffer.clear();
+		buffer.limit(limit);
+	}
+}
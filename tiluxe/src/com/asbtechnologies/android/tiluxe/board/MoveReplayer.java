@@ -0,0 +1,238 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.board;
+
+//External Imports
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+//Internal Imports
+
+/**
+ * Plays back a file written by MoveRecorder. The board is restored as it was
+ * when recording started, and replaying sets each recorded cell state on it
+ * as fast as possible, through the same path a move in the game takes. Move
+ * listeners registered with the board are notified of each move, so a 
+ * player's session can be reproduced exactly or used to time the handling 
+ * of each move. GameGLView.replayMoves() shows a replay on screen.
+ * 
+ * The moves are loaded into a primitive array up front so replaying only 
+ * does the work of the moves themselves.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class MoveReplayer {
+	
+	/** Board the moves are played on. */
+	private DefaultBoard board;
+	
+	/** System.currentTimeMillis() when recording started. */
+	private long startTime;
+	
+	/** Move records, as written by MoveRecorder. */
+	private long[] moves;
+	
+	/**
+	 * Load a replay file.
+	 * 
+	 * @param file Replay file
+	 * @throws IOException if the file can not be read or is not a replay
+	 */
+	public MoveReplayer(File file) throws IOException {
+		
+		RandomAccessFile replayFile = new RandomAccessFile(file, "r");
+		byte[] data;
+		
+		try {
+			
+			if (replayFile.length() > Integer.MAX_VALUE) {
+				throw new IOException("Replay is too large: " + file);
+			}
+			
+			data = new byte[(int) replayFile.length()];
+			replayFile.readFully(data);
+			
+		} finally {
+			replayFile.close();
+		}
+		
+		load(ByteBuffer.wrap(data));
+	}
+	
+	/**
+	 * Load a replay from its contents.
+	 * 
+	 * @param data Whole replay, from the position to the limit
+	 * @throws IOException if the data is not a replay
+	 */
+	public MoveReplayer(ByteBuffer data) throws IOException {
+		
+		load(data.duplicate());
+	}
+	
+	//--------------------------------------------------------------------------
+	// Public methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Get the board the moves are played on. Register move listeners with it
+	 * before replaying to follow each move.
+	 * 
+	 * @return Board
+	 */
+	public DefaultBoard getBoard() {
+		
+		return board;
+	}
+	
+	/**
+	 * Get the time recording started.
+	 * 
+	 * @return System.currentTimeMillis() when recording started
+	 */
+	public long getStartTime() {
+		
+		return startTime;
+	}
+	
+	/**
+	 * Get the number of moves recorded.
+	 * 
+	 * @return Number of moves
+	 */
+	public int getMoveCount() {
+		
+		return moves.length;
+	}
+	
+	/**
+	 * Get the cell a move changed.
+	 * 
+	 * @param move Move number
+	 * @return Cell index, which is also the piece ID
+	 */
+	public int getMoveCellIndex(int move) {
+		
+		return (int) (moves[move] >>> MoveRecorder.CELL_SHIFT) & 
+			MoveRecorder.CELL_MASK;
+	}
+	
+	/**
+	 * Get the state a move changed a cell to.
+	 * 
+	 * @param move Move number
+	 * @return BoardPieceState value
+	 */
+	public int getMoveState(int move) {
+		
+		return ((int) moves[move] & MoveRecorder.STATE_MASK) + 
+			BoardPieceState.EMPTY;
+	}
+	
+	/**
+	 * Get the time of a move.
+	 * 
+	 * @param move Move number
+	 * @return Microseconds since recording started
+	 */
+	public long getMoveTime(int move) {
+		
+		return moves[move] >>> MoveRecorder.TIME_SHIFT;
+	}
+	
+	/**
+	 * Play every move on the board.
+	 * 
+	 * @return Nanoseconds taken
+	 */
+	public long replay() {
+		
+		return replay(0, moves.length);
+	}
+	
+	/**
+	 * Play a run of moves on the board, without waiting between them.
+	 * 
+	 * @param fromMove First move to play
+	 * @param toMove Move after the last one to play
+	 * @return Nanoseconds taken
+	 */
+	public long replay(int fromMove, int toMove) {
+		
+		long startNanos = System.nanoTime();
+		
+		for (int i = fromMove; i < toMove; i++) {
+			board.setCellState(getMoveCellIndex(i), getMoveState(i));
+		}
+		
+		return System.nanoTime() - startNanos;
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Read the header, board and moves, and check each move is of a cell on
+	 * the board. A record cut short at the end is left out.
+	 * 
+	 * @param data Whole replay
+	 * @throws IOException if the data is not a replay
+	 */
+	private void load(ByteBuffer data) throws IOException {
+		
+		try {
+			
+			if (data.getInt() != MoveRecorder.MAGIC) {
+				throw new IOException("Not a move replay.");
+			}
+			
+			int version = data.getShort() & 0xFFFF;
+			
+			if (version != MoveRecorder.FORMAT_VERSION) {
+				throw new IOException(
+						"Unknown move replay version: " + version);
+			}
+			
+			byte[] snapshot = new byte[data.getShort() & 0xFFFF];
+			
+			startTime = data.getLong();
+			data.get(snapshot);
+			
+			board = DefaultBoard.restoreSnapshot(snapshot);
+			
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Move replay header is cut short.");
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Move replay board can not be read.");
+		}
+		
+		int cellCount = board.getWidth() * board.getHeight();
+		
+		moves = new long[data.remaining() / MoveRecorder.MOVE_SIZE];
+		
+		for (int i = 0; i < moves.length; i++) {
+			
+			moves[i] = data.getLong();
+			
+			int state = getMoveState(i);
+			
+			if (getMoveCellIndex(i) >= cellCount ||
+					state > BoardPieceState.STATE_LIMBO) {
+				
+				throw new IOException("Move " + i + " is not of the board.");
+			}
+		}
+	}
+}
@@ -0,0 +1,203 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.board;
+
+//External Imports
+import java.util.Arrays;
+
+//Internal Imports
+
+/**
+ * Names a generated board by the spec it was generated from and the seed of
+ * its random number stream. DefaultBoardGenerator always builds the same
+ * board from the same spec and seed, so the ID is enough to rebuild the
+ * board.
+ * 
+ * The text form is width x height, the piece lengths in ascending order,
+ * the free empty and target tile counts, U or N for whether a unique
+ * solution was required, and the seed as 16 hex digits, separated by /.
+ * For example 10x10/1,1,1,1,2,2,2,3,3,4/15/7/U/00000000075bcd15
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class PuzzleId {
+	
+	/** Separates the fields of the text form. */
+	private static final String FIELD_SEPARATOR = "/";
+	
+	/** Separates the piece lengths of the text form. */
+	private static final String LENGTH_SEPARATOR = ",";
+	
+	/** Spec the board was generated from. */
+	private BoardSpec spec;
+	
+	/** Seed of the random number stream the board was generated with. */
+	private long seed;
+	
+	/** Text form, built once. */
+	private String text;
+	
+	/**
+	 * Default constructor.
+	 * 
+	 * @param spec Spec the board was generated from
+	 * @param seed Seed of the random number stream
+	 */
+	public PuzzleId(BoardSpec spec, long seed) {
+		
+		this.spec = spec;
+		this.seed = seed;
+	}
+	
+	/**
+	 * Read a puzzle ID from its text form.
+	 * 
+	 * @param text Text form, as returned by toString()
+	 * @return Puzzle ID
+	 * @throws IllegalArgumentException if the text is not a puzzle ID
+	 */
+	public static PuzzleId parse(String text) {
+		
+		String[] fields = text.split(FIELD_SEPARATOR);
+		
+		if (fields.length != 6) {
+			throw new IllegalArgumentException("Not a puzzle ID: " + text);
+		}
+		
+		try {
+			
+			String[] dimensions = fields[0].split("x");
+			String[] lengthText = fields[1].split(LENGTH_SEPARATOR);
+			int[] pieceLengths = new int[lengthText.length];
+			
+			for (int i = 0; i < lengthText.length; i++) {
+				pieceLengths[i] = Integer.parseInt(lengthText[i]);
+			}
+			
+			if (dimensions.length != 2 || fields[5].length() != 16 ||
+					!(fields[4].equals("U") || fields[4].equals("N"))) {
+				throw new IllegalArgumentException(
+						"Not a puzzle ID: " + text);
+			}
+			
+			BoardSpec spec = new BoardSpec(
+					Integer.parseInt(dimensions[0]),
+					Integer.parseInt(dimensions[1]),
+					pieceLengths,
+					Integer.parseInt(fields[2]),
+					Integer.parseInt(fields[3]),
+					fields[4].equals("U"));
+			
+			// Read the seed in two halves, as all 64 bits may be set.
+			long seed =
+				(Long.parseLong(fields[5].substring(0, 8), 16) << 32) |
+				Long.parseLong(fields[5].substring(8), 16);
+			
+			return new PuzzleId(spec, seed);
+			
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Not a puzzle ID: " + text);
+		}
+	}
+	
+	//--------------------------------------------------------------------------
+	// Methods overridden from Object
+	//--------------------------------------------------------------------------
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		
+		if (text != null) {
+			return text;
+		}
+		
+		int[] pieceLengths = spec.getPieceLengths();
+		Arrays.sort(pieceLengths);
+		
+		StringBuilder builder = new StringBuilder();
+		
+		builder.append(spec.getBoardWidth());
+		builder.append('x');
+		builder.append(spec.getBoardHeight());
+		builder.append(FIELD_SEPARATOR);
+		
+		for (int i = 0; i < pieceLengths.length; i++) {
+			
+			if (i > 0) {
+				builder.append(LENGTH_SEPARATOR);
+			}
+			
+			builder.append(pieceLengths[i]);
+		}
+		
+		builder.append(FIELD_SEPARATOR);
+		builder.append(spec.getNumberOfFreeEmpty());
+		builder.append(FIELD_SEPARATOR);
+		builder.append(spec.getNumberOfFreeTargets());
+		builder.append(FIELD_SEPARATOR);
+		builder.append(spec.isUniqueSolution() ? "U" : "N");
+		builder.append(FIELD_SEPARATOR);
+		builder.append(String.format("%016x", seed));
+		
+		text = builder.toString();
+		
+		return text;
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object other) {
+		
+		if (!(other instanceof PuzzleId)) {
+			return false;
+		}
+		
+		return toString().equals(other.toString());
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		
+		return toString().hashCode();
+	}
+	
+	//--------------------------------------------------------------------------
+	// Public methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Get the spec the board was generated from.
+	 * 
+	 * @return Board spec
+	 */
+	public BoardSpec getSpec() {
+		
+		return spec;
+	}
+	
+	/**
+	 * Get the seed of the random number stream the board was generated with.
+	 * 
+	 * @return Seed
+	 */
+	public long getSeed() {
+		
+		return seed;
+	}
+}
@@ -0,0 +1,308 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.board;
+
+//External Imports
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+//Internal Imports
+
+/**
+ * Read only set of pre-generated boards, split into sections by board spec.
+ * The spec covers the board size and the number of tiles given away, which
+ * is how the difficulty setting is applied to each board size, so there is
+ * one section for each size and difficulty.
+ * 
+ * A pack file is a header, an index of the sections and then the records of
+ * each section. Every record of a section is the same width, so a board is
+ * found from its section and number alone. Numbers are big endian.
+ * 
+ * Header: 4 bytes magic "TLXP", 2 bytes format version, 2 bytes number of
+ * sections.
+ * Index, for each section: 1 byte width, 1 byte height, 2 bytes number of
+ * free empty tiles, 2 bytes number of free target tiles, 1 byte unique
+ * solution flag, 1 byte number of pieces, 1 byte per piece length in
+ * ascending order, 4 bytes record width, 4 bytes number of records and
+ * 8 bytes offset of the first record from the start of the file.
+ * Records: a board as written by BoardCodec, padded with zeros to the
+ * record width.
+ * 
+ * Files are mapped into memory rather than read, so opening a pack only
+ * reads the index, and a board is decoded straight from the mapped pages
+ * of its record. Packs are limited to 2 GB.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class PuzzlePack {
+	
+	/** First four bytes of a pack file, "TLXP". */
+	public static final int MAGIC = 0x544C5850;
+	
+	/** Version of the file format. */
+	public static final int FORMAT_VERSION = 1;
+	
+	/** Bytes in the header. */
+	static final int HEADER_SIZE = 8;
+	
+	/** Bytes in an index entry, not counting the piece lengths. */
+	static final int INDEX_ENTRY_SIZE = 24;
+	
+	/** Whole pack. */
+	private ByteBuffer data;
+	
+	/** Spec of the boards of each section. */
+	private BoardSpec[] specs;
+	
+	/** Sorted piece lengths of each section, to match specs against. */
+	private int[][] sortedPieceLengths;
+	
+	/** Record width of each section. */
+	private int[] recordSizes;
+	
+	/** Number of records in each section. */
+	private int[] recordCounts;
+	
+	/** Offset of the first record of each section. */
+	private int[] recordOffsets;
+	
+	/** Decodes records. */
+	private BoardCodec codec;
+	
+	/**
+	 * Create a pack from its contents.
+	 * 
+	 * @param data Whole pack, from position 0 to the limit. Not copied, so
+	 * must not be changed while the pack is in use.
+	 * @throws IOException if the data is not a pack
+	 */
+	public PuzzlePack(ByteBuffer data) throws IOException {
+		
+		this.data = data.duplicate();
+		this.data.order(ByteOrder.BIG_ENDIAN);
+		this.codec = new BoardCodec();
+		
+		readIndex();
+	}
+	
+	/**
+	 * Open a pack file. The file is mapped read only and the file closed, the
+	 * mapping stays valid until the pack is no longer referenced.
+	 * 
+	 * @param file Pack file
+	 * @return Pack
+	 * @throws IOException if the file can not be read or is not a pack
+	 */
+	public static PuzzlePack open(File file) throws IOException {
+		
+		RandomAccessFile packFile = new RandomAccessFile(file, "r");
+		
+		try {
+			
+			FileChannel channel = packFile.getChannel();
+			
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException(
+						"Puzzle pack is too large to map: " + file);
+			}
+			
+			return new PuzzlePack(channel.map(
+					FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+			
+		} finally {
+			packFile.close();
+		}
+	}
+	
+	//--------------------------------------------------------------------------
+	// Public methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Get the number of sections.
+	 * 
+	 * @return Number of sections
+	 */
+	public int getSectionCount() {
+		
+		return specs.length;
+	}
+	
+	/**
+	 * Get the spec of the boards of a section.
+	 * 
+	 * @param section Section number
+	 * @return Board spec
+	 */
+	public BoardSpec getSectionSpec(int section) {
+		
+		return specs[section];
+	}
+	
+	/**
+	 * Get the number of boards in a section.
+	 * 
+	 * @param section Section number
+	 * @return Number of boards
+	 */
+	public int getRecordCount(int section) {
+		
+		return recordCounts[section];
+	}
+	
+	/**
+	 * Find the section holding boards of a spec. The piece lengths may be in
+	 * any order. A section of boards with one solution also serves requests
+	 * that do not need one, but a section of boards that may have more never
+	 * serves a request that does.
+	 * 
+	 * @param boardWidth Width of the board
+	 * @param boardHeight Height of the board
+	 * @param pieceLengths Piece lengths on the board
+	 * @param numberOfFreeEmpty Number of empty tiles given away
+	 * @param numberOfFreeTargets Number of target tiles given away
+	 * @param uniqueSolution True if the boards must have one solution
+	 * @return Section number, -1 if there is no section for the spec
+	 */
+	public int findSection(
+			int boardWidth,
+			int boardHeight,
+			int[] pieceLengths,
+			int numberOfFreeEmpty,
+			int numberOfFreeTargets,
+			boolean uniqueSolution) {
+		
+		int[] sortedLengths = new int[pieceLengths.length];
+		System.arraycopy(
+				pieceLengths, 0, sortedLengths, 0, pieceLengths.length);
+		Arrays.sort(sortedLengths);
+		
+		for (int i = 0; i < specs.length; i++) {
+			
+			if (specs[i].getBoardWidth() == boardWidth &&
+					specs[i].getBoardHeight() == boardHeight &&
+					specs[i].getNumberOfFreeEmpty() == numberOfFreeEmpty &&
+					specs[i].getNumberOfFreeTargets() == numberOfFreeTargets &&
+					(specs[i].isUniqueSolution() || !uniqueSolution) &&
+					Arrays.equals(sortedPieceLengths[i], sortedLengths)) {
+				
+				return i;
+			}
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Decode one board. Safe to call from several threads.
+	 * 
+	 * @param section Section number
+	 * @param record Record number within the section
+	 * @return Board, as it was when the pack was written
+	 * @throws IndexOutOfBoundsException if there is no such record
+	 * @throws IllegalArgumentException if the record is not a board
+	 */
+	public synchronized DefaultBoard loadBoard(int section, int record) {
+		
+		if (record < 0 || record >= recordCounts[section]) {
+			throw new IndexOutOfBoundsException(
+					"No record " + record + " in section " + section);
+		}
+		
+		data.position(recordOffsets[section] + record * recordSizes[section]);
+		
+		return codec.read(data);
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Read the header and index and check the sections lie inside the data.
+	 * 
+	 * @throws IOException if the data is not a pack
+	 */
+	private void readIndex() throws IOException {
+		
+		try {
+			
+			data.position(0);
+			
+			if (data.getInt() != MAGIC) {
+				throw new IOException("Not a puzzle pack.");
+			}
+			
+			int version = data.getShort() & 0xFFFF;
+			
+			if (version != FORMAT_VERSION) {
+				throw new IOException(
+						"Unknown puzzle pack version: " + version);
+			}
+			
+			int sectionCount = data.getShort() & 0xFFFF;
+			
+			specs = new BoardSpec[sectionCount];
+			sortedPieceLengths = new int[sectionCount][];
+			recordSizes = new int[sectionCount];
+			recordCounts = new int[sectionCount];
+			recordOffsets = new int[sectionCount];
+			
+			for (int i = 0; i < sectionCount; i++) {
+				
+				int width = data.get() & 0xFF;
+				int height = data.get() & 0xFF;
+				int numberOfFreeEmpty = data.getShort() & 0xFFFF;
+				int numberOfFreeTargets = data.getShort() & 0xFFFF;
+				boolean uniqueSolution = data.get() != 0;
+				int[] pieceLengths = new int[data.get() & 0xFF];
+				
+				for (int j = 0; j < pieceLengths.length; j++) {
+					pieceLengths[j] = data.get() & 0xFF;
+				}
+				
+				int recordSize = data.getInt();
+				int recordCount = data.getInt();
+				long recordOffset = data.getLong();
+				
+				if (recordSize < 1 || recordCount < 0 || recordOffset < 0 ||
+						recordOffset + (long) recordSize * recordCount >
+						data.limit()) {
+					
+					throw new IOException(
+							"Puzzle pack section " + i + " is cut short.");
+				}
+				
+				specs[i] = new BoardSpec(
+						width,
+						height,
+						pieceLengths,
+						numberOfFreeEmpty,
+						numberOfFreeTargets,
+						uniqueSolution);
+				Arrays.sort(pieceLengths);
+				sortedPieceLengths[i] = pieceLengths;
+				recordSizes[i] = recordSize;
+				recordCounts[i] = recordCount;
+				recordOffsets[i] = (int) recordOffset;
+			}
+			
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Puzzle pack index is cut short.");
+		}
+	}
+}
@@ -0,0 +1,175 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.board;
+
+//External Imports
+import java.util.Random;
+
+//Internal Imports
+
+/**
+ * Hands out boards from a puzzle pack instead of generating them. A board
+ * is picked at random from the section matching the requested spec, so
+ * getting one costs a single record decode.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class PuzzlePackBoardGenerator implements BoardGenerator {
+	
+	/** Pack to take boards from. */
+	private PuzzlePack pack;
+	
+	/** Picks the record of each board. */
+	private Random random;
+	
+	/** Target pieces of the last board handed out. */
+	private BoardPiece[] targetPieces;
+	
+	/** True if custom boards must have exactly one solution. */
+	private boolean uniqueSolution;
+	
+	/**
+	 * Default constructor.
+	 * 
+	 * @param pack Pack to take boards from
+	 */
+	public PuzzlePackBoardGenerator(PuzzlePack pack) {
+		
+		this(pack, new Random());
+	}
+	
+	/**
+	 * Create a generator picking records with a random number stream.
+	 * 
+	 * @param pack Pack to take boards from
+	 * @param random Picks the record of each board
+	 */
+	public PuzzlePackBoardGenerator(PuzzlePack pack, Random random) {
+		
+		this.pack = pack;
+		this.random = random;
+	}
+	
+	//--------------------------------------------------------------------------
+	// Public methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Set whether custom boards must have exactly one solution. When set, 
+	 * sections of boards that may have more are skipped. Off by default.
+	 * 
+	 * @param uniqueSolution True to require one solution, false otherwise.
+	 */
+	public void setUniqueSolution(boolean uniqueSolution) {
+		
+		this.uniqueSolution = uniqueSolution;
+	}
+	
+	/**
+	 * Check if custom boards must have exactly one solution.
+	 * 
+	 * @return True if one solution is required, false otherwise.
+	 */
+	public boolean isUniqueSolution() {
+		
+		return uniqueSolution;
+	}
+	
+	//--------------------------------------------------------------------------
+	// Methods required by BoardGenerator
+	//--------------------------------------------------------------------------
+	
+	/* (non-Javadoc)
+	 * @see com.asbtechnologies.android.tiluxe.board.BoardGenerator#generateDefaultBoard()
+	 */
+	@Override
+	public Board generateDefaultBoard() {
+		
+		if (pack.getSectionCount() == 0) {
+			return null;
+		}
+		
+		return loadRandomBoard(0);
+	}
+	
+	/**
+	 * Take a board of the spec from the pack.
+	 * 
+	 * @param boardWidth Width of the board
+	 * @param boardHeight Height of the board
+	 * @param activePieceLengths Piece lengths on the board
+	 * @param numberOfFreeEmpty Number of empty tiles to give away
+	 * @param numberOfFreeTargets Number of target tiles to give away
+	 * @return Board, null if the pack has no boards of the spec, or only 
+	 * boards that may have more than one solution when one is required
+	 */
+	@Override
+	public Board generateCustomBoard(
+			int boardWidth,
+			int boardHeight,
+			int[] activePieceLengths,
+			int numberOfFreeEmpty,
+			int numberOfFreeTargets) {
+		
+		if (activePieceLengths == null) {
+			return null;
+		}
+		
+		int section = pack.findSection(
+				boardWidth,
+				boardHeight,
+				activePieceLengths,
+				numberOfFreeEmpty,
+				numberOfFreeTargets,
+				uniqueSolution);
+		
+		if (section < 0) {
+			return null;
+		}
+		
+		return loadRandomBoard(section);
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.asbtechnologies.android.tiluxe.board.BoardGenerator#getTargetPieces()
+	 */
+	@Override
+	public BoardPiece[] getTargetPieces() {
+		
+		return targetPieces;
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Load a random board of a section.
+	 * 
+	 * @param section Section number
+	 * @return Board, null if the section is empty
+	 */
+	private DefaultBoard loadRandomBoard(int section) {
+		
+		int recordCount = pack.getRecordCount(section);
+		
+		if (recordCount == 0) {
+			return null;
+		}
+		
+		DefaultBoard board =
+			pack.loadBoard(section, random.nextInt(recordCount));
+		
+		targetPieces = board.getParentTargetPieces();
+		
+		return board;
+	}
+}
@@ -0,0 +1,278 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.board;
+
+//External Imports
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+//Internal Imports
+
+/**
+ * Builds puzzle pack files, in the format described by PuzzlePack. The
+ * boards of each section are generated in a batch and written to their
+ * record as they are made, so a pack of any size is built without holding
+ * its boards in memory. Meant to be run ahead of time rather than on the
+ * device.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class PuzzlePackWriter {
+	
+	/** Generates the boards of each section. */
+	private BatchBoardGenerator batchGenerator;
+	
+	/**
+	 * Default constructor.
+	 */
+	public PuzzlePackWriter() {
+		
+		this(new BatchBoardGenerator());
+	}
+	
+	/**
+	 * Create a writer generating its boards with a batch generator. Give
+	 * the batch generator a seeded random number stream to build the same
+	 * pack each time.
+	 * 
+	 * @param batchGenerator Generates the boards of each section
+	 */
+	public PuzzlePackWriter(BatchBoardGenerator batchGenerator) {
+		
+		this.batchGenerator = batchGenerator;
+	}
+	
+	//--------------------------------------------------------------------------
+	// Public methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Write a pack with a section of boards for each spec. Specs should ask
+	 * for a unique solution so the boards in the pack are checked by the
+	 * solver.
+	 * 
+	 * @param file File to write, replaced if it exists
+	 * @param specs Spec of each section
+	 * @param boardsPerSection Number of boards in each section
+	 * @param parallelism Number of threads to generate on
+	 * @throws IOException if the file can not be written
+	 * @throws IllegalArgumentException if a spec can not be written to a
+	 * pack or its pieces do not fit on the board
+	 */
+	public void write(
+			File file,
+			BoardSpec[] specs,
+			int boardsPerSection,
+			int parallelism) throws IOException {
+		
+		// Work out where each section goes before generating anything.
+		int indexSize = 0;
+		int[] recordSizes = new int[specs.length];
+		
+		for (int i = 0; i < specs.length; i++) {
+			
+			int pieceCount = specs[i].getPieceLengths().length;
+			
+			if (specs[i].getBoardWidth() > BoardCodec.MAX_DIMENSION ||
+					specs[i].getBoardHeight() > BoardCodec.MAX_DIMENSION ||
+					pieceCount > BoardCodec.MAX_PIECE_COUNT ||
+					specs[i].getNumberOfFreeEmpty() > 0xFFFF ||
+					specs[i].getNumberOfFreeTargets() > 0xFFFF) {
+				
+				throw new IllegalArgumentException(
+						"Spec " + i + " can not be written to a puzzle pack.");
+			}
+			
+			indexSize += PuzzlePack.INDEX_ENTRY_SIZE + pieceCount;
+			recordSizes[i] = BoardCodec.getEncodedSize(
+					specs[i].getBoardWidth(),
+					specs[i].getBoardHeight(),
+					pieceCount,
+					true);
+		}
+		
+		ByteBuffer index =
+			ByteBuffer.allocate(PuzzlePack.HEADER_SIZE + indexSize);
+		long recordOffset = index.capacity();
+		
+		index.putInt(PuzzlePack.MAGIC);
+		index.putShort((short) PuzzlePack.FORMAT_VERSION);
+		index.putShort((short) specs.length);
+		
+		for (int i = 0; i < specs.length; i++) {
+			
+			int[] pieceLengths = specs[i].getPieceLengths();
+			Arrays.sort(pieceLengths);
+			
+			index.put((byte) specs[i].getBoardWidth());
+			index.put((byte) specs[i].getBoardHeight());
+			index.putShort((short) specs[i].getNumberOfFreeEmpty());
+			index.putShort((short) specs[i].getNumberOfFreeTargets());
+			index.put((byte) (specs[i].isUniqueSolution() ? 1 : 0));
+			index.put((byte) pieceLengths.length);
+			
+			for (int j = 0; j < pieceLengths.length; j++) {
+				index.put((byte) pieceLengths[j]);
+			}
+			
+			index.putInt(recordSizes[i]);
+			index.putInt(boardsPerSection);
+			index.putLong(recordOffset);
+			
+			recordOffset += (long) recordSizes[i] * boardsPerSection;
+		}
+		
+		RandomAccessFile packFile = new RandomAccessFile(file, "rw");
+		
+		try {
+			
+			FileChannel channel = packFile.getChannel();
+			
+			// Drop anything left over from an earlier file.
+			packFile.setLength(recordOffset);
+			
+			index.flip();
+			writeFully(channel, index, 0);
+			
+			recordOffset = index.capacity();
+			
+			for (int i = 0; i < specs.length; i++) {
+				
+				RecordWriter recordWriter =
+					new RecordWriter(channel, recordOffset, recordSizes[i]);
+				
+				batchGenerator.generateBatch(
+						specs[i], boardsPerSection, parallelism, recordWriter);
+				
+				recordWriter.checkWritten();
+				
+				recordOffset += (long) recordSizes[i] * boardsPerSection;
+			}
+			
+		} finally {
+			packFile.close();
+		}
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Write all of a buffer at a file position.
+	 * 
+	 * @param channel Channel of the file
+	 * @param source Bytes to write
+	 * @param position Position in the file
+	 * @throws IOException if the file can not be written
+	 */
+	private static void writeFully(
+			FileChannel channel,
+			ByteBuffer source,
+			long position) throws IOException {
+		
+		while (source.hasRemaining()) {
+			position += channel.write(source, position);
+		}
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private classes
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Writes each board of a section to its record.
+	 */
+	private static class RecordWriter implements BoardConsumer {
+		
+		/** Channel of the pack file. */
+		private FileChannel channel;
+		
+		/** Offset of the first record of the section. */
+		private long firstRecordOffset;
+		
+		/** Record width of the section. */
+		private int recordSize;
+		
+		/** Encodes each board. */
+		private BoardCodec codec;
+		
+		/** Holds one record. */
+		private ByteBuffer record;
+		
+		/** First write that failed, null if none have. */
+		private IOException writeFailure;
+		
+		/**
+		 * Default constructor.
+		 * 
+		 * @param channel Channel of the pack file
+		 * @param firstRecordOffset Offset of the first record of the section
+		 * @param recordSize Record width of the section
+		 */
+		RecordWriter(
+				FileChannel channel,
+				long firstRecordOffset,
+				int recordSize) {
+			
+			this.channel = channel;
+			this.firstRecordOffset = firstRecordOffset;
+			this.recordSize = recordSize;
+			this.codec = new BoardCodec();
+			this.record = ByteBuffer.allocate(recordSize);
+		}
+		
+		/* (non-Javadoc)
+		 * @see com.asbtechnologies.android.tiluxe.board.BoardConsumer#consumeBoard(int, com.asbtechnologies.android.tiluxe.board.Board)
+		 */
+		@Override
+		public synchronized void consumeBoard(int index, Board board) {
+			
+			if (writeFailure != null) {
+				return;
+			}
+			
+			record.clear();
+			codec.write((DefaultBoard) board, record);
+			
+			while (record.hasRemaining()) {
+				record.put((byte) 0);
+			}
+			
+			record.flip();
+			
+			try {
+				writeFully(
+						channel,
+						record,
+						firstRecordOffset + (long) index * recordSize);
+			} catch (IOException e) {
+				writeFailure = e;
+			}
+		}
+		
+		/**
+		 * Throw the first write failure, if there was one.
+		 * 
+		 * @throws IOException if a record could not be written
+		 */
+		synchronized void checkWritten() throws IOException {
+			
+			if (writeFailure != null) {
+				throw writeFailure;
+			}
+		}
+	}
+}
@@ -0,0 +1,87 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.board;
+
+//External Imports
+
+//Internal Imports
+import com.asbtechnologies.android.tiluxe.board.solver.Puzzle;
+import com.asbtechnologies.android.tiluxe.util.SplitMix64;
+
+/**
+ * Zobrist keys for hashing the locations of a board. Each known location
+ * has a fixed random 64-bit key for its index and value, and the hash of a
+ * board is the exclusive or of the keys of its known locations. Changing
+ * one location changes the hash by exclusive or with the old and new keys,
+ * so the hash is kept up to date as the board is played or searched
+ * without going over the whole board again.
+ * 
+ * UNKNOWN locations, and cells in limbo, have no key. A cell marked alive
+ * has the key of a SHIP location, and a cell marked dead or left empty the
+ * key of a WATER location, so a board and the Puzzle of its marks hash
+ * the same.
+ * 
+ * The keys are worked out from the index and value when asked for, rather
+ * than kept in a table, so boards of any size are covered.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class ZobristKeys {
+	
+	/** Added to every index and value, so the keys differ from other hashes. */
+	private static final long SEED = 0x5A0B1E7C3D2F4A69L;
+	
+	/**
+	 * Private constructor, only static methods.
+	 */
+	private ZobristKeys() {
+	}
+	
+	//--------------------------------------------------------------------------
+	// Public methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Get the key of a location of a Puzzle.
+	 * 
+	 * @param cellIndex Index of the location, column times height plus row
+	 * @param value Puzzle.UNKNOWN, Puzzle.SHIP or Puzzle.WATER
+	 * @return Key, 0 for UNKNOWN
+	 */
+	public static long getCellKey(int cellIndex, int value) {
+		
+		if (value == Puzzle.UNKNOWN) {
+			return 0;
+		}
+		
+		return SplitMix64.mix(SEED + cellIndex * 4L + value);
+	}
+	
+	/**
+	 * Get the key of a cell of a board for its current state.
+	 * 
+	 * @param cellIndex Index of the cell, column times height plus row
+	 * @param state BoardPieceState value
+	 * @return Key, 0 for a cell in limbo
+	 */
+	public static long getStateKey(int cellIndex, int state) {
+		
+		switch (state) {
+			case BoardPieceState.STATE_ALIVE:
+				return getCellKey(cellIndex, Puzzle.SHIP);
+			case BoardPieceState.STATE_DEAD:
+			case BoardPieceState.EMPTY:
+				return getCellKey(cellIndex, Puzzle.WATER);
+			default:
+				return 0;
+		}
+	}
+}
@@ -0,0 +1,207 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.board.solver;
+
+//External Imports
+
+//Internal Imports
+import com.asbtechnologies.android.tiluxe.board.DefaultBoard;
+
+/**
+ * Grades how hard a puzzle is to solve by the work the PuzzleSolver needs to
+ * solve it. The solver's rules are the ones a player applies, so a puzzle
+ * the simple rules finish is easy, one that needs working out where the
+ * pieces still to be found can fit is medium, and one that can only be
+ * finished by trying a tile and backing up is hard.
+ * 
+ * The score orders puzzles within and across levels. It counts each pass
+ * of the rules, with extra weight for passes that needed the fit rule and
+ * for each guess, so a higher score is a longer or harder chain of
+ * deductions. Only puzzles with one solution are graded.
+ * 
+ * Grading is one solve, well under a millisecond for a 10x10 board, so
+ * thousands of boards a second can be labelled or filtered as they are
+ * generated. Not thread safe, give each generating thread its own. A
+ * SolverCache can be shared to skip solving puzzles graded before.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class DifficultyEstimator {
+	
+	/** Level of a puzzle without exactly one solution. */
+	public static final int UNRATED = -1;
+	
+	/** Level of a puzzle the simple rules finish. */
+	public static final int EASY = 0;
+	
+	/** Level of a puzzle that needs the fit rule but no guessing. */
+	public static final int MEDIUM = 1;
+	
+	/** Level of a puzzle that needs guessing. */
+	public static final int HARD = 2;
+	
+	/** Score added for each pass of the rules that needed the fit rule. */
+	static final int FIT_ROUND_WEIGHT = 4;
+	
+	/** Score added for each guess. */
+	static final int GUESS_WEIGHT = 8;
+	
+	/** Solves each puzzle graded. */
+	private PuzzleSolver solver;
+	
+	/** Results of puzzles solved before, null to always solve. */
+	private SolverCache solverCache;
+	
+	/** Level of the last puzzle graded. */
+	private int level;
+	
+	/** Number of passes of the rules made on the last puzzle graded. */
+	private int roundCount;
+	
+	/** Number of those passes that needed the fit rule. */
+	private int fitRoundCount;
+	
+	/** Number of guesses made on the last puzzle graded. */
+	private int guessCount;
+	
+	/** Deepest level of guessing reached on the last puzzle graded. */
+	private int maxDepth;
+	
+	/**
+	 * Default constructor.
+	 */
+	public DifficultyEstimator() {
+		
+		solver = new PuzzleSolver();
+		level = UNRATED;
+	}
+	
+	//--------------------------------------------------------------------------
+	// Public methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Grade a board, from the tiles it gives away.
+	 * 
+	 * @param board Board to grade
+	 * @return Score, UNRATED if the board does not have exactly one solution
+	 */
+	public int estimate(DefaultBoard board) {
+		
+		return estimate(Puzzle.fromBoard(board));
+	}
+	
+	/**
+	 * Grade a puzzle. The level and the work behind the score are kept until
+	 * the next call.
+	 * 
+	 * @param puzzle Puzzle to grade, left as it was
+	 * @return Score, UNRATED if the puzzle does not have exactly one
+	 * solution
+	 */
+	public int estimate(Puzzle puzzle) {
+		
+		SolverResult result;
+		
+		if (solverCache != null) {
+			result = solverCache.solve(solver, puzzle);
+		} else {
+			result = solver.solve(puzzle);
+		}
+		
+		roundCount = result.getRoundCount();
+		fitRoundCount = result.getFitRoundCount();
+		guessCount = result.getGuessCount();
+		maxDepth = result.getMaxDepth();
+		
+		if (result.getStatus() != SolverResult.SOLVED) {
+			
+			level = UNRATED;
+			return UNRATED;
+		}
+		
+		if (guessCount > 0) {
+			level = HARD;
+		} else if (fitRoundCount > 0) {
+			level = MEDIUM;
+		} else {
+			level = EASY;
+		}
+		
+		return roundCount +
+			FIT_ROUND_WEIGHT * fitRoundCount +
+			GUESS_WEIGHT * guessCount;
+	}
+	
+	/**
+	 * Set a cache to look up puzzles in before solving them, so a puzzle
+	 * graded again is not solved again. The cache can be shared with other
+	 * estimators and generators.
+	 * 
+	 * @param solverCache Cache to use, null to always solve
+	 */
+	public void setSolverCache(SolverCache solverCache) {
+		
+		this.solverCache = solverCache;
+	}
+	
+	/**
+	 * Get the level of the last puzzle graded.
+	 * 
+	 * @return EASY, MEDIUM, HARD or UNRATED
+	 */
+	public int getLevel() {
+		
+		return level;
+	}
+	
+	/**
+	 * Get the number of passes of the rules made on the last puzzle graded,
+	 * including those made after guesses.
+	 * 
+	 * @return Number of passes
+	 */
+	public int getRoundCount() {
+		
+		return roundCount;
+	}
+	
+	/**
+	 * Get the number of passes made on the last puzzle graded that needed
+	 * the fit rule.
+	 * 
+	 * @return Number of passes
+	 */
+	public int getFitRoundCount() {
+		
+		return fitRoundCount;
+	}
+	
+	/**
+	 * Get the number of guesses made on the last puzzle graded.
+	 * 
+	 * @return Number of guesses
+	 */
+	public int getGuessCount() {
+		
+		return guessCount;
+	}
+	
+	/**
+	 * Get the deepest level of guessing reached on the last puzzle graded.
+	 * 
+	 * @return Depth, 0 if no guess was needed
+	 */
+	public int getMaxDepth() {
+		
+		return maxDepth;
+	}
+}
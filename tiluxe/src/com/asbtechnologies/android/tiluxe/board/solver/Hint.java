@@ -0,0 +1,127 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.board.solver;
+
+//External Imports
+
+//Internal Imports
+
+/**
+ * A location the player can work out next, with its value and the rule that
+ * settles it. Made by HintEngine.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class Hint {
+	
+	/** The player has marked the location wrongly. */
+	public static final int RULE_MISTAKE = 0;
+	
+	/** The row legend is met, or needs every location left in the row. */
+	public static final int RULE_ROW = 1;
+	
+	/** The column legend is met, or needs every location left in it. */
+	public static final int RULE_COLUMN = 2;
+	
+	/** The location touches a target corner to corner. */
+	public static final int RULE_DIAGONAL = 3;
+	
+	/**
+	 * The location is at the end of a run of targets as long as the longest
+	 * piece still to be found.
+	 */
+	public static final int RULE_CLOSE_RUN = 4;
+	
+	/** No piece still to be found can fit over the location. */
+	public static final int RULE_FIT = 5;
+	
+	/** Horizontal column number. */
+	private int xPos;
+	
+	/** Vertical row number. */
+	private int yPos;
+	
+	/** Puzzle.SHIP or Puzzle.WATER. */
+	private byte value;
+	
+	/** One of the RULE_ values. */
+	private int rule;
+	
+	/**
+	 * Default constructor.
+	 * 
+	 * @param xPos Horizontal column number
+	 * @param yPos Vertical row number
+	 * @param value Puzzle.SHIP or Puzzle.WATER
+	 * @param rule One of the RULE_ values
+	 */
+	Hint(int xPos, int yPos, byte value, int rule) {
+		
+		this.xPos = xPos;
+		this.yPos = yPos;
+		this.value = value;
+		this.rule = rule;
+	}
+	
+	//--------------------------------------------------------------------------
+	// Public methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Get the column of the location.
+	 * 
+	 * @return Horizontal column number
+	 */
+	public int getX() {
+		
+		return xPos;
+	}
+	
+	/**
+	 * Get the row of the location.
+	 * 
+	 * @return Vertical row number
+	 */
+	public int getY() {
+		
+		return yPos;
+	}
+	
+	/**
+	 * Get the value the location must have.
+	 * 
+	 * @return Puzzle.SHIP or Puzzle.WATER
+	 */
+	public byte getValue() {
+		
+		return value;
+	}
+	
+	/**
+	 * Check if the location is part of a target piece.
+	 * 
+	 * @return True for a target location, false for an empty one
+	 */
+	public boolean isShip() {
+		
+		return value == Puzzle.SHIP;
+	}
+	
+	/**
+	 * Get the rule that settles the location.
+	 * 
+	 * @return One of the RULE_ values
+	 */
+	public int getRule() {
+		
+		return rule;
+	}
+}
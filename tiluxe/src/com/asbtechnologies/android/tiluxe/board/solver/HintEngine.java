@@ -0,0 +1,296 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.board.solver;
+
+//External Imports
+
+//Internal Imports
+import com.asbtechnologies.android.tiluxe.board.BoardMoveListener;
+import com.asbtechnologies.android.tiluxe.board.BoardPieceState;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoard;
+
+/**
+ * Finds the next location a player can work out from their marks on a
+ * board, with the rule that settles it. A wrongly marked location is
+ * pointed out first, as nothing worked out from a mistake can be trusted.
+ * 
+ * The engine follows the player's moves as a BoardMoveListener and keeps
+ * what the rules have worked out between hints. A new right mark only adds
+ * to it, so the next hint carries on from the last instead of starting
+ * again. Each hint applies one rule at a time, and only until a location
+ * the player has not marked turns up, so a hint on a 10x10 board takes
+ * microseconds. Taking back or changing a right mark throws away what was
+ * worked out, which is built again on the next hint.
+ * 
+ * Register the engine with DefaultBoard.registerMoveListener for as long as
+ * it is used. Hints can be asked for on a different thread from the one
+ * playing the moves.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class HintEngine implements BoardMoveListener {
+	
+	/** Board the hints are for. */
+	private DefaultBoard board;
+	
+	/** Height of the board, to turn cell indexes into locations. */
+	private int height;
+	
+	/** Applies the rules. */
+	private PuzzleSolver solver;
+	
+	/** Puzzle value of the player's mark on each cell. */
+	private byte[] marks;
+	
+	/** The player's marks and everything the rules have worked out. */
+	private byte[] deduced;
+	
+	/** Copy of deduced from before the last rule, to find what it set. */
+	private byte[] lastDeduced;
+	
+	/** Cells worked out by the rules, in the order they were found. */
+	private int[] foundCells;
+	
+	/** Rule that worked out each of foundCells. */
+	private int[] foundRules;
+	
+	/** Number of entries in foundCells. */
+	private int foundCount;
+	
+	/** Entries of foundCells before this have been marked by the player. */
+	private int foundStart;
+	
+	/** True if deduced must be built again from the marks. */
+	private boolean stale;
+	
+	/** Number of cells the player has marked wrongly. */
+	private int mistakeCount;
+	
+	/**
+	 * Create an engine for a board, reading the player's marks so far.
+	 * 
+	 * @param board Board the hints are for
+	 */
+	public HintEngine(DefaultBoard board) {
+		
+		this.board = board;
+		this.height = board.getHeight();
+		
+		int cellCount = board.getWidth() * height;
+		
+		solver = new PuzzleSolver();
+		solver.prepare(Puzzle.fromBoard(board));
+		
+		marks = new byte[cellCount];
+		deduced = new byte[cellCount];
+		lastDeduced = new byte[cellCount];
+		foundCells = new int[cellCount];
+		foundRules = new int[cellCount];
+		
+		for (int i = 0; i < cellCount; i++) {
+			
+			marks[i] = getMark(board.getCurrentState(i / height, i % height));
+			
+			if (isMistake(i, marks[i])) {
+				mistakeCount++;
+			}
+		}
+		
+		stale = true;
+	}
+	
+	//--------------------------------------------------------------------------
+	// Methods required by BoardMoveListener
+	//--------------------------------------------------------------------------
+	
+	/* (non-Javadoc)
+	 * @see com.asbtechnologies.android.tiluxe.board.BoardMoveListener#boardMoveNotification(int, int)
+	 */
+	@Override
+	public synchronized void boardMoveNotification(int cellIndex, int state) {
+		
+		byte mark = getMark(state);
+		byte lastMark = marks[cellIndex];
+		
+		if (mark == lastMark) {
+			return;
+		}
+		
+		marks[cellIndex] = mark;
+		
+		boolean lastMistake = isMistake(cellIndex, lastMark);
+		boolean mistake = isMistake(cellIndex, mark);
+		
+		if (lastMistake) {
+			mistakeCount--;
+		}
+		
+		if (mistake) {
+			mistakeCount++;
+		}
+		
+		// Wrong marks are never given to the rules, so a right mark that is
+		// taken back or changed is the only thing they may have relied on.
+		// A new right mark only tells them more.
+		if (lastMark != Puzzle.UNKNOWN && !lastMistake) {
+			stale = true;
+		} else if (!mistake && mark != Puzzle.UNKNOWN) {
+			deduced[cellIndex] = mark;
+		}
+	}
+	
+	//--------------------------------------------------------------------------
+	// Public methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Get the next location the player can work out. The same hint is given
+	 * until the player marks its location.
+	 * 
+	 * @return Hint, null if nothing more can be worked out without guessing
+	 * or the board is finished
+	 */
+	public synchronized Hint nextHint() {
+		
+		if (mistakeCount > 0) {
+			return findMistake();
+		}
+		
+		if (stale) {
+			
+			System.arraycopy(marks, 0, deduced, 0, marks.length);
+			foundCount = 0;
+			foundStart = 0;
+			stale = false;
+		}
+		
+		while (true) {
+			
+			// Skip what the player has marked since it was found.
+			while (foundStart < foundCount &&
+					marks[foundCells[foundStart]] != Puzzle.UNKNOWN) {
+				foundStart++;
+			}
+			
+			if (foundStart < foundCount) {
+				
+				int cellIndex = foundCells[foundStart];
+				
+				return new Hint(
+						cellIndex / height,
+						cellIndex % height,
+						deduced[cellIndex],
+						foundRules[foundStart]);
+			}
+			
+			foundCount = 0;
+			foundStart = 0;
+			
+			System.arraycopy(deduced, 0, lastDeduced, 0, deduced.length);
+			
+			int rule = solver.applyCheapestRule(deduced);
+			
+			if (rule < 0) {
+				
+				// Can not happen without a mistake, but start again next time
+				// rather than trust a contradiction.
+				stale = rule == PuzzleSolver.CONTRADICTION_RULE;
+				return null;
+			}
+			
+			for (int i = 0; i < deduced.length; i++) {
+				
+				if (lastDeduced[i] == Puzzle.UNKNOWN &&
+						deduced[i] != Puzzle.UNKNOWN &&
+						marks[i] == Puzzle.UNKNOWN) {
+					
+					foundCells[foundCount] = i;
+					foundRules[foundCount] = rule;
+					foundCount++;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Get the number of cells the player has marked wrongly.
+	 * 
+	 * @return Number of mistakes
+	 */
+	public synchronized int getMistakeCount() {
+		
+		return mistakeCount;
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Get the puzzle value of the player's mark on a cell.
+	 * 
+	 * @param state Current BoardPieceState of the cell
+	 * @return Puzzle.SHIP, Puzzle.WATER or Puzzle.UNKNOWN
+	 */
+	private static byte getMark(int state) {
+		
+		if (state == BoardPieceState.STATE_ALIVE) {
+			return Puzzle.SHIP;
+		} else if (state == BoardPieceState.STATE_DEAD ||
+				state == BoardPieceState.EMPTY) {
+			return Puzzle.WATER;
+		}
+		
+		return Puzzle.UNKNOWN;
+	}
+	
+	/**
+	 * Check if a mark on a cell is wrong.
+	 * 
+	 * @param cellIndex Index of the cell
+	 * @param mark Puzzle value of the mark
+	 * @return True if the mark does not match the solution
+	 */
+	private boolean isMistake(int cellIndex, byte mark) {
+		
+		if (mark == Puzzle.UNKNOWN) {
+			return false;
+		}
+		
+		boolean ship = board.getMatchState(
+				cellIndex / height, cellIndex % height) ==
+					BoardPieceState.STATE_ALIVE;
+		
+		return ship != (mark == Puzzle.SHIP);
+	}
+	
+	/**
+	 * Make a hint for the first wrongly marked cell.
+	 * 
+	 * @return Hint giving the right value of the cell
+	 */
+	private Hint findMistake() {
+		
+		for (int i = 0; i < marks.length; i++) {
+			
+			if (isMistake(i, marks[i])) {
+				
+				return new Hint(
+						i / height,
+						i % height,
+						marks[i] == Puzzle.SHIP ? Puzzle.WATER : Puzzle.SHIP,
+						Hint.RULE_MISTAKE);
+			}
+		}
+		
+		return null;
+	}
+}
@@ -0,0 +1,255 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.board.solver;
+
+//External Imports
+
+//Internal Imports
+import com.asbtechnologies.android.tiluxe.board.BoardPiece;
+import com.asbtechnologies.android.tiluxe.board.BoardPieceState;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoard;
+
+/**
+ * What the player knows about a board: the legends, the lengths of the pieces
+ * to find and the locations given away. Locations are UNKNOWN, SHIP for a
+ * location known to hold part of a target piece, or WATER for a location
+ * known to be clear. Locations are indexed (column * height) + row, the same
+ * as the board.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class Puzzle {
+	
+	/** Location the player knows nothing about. */
+	public static final byte UNKNOWN = 0;
+	
+	/** Location known to hold part of a target piece. */
+	public static final byte SHIP = 1;
+	
+	/** Location known to be clear of target pieces. */
+	public static final byte WATER = 2;
+	
+	/** Width of the board (number of columns). */
+	private int width;
+	
+	/** Height of the board (number of rows). */
+	private int height;
+	
+	/** Number of target locations in each row, the vertical legend. */
+	private int[] rowCounts;
+	
+	/** Number of target locations in each column, the horizontal legend. */
+	private int[] columnCounts;
+	
+	/** Lengths of the target pieces. */
+	private int[] fleetLengths;
+	
+	/** What is known about each location. */
+	private byte[] cells;
+	
+	/**
+	 * Default constructor. Every location starts out UNKNOWN.
+	 * 
+	 * @param width Width of the board
+	 * @param height Height of the board
+	 * @param rowCounts Number of target locations in each row
+	 * @param columnCounts Number of target locations in each column
+	 * @param fleetLengths Lengths of the target pieces
+	 */
+	public Puzzle(
+			int width,
+			int height,
+			int[] rowCounts,
+			int[] columnCounts,
+			int[] fleetLengths) {
+		
+		this.width = width;
+		this.height = height;
+		this.rowCounts = new int[height];
+		this.columnCounts = new int[width];
+		this.fleetLengths = new int[fleetLengths.length];
+		this.cells = new byte[width * height];
+		
+		System.arraycopy(rowCounts, 0, this.rowCounts, 0, height);
+		System.arraycopy(columnCounts, 0, this.columnCounts, 0, width);
+		System.arraycopy(
+				fleetLengths, 0, this.fleetLengths, 0, fleetLengths.length);
+	}
+	
+	/**
+	 * Create the puzzle a player of the board is given. Target locations that
+	 * start ALIVE are SHIP, EMPTY locations are WATER and everything else is
+	 * UNKNOWN.
+	 * 
+	 * @param board Board to read
+	 * @return Puzzle for the board
+	 */
+	public static Puzzle fromBoard(DefaultBoard board) {
+		
+		int width = board.getWidth();
+		int height = board.getHeight();
+		
+		BoardPiece[] targetPieces =
+			new BoardPiece[board.getParentTargetPieceCount()];
+		board.getParentTargetPieces(targetPieces);
+		
+		int[] fleetLengths = new int[targetPieces.length];
+		
+		for (int i = 0; i < targetPieces.length; i++) {
+			fleetLengths[i] = targetPieces[i].getLength();
+		}
+		
+		Puzzle puzzle = new Puzzle(
+				width,
+				height,
+				board.getVerticalLegend(new int[height]),
+				board.getHorizontalLegend(new int[width]),
+				fleetLengths);
+		
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				
+				if (board.getMatchState(x, y) == BoardPieceState.EMPTY) {
+					puzzle.setCell(x, y, WATER);
+				} else if (board.getStartingState(x, y) ==
+					BoardPieceState.STATE_ALIVE) {
+					puzzle.setCell(x, y, SHIP);
+				}
+			}
+		}
+		
+		return puzzle;
+	}
+	
+	//--------------------------------------------------------------------------
+	// Public methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Get the width of the board.
+	 * 
+	 * @return Number of columns
+	 */
+	public int getWidth() {
+		
+		return width;
+	}
+	
+	/**
+	 * Get the height of the board.
+	 * 
+	 * @return Number of rows
+	 */
+	public int getHeight() {
+		
+		return height;
+	}
+	
+	/**
+	 * Get the number of target locations in a row.
+	 * 
+	 * @param yPos Row number
+	 * @return Vertical legend value of the row
+	 */
+	public int getRowCount(int yPos) {
+		
+		return rowCounts[yPos];
+	}
+	
+	/**
+	 * Get the number of target locations in a column.
+	 * 
+	 * @param xPos Column number
+	 * @return Horizontal legend value of the column
+	 */
+	public int getColumnCount(int xPos) {
+		
+		return columnCounts[xPos];
+	}
+	
+	/**
+	 * Get the number of target pieces.
+	 * 
+	 * @return Number of target pieces
+	 */
+	public int getFleetSize() {
+		
+		return fleetLengths.length;
+	}
+	
+	/**
+	 * Get the length of a target piece.
+	 * 
+	 * @param index Index of the piece, from 0 to getFleetSize() - 1
+	 * @return Length of the piece
+	 */
+	public int getFleetLength(int index) {
+		
+		return fleetLengths[index];
+	}
+	
+	/**
+	 * Get what is known about a location.
+	 * 
+	 * @param xPos Column number
+	 * @param yPos Row number
+	 * @return UNKNOWN, SHIP or WATER
+	 */
+	public byte getCell(int xPos, int yPos) {
+		
+		return cells[xPos * height + yPos];
+	}
+	
+	/**
+	 * Set what is known about a location.
+	 * 
+	 * @param xPos Column number
+	 * @param yPos Row number
+	 * @param value UNKNOWN, SHIP or WATER
+	 */
+	public void setCell(int xPos, int yPos, byte value) {
+		
+		cells[xPos * height + yPos] = value;
+	}
+	
+	/**
+	 * Get the number of locations that are not UNKNOWN.
+	 * 
+	 * @return Number of known locations
+	 */
+	public int getKnownCount() {
+		
+		int knownCount = 0;
+		
+		for (int i = 0; i < cells.length; i++) {
+			
+			if (cells[i] != UNKNOWN) {
+				knownCount++;
+			}
+		}
+		
+		return knownCount;
+	}
+	
+	//--------------------------------------------------------------------------
+	// Package methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Copy what is known about every location into an array.
+	 * 
+	 * @param target Array of width * height entries to fill
+	 */
+	void copyCells(byte[] target) {
+		
+		System.arraycopy(cells, 0, target, 0, cells.length);
+	}
+}
@@ -0,0 +1,1340 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.board.solver;
+
+//External Imports
+import java.util.ArrayList;
+
+//Internal Imports
+import com.asbtechnologies.android.tiluxe.board.ZobristKeys;
+
+/**
+ * Solves puzzles by working out locations from the rules, guessing only when
+ * the rules run out.
+ * 
+ * The rules applied are:
+ * - A row or column whose legend is met has only WATER left in it, and one
+ *   that needs every UNKNOWN location it has to meet its legend has only SHIP
+ *   left in it.
+ * - Pieces never touch, so the diagonal neighbours of a SHIP are WATER.
+ * - A run of SHIP locations must be part of a piece still to be found. A run
+ *   as long as the longest piece still to be found is closed off with WATER,
+ *   and a run longer than that, or more finished pieces of a length than the
+ *   fleet has, is a contradiction.
+ * - A location that no piece still to be found can cover, without breaking
+ *   a legend or touching another piece, is WATER.
+ * 
+ * When the rules stop, the solver guesses an UNKNOWN location in the most
+ * constrained row, tries SHIP then WATER, and applies the rules again. The
+ * search stops once a second solution is found, so an AMBIGUOUS result costs
+ * no more than proving a unique one.
+ * 
+ * With a TranspositionTable set, every set of locations the search finds
+ * no solution from is kept in the table by its Zobrist hash, which is kept
+ * up to date as locations are worked out. A later search of a puzzle with
+ * the same legends and pieces that reaches the same locations, after other
+ * guesses or with more tiles given away, stops there at once. The counts
+ * of deductions, nodes and guesses then only cover the work done.
+ * 
+ * Storage for the search is kept between calls, so solving many puzzles of
+ * the same size with one solver does little allocation. Not thread safe, use
+ * one solver per thread.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class PuzzleSolver {
+	
+	/** Number of solutions that shows a puzzle is ambiguous. */
+	private static final int AMBIGUOUS_LIMIT = 2;
+	
+	/** Returned by applyCheapestRule when no rule works anything out. */
+	static final int NO_RULE = -1;
+	
+	/** Returned by applyCheapestRule when the rules find a contradiction. */
+	static final int CONTRADICTION_RULE = -2;
+	
+	/** Width of the puzzle being solved. */
+	private int width;
+	
+	/** Height of the puzzle being solved. */
+	private int height;
+	
+	/** Number of target locations in each row. */
+	private int[] rowCounts;
+	
+	/** Number of target locations in each column. */
+	private int[] columnCounts;
+	
+	/** Number of target pieces of each length. */
+	private int[] fleetCount;
+	
+	/** Number of finished pieces of each length, refilled by checkFleet. */
+	private int[] finishedCount;
+	
+	/** Number of SHIP locations in each row, refilled by propagateFits. */
+	private int[] rowShipCount;
+	
+	/** Number of SHIP locations in each column, refilled by propagateFits. */
+	private int[] columnShipCount;
+	
+	/** Locations that can be part of a horizontal piece, see propagateFits. */
+	private boolean[] horizontalFree;
+	
+	/** Locations that can be part of a vertical piece, see propagateFits. */
+	private boolean[] verticalFree;
+	
+	/** Locations a piece still to be found can cover, see propagateFits. */
+	private boolean[] coverable;
+	
+	/** Length of the longest target piece. */
+	private int maxLength;
+	
+	/** Location values for each search depth. */
+	private ArrayList<byte[]> depthCells;
+	
+	/** First solution found. */
+	private byte[] firstSolution;
+	
+	/** Second solution found, if the puzzle is ambiguous. */
+	private byte[] secondSolution;
+	
+	/** Stop searching once this many solutions have been found. */
+	private int solutionLimit;
+	
+	/** Number of solutions found so far. */
+	private int solutionCount;
+	
+	/** Number of locations worked out by propagation. */
+	private int deductionCount;
+	
+	/** Number of search nodes visited. */
+	private int searchNodeCount;
+	
+	/** Number of guesses made. */
+	private int guessCount;
+	
+	/** Deepest level of guessing reached. */
+	private int maxDepth;
+	
+	/** Number of passes of the rules made. */
+	private int roundCount;
+	
+	/** Number of passes that needed propagateFits to make progress. */
+	private int fitRoundCount;
+	
+	/** Number of passes made before the first guess. */
+	private int firstGuessRoundCount;
+	
+	/** Sets of locations known to have no solution, null to keep none. */
+	private TranspositionTable transpositionTable;
+	
+	/** Hash of the size, legends and pieces of the puzzle being solved. */
+	private long clueKey;
+	
+	/** Zobrist hash of the locations being worked on, see setCell. */
+	private long cellsKey;
+	
+	/** Number of search nodes found in the transposition table. */
+	private int tableHitCount;
+	
+	/**
+	 * Default constructor.
+	 */
+	public PuzzleSolver() {
+		
+		depthCells = new ArrayList<byte[]>();
+	}
+	
+	//--------------------------------------------------------------------------
+	// Public methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Solve a puzzle.
+	 * 
+	 * @param puzzle Puzzle to solve, not changed
+	 * @return SOLVED with the solution, AMBIGUOUS with the first two of the
+	 * solutions found, or CONTRADICTION
+	 */
+	public SolverResult solve(Puzzle puzzle) {
+		
+		long startTime = System.nanoTime();
+		
+		int count = search(puzzle, AMBIGUOUS_LIMIT);
+		
+		int status = SolverResult.AMBIGUOUS;
+		byte[] solution = null;
+		byte[] otherSolution = null;
+		
+		if (count == 0) {
+			status = SolverResult.CONTRADICTION;
+		} else {
+			
+			if (count == 1) {
+				status = SolverResult.SOLVED;
+			}
+			
+			solution = new byte[firstSolution.length];
+			System.arraycopy(firstSolution, 0, solution, 0, solution.length);
+			
+			if (count > 1) {
+				
+				otherSolution = new byte[secondSolution.length];
+				System.arraycopy(
+						secondSolution, 
+						0, 
+						otherSolution, 
+						0, 
+						otherSolution.length);
+			}
+		}
+		
+		return new SolverResult(
+				status,
+				height,
+				solution,
+				otherSolution,
+				deductionCount,
+				searchNodeCount,
+				guessCount,
+				maxDepth,
+				roundCount,
+				fitRoundCount,
+				System.nanoTime() - startTime);
+	}
+	
+	/**
+	 * Count the solutions of a puzzle, stopping at a limit.
+	 * 
+	 * @param puzzle Puzzle to solve, not changed
+	 * @param limit Stop counting once this many solutions are found
+	 * @return Number of solutions, at most limit
+	 */
+	public int countSolutions(Puzzle puzzle, int limit) {
+		
+		return search(puzzle, limit);
+	}
+	
+	/**
+	 * Apply the rules to a puzzle without guessing, writing every location
+	 * worked out back into the puzzle.
+	 * 
+	 * @param puzzle Puzzle to update
+	 * @return False if the rules found a contradiction, true otherwise
+	 */
+	public boolean deduce(Puzzle puzzle) {
+		
+		setUp(puzzle);
+		
+		byte[] cells = getDepthCells(0);
+		puzzle.copyCells(cells);
+		
+		boolean propagated = propagate(cells);
+		firstGuessRoundCount = roundCount;
+		
+		if (!propagated) {
+			return false;
+		}
+		
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				puzzle.setCell(x, y, cells[x * height + y]);
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Set a table to keep the sets of locations that lead to no solution in,
+	 * and to look each search node up in before working on it. The table
+	 * can be shared with solvers on other threads.
+	 * 
+	 * @param transpositionTable Table to use, null to keep none
+	 */
+	public void setTranspositionTable(TranspositionTable transpositionTable) {
+		
+		this.transpositionTable = transpositionTable;
+	}
+	
+	/**
+	 * Get the number of search nodes in the last call that were found in the
+	 * transposition table, and so not searched.
+	 * 
+	 * @return Number of nodes found
+	 */
+	public int getTableHitCount() {
+		
+		return tableHitCount;
+	}
+	
+	/**
+	 * Get the number of locations worked out by propagation in the last call.
+	 * 
+	 * @return Number of deductions
+	 */
+	public int getDeductionCount() {
+		
+		return deductionCount;
+	}
+	
+	/**
+	 * Get the number of search nodes visited in the last call.
+	 * 
+	 * @return Number of search nodes
+	 */
+	public int getSearchNodeCount() {
+		
+		return searchNodeCount;
+	}
+	
+	/**
+	 * Get the number of passes of the rules made in the last call. Each pass
+	 * applies the rules to the locations the last pass worked out, so this
+	 * is the length of the chain of deductions.
+	 * 
+	 * @return Number of passes
+	 */
+	public int getRoundCount() {
+		
+		return roundCount;
+	}
+	
+	/**
+	 * Get the number of passes in the last call that only made progress by
+	 * working out where the pieces still to be found can fit, the hardest of
+	 * the rules to see.
+	 * 
+	 * @return Number of passes
+	 */
+	public int getFitRoundCount() {
+		
+		return fitRoundCount;
+	}
+	
+	/**
+	 * Get the number of passes of the rules made in the last call before the
+	 * first guess, or in all if no guess was needed.
+	 * 
+	 * @return Number of passes
+	 */
+	public int getFirstGuessRoundCount() {
+		
+		return firstGuessRoundCount;
+	}
+	
+	//--------------------------------------------------------------------------
+	// Package methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Take in the clues of a puzzle for calls to applyCheapestRule. The
+	 * locations of the puzzle are not read.
+	 * 
+	 * @param puzzle Puzzle to take the legends and pieces from
+	 */
+	void prepare(Puzzle puzzle) {
+		
+		setUp(puzzle);
+	}
+	
+	/**
+	 * Apply only the first of the rules, in order of how easily a player 
+	 * sees them, that works out any location. Rows, columns and diagonals
+	 * come first, then closing off runs and last working out where the 
+	 * pieces still to be found can fit.
+	 * 
+	 * @param cells Location values to update, for the puzzle last prepared
+	 * @return Hint rule that set locations, NO_RULE or CONTRADICTION_RULE
+	 */
+	int applyCheapestRule(byte[] cells) {
+		
+		int result = propagateRows(cells);
+		
+		if (result != 0) {
+			return result < 0 ? CONTRADICTION_RULE : Hint.RULE_ROW;
+		}
+		
+		result = propagateColumns(cells);
+		
+		if (result != 0) {
+			return result < 0 ? CONTRADICTION_RULE : Hint.RULE_COLUMN;
+		}
+		
+		result = propagateDiagonals(cells);
+		
+		if (result != 0) {
+			return result < 0 ? CONTRADICTION_RULE : Hint.RULE_DIAGONAL;
+		}
+		
+		if (checkFleet(cells) < 0) {
+			return CONTRADICTION_RULE;
+		}
+		
+		if (closeRuns(cells) > 0) {
+			return Hint.RULE_CLOSE_RUN;
+		}
+		
+		result = propagateFits(cells);
+		
+		if (result != 0) {
+			return result < 0 ? CONTRADICTION_RULE : Hint.RULE_FIT;
+		}
+		
+		return NO_RULE;
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Search for solutions of a puzzle.
+	 * 
+	 * @param puzzle Puzzle to solve
+	 * @param limit Stop once this many solutions are found
+	 * @return Number of solutions found
+	 */
+	private int search(Puzzle puzzle, int limit) {
+		
+		setUp(puzzle);
+		
+		solutionLimit = limit;
+		
+		byte[] cells = getDepthCells(0);
+		puzzle.copyCells(cells);
+		
+		long key = 0;
+		
+		for (int i = 0; i < cells.length; i++) {
+			key ^= ZobristKeys.getCellKey(i, cells[i]);
+		}
+		
+		searchFrom(0, key);
+		
+		return solutionCount;
+	}
+	
+	/**
+	 * Take in the clues of a puzzle and reset the counters.
+	 * 
+	 * @param puzzle Puzzle to solve
+	 */
+	private void setUp(Puzzle puzzle) {
+		
+		if (puzzle.getWidth() != width || puzzle.getHeight() != height) {
+			
+			width = puzzle.getWidth();
+			height = puzzle.getHeight();
+			rowCounts = new int[height];
+			columnCounts = new int[width];
+			firstSolution = new byte[width * height];
+			secondSolution = new byte[width * height];
+			rowShipCount = new int[height];
+			columnShipCount = new int[width];
+			horizontalFree = new boolean[width * height];
+			verticalFree = new boolean[width * height];
+			coverable = new boolean[width * height];
+			depthCells.clear();
+		}
+		
+		for (int y = 0; y < height; y++) {
+			rowCounts[y] = puzzle.getRowCount(y);
+		}
+		
+		for (int x = 0; x < width; x++) {
+			columnCounts[x] = puzzle.getColumnCount(x);
+		}
+		
+		maxLength = 0;
+		
+		for (int i = 0; i < puzzle.getFleetSize(); i++) {
+			maxLength = Math.max(maxLength, puzzle.getFleetLength(i));
+		}
+		
+		if (fleetCount == null || fleetCount.length < maxLength + 2) {
+			
+			fleetCount = new int[maxLength + 2];
+			finishedCount = new int[maxLength + 2];
+		}
+		
+		for (int i = 0; i < fleetCount.length; i++) {
+			fleetCount[i] = 0;
+		}
+		
+		for (int i = 0; i < puzzle.getFleetSize(); i++) {
+			fleetCount[puzzle.getFleetLength(i)]++;
+		}
+		
+		clueKey = SolverCache.hashClues(puzzle);
+		
+		solutionLimit = AMBIGUOUS_LIMIT;
+		solutionCount = 0;
+		deductionCount = 0;
+		searchNodeCount = 0;
+		guessCount = 0;
+		maxDepth = 0;
+		roundCount = 0;
+		fitRoundCount = 0;
+		firstGuessRoundCount = 0;
+		tableHitCount = 0;
+	}
+	
+	/**
+	 * Apply the rules to the locations at a depth, then guess if any are left
+	 * UNKNOWN. Locations found in the transposition table, before or after
+	 * the rules, are not searched, and those that turn out to have no
+	 * solution are added to it.
+	 * 
+	 * @param depth Search depth
+	 * @param entryKey Zobrist hash of the locations at the depth
+	 */
+	private void searchFrom(int depth, long entryKey) {
+		
+		if (isDeadEnd(entryKey)) {
+			return;
+		}
+		
+		searchNodeCount++;
+		maxDepth = Math.max(maxDepth, depth);
+		
+		byte[] cells = getDepthCells(depth);
+		cellsKey = entryKey;
+		boolean propagated = propagate(cells);
+		
+		if (depth == 0) {
+			firstGuessRoundCount = roundCount;
+		}
+		
+		if (!propagated) {
+			
+			addDeadEnd(entryKey);
+			return;
+		}
+		
+		long settledKey = cellsKey;
+		
+		if (settledKey != entryKey && isDeadEnd(settledKey)) {
+			
+			addDeadEnd(entryKey);
+			return;
+		}
+		
+		int startSolutionCount = solutionCount;
+		int guessCell = chooseGuess(cells);
+		
+		if (guessCell < 0) {
+			
+			// Every location is known, so every piece is finished.
+			if (checkFleet(cells) >= 0 && isFleetComplete()) {
+				
+				if (solutionCount == 0) {
+					System.arraycopy(
+							cells, 0, firstSolution, 0, cells.length);
+				} else if (solutionCount == 1) {
+					System.arraycopy(
+							cells, 0, secondSolution, 0, cells.length);
+				}
+				
+				solutionCount++;
+			}
+			
+		} else {
+			
+			byte[] nextCells = getDepthCells(depth + 1);
+			
+			for (int guess = 0; guess < 2; guess++) {
+				
+				byte value = (guess == 0) ? Puzzle.SHIP : Puzzle.WATER;
+				
+				System.arraycopy(cells, 0, nextCells, 0, cells.length);
+				nextCells[guessCell] = value;
+				guessCount++;
+				
+				searchFrom(
+						depth + 1,
+						settledKey ^ ZobristKeys.getCellKey(guessCell, value));
+				
+				if (solutionCount >= solutionLimit) {
+					return;
+				}
+			}
+		}
+		
+		if (solutionCount == startSolutionCount) {
+			
+			addDeadEnd(entryKey);
+			addDeadEnd(settledKey);
+		}
+	}
+	
+	/**
+	 * Check if a set of locations is in the transposition table, counting
+	 * the hit if it is.
+	 * 
+	 * @param key Zobrist hash of the locations
+	 * @return True if the locations are known to have no solution
+	 */
+	private boolean isDeadEnd(long key) {
+		
+		if (transpositionTable == null || 
+				!transpositionTable.contains(clueKey ^ key)) {
+			return false;
+		}
+		
+		tableHitCount++;
+		
+		return true;
+	}
+	
+	/**
+	 * Add a set of locations with no solution to the transposition table,
+	 * if one is set.
+	 * 
+	 * @param key Zobrist hash of the locations
+	 */
+	private void addDeadEnd(long key) {
+		
+		if (transpositionTable != null) {
+			transpositionTable.put(clueKey ^ key);
+		}
+	}
+	
+	/**
+	 * Apply the rules until they stop working anything out.
+	 * 
+	 * @param cells Location values to update
+	 * @return False if a contradiction was found, true otherwise
+	 */
+	private boolean propagate(byte[] cells) {
+		
+		boolean changed = true;
+		
+		while (changed) {
+			
+			changed = false;
+			roundCount++;
+			
+			int result = propagateRows(cells);
+			
+			if (result < 0) {
+				return false;
+			}
+			
+			changed |= result > 0;
+			
+			result = propagateColumns(cells);
+			
+			if (result < 0) {
+				return false;
+			}
+			
+			changed |= result > 0;
+			
+			result = propagateDiagonals(cells);
+			
+			if (result < 0) {
+				return false;
+			}
+			
+			changed |= result > 0;
+			
+			result = checkFleet(cells);
+			
+			if (result < 0) {
+				return false;
+			}
+			
+			if (!changed) {
+				changed = closeRuns(cells) > 0;
+			}
+			
+			if (!changed) {
+				
+				result = propagateFits(cells);
+				
+				if (result < 0) {
+					return false;
+				}
+				
+				changed = result > 0;
+				
+				if (changed) {
+					fitRoundCount++;
+				}
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Fill rows whose legend is met with WATER, and rows that need every
+	 * UNKNOWN location with SHIP.
+	 * 
+	 * @param cells Location values to update
+	 * @return -1 on contradiction, otherwise the number of locations set
+	 */
+	private int propagateRows(byte[] cells) {
+		
+		int setCount = 0;
+		
+		for (int y = 0; y < height; y++) {
+			
+			int shipCount = 0;
+			int unknownCount = 0;
+			
+			for (int i = y; i < cells.length; i += height) {
+				
+				if (cells[i] == Puzzle.SHIP) {
+					shipCount++;
+				} else if (cells[i] == Puzzle.UNKNOWN) {
+					unknownCount++;
+				}
+			}
+			
+			if (shipCount > rowCounts[y] ||
+					shipCount + unknownCount < rowCounts[y]) {
+				return -1;
+			}
+			
+			if (unknownCount == 0) {
+				continue;
+			}
+			
+			byte fill;
+			
+			if (shipCount == rowCounts[y]) {
+				fill = Puzzle.WATER;
+			} else if (shipCount + unknownCount == rowCounts[y]) {
+				fill = Puzzle.SHIP;
+			} else {
+				continue;
+			}
+			
+			for (int i = y; i < cells.length; i += height) {
+				
+				if (cells[i] == Puzzle.UNKNOWN) {
+					setCell(cells, i, fill);
+				}
+			}
+			
+			setCount += unknownCount;
+		}
+		
+		deductionCount += setCount;
+		
+		return setCount;
+	}
+	
+	/**
+	 * Fill columns whose legend is met with WATER, and columns that need
+	 * every UNKNOWN location with SHIP.
+	 * 
+	 * @param cells Location values to update
+	 * @return -1 on contradiction, otherwise the number of locations set
+	 */
+	private int propagateColumns(byte[] cells) {
+		
+		int setCount = 0;
+		
+		for (int x = 0; x < width; x++) {
+			
+			int start = x * height;
+			int end = start + height;
+			int shipCount = 0;
+			int unknownCount = 0;
+			
+			for (int i = start; i < end; i++) {
+				
+				if (cells[i] == Puzzle.SHIP) {
+					shipCount++;
+				} else if (cells[i] == Puzzle.UNKNOWN) {
+					unknownCount++;
+				}
+			}
+			
+			if (shipCount > columnCounts[x] ||
+					shipCount + unknownCount < columnCounts[x]) {
+				return -1;
+			}
+			
+			if (unknownCount == 0) {
+				continue;
+			}
+			
+			byte fill;
+			
+			if (shipCount == columnCounts[x]) {
+				fill = Puzzle.WATER;
+			} else if (shipCount + unknownCount == columnCounts[x]) {
+				fill = Puzzle.SHIP;
+			} else {
+				continue;
+			}
+			
+			for (int i = start; i < end; i++) {
+				
+				if (cells[i] == Puzzle.UNKNOWN) {
+					setCell(cells, i, fill);
+				}
+			}
+			
+			setCount += unknownCount;
+		}
+		
+		deductionCount += setCount;
+		
+		return setCount;
+	}
+	
+	/**
+	 * Set the diagonal neighbours of every SHIP to WATER.
+	 * 
+	 * @param cells Location values to update
+	 * @return -1 on contradiction, otherwise the number of locations set
+	 */
+	private int propagateDiagonals(byte[] cells) {
+		
+		int setCount = 0;
+		
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				
+				if (cells[x * height + y] != Puzzle.SHIP) {
+					continue;
+				}
+				
+				for (int dx = -1; dx <= 1; dx += 2) {
+					
+					int nx = x + dx;
+					
+					if (nx < 0 || nx >= width) {
+						continue;
+					}
+					
+					for (int dy = -1; dy <= 1; dy += 2) {
+						
+						int ny = y + dy;
+						
+						if (ny < 0 || ny >= height) {
+							continue;
+						}
+						
+						int neighbour = nx * height + ny;
+						
+						if (cells[neighbour] == Puzzle.SHIP) {
+							return -1;
+						} else if (cells[neighbour] == Puzzle.UNKNOWN) {
+							setCell(cells, neighbour, Puzzle.WATER);
+							setCount++;
+						}
+					}
+				}
+			}
+		}
+		
+		deductionCount += setCount;
+		
+		return setCount;
+	}
+	
+	/**
+	 * Count the finished pieces of each length into finishedCount, and check
+	 * them against the fleet. A finished piece is a run of SHIP closed off by
+	 * WATER or the edge of the board at both ends and along both sides.
+	 * 
+	 * @param cells Location values to check
+	 * @return -1 on contradiction, 0 otherwise
+	 */
+	private int checkFleet(byte[] cells) {
+		
+		for (int i = 0; i < finishedCount.length; i++) {
+			finishedCount[i] = 0;
+		}
+		
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				
+				// Only look at the head of each piece, the location closest
+				// to 0,0.
+				if (!isShip(cells, x, y) || isShip(cells, x - 1, y) ||
+						isShip(cells, x, y - 1)) {
+					continue;
+				}
+				
+				int horizontalLength = runLength(cells, x, y, 1, 0);
+				int verticalLength = runLength(cells, x, y, 0, 1);
+				int length = Math.max(horizontalLength, verticalLength);
+				
+				if (length > maxLength) {
+					return -1;
+				}
+				
+				boolean finished;
+				
+				if (horizontalLength > 1) {
+					finished = isClosed(cells, x - 1, y) &&
+						isClosed(cells, x + length, y);
+				} else if (verticalLength > 1) {
+					finished = isClosed(cells, x, y - 1) &&
+						isClosed(cells, x, y + length);
+				} else {
+					finished = isClosed(cells, x - 1, y) &&
+						isClosed(cells, x + 1, y) &&
+						isClosed(cells, x, y - 1) &&
+						isClosed(cells, x, y + 1);
+				}
+				
+				if (finished) {
+					
+					finishedCount[length]++;
+					
+					if (finishedCount[length] > fleetCount[length]) {
+						return -1;
+					}
+				}
+			}
+		}
+		
+		return 0;
+	}
+	
+	/**
+	 * Close off runs of SHIP that are as long as the longest piece still to
+	 * be found. Uses the finishedCount from the last checkFleet.
+	 * 
+	 * @param cells Location values to update
+	 * @return Number of locations set
+	 */
+	private int closeRuns(byte[] cells) {
+		
+		int longestOpen = 0;
+		
+		for (int length = maxLength; length > 0; length--) {
+			
+			if (finishedCount[length] < fleetCount[length]) {
+				longestOpen = length;
+				break;
+			}
+		}
+		
+		int setCount = 0;
+		
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				
+				if (!isShip(cells, x, y) || isShip(cells, x - 1, y) ||
+						isShip(cells, x, y - 1)) {
+					continue;
+				}
+				
+				int horizontalLength = runLength(cells, x, y, 1, 0);
+				int verticalLength = runLength(cells, x, y, 0, 1);
+				
+				if (horizontalLength > 1) {
+					
+					if (horizontalLength >= longestOpen) {
+						setCount += setWater(cells, x - 1, y);
+						setCount += setWater(cells, x + horizontalLength, y);
+					}
+					
+				} else if (verticalLength > 1) {
+					
+					if (verticalLength >= longestOpen) {
+						setCount += setWater(cells, x, y - 1);
+						setCount += setWater(cells, x, y + verticalLength);
+					}
+					
+				} else if (longestOpen <= 1) {
+					
+					setCount += setWater(cells, x - 1, y);
+					setCount += setWater(cells, x + 1, y);
+					setCount += setWater(cells, x, y - 1);
+					setCount += setWater(cells, x, y + 1);
+				}
+			}
+		}
+		
+		deductionCount += setCount;
+		
+		return setCount;
+	}
+	
+	/**
+	 * Set every UNKNOWN location that no piece still to be found can cover to
+	 * WATER. A piece can cover a placement if none of its locations are WATER,
+	 * no SHIP touches it end on or side on, and the legends of its rows and 
+	 * columns have room for its UNKNOWN locations. Uses the finishedCount 
+	 * from the last checkFleet.
+	 * 
+	 * @param cells Location values to update
+	 * @return -1 if a SHIP can not be covered, otherwise the number of 
+	 * locations set
+	 */
+	private int propagateFits(byte[] cells) {
+		
+		for (int y = 0; y < height; y++) {
+			rowShipCount[y] = 0;
+		}
+		
+		for (int x = 0; x < width; x++) {
+			
+			columnShipCount[x] = 0;
+			
+			for (int y = 0; y < height; y++) {
+				
+				if (cells[x * height + y] == Puzzle.SHIP) {
+					rowShipCount[y]++;
+					columnShipCount[x]++;
+				}
+			}
+		}
+		
+		// A location can be part of a horizontal piece if it is not WATER, 
+		// its column has room for it and nothing touches it from above or 
+		// below. The same goes for vertical pieces turned on their side.
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				
+				int i = x * height + y;
+				
+				coverable[i] = false;
+				
+				if (cells[i] == Puzzle.WATER) {
+					
+					horizontalFree[i] = false;
+					verticalFree[i] = false;
+					continue;
+				}
+				
+				boolean known = cells[i] == Puzzle.SHIP;
+				
+				horizontalFree[i] = 
+					(known || columnShipCount[x] < columnCounts[x]) &&
+					!isShip(cells, x, y - 1) && 
+					!isShip(cells, x, y + 1);
+				
+				verticalFree[i] = 
+					(known || rowShipCount[y] < rowCounts[y]) &&
+					!isShip(cells, x - 1, y) && 
+					!isShip(cells, x + 1, y);
+			}
+		}
+		
+		for (int length = 1; length <= maxLength; length++) {
+			
+			if (fleetCount[length] == 0) {
+				continue;
+			}
+			
+			// Once every piece of a length is found, only the found pieces
+			// cover anything.
+			int unknownLimit = length;
+			
+			if (finishedCount[length] >= fleetCount[length]) {
+				unknownLimit = 0;
+			}
+			
+			for (int y = 0; y < height; y++) {
+				
+				coverLine(
+						cells, 
+						horizontalFree, 
+						y, 
+						height, 
+						width, 
+						rowCounts[y] - rowShipCount[y], 
+						length, 
+						unknownLimit);
+			}
+			
+			// A piece of length 1 has already been tried in every row.
+			if (length == 1) {
+				continue;
+			}
+			
+			for (int x = 0; x < width; x++) {
+				
+				coverLine(
+						cells, 
+						verticalFree, 
+						x * height, 
+						1, 
+						height, 
+						columnCounts[x] - columnShipCount[x], 
+						length, 
+						unknownLimit);
+			}
+		}
+		
+		int setCount = 0;
+		
+		for (int i = 0; i < cells.length; i++) {
+			
+			if (coverable[i]) {
+				continue;
+			}
+			
+			if (cells[i] == Puzzle.SHIP) {
+				return -1;
+			} else if (cells[i] == Puzzle.UNKNOWN) {
+				setCell(cells, i, Puzzle.WATER);
+				setCount++;
+			}
+		}
+		
+		deductionCount += setCount;
+		
+		return setCount;
+	}
+	
+	/**
+	 * Slide a piece along a row or column, marking the locations of every 
+	 * placement it fits as coverable.
+	 * 
+	 * @param cells Location values
+	 * @param free Locations that can be part of a piece along the line
+	 * @param start Index of the first location of the line
+	 * @param stride Distance between indexes of neighbouring locations
+	 * @param lineLength Number of locations in the line
+	 * @param room Number of UNKNOWN locations the legend of the line allows
+	 * to become SHIP
+	 * @param length Length of the piece
+	 * @param unknownLimit Most UNKNOWN locations the piece may cover
+	 */
+	private void coverLine(
+			byte[] cells, 
+			boolean[] free, 
+			int start, 
+			int stride, 
+			int lineLength, 
+			int room, 
+			int length, 
+			int unknownLimit) {
+		
+		int freeRun = 0;
+		int unknownCount = 0;
+		
+		for (int k = 0; k < lineLength; k++) {
+			
+			int i = start + k * stride;
+			
+			freeRun = free[i] ? freeRun + 1 : 0;
+			
+			if (cells[i] == Puzzle.UNKNOWN) {
+				unknownCount++;
+			}
+			
+			if (k >= length && 
+					cells[i - length * stride] == Puzzle.UNKNOWN) {
+				unknownCount--;
+			}
+			
+			if (freeRun < length || 
+					unknownCount > unknownLimit || 
+					unknownCount > room) {
+				continue;
+			}
+			
+			// The piece must not run on into another SHIP.
+			int head = i - (length - 1) * stride;
+			
+			if ((k >= length && cells[head - stride] == Puzzle.SHIP) || 
+					(k < lineLength - 1 && cells[i + stride] == Puzzle.SHIP)) {
+				continue;
+			}
+			
+			for (int l = head; l <= i; l += stride) {
+				coverable[l] = true;
+			}
+		}
+	}
+	
+	/**
+	 * Check if every piece of the fleet has been found. Uses the
+	 * finishedCount from the last checkFleet.
+	 * 
+	 * @return True if the finished pieces match the fleet exactly
+	 */
+	private boolean isFleetComplete() {
+		
+		for (int length = 1; length <= maxLength; length++) {
+			
+			if (finishedCount[length] != fleetCount[length]) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Choose the location to guess, the first UNKNOWN location in the row
+	 * with the fewest UNKNOWN locations.
+	 * 
+	 * @param cells Location values
+	 * @return Index of the location, or -1 if none are UNKNOWN
+	 */
+	private int chooseGuess(byte[] cells) {
+		
+		// Growing a piece already started decides the most.
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				
+				if (cells[x * height + y] == Puzzle.UNKNOWN &&
+						(isShip(cells, x - 1, y) || isShip(cells, x + 1, y) ||
+						isShip(cells, x, y - 1) || isShip(cells, x, y + 1))) {
+					return x * height + y;
+				}
+			}
+		}
+		
+		int bestRow = -1;
+		int bestUnknownCount = Integer.MAX_VALUE;
+		
+		for (int y = 0; y < height; y++) {
+			
+			int unknownCount = 0;
+			
+			for (int i = y; i < cells.length; i += height) {
+				
+				if (cells[i] == Puzzle.UNKNOWN) {
+					unknownCount++;
+				}
+			}
+			
+			if (unknownCount > 0 && unknownCount < bestUnknownCount) {
+				bestRow = y;
+				bestUnknownCount = unknownCount;
+			}
+		}
+		
+		if (bestRow < 0) {
+			return -1;
+		}
+		
+		for (int i = bestRow; i < cells.length; i += height) {
+			
+			if (cells[i] == Puzzle.UNKNOWN) {
+				return i;
+			}
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Count the SHIP locations in a line starting at a location.
+	 * 
+	 * @param cells Location values
+	 * @param x Column of the first location
+	 * @param y Row of the first location
+	 * @param dx Column step
+	 * @param dy Row step
+	 * @return Number of SHIP locations in a row
+	 */
+	private int runLength(byte[] cells, int x, int y, int dx, int dy) {
+		
+		int length = 0;
+		
+		while (isShip(cells, x, y)) {
+			length++;
+			x += dx;
+			y += dy;
+		}
+		
+		return length;
+	}
+	
+	/**
+	 * Check if a location holds SHIP. Locations off the board do not.
+	 * 
+	 * @param cells Location values
+	 * @param x Column
+	 * @param y Row
+	 * @return True if the location is on the board and holds SHIP
+	 */
+	private boolean isShip(byte[] cells, int x, int y) {
+		
+		return x >= 0 && x < width && y >= 0 && y < height &&
+			cells[x * height + y] == Puzzle.SHIP;
+	}
+	
+	/**
+	 * Check if a location closes off a piece, either WATER or off the board.
+	 * 
+	 * @param cells Location values
+	 * @param x Column
+	 * @param y Row
+	 * @return True if the location closes off a piece
+	 */
+	private boolean isClosed(byte[] cells, int x, int y) {
+		
+		return x < 0 || x >= width || y < 0 || y >= height ||
+			cells[x * height + y] == Puzzle.WATER;
+	}
+	
+	/**
+	 * Set a location to WATER if it is on the board and UNKNOWN.
+	 * 
+	 * @param cells Location values to update
+	 * @param x Column
+	 * @param y Row
+	 * @return 1 if the location was set, 0 otherwise
+	 */
+	private int setWater(byte[] cells, int x, int y) {
+		
+		if (x < 0 || x >= width || y < 0 || y >= height) {
+			return 0;
+		}
+		
+		int index = x * height + y;
+		
+		if (cells[index] != Puzzle.UNKNOWN) {
+			return 0;
+		}
+		
+		setCell(cells, index, Puzzle.WATER);
+		
+		return 1;
+	}
+	
+	/**
+	 * Work out an UNKNOWN location, keeping the hash of the locations up to
+	 * date.
+	 * 
+	 * @param cells Location values to update
+	 * @param index Index of the location
+	 * @param value SHIP or WATER
+	 */
+	private void setCell(byte[] cells, int index, byte value) {
+		
+		cells[index] = value;
+		cellsKey ^= ZobristKeys.getCellKey(index, value);
+	}
+	
+	/**
+	 * Get the location values for a search depth, creating them the first
+	 * time the depth is reached.
+	 * 
+	 * @param depth Search depth
+	 * @return Location values for the depth
+	 */
+	private byte[] getDepthCells(int depth) {
+		
+		while (depthCells.size() <= depth) {
+			depthCells.add(new byte[width * height]);
+		}
+		
+		return depthCells.get(depth);
+	}
+}
@@ -0,0 +1,869 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.board.solver;
+
+//External Imports
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+//Internal Imports
+import com.asbtechnologies.android.tiluxe.board.BatchBoardGenerator;
+import com.asbtechnologies.android.tiluxe.board.BoardPiece;
+import com.asbtechnologies.android.tiluxe.board.BoardPieceState;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoard;
+import com.asbtechnologies.android.tiluxe.board.FleetPlacer;
+
+/**
+ * Estimates the chance that each location of a board is part of a target
+ * piece, given the legends, the tiles given away and the player's marks.
+ * The chance is the share of the fleets matching all of these that cover
+ * the location.
+ * 
+ * The fleets are sampled by FleetPlacer, so they follow the same rules as
+ * generated boards: pieces of the fleet's lengths, across or down, that do
+ * not touch. First the solver's rules settle every location they can from
+ * the marks. This changes nothing about which fleets match, but most
+ * samples then match instead of few. Each worker thread samples with its
+ * own placer and adds its counts in batches, so the map refreshes as it
+ * goes and the sampling scales with the number of cores.
+ * 
+ * Sampling stops once the map is within the tolerance asked for, at about
+ * 95% confidence, or after the most samples asked for. The bound is worked
+ * out from the effective number of samples, since sampled fleets carry
+ * different weights. A board with one solution settles to 0 and 1 once its
+ * solution is the only fleet sampled.
+ * 
+ * The board is read on the thread calling start, so a map can follow a
+ * game by being started again after each move. Results can be read on any
+ * thread while the workers run.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class ShipProbabilityMap {
+	
+	/** Tolerance used by the constructor defaults and the game. */
+	public static final float DEFAULT_TOLERANCE = 0.02f;
+	
+	/** Fewest effective samples before the map can be within tolerance. */
+	static final int MIN_EFFECTIVE_SAMPLES = 100;
+	
+	/** Number of fleets a worker samples between adding in its counts. */
+	private static final int BATCH_SIZE = 256;
+	
+	/** Standard errors in the tolerance bound, about 95% confidence. */
+	private static final double CONFIDENCE_SCALE = 2.0;
+	
+	/** Number of threads to sample on. */
+	private int parallelism;
+	
+	/** Seeds the workers of each run. */
+	private Random seedSource;
+	
+	/** Run of the last call to start, null before the first. */
+	private volatile Sampling sampling;
+	
+	/** Runs the workers of the last run. */
+	private ExecutorService executor;
+	
+	/**
+	 * Default constructor. Samples on one thread per core.
+	 */
+	public ShipProbabilityMap() {
+		
+		this(Runtime.getRuntime().availableProcessors(), new Random());
+	}
+	
+	/**
+	 * Create a map sampling on a number of threads. With one thread and a
+	 * seeded random number stream the map is the same each time.
+	 * 
+	 * @param parallelism Number of threads to sample on
+	 * @param seedSource Seeds the workers of each run
+	 * @throws IllegalArgumentException if parallelism is less than 1
+	 */
+	public ShipProbabilityMap(int parallelism, Random seedSource) {
+		
+		if (parallelism < 1) {
+			throw new IllegalArgumentException(
+					"Parallelism must be at least 1: " + parallelism);
+		}
+		
+		this.parallelism = parallelism;
+		this.seedSource = seedSource;
+	}
+	
+	//--------------------------------------------------------------------------
+	// Public methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Start sampling a board in the background, stopping any earlier run.
+	 * The board is read before this returns and can be played on straight
+	 * away.
+	 * 
+	 * @param board Board to map
+	 * @param tolerance Largest error wanted in any location's chance
+	 * @param maxSamples Most fleets to sample
+	 * @throws IllegalArgumentException if the board is too large for the
+	 * FleetPlacer
+	 */
+	public synchronized void start(
+			DefaultBoard board,
+			float tolerance,
+			long maxSamples) {
+		
+		stop();
+		
+		Sampling nextSampling =
+			new Sampling(board, tolerance, maxSamples, parallelism);
+		
+		sampling = nextSampling;
+		
+		if (nextSampling.isFinished()) {
+			return;
+		}
+		
+		long runSeed = seedSource.nextLong();
+		
+		executor = Executors.newFixedThreadPool(
+				parallelism, new ThreadFactory() {
+					
+					/* (non-Javadoc)
+					 * @see java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+					 */
+					@Override
+					public Thread newThread(Runnable runnable) {
+						
+						Thread thread = new Thread(runnable, "ShipProbability");
+						
+						// Never hold up the game or keep the process alive.
+						thread.setDaemon(true);
+						thread.setPriority(Thread.MIN_PRIORITY);
+						
+						return thread;
+					}
+				});
+		
+		for (int i = 0; i < parallelism; i++) {
+			
+			executor.execute(new SampleWorker(
+					nextSampling,
+					BatchBoardGenerator.getBoardSeed(runSeed, i)));
+		}
+		
+		// The threads end once their workers see the run is finished.
+		executor.shutdown();
+	}
+	
+	/**
+	 * Stop the current run. The map keeps the counts made so far.
+	 */
+	public synchronized void stop() {
+		
+		if (sampling != null) {
+			sampling.cancel();
+		}
+		
+		if (executor != null) {
+			
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+	
+	/**
+	 * Wait for the current run to finish.
+	 * 
+	 * @param timeoutMillis Longest time to wait, in milliseconds
+	 * @return True if the run finished, false if the time ran out
+	 * @throws InterruptedException if the thread is interrupted waiting
+	 */
+	public boolean awaitFinished(long timeoutMillis)
+		throws InterruptedException {
+		
+		Sampling currentSampling = sampling;
+		
+		if (currentSampling == null) {
+			return true;
+		}
+		
+		return currentSampling.awaitFinished(timeoutMillis);
+	}
+	
+	/**
+	 * Map a board, blocking until the sampling finishes.
+	 * 
+	 * @param board Board to map
+	 * @param tolerance Largest error wanted in any location's chance
+	 * @param maxSamples Most fleets to sample
+	 * @return Chance of each location, indexed (column * height) + row
+	 * @throws IllegalArgumentException if the board is too large for the
+	 * FleetPlacer
+	 */
+	public float[] estimate(
+			DefaultBoard board,
+			float tolerance,
+			long maxSamples) {
+		
+		start(board, tolerance, maxSamples);
+		
+		try {
+			awaitFinished(Long.MAX_VALUE);
+		} catch (InterruptedException e) {
+			
+			stop();
+			Thread.currentThread().interrupt();
+		}
+		
+		return getProbabilities(null);
+	}
+	
+	/**
+	 * Get the latest chance of each location being part of a target piece.
+	 * Locations the solver's rules settle are exactly 0 or 1. Before any
+	 * matching fleet is sampled the other locations share out the targets
+	 * still to be found evenly.
+	 * 
+	 * @param probabilities Array of width * height entries to fill, or null
+	 * to create one
+	 * @return Chance of each location, indexed (column * height) + row, or
+	 * null if nothing has been started
+	 */
+	public float[] getProbabilities(float[] probabilities) {
+		
+		Sampling currentSampling = sampling;
+		
+		if (currentSampling == null) {
+			return null;
+		}
+		
+		return currentSampling.getProbabilities(probabilities);
+	}
+	
+	/**
+	 * Check if the current run has finished, by reaching the tolerance or
+	 * the most samples, by being stopped, or because the marks can not be
+	 * part of any solution.
+	 * 
+	 * @return True if finished or nothing has been started
+	 */
+	public boolean isFinished() {
+		
+		Sampling currentSampling = sampling;
+		
+		return currentSampling == null || currentSampling.isFinished();
+	}
+	
+	/**
+	 * Check if the map is within the tolerance asked for.
+	 * 
+	 * @return True if within tolerance
+	 */
+	public boolean isConverged() {
+		
+		Sampling currentSampling = sampling;
+		
+		return currentSampling != null && currentSampling.isConverged();
+	}
+	
+	/**
+	 * Check if any solution can contain the marks. A mark the solver's
+	 * rules prove wrong leaves nothing to sample, and the map shows only
+	 * the marks.
+	 * 
+	 * @return False if the marks can not be part of a solution
+	 */
+	public boolean isConsistent() {
+		
+		Sampling currentSampling = sampling;
+		
+		return currentSampling == null || currentSampling.isConsistent();
+	}
+	
+	/**
+	 * Get the bound on the error of the chance of any location, at about
+	 * 95% confidence.
+	 * 
+	 * @return Largest likely error, 1 before any matching fleet is sampled
+	 */
+	public float getErrorBound() {
+		
+		Sampling currentSampling = sampling;
+		
+		return currentSampling == null ? 1.0f : currentSampling.getErrorBound();
+	}
+	
+	/**
+	 * Get the number of fleets sampled in the current run, including those
+	 * that did not match.
+	 * 
+	 * @return Number of samples
+	 */
+	public long getSampleCount() {
+		
+		Sampling currentSampling = sampling;
+		
+		return currentSampling == null ? 0 : currentSampling.getSampleCount();
+	}
+	
+	/**
+	 * Get the number of sampled fleets that matched the board.
+	 * 
+	 * @return Number of matching samples
+	 */
+	public long getMatchCount() {
+		
+		Sampling currentSampling = sampling;
+		
+		return currentSampling == null ? 0 : currentSampling.getMatchCount();
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private classes
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * What is known about the board of one run, and the counts of its
+	 * samples. Counts are added in and read under the lock of the Sampling.
+	 */
+	private static class Sampling {
+		
+		/** Width of the board. */
+		private int width;
+		
+		/** Height of the board. */
+		private int height;
+		
+		/** Lengths of the target pieces. */
+		private int[] fleetLengths;
+		
+		/** Number of target locations in each row. */
+		private int[] rowCounts;
+		
+		/** Number of target locations in each column. */
+		private int[] columnCounts;
+		
+		/** Known target locations of each row, bit x set for column x. */
+		private long[] shipRows;
+		
+		/** Known clear locations of each row, bit x set for column x. */
+		private long[] waterRows;
+		
+		/** Largest error wanted in any location's chance. */
+		private float tolerance;
+		
+		/** Most fleets to sample. */
+		private long maxSamples;
+		
+		/** Summed weight of the matching fleets covering each location. */
+		private double[] shipWeights;
+		
+		/** Summed weight of the matching fleets. */
+		private double weightSum;
+		
+		/** Summed square of the weight of the matching fleets. */
+		private double weightSquareSum;
+		
+		/** Number of fleets sampled. */
+		private long sampleCount;
+		
+		/** Number of fleets sampled that matched. */
+		private long matchCount;
+		
+		/** Latest chance of each location. */
+		private float[] probabilities;
+		
+		/** Largest likely error of the latest chances. */
+		private float errorBound;
+		
+		/** True once the latest chances are within tolerance. */
+		private boolean converged;
+		
+		/** False if the marks can not be part of a solution. */
+		private boolean consistent;
+		
+		/** True once sampling has finished for any reason. */
+		private volatile boolean finished;
+		
+		/** Number of workers still running. */
+		private int workerCount;
+		
+		/**
+		 * Read the board and settle what the solver's rules can.
+		 * 
+		 * @param board Board to map
+		 * @param tolerance Largest error wanted in any location's chance
+		 * @param maxSamples Most fleets to sample
+		 * @param workerCount Number of workers that will sample
+		 */
+		Sampling(
+				DefaultBoard board,
+				float tolerance,
+				long maxSamples,
+				int workerCount) {
+			
+			this.width = board.getWidth();
+			this.height = board.getHeight();
+			this.tolerance = tolerance;
+			this.maxSamples = maxSamples;
+			this.workerCount = workerCount;
+			
+			if (width > FleetPlacer.MAX_DIMENSION ||
+					height > FleetPlacer.MAX_DIMENSION) {
+				
+				throw new IllegalArgumentException(
+						"Board size " + width + "x" + height +
+						" is too large to map.");
+			}
+			
+			Puzzle puzzle = Puzzle.fromBoard(board);
+			int cellCount = width * height;
+			byte[] cells = new byte[cellCount];
+			
+			puzzle.copyCells(cells);
+			
+			fleetLengths = new int[puzzle.getFleetSize()];
+			rowCounts = new int[height];
+			columnCounts = new int[width];
+			
+			for (int i = 0; i < fleetLengths.length; i++) {
+				fleetLengths[i] = puzzle.getFleetLength(i);
+			}
+			
+			for (int y = 0; y < height; y++) {
+				rowCounts[y] = puzzle.getRowCount(y);
+			}
+			
+			for (int x = 0; x < width; x++) {
+				columnCounts[x] = puzzle.getColumnCount(x);
+			}
+			
+			for (int i = 0; i < cellCount; i++) {
+				
+				int state = board.getCurrentState(i / height, i % height);
+				
+				if (cells[i] != Puzzle.UNKNOWN) {
+					continue;
+				} else if (state == BoardPieceState.STATE_ALIVE) {
+					cells[i] = Puzzle.SHIP;
+				} else if (state == BoardPieceState.STATE_DEAD) {
+					cells[i] = Puzzle.WATER;
+				}
+			}
+			
+			shipWeights = new double[cellCount];
+			probabilities = new float[cellCount];
+			errorBound = 1.0f;
+			consistent = settle(puzzle, cells);
+			
+			shipRows = new long[height];
+			waterRows = new long[height];
+			
+			int shipCount = 0;
+			int unknownCount = 0;
+			
+			for (int i = 0; i < cellCount; i++) {
+				
+				long bit = 1L << (i / height);
+				
+				if (cells[i] == Puzzle.SHIP) {
+					
+					shipRows[i % height] |= bit;
+					probabilities[i] = 1.0f;
+					shipCount++;
+					
+				} else if (cells[i] == Puzzle.WATER) {
+					waterRows[i % height] |= bit;
+				} else {
+					unknownCount++;
+				}
+			}
+			
+			int fleetTotal = 0;
+			
+			for (int i = 0; i < fleetLengths.length; i++) {
+				fleetTotal += fleetLengths[i];
+			}
+			
+			// Share the targets still to be found out evenly until the
+			// first matching fleet is sampled.
+			if (consistent && unknownCount > 0) {
+				
+				float share = (float) (fleetTotal - shipCount) / unknownCount;
+				
+				for (int i = 0; i < cellCount; i++) {
+					
+					if (cells[i] == Puzzle.UNKNOWN) {
+						probabilities[i] = share;
+					}
+				}
+			}
+			
+			finished = !consistent;
+		}
+		
+		/**
+		 * Apply the solver's rules until none settles any more locations.
+		 * 
+		 * @param puzzle Puzzle the locations are for
+		 * @param cells Location values to update
+		 * @return False if the rules found a contradiction
+		 */
+		private static boolean settle(Puzzle puzzle, byte[] cells) {
+			
+			PuzzleSolver solver = new PuzzleSolver();
+			solver.prepare(puzzle);
+			
+			while (true) {
+				
+				int rule = solver.applyCheapestRule(cells);
+				
+				if (rule == PuzzleSolver.NO_RULE) {
+					return true;
+				} else if (rule == PuzzleSolver.CONTRADICTION_RULE) {
+					return false;
+				}
+			}
+		}
+		
+		/**
+		 * Set up a placer to sample fleets matching the board.
+		 * 
+		 * @param placer Placer to set up
+		 * @return False if the fleet can not fit on the board
+		 */
+		boolean setUpPlacer(FleetPlacer placer) {
+			
+			return placer.setUpSampling(
+					fleetLengths, rowCounts, columnCounts, shipRows, waterRows);
+		}
+		
+		/**
+		 * Add in the counts of a batch of samples and refresh the chances.
+		 * 
+		 * @param batchWeights Summed weight of the batch's matching fleets
+		 * covering each location, cleared after adding
+		 * @param batchWeightSum Summed weight of the batch's matching fleets
+		 * @param batchWeightSquareSum Summed square of those weights
+		 * @param batchSamples Number of fleets sampled in the batch
+		 * @param batchMatches Number of those that matched
+		 */
+		synchronized void addBatch(
+				double[] batchWeights,
+				double batchWeightSum,
+				double batchWeightSquareSum,
+				int batchSamples,
+				int batchMatches) {
+			
+			if (finished) {
+				return;
+			}
+			
+			sampleCount += batchSamples;
+			matchCount += batchMatches;
+			
+			if (batchMatches > 0) {
+				
+				weightSum += batchWeightSum;
+				weightSquareSum += batchWeightSquareSum;
+				
+				double maxVariance = 0.0;
+				
+				for (int i = 0; i < shipWeights.length; i++) {
+					
+					shipWeights[i] += batchWeights[i];
+					batchWeights[i] = 0.0;
+					
+					double probability = shipWeights[i] / weightSum;
+					
+					probabilities[i] = (float) probability;
+					maxVariance = Math.max(
+							maxVariance, probability * (1.0 - probability));
+				}
+				
+				// Weighted samples count for less than as many equal ones.
+				double effectiveCount =
+					weightSum * weightSum / weightSquareSum;
+				
+				errorBound = (float) (CONFIDENCE_SCALE *
+						Math.sqrt(maxVariance / effectiveCount));
+				converged = effectiveCount >= MIN_EFFECTIVE_SAMPLES &&
+					errorBound <= tolerance;
+			}
+			
+			if (converged || sampleCount >= maxSamples) {
+				finish();
+			}
+		}
+		
+		/**
+		 * Note that a worker has stopped.
+		 * 
+		 * @param canFit False if the worker found the fleet can not fit
+		 */
+		synchronized void workerDone(boolean canFit) {
+			
+			workerCount--;
+			
+			if (!canFit) {
+				consistent = false;
+			}
+			
+			if (workerCount == 0) {
+				finish();
+			}
+		}
+		
+		/**
+		 * Stop sampling, keeping the counts made so far.
+		 */
+		synchronized void cancel() {
+			
+			finish();
+		}
+		
+		/**
+		 * Wait for sampling to finish.
+		 * 
+		 * @param timeoutMillis Longest time to wait, in milliseconds
+		 * @return True if sampling finished
+		 * @throws InterruptedException if the thread is interrupted waiting
+		 */
+		synchronized boolean awaitFinished(long timeoutMillis)
+			throws InterruptedException {
+			
+			long endTime = System.currentTimeMillis() + timeoutMillis;
+			
+			if (endTime < 0) {
+				endTime = Long.MAX_VALUE;
+			}
+			
+			while (!finished) {
+				
+				long waitTime = endTime - System.currentTimeMillis();
+				
+				if (waitTime <= 0) {
+					return false;
+				}
+				
+				wait(waitTime);
+			}
+			
+			return true;
+		}
+		
+		/**
+		 * Copy out the latest chances.
+		 * 
+		 * @param target Array to fill, or null to create one
+		 * @return Chance of each location
+		 */
+		synchronized float[] getProbabilities(float[] target) {
+			
+			if (target == null) {
+				target = new float[probabilities.length];
+			}
+			
+			System.arraycopy(probabilities, 0, target, 0, probabilities.length);
+			
+			return target;
+		}
+		
+		/**
+		 * Get the width of the board.
+		 * 
+		 * @return Number of columns
+		 */
+		int getWidth() {
+			
+			return width;
+		}
+		
+		/**
+		 * Get the height of the board.
+		 * 
+		 * @return Number of rows
+		 */
+		int getHeight() {
+			
+			return height;
+		}
+		
+		/**
+		 * Get the lengths of the target pieces.
+		 * 
+		 * @return Lengths, not to be changed
+		 */
+		int[] getFleetLengths() {
+			
+			return fleetLengths;
+		}
+		
+		/**
+		 * Check if sampling has finished.
+		 * 
+		 * @return True if finished
+		 */
+		boolean isFinished() {
+			
+			return finished;
+		}
+		
+		/**
+		 * Check if the chances are within tolerance.
+		 * 
+		 * @return True if within tolerance
+		 */
+		synchronized boolean isConverged() {
+			
+			return converged;
+		}
+		
+		/**
+		 * Check if any solution can contain the marks.
+		 * 
+		 * @return False if the marks can not be part of a solution
+		 */
+		synchronized boolean isConsistent() {
+			
+			return consistent;
+		}
+		
+		/**
+		 * Get the largest likely error of the chances.
+		 * 
+		 * @return Error bound
+		 */
+		synchronized float getErrorBound() {
+			
+			return errorBound;
+		}
+		
+		/**
+		 * Get the number of fleets sampled.
+		 * 
+		 * @return Number of samples
+		 */
+		synchronized long getSampleCount() {
+			
+			return sampleCount;
+		}
+		
+		/**
+		 * Get the number of fleets sampled that matched.
+		 * 
+		 * @return Number of matching samples
+		 */
+		synchronized long getMatchCount() {
+			
+			return matchCount;
+		}
+		
+		/**
+		 * Mark sampling finished and wake anyone waiting. Call holding the
+		 * lock.
+		 */
+		private void finish() {
+			
+			finished = true;
+			notifyAll();
+		}
+	}
+	
+	/**
+	 * Samples fleets for a run on one thread until the run finishes.
+	 */
+	private static class SampleWorker implements Runnable {
+		
+		/** Run to sample for. */
+		private Sampling sampling;
+		
+		/** Seed of the worker's random number stream. */
+		private long seed;
+		
+		/**
+		 * Default constructor.
+		 * 
+		 * @param sampling Run to sample for
+		 * @param seed Seed of the worker's random number stream
+		 */
+		SampleWorker(Sampling sampling, long seed) {
+			
+			this.sampling = sampling;
+			this.seed = seed;
+		}
+		
+		/* (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+			
+			int height = sampling.getHeight();
+			int[] fleetLengths = sampling.getFleetLengths();
+			FleetPlacer placer = new FleetPlacer(sampling.getWidth(), height);
+			
+			if (!sampling.setUpPlacer(placer)) {
+				
+				sampling.workerDone(false);
+				return;
+			}
+			
+			Random random = new Random(seed);
+			double[] batchWeights =
+				new double[sampling.getWidth() * height];
+			
+			while (!sampling.isFinished() &&
+					!Thread.currentThread().isInterrupted()) {
+				
+				double batchWeightSum = 0.0;
+				double batchWeightSquareSum = 0.0;
+				int batchMatches = 0;
+				
+				for (int sample = 0; sample < BATCH_SIZE; sample++) {
+					
+					double weight = placer.sampleFleet(random);
+					
+					if (weight == 0.0) {
+						continue;
+					}
+					
+					batchWeightSum += weight;
+					batchWeightSquareSum += weight * weight;
+					batchMatches++;
+					
+					for (int i = 0; i < fleetLengths.length; i++) {
+						
+						int cellIndex =
+							placer.getX(i) * height + placer.getY(i);
+						int step = placer.getOrientation(i) ==
+							BoardPiece.HORIZONTAL_ORIENTATION ? height : 1;
+						
+						for (int l = 0; l < fleetLengths[i]; l++) {
+							batchWeights[cellIndex + l * step] += weight;
+						}
+					}
+				}
+				
+				sampling.addBatch(
+						batchWeights,
+						batchWeightSum,
+						batchWeightSquareSum,
+						BATCH_SIZE,
+						batchMatches);
+			}
+			
+			sampling.workerDone(true);
+		}
+	}
+}
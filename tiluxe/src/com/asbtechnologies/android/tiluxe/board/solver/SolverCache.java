@@ -0,0 +1,676 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.board.solver;
+
+//External Imports
+
+//Internal Imports
+import com.asbtechnologies.android.tiluxe.util.SplitMix64;
+
+/**
+ * Keeps the results of puzzles solved before, so a puzzle met again is not
+ * solved again. Puzzles are looked up by a 64-bit hash of their legends,
+ * pieces and known locations, see hashPuzzle. Two different puzzles with
+ * the same hash would share a result, which with 64 bits is not expected
+ * to happen in the life of the game.
+ * 
+ * Entries are kept in arrays of primitives sized when the cache is
+ * created, with each solution packed one bit per location. The cache never
+ * grows past the memory budget it is given. When it is full the least
+ * recently used entry is dropped. Lookups are a probe of an open
+ * addressed table, with no objects made except for the result handed out.
+ * 
+ * Hits, misses and dropped entries are counted so the size of the budget
+ * can be judged. Safe to share between threads.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class SolverCache {
+	
+	/** Number of counts kept for each entry, see the COUNT_ offsets. */
+	private static final int COUNT_FIELDS = 6;
+	
+	/** Offset of the number of deductions in an entry's counts. */
+	private static final int COUNT_DEDUCTIONS = 0;
+	
+	/** Offset of the number of search nodes in an entry's counts. */
+	private static final int COUNT_SEARCH_NODES = 1;
+	
+	/** Offset of the number of guesses in an entry's counts. */
+	private static final int COUNT_GUESSES = 2;
+	
+	/** Offset of the deepest level of guessing in an entry's counts. */
+	private static final int COUNT_MAX_DEPTH = 3;
+	
+	/** Offset of the number of passes of the rules in an entry's counts. */
+	private static final int COUNT_ROUNDS = 4;
+	
+	/** Offset of the number of fit rule passes in an entry's counts. */
+	private static final int COUNT_FIT_ROUNDS = 5;
+	
+	/**
+	 * Bytes used by each entry besides its solutions: the key, the two
+	 * links of the recently used list, two slots of the lookup table, the
+	 * status, the height, the number of locations, the counts and the time
+	 * taken.
+	 */
+	private static final int ENTRY_BYTES =
+		8 + 4 + 4 + 2 * 4 + 1 + 4 + 4 + COUNT_FIELDS * 4 + 8;
+	
+	/** Marks the end of the recently used list. */
+	private static final int NO_ENTRY = -1;
+	
+	/** Largest number of locations of a board that can be kept. */
+	private int maxCellCount;
+	
+	/** Number of longs each solution is packed into. */
+	private int solutionWords;
+	
+	/** Largest number of entries kept. */
+	private int capacity;
+	
+	/** Number of entries kept. */
+	private int size;
+	
+	/** Key of each entry. */
+	private long[] keys;
+	
+	/** SolverResult status of each entry. */
+	private byte[] statuses;
+	
+	/** Height of the board of each entry. */
+	private int[] heights;
+	
+	/** Number of locations in the solutions of each entry, 0 if none. */
+	private int[] cellCounts;
+	
+	/** COUNT_FIELDS counts of each entry, one after another. */
+	private int[] counts;
+	
+	/** Time taken to solve each entry, in nanoseconds. */
+	private long[] elapsedNanos;
+	
+	/**
+	 * Solutions of each entry, one bit set for each SHIP location. The
+	 * first solution is followed by the other solution of an AMBIGUOUS
+	 * puzzle.
+	 */
+	private long[] solutions;
+	
+	/** Next more recently used entry of each entry. */
+	private int[] newer;
+	
+	/** Next less recently used entry of each entry. */
+	private int[] older;
+	
+	/** Most recently used entry. */
+	private int newest;
+	
+	/** Least recently used entry, dropped first. */
+	private int oldest;
+	
+	/** Open addressed lookup table, entry index plus 1 or 0 if empty. */
+	private int[] table;
+	
+	/** Table length minus 1, the table length is a power of two. */
+	private int tableMask;
+	
+	/** Number of lookups that found a result. */
+	private long hitCount;
+	
+	/** Number of lookups that found nothing. */
+	private long missCount;
+	
+	/** Number of entries dropped to make room. */
+	private long evictionCount;
+	
+	/**
+	 * Create a cache that keeps within a memory budget.
+	 * 
+	 * @param memoryBudget Most bytes the entries can use
+	 * @param maxCellCount Largest number of locations of a board to keep,
+	 * results of larger boards are not kept
+	 * @throws IllegalArgumentException if the budget can not hold one entry
+	 */
+	public SolverCache(int memoryBudget, int maxCellCount) {
+		
+		this.maxCellCount = maxCellCount;
+		
+		solutionWords = (maxCellCount + 63) / 64;
+		capacity = memoryBudget / getEntryBytes(maxCellCount);
+		
+		if (capacity < 1) {
+			throw new IllegalArgumentException(
+					"A budget of " + memoryBudget + " bytes can not hold " +
+					"a result for " + maxCellCount + " locations.");
+		}
+		
+		int tableLength = Integer.highestOneBit(capacity * 2) * 2;
+		
+		keys = new long[capacity];
+		statuses = new byte[capacity];
+		heights = new int[capacity];
+		cellCounts = new int[capacity];
+		counts = new int[capacity * COUNT_FIELDS];
+		elapsedNanos = new long[capacity];
+		solutions = new long[capacity * solutionWords * 2];
+		newer = new int[capacity];
+		older = new int[capacity];
+		table = new int[tableLength];
+		tableMask = tableLength - 1;
+		
+		clear();
+	}
+	
+	//--------------------------------------------------------------------------
+	// Public methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Get the number of bytes an entry uses.
+	 * 
+	 * @param maxCellCount Largest number of locations of a board to keep
+	 * @return Bytes used by each entry of a cache
+	 */
+	public static int getEntryBytes(int maxCellCount) {
+		
+		return ENTRY_BYTES + ((maxCellCount + 63) / 64) * 2 * 8;
+	}
+	
+	/**
+	 * Hash a puzzle for looking up its result. Puzzles with the same size,
+	 * legends, known locations and piece lengths hash the same, whatever
+	 * the order the pieces are listed in.
+	 * 
+	 * @param puzzle Puzzle to hash
+	 * @return 64-bit hash of the puzzle
+	 */
+	public static long hashPuzzle(Puzzle puzzle) {
+		
+		int width = puzzle.getWidth();
+		int height = puzzle.getHeight();
+		long hash = hashClues(puzzle);
+		
+		// Two bits for each location, 32 locations to a word.
+		long word = 0;
+		int bitCount = 0;
+		
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				
+				word |= (long) puzzle.getCell(x, y) << bitCount;
+				bitCount += 2;
+				
+				if (bitCount == 64) {
+					
+					hash = SplitMix64.mix(hash ^ word);
+					word = 0;
+					bitCount = 0;
+				}
+			}
+		}
+		
+		return SplitMix64.mix(hash ^ word);
+	}
+	
+	/**
+	 * Hash the clues of a puzzle, its size, legends and piece lengths, 
+	 * leaving out the known locations. Puzzles with the same clues hash the
+	 * same, whatever the order the pieces are listed in.
+	 * 
+	 * @param puzzle Puzzle to hash
+	 * @return 64-bit hash of the clues
+	 */
+	public static long hashClues(Puzzle puzzle) {
+		
+		int width = puzzle.getWidth();
+		int height = puzzle.getHeight();
+		long hash = SplitMix64.mix(width * 0x10000L + height);
+		
+		for (int y = 0; y < height; y++) {
+			hash = SplitMix64.mix(hash + puzzle.getRowCount(y));
+		}
+		
+		for (int x = 0; x < width; x++) {
+			hash = SplitMix64.mix(hash + puzzle.getColumnCount(x));
+		}
+		
+		// Summing the mixed lengths makes their order not matter.
+		long fleetHash = 0;
+		
+		for (int i = 0; i < puzzle.getFleetSize(); i++) {
+			fleetHash += SplitMix64.mix(puzzle.getFleetLength(i));
+		}
+		
+		return SplitMix64.mix(hash ^ fleetHash);
+	}
+	
+	/**
+	 * Get the result of a puzzle, solving it only if it is not kept.
+	 * Puzzles are solved outside of the lock, so threads sharing the cache
+	 * do not wait on each other's solves.
+	 * 
+	 * @param solver Solver to solve the puzzle with on a miss
+	 * @param puzzle Puzzle to solve, not changed
+	 * @return Result of the puzzle
+	 */
+	public SolverResult solve(PuzzleSolver solver, Puzzle puzzle) {
+		
+		long key = hashPuzzle(puzzle);
+		SolverResult result = get(key);
+		
+		if (result == null) {
+			
+			result = solver.solve(puzzle);
+			put(key, result);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Look up a result, making it the most recently used.
+	 * 
+	 * @param key Hash of the puzzle, see hashPuzzle
+	 * @return Result kept for the puzzle, null if there is none
+	 */
+	public synchronized SolverResult get(long key) {
+		
+		int slot = findSlot(key);
+		
+		if (table[slot] == 0) {
+			
+			missCount++;
+			return null;
+		}
+		
+		hitCount++;
+		
+		int entry = table[slot] - 1;
+		
+		moveToNewest(entry);
+		
+		return readEntry(entry);
+	}
+	
+	/**
+	 * Keep a result, dropping the least recently used entry if the cache is
+	 * full. Results of boards with more than the largest number of
+	 * locations are not kept.
+	 * 
+	 * @param key Hash of the puzzle, see hashPuzzle
+	 * @param result Result of the puzzle
+	 */
+	public synchronized void put(long key, SolverResult result) {
+		
+		byte[] solution = result.getSolution();
+		
+		if (solution != null && solution.length > maxCellCount) {
+			return;
+		}
+		
+		int slot = findSlot(key);
+		int entry;
+		
+		if (table[slot] != 0) {
+			
+			entry = table[slot] - 1;
+			moveToNewest(entry);
+			
+		} else {
+			
+			if (size == capacity) {
+				
+				entry = oldest;
+				removeEntry(entry);
+				evictionCount++;
+				
+				// Removing shifts the table, so look again.
+				slot = findSlot(key);
+				
+			} else {
+				entry = size;
+				size++;
+			}
+			
+			keys[entry] = key;
+			table[slot] = entry + 1;
+			addNewest(entry);
+		}
+		
+		writeEntry(entry, result);
+	}
+	
+	/**
+	 * Drop every entry. The counts of hits, misses and dropped entries are
+	 * kept.
+	 */
+	public synchronized void clear() {
+		
+		for (int i = 0; i < table.length; i++) {
+			table[i] = 0;
+		}
+		
+		size = 0;
+		newest = NO_ENTRY;
+		oldest = NO_ENTRY;
+	}
+	
+	/**
+	 * Get the number of entries kept.
+	 * 
+	 * @return Number of entries
+	 */
+	public synchronized int size() {
+		
+		return size;
+	}
+	
+	/**
+	 * Get the largest number of entries the budget holds.
+	 * 
+	 * @return Number of entries
+	 */
+	public int getCapacity() {
+		
+		return capacity;
+	}
+	
+	/**
+	 * Get the number of bytes used by the entries, whether filled or not.
+	 * 
+	 * @return Bytes used
+	 */
+	public int getMemoryBytes() {
+		
+		return capacity * getEntryBytes(maxCellCount);
+	}
+	
+	/**
+	 * Get the number of lookups that found a result.
+	 * 
+	 * @return Number of hits
+	 */
+	public synchronized long getHitCount() {
+		
+		return hitCount;
+	}
+	
+	/**
+	 * Get the number of lookups that found nothing.
+	 * 
+	 * @return Number of misses
+	 */
+	public synchronized long getMissCount() {
+		
+		return missCount;
+	}
+	
+	/**
+	 * Get the number of entries dropped to make room for others.
+	 * 
+	 * @return Number of evictions
+	 */
+	public synchronized long getEvictionCount() {
+		
+		return evictionCount;
+	}
+	
+	/**
+	 * Get the share of lookups that found a result.
+	 * 
+	 * @return Hit rate from 0 to 1, 0 before any lookup
+	 */
+	public synchronized float getHitRate() {
+		
+		long lookupCount = hitCount + missCount;
+		
+		return lookupCount == 0 ? 0.0f : (float) hitCount / lookupCount;
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Get the slot of the lookup table a key is first looked for in.
+	 * 
+	 * @param key Key to look for
+	 * @return Slot
+	 */
+	private int homeSlot(long key) {
+		
+		return (int) (key ^ (key >>> 32)) & tableMask;
+	}
+	
+	/**
+	 * Find the slot of the lookup table holding a key.
+	 * 
+	 * @param key Key to look for
+	 * @return Slot holding the key, or the empty slot it would go in
+	 */
+	private int findSlot(long key) {
+		
+		int slot = homeSlot(key);
+		
+		while (table[slot] != 0 && keys[table[slot] - 1] != key) {
+			slot = (slot + 1) & tableMask;
+		}
+		
+		return slot;
+	}
+	
+	/**
+	 * Remove an entry from the lookup table and the recently used list.
+	 * Entries later in the same run of the table are shifted back, so no
+	 * lookup ever stops short at the hole.
+	 * 
+	 * @param entry Entry to remove
+	 */
+	private void removeEntry(int entry) {
+		
+		int hole = findSlot(keys[entry]);
+		int slot = hole;
+		
+		table[hole] = 0;
+		
+		while (true) {
+			
+			slot = (slot + 1) & tableMask;
+			
+			if (table[slot] == 0) {
+				break;
+			}
+			
+			int home = homeSlot(keys[table[slot] - 1]);
+			
+			// The entry can move back unless its home is after the hole, on
+			// the way round to where it is.
+			boolean stays = hole <= slot ?
+					(home > hole && home <= slot) :
+					(home > hole || home <= slot);
+			
+			if (!stays) {
+				
+				table[hole] = table[slot];
+				table[slot] = 0;
+				hole = slot;
+			}
+		}
+		
+		unlink(entry);
+	}
+	
+	/**
+	 * Make an entry the most recently used.
+	 * 
+	 * @param entry Entry already in the list
+	 */
+	private void moveToNewest(int entry) {
+		
+		if (entry != newest) {
+			
+			unlink(entry);
+			addNewest(entry);
+		}
+	}
+	
+	/**
+	 * Add an entry to the recently used list as the most recently used.
+	 * 
+	 * @param entry Entry not in the list
+	 */
+	private void addNewest(int entry) {
+		
+		newer[entry] = NO_ENTRY;
+		older[entry] = newest;
+		
+		if (newest != NO_ENTRY) {
+			newer[newest] = entry;
+		}
+		
+		newest = entry;
+		
+		if (oldest == NO_ENTRY) {
+			oldest = entry;
+		}
+	}
+	
+	/**
+	 * Take an entry out of the recently used list.
+	 * 
+	 * @param entry Entry in the list
+	 */
+	private void unlink(int entry) {
+		
+		if (newer[entry] != NO_ENTRY) {
+			older[newer[entry]] = older[entry];
+		} else {
+			newest = older[entry];
+		}
+		
+		if (older[entry] != NO_ENTRY) {
+			newer[older[entry]] = newer[entry];
+		} else {
+			oldest = newer[entry];
+		}
+	}
+	
+	/**
+	 * Store a result in an entry.
+	 * 
+	 * @param entry Entry to write
+	 * @param result Result to store
+	 */
+	private void writeEntry(int entry, SolverResult result) {
+		
+		int countBase = entry * COUNT_FIELDS;
+		byte[] solution = result.getSolution();
+		
+		statuses[entry] = (byte) result.getStatus();
+		heights[entry] = result.getHeight();
+		cellCounts[entry] = solution == null ? 0 : solution.length;
+		elapsedNanos[entry] = result.getElapsedNanos();
+		
+		counts[countBase + COUNT_DEDUCTIONS] = result.getDeductionCount();
+		counts[countBase + COUNT_SEARCH_NODES] = result.getSearchNodeCount();
+		counts[countBase + COUNT_GUESSES] = result.getGuessCount();
+		counts[countBase + COUNT_MAX_DEPTH] = result.getMaxDepth();
+		counts[countBase + COUNT_ROUNDS] = result.getRoundCount();
+		counts[countBase + COUNT_FIT_ROUNDS] = result.getFitRoundCount();
+		
+		int solutionBase = entry * solutionWords * 2;
+		
+		packSolution(solution, solutionBase);
+		packSolution(result.getOtherSolution(), solutionBase + solutionWords);
+	}
+	
+	/**
+	 * Make a result from an entry.
+	 * 
+	 * @param entry Entry to read
+	 * @return Result stored in the entry
+	 */
+	private SolverResult readEntry(int entry) {
+		
+		int countBase = entry * COUNT_FIELDS;
+		int solutionBase = entry * solutionWords * 2;
+		int status = statuses[entry];
+		byte[] solution = null;
+		byte[] otherSolution = null;
+		
+		if (status != SolverResult.CONTRADICTION) {
+			solution = unpackSolution(solutionBase, cellCounts[entry]);
+		}
+		
+		if (status == SolverResult.AMBIGUOUS) {
+			otherSolution = unpackSolution(
+					solutionBase + solutionWords, cellCounts[entry]);
+		}
+		
+		return new SolverResult(
+				status,
+				heights[entry],
+				solution,
+				otherSolution,
+				counts[countBase + COUNT_DEDUCTIONS],
+				counts[countBase + COUNT_SEARCH_NODES],
+				counts[countBase + COUNT_GUESSES],
+				counts[countBase + COUNT_MAX_DEPTH],
+				counts[countBase + COUNT_ROUNDS],
+				counts[countBase + COUNT_FIT_ROUNDS],
+				elapsedNanos[entry]);
+	}
+	
+	/**
+	 * Pack a solution one bit per location.
+	 * 
+	 * @param solution Location values, null to clear the words
+	 * @param base Index of the first word to write
+	 */
+	private void packSolution(byte[] solution, int base) {
+		
+		for (int w = 0; w < solutionWords; w++) {
+			solutions[base + w] = 0;
+		}
+		
+		if (solution == null) {
+			return;
+		}
+		
+		for (int i = 0; i < solution.length; i++) {
+			
+			if (solution[i] == Puzzle.SHIP) {
+				solutions[base + (i >> 6)] |= 1L << i;
+			}
+		}
+	}
+	
+	/**
+	 * Unpack a solution packed by packSolution.
+	 * 
+	 * @param base Index of the first word to read
+	 * @param cellCount Number of locations
+	 * @return Location values, SHIP or WATER
+	 */
+	private byte[] unpackSolution(int base, int cellCount) {
+		
+		byte[] solution = new byte[cellCount];
+		
+		for (int i = 0; i < cellCount; i++) {
+			
+			solution[i] = (solutions[base + (i >> 6)] & (1L << i)) != 0 ?
+					Puzzle.SHIP : Puzzle.WATER;
+		}
+		
+		return solution;
+	}
+}
@@ -0,0 +1,269 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.board.solver;
+
+//External Imports
+
+//Internal Imports
+
+/**
+ * Outcome of solving a puzzle, with the work it took.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class SolverResult {
+	
+	/** The puzzle has exactly one solution. */
+	public static final int SOLVED = 0;
+	
+	/** The puzzle has no solution. */
+	public static final int CONTRADICTION = 1;
+	
+	/** The puzzle has more than one solution. */
+	public static final int AMBIGUOUS = 2;
+	
+	/** SOLVED, CONTRADICTION or AMBIGUOUS. */
+	private int status;
+	
+	/** Height of the board, used to index the solution. */
+	private int height;
+	
+	/** First solution found, null if there is none. */
+	private byte[] solution;
+	
+	/** Second solution found for an AMBIGUOUS puzzle, null otherwise. */
+	private byte[] otherSolution;
+	
+	/** Number of locations worked out by propagation, including in search. */
+	private int deductionCount;
+	
+	/** Number of search nodes visited, 1 if no guess was needed. */
+	private int searchNodeCount;
+	
+	/** Number of guesses made. */
+	private int guessCount;
+	
+	/** Deepest level of guessing reached. */
+	private int maxDepth;
+	
+	/** Number of passes of the rules made, including in search. */
+	private int roundCount;
+	
+	/** Number of those passes that needed the fit rule. */
+	private int fitRoundCount;
+	
+	/** Time taken to solve, in nanoseconds. */
+	private long elapsedNanos;
+	
+	/**
+	 * Default constructor.
+	 * 
+	 * @param status SOLVED, CONTRADICTION or AMBIGUOUS
+	 * @param height Height of the board
+	 * @param solution First solution found, null if there is none
+	 * @param otherSolution Second solution found, null if there is none
+	 * @param deductionCount Number of locations worked out by propagation
+	 * @param searchNodeCount Number of search nodes visited
+	 * @param guessCount Number of guesses made
+	 * @param maxDepth Deepest level of guessing reached
+	 * @param roundCount Number of passes of the rules made
+	 * @param fitRoundCount Number of those passes that needed the fit rule
+	 * @param elapsedNanos Time taken to solve, in nanoseconds
+	 */
+	SolverResult(
+			int status,
+			int height,
+			byte[] solution,
+			byte[] otherSolution,
+			int deductionCount,
+			int searchNodeCount,
+			int guessCount,
+			int maxDepth,
+			int roundCount,
+			int fitRoundCount,
+			long elapsedNanos) {
+		
+		this.status = status;
+		this.height = height;
+		this.solution = solution;
+		this.otherSolution = otherSolution;
+		this.deductionCount = deductionCount;
+		this.searchNodeCount = searchNodeCount;
+		this.guessCount = guessCount;
+		this.maxDepth = maxDepth;
+		this.roundCount = roundCount;
+		this.fitRoundCount = fitRoundCount;
+		this.elapsedNanos = elapsedNanos;
+	}
+	
+	//--------------------------------------------------------------------------
+	// Public methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Get the outcome.
+	 * 
+	 * @return SOLVED, CONTRADICTION or AMBIGUOUS
+	 */
+	public int getStatus() {
+		
+		return status;
+	}
+	
+	/**
+	 * Check if a solution was found. For an AMBIGUOUS puzzle this is the first
+	 * of the solutions found.
+	 * 
+	 * @return True if there is a solution, false otherwise
+	 */
+	public boolean hasSolution() {
+		
+		return solution != null;
+	}
+	
+	/**
+	 * Check if a location holds part of a target piece in the solution.
+	 * 
+	 * @param xPos Column number
+	 * @param yPos Row number
+	 * @return True for a target location, false otherwise or if there is no
+	 * solution
+	 */
+	public boolean isShip(int xPos, int yPos) {
+		
+		return solution != null &&
+			solution[xPos * height + yPos] == Puzzle.SHIP;
+	}
+	
+	/**
+	 * Check if the first two solutions found for an AMBIGUOUS puzzle disagree
+	 * about a location. Revealing such a location rules out one of them.
+	 * 
+	 * @param xPos Column number
+	 * @param yPos Row number
+	 * @return True if the solutions disagree, false otherwise or if the 
+	 * puzzle is not AMBIGUOUS
+	 */
+	public boolean isAmbiguousAt(int xPos, int yPos) {
+		
+		int index = xPos * height + yPos;
+		
+		return otherSolution != null && 
+			solution[index] != otherSolution[index];
+	}
+	
+	/**
+	 * Get the number of locations worked out by propagation, including those
+	 * worked out after a guess.
+	 * 
+	 * @return Number of deductions
+	 */
+	public int getDeductionCount() {
+		
+		return deductionCount;
+	}
+	
+	/**
+	 * Get the number of search nodes visited. A puzzle solved by propagation
+	 * alone visits 1.
+	 * 
+	 * @return Number of search nodes
+	 */
+	public int getSearchNodeCount() {
+		
+		return searchNodeCount;
+	}
+	
+	/**
+	 * Get the number of guesses made.
+	 * 
+	 * @return Number of guesses, 0 if propagation alone decided the puzzle
+	 */
+	public int getGuessCount() {
+		
+		return guessCount;
+	}
+	
+	/**
+	 * Get the deepest level of guessing reached.
+	 * 
+	 * @return Depth, 0 if propagation alone decided the puzzle
+	 */
+	public int getMaxDepth() {
+		
+		return maxDepth;
+	}
+	
+	/**
+	 * Get the number of passes of the rules made, including those made after
+	 * guesses.
+	 * 
+	 * @return Number of passes
+	 */
+	public int getRoundCount() {
+		
+		return roundCount;
+	}
+	
+	/**
+	 * Get the number of passes of the rules that needed the fit rule.
+	 * 
+	 * @return Number of passes
+	 */
+	public int getFitRoundCount() {
+		
+		return fitRoundCount;
+	}
+	
+	/**
+	 * Get the time taken to solve.
+	 * 
+	 * @return Time in nanoseconds
+	 */
+	public long getElapsedNanos() {
+		
+		return elapsedNanos;
+	}
+	
+	//--------------------------------------------------------------------------
+	// Package methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Get the height of the board the solutions index.
+	 * 
+	 * @return Number of rows
+	 */
+	int getHeight() {
+		
+		return height;
+}
+
+	/**
+	 * Get the first solution found.
+	 * 
+	 * @return Location values, not to be changed, null if there is none
+	 */
+	byte[] getSolution() {
+		
+		return solution;
+	}
+	
+	/**
+	 * Get the second solution found for an AMBIGUOUS puzzle.
+	 * 
+	 * @return Location values, not to be changed, null if there is none
+	 */
+	byte[] getOtherSolution() {
+		
+		return otherSolution;
+	}
+}
@@ -0,0 +1,189 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.board.solver;
+
+//External Imports
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//Internal Imports
+
+/**
+ * Keeps the sets of locations a PuzzleSolver found no solution from, by the
+ * Zobrist hash of the locations and clues, so that searches reaching them
+ * again stop at once. Only the 64-bit hash is kept, so two different sets
+ * of locations with the same hash would be taken for each other, which is
+ * not expected to happen in the life of the game.
+ * 
+ * The table is a fixed number of buckets of two slots, sized when it is
+ * created, and never grows. A new hash goes in the first slot of its
+ * bucket and moves the hash there to the second, dropping the one in the
+ * second. Lookups and stores are single reads and writes of an
+ * AtomicLongArray, so the table can be shared by solvers on any number of
+ * threads without locking. Two threads storing into one bucket at once can
+ * lose one of the hashes, which only costs a search later on.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class TranspositionTable {
+	
+	/** Number of slots in each bucket. */
+	private static final int BUCKET_SLOTS = 2;
+	
+	/** Marks a slot with no hash, hashes of 0 are kept as 1. */
+	private static final long EMPTY_SLOT = 0;
+	
+	/** Hash kept in each slot. */
+	private AtomicLongArray slots;
+	
+	/** Number of buckets less 1, the number of buckets is a power of 2. */
+	private int bucketMask;
+	
+	/**
+	 * Default constructor.
+	 * 
+	 * @param memoryBudget Most bytes the table may use
+	 * @throws IllegalArgumentException If the budget is too small for one
+	 * bucket
+	 */
+	public TranspositionTable(int memoryBudget) {
+		
+		int bucketBytes = BUCKET_SLOTS * 8;
+		
+		if (memoryBudget < bucketBytes) {
+			throw new IllegalArgumentException(
+					"Memory budget too small for one bucket: " + memoryBudget);
+		}
+		
+		int bucketCount = Integer.highestOneBit(memoryBudget / bucketBytes);
+		
+		slots = new AtomicLongArray(bucketCount * BUCKET_SLOTS);
+		bucketMask = bucketCount - 1;
+	}
+	
+	//--------------------------------------------------------------------------
+	// Public methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Check if a hash is kept in the table.
+	 * 
+	 * @param key Hash to look for
+	 * @return True if it is kept
+	 */
+	public boolean contains(long key) {
+		
+		key = toSlotValue(key);
+		
+		int slot = firstSlot(key);
+		
+		return slots.get(slot) == key || slots.get(slot + 1) == key;
+	}
+	
+	/**
+	 * Keep a hash in the table, dropping the oldest hash of its bucket if
+	 * the bucket is full.
+	 * 
+	 * @param key Hash to keep
+	 */
+	public void put(long key) {
+		
+		key = toSlotValue(key);
+		
+		int slot = firstSlot(key);
+		long first = slots.get(slot);
+		
+		if (first == key) {
+			return;
+		}
+		
+		slots.set(slot, key);
+		
+		if (first != EMPTY_SLOT) {
+			slots.set(slot + 1, first);
+		}
+	}
+	
+	/**
+	 * Drop every hash kept.
+	 */
+	public void clear() {
+		
+		for (int i = 0; i < slots.length(); i++) {
+			slots.set(i, EMPTY_SLOT);
+		}
+	}
+	
+	/**
+	 * Count the hashes kept. This goes over the whole table, so is meant for
+	 * judging the size of the table rather than for use while searching.
+	 * 
+	 * @return Number of hashes kept
+	 */
+	public int size() {
+		
+		int count = 0;
+		
+		for (int i = 0; i < slots.length(); i++) {
+			
+			if (slots.get(i) != EMPTY_SLOT) {
+				count++;
+			}
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Get the largest number of hashes the table can keep.
+	 * 
+	 * @return Number of slots
+	 */
+	public int getCapacity() {
+		
+		return slots.length();
+	}
+	
+	/**
+	 * Get the number of bytes used by the slots of the table.
+	 * 
+	 * @return Bytes used
+	 */
+	public int getMemoryBytes() {
+		
+		return slots.length() * 8;
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Get the value a hash is kept as, which is never EMPTY_SLOT.
+	 * 
+	 * @param key Hash
+	 * @return Value kept in a slot
+	 */
+	private long toSlotValue(long key) {
+		
+		return key == EMPTY_SLOT ? 1 : key;
+	}
+	
+	/**
+	 * Get the first slot of the bucket a hash belongs in.
+	 * 
+	 * @param key Hash
+	 * @return Index of the slot
+	 */
+	private int firstSlot(long key) {
+		
+		return ((int) (key ^ (key >>> 32)) & bucketMask) * BUCKET_SLOTS;
+	}
+}
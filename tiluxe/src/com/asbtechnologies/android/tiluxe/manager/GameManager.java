@@ -9,6 +9,10 @@
 package com.asbtechnologies.android.tiluxe.manager;
 
 // External Imports
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
@@ -21,8 +25,14 @@ import android.opengl.GLSurfaceView;
 // Internal Imports
 import com.asbtechnologies.android.tiluxe.R;
 import com.asbtechnologies.android.tiluxe.SetPreferencesActivity;
+import com.asbtechnologies.android.tiluxe.board.BoardSpec;
 import com.asbtechnologies.android.tiluxe.board.DefaultBoard;
 import com.asbtechnologies.android.tiluxe.board.DefaultBoardGenerator;
+import com.asbtechnologies.android.tiluxe.board.MoveRecorder;
+import com.asbtechnologies.android.tiluxe.board.PuzzlePack;
+import com.asbtechnologies.android.tiluxe.board.PuzzlePackBoardGenerator;
+import com.asbtechnologies.android.tiluxe.board.solver.Hint;
+import com.asbtechnologies.android.tiluxe.board.solver.HintEngine;
 import com.asbtechnologies.android.tiluxe.rendering.GameGLView;
 import com.asbtechnologies.android.tiluxe.rendering.OpenGLRendererListener;
 
@@ -39,6 +49,18 @@ import com.asbtechnologies.android.tiluxe.rendering.OpenGLRendererListener;
  */
 public class GameManager extends Thread implements OpenGLRendererListener {
 	
+	/** Name of the puzzle pack file in the application files directory. */
+	public static final String PUZZLE_PACK_FILE_NAME = "puzzles.tlxp";
+	
+	/** Name of the file the moves of the last game are recorded to. */
+	public static final String REPLAY_FILE_NAME = "last_game.tlxr";
+	
+	/** Hands out boards from the puzzle pack, null if there is no pack. */
+	private static PuzzlePackBoardGenerator packGenerator;
+	
+	/** Flag to know if the puzzle pack has been looked for. */
+	private static boolean packOpened;
+	
 	/** Listeners registered with the GameManager. */
 	private ArrayList<GameManagerListener> listeners;
 	
@@ -66,25 +88,34 @@ public class GameManager extends Thread implements OpenGLRendererListener {
 	/** Flag to know if the renderer is ready. */
 	private boolean rendererReady;
 	
-	/** Flag paused game. */
-	private boolean pause;
+	/** Waits on the board for the game to be won, paused or quit. */
+	private GameStateMonitor gameMonitor;
+	
+	/** Records the moves of the game, null if they can not be recorded. */
+	private MoveRecorder moveRecorder;
+	
+	/** Works out hints for the game, created when first asked for. */
+	private HintEngine hintEngine;
 	
 	/** Map of board size to dimensions value. */
-	private Map<String, Integer> boardSizeDimensionsTable;
+	private static Map<String, Integer> boardSizeDimensionsTable;
 	
 	/** Map of board size to piece lengths. */
-	private Map<String, int[]> boardSizePieceLengthsTable;
+	private static Map<String, int[]> boardSizePieceLengthsTable;
 	
 	/** Map of board size and difficulty to the number of free tiles. */
-	private Map<String, Map<String, Integer>> boardSizeFreeTilesTable;
+	private static Map<String, Map<String, Integer>> boardSizeFreeTilesTable;
 	
 	/** Map of board size and difficulty to the number of free targets. */
-	private Map<String, Map<String, Integer>> boardSizeFreeTargetsTable;
+	private static Map<String, Map<String, Integer>> 
+		boardSizeFreeTargetsTable;
 	
 	/**
 	 * Default constructor.
 	 * 
 	 * @param context Android context of view parent.
+	 * @throws IllegalArgumentException if the configured pieces do not fit on 
+	 * the configured board
 	 */
 	public GameManager(Context context) {
 		
@@ -97,42 +128,34 @@ public class GameManager extends Thread implements OpenGLRendererListener {
 					Context.MODE_PRIVATE);
 		
 		// Get the level of difficulty to build into the board.
-		String difficulty = preferences.getString(
-				(String) this.resources.getText(R.string.difficulty_key), 
-				(String) this.resources.getText(R.string.easy_setting));
+		String difficulty = getDifficulty(preferences, resources);
 		
 		// Get the board size.
-		String boardSize = preferences.getString(
-				(String) this.resources.getText(R.string.board_size_key), 
-				(String) this.resources.getText(R.string.six_by_six));
+		String boardSize = getBoardSize(preferences, resources);
 		
-		initializeGameOptionTables();
+		// Take the board from the pool of ready boards.
+		BoardSpec spec = getBoardSpec(resources, boardSize, difficulty);
 		
-		Integer boardDimension = boardSizeDimensionsTable.get(boardSize);
-		int[] boardPieceLengths = boardSizePieceLengthsTable.get(boardSize);
-		
-		Integer numFreeEmpty = 
-			boardSizeFreeTilesTable.get(boardSize).get(difficulty);
-
-		Integer numFreeTargets =
-			boardSizeFreeTargetsTable.get(boardSize).get(difficulty);
+		// Boards from the puzzle pack are ready straight away. The pool 
+		// covers any spec the pack does not, and only fails if the pieces 
+		// can not fit on the board.
+		board = takePackBoard(context, spec);
 		
-		// Generate the board.
-		this.boardGenerator = new DefaultBoardGenerator();
+		if (board == null) {
+			board = PuzzlePool.getInstance().take(
+					boardSize + "/" + difficulty, spec);
+		}
 		
-		while (board == null) {
-			
-			board = (DefaultBoard) 
-				boardGenerator.generateCustomBoard(
-					boardDimension.intValue(), 
-					boardDimension.intValue(), 
-					boardPieceLengths, 
-					numFreeEmpty.intValue(),
-					numFreeTargets.intValue());
+		if (board == null) {
+			throw new IllegalArgumentException(
+					"Board pieces do not fit on a " + spec.getBoardWidth() + 
+					"x" + spec.getBoardHeight() + " board.");
 		}
 		
 		board.printBoard();
 		
+		this.gameMonitor = new GameStateMonitor(board);
+		
 		this.gameView = new GameGLView(context, board);
 		this.gameView.passThroughOpenGLRendererListener(this);
 		
@@ -140,7 +163,8 @@ public class GameManager extends Thread implements OpenGLRendererListener {
 		
 		this.gameInProgress = false;
 		this.rendererReady = false;
-		this.pause = false;
+		
+		startRecording();
 	}
 	
 	/**
@@ -153,6 +177,7 @@ public class GameManager extends Thread implements OpenGLRendererListener {
 	 * @param pieceLengths Length values of the pieces to create.
 	 * @param numberOfFreeEmpty Number of free tiles to give away.
 	 * @param numberOfFreeTargets Number of target tiles to give away.
+	 * @throws IllegalArgumentException if the pieces do not fit on the board
 	 */
 	public GameManager(
 			Context context,
@@ -164,24 +189,31 @@ public class GameManager extends Thread implements OpenGLRendererListener {
 		
 		this.context = context;
 		
-		// Generate the board.
+		// Generate the board. Only boards with one solution are handed out,
+		// so any arrangement that matches the legends is the winning one.
 		this.boardGenerator = new DefaultBoardGenerator();
+		this.boardGenerator.setUniqueSolution(true);
 
 		board = null;
 		
-		while (board == null) {
-
-			board = (DefaultBoard) 
-				boardGenerator.generateCustomBoard(
-					boardWidth, 
-					boardHeight, 
-					pieceLengths, 
-					numberOfFreeEmpty,
-					numberOfFreeTargets);
+		// The generator only fails if the pieces can not fit on the board.
+		board = (DefaultBoard) boardGenerator.generateCustomBoard(
+				boardWidth, 
+				boardHeight, 
+				pieceLengths, 
+				numberOfFreeEmpty,
+				numberOfFreeTargets);
+		
+		if (board == null) {
+			throw new IllegalArgumentException(
+					"Board pieces do not fit on a " + boardWidth + "x" + 
+					boardHeight + " board.");
 		}
 
 		board.printBoard();
 		
+		this.gameMonitor = new GameStateMonitor(board);
+		
 		this.gameView = new GameGLView(context, board);
 		this.gameView.passThroughOpenGLRendererListener(this);
 		
@@ -189,7 +221,147 @@ public class GameManager extends Thread implements OpenGLRendererListener {
 		
 		this.gameInProgress = false;
 		this.rendererReady = false;
-		this.pause = false;
+		
+		startRecording();
+	}
+	
+	/**
+	 * Continue a game from a board restored from a snapshot.
+	 * 
+	 * @param context Android context of view parent.
+	 * @param board Restored board.
+	 */
+	private GameManager(Context context, DefaultBoard board) {
+		
+		this.context = context;
+		this.board = board;
+		
+		this.gameMonitor = new GameStateMonitor(board);
+		
+		this.gameView = new GameGLView(context, board);
+		this.gameView.passThroughOpenGLRendererListener(this);
+		
+		this.listeners = new ArrayList<GameManagerListener>();
+		
+		this.gameInProgress = false;
+		this.rendererReady = false;
+		
+		startRecording();
+	}
+	
+	/**
+	 * Start filling the puzzle pool for the board size and difficulty set in 
+	 * the game options, so the next new game takes a ready board instead of 
+	 * generating one.
+	 * 
+	 * @param context Android context holding the game options.
+	 */
+	public static void prefillPool(Context context) {
+		
+		Resources resources = context.getResources();
+		
+		SharedPreferences preferences = context.getSharedPreferences(
+				SetPreferencesActivity.PREFERENCE_NAME, 
+				Context.MODE_PRIVATE);
+		
+		String difficulty = getDifficulty(preferences, resources);
+		String boardSize = getBoardSize(preferences, resources);
+		
+		PuzzlePool.getInstance().prefill(
+				boardSize + "/" + difficulty, 
+				getBoardSpec(resources, boardSize, difficulty));
+	}
+	
+	/**
+	 * Continue the game saved by saveGame(). Nothing is generated, the board 
+	 * and the player's marks are read back from the snapshot file.
+	 * 
+	 * @param context Android context of view parent.
+	 * @param fileName Name of the snapshot file in the application files 
+	 * directory.
+	 * @return GameManager playing the saved game, null if there is no saved 
+	 * game or it can not be read.
+	 */
+	public static GameManager restoreGame(Context context, String fileName) {
+		
+		File snapshotFile = context.getFileStreamPath(fileName);
+		
+		if (!snapshotFile.exists()) {
+			return null;
+		}
+		
+		byte[] snapshot = new byte[(int) snapshotFile.length()];
+		DefaultBoard board;
+		
+		try {
+			
+			DataInputStream in = 
+				new DataInputStream(context.openFileInput(fileName));
+			
+			try {
+				in.readFully(snapshot);
+			} finally {
+				in.close();
+			}
+			
+			board = DefaultBoard.restoreSnapshot(snapshot);
+			
+		} catch (IOException e) {
+			return null;
+		} catch (IllegalArgumentException e) {
+			// Snapshots cut short by the process dying mid write are dropped.
+			return null;
+		}
+		
+		return new GameManager(context, board);
+	}
+	
+	/**
+	 * Save the board and the player's marks to a snapshot file, for 
+	 * restoreGame() to continue from. The snapshot is written in a single 
+	 * write of a few dozen bytes, so this can be called from 
+	 * Activity.onPause(). Once the game has been won the snapshot file is 
+	 * removed instead, as there is nothing left to continue. The moves 
+	 * recorded so far are also written to the replay file.
+	 * 
+	 * @param fileName Name of the snapshot file in the application files 
+	 * directory.
+	 * @return True if the game was saved.
+	 */
+	public boolean saveGame(String fileName) {
+		
+		if (board == null || board.isGameOver()) {
+			context.deleteFile(fileName);
+			return false;
+		}
+		
+		byte[] snapshot = board.saveSnapshot();
+		
+		if (moveRecorder != null) {
+			
+			try {
+				moveRecorder.flush();
+			} catch (IOException e) {
+				// Losing the recording does not stop the game being saved.
+			}
+		}
+		
+		try {
+			
+			FileOutputStream out = 
+				context.openFileOutput(fileName, Context.MODE_PRIVATE);
+			
+			try {
+				out.write(snapshot);
+			} finally {
+				out.close();
+			}
+			
+		} catch (IOException e) {
+			return false;
+		}
+		
+		return true;
 	}
 	
 	/**
@@ -235,7 +407,7 @@ public class GameManager extends Thread implements OpenGLRendererListener {
 	public void pauseGame() {
 		
 		if (gameInProgress) {
-			pause = true;
+			gameMonitor.pauseGame();
 		}
 		gameView.onPause();
 	}
@@ -244,8 +416,7 @@ public class GameManager extends Thread implements OpenGLRendererListener {
 	 * Restart the current game.
 	 */
 	public void resumeGame() {
-		pause = false;
-		this.interrupt();
+		gameMonitor.resumeGame();
 		gameView.onResume();
 	}
 	
@@ -254,6 +425,25 @@ public class GameManager extends Thread implements OpenGLRendererListener {
 	 */
 	public void quitGame() {
 		gameInProgress = false;
+		gameMonitor.quitGame();
+		
+		if (moveRecorder != null) {
+			
+			try {
+				moveRecorder.close();
+			} catch (IOException e) {
+				// The moves recorded up to the failure are still replayable.
+			}
+			
+			board.removeMoveListener(moveRecorder);
+			moveRecorder = null;
+		}
+		
+		if (hintEngine != null) {
+			
+			board.removeMoveListener(hintEngine);
+			hintEngine = null;
+		}
 	}
 	
 	/**
@@ -265,6 +455,42 @@ public class GameManager extends Thread implements OpenGLRendererListener {
 		gameView.resetGraphics();
 	}
 	
+	/**
+	 * Take back the last move.
+	 * 
+	 * @return True if there was a move to take back.
+	 */
+	public boolean undoMove() {
+		
+		return gameView.undoMove();
+	}
+	
+	/**
+	 * Play the last move taken back again.
+	 * 
+	 * @return True if there was a move to play again.
+	 */
+	public boolean redoMove() {
+		
+		return gameView.redoMove();
+	}
+	
+	/**
+	 * Get the next tile the player can work out from their marks so far.
+	 * 
+	 * @return Hint, null if nothing more can be worked out without guessing.
+	 */
+	public synchronized Hint getHint() {
+		
+		if (hintEngine == null) {
+			
+			hintEngine = new HintEngine(board);
+			board.registerMoveListener(hintEngine);
+		}
+		
+		return hintEngine.nextHint();
+	}
+	
 	//--------------------------------------------------------------------------
 	// Methods required by OpenGLRendererListener
 	//--------------------------------------------------------------------------
@@ -306,51 +532,189 @@ public class GameManager extends Thread implements OpenGLRendererListener {
 	}
 	
 	/**
-	 * Setup the lookup tables for the different game configurations.
+	 * Start recording the moves of the game to the replay file, replacing 
+	 * the last game recorded. The game is played without a recording if the
+	 * file can not be written.
+	 */
+	private void startRecording() {
+		
+		try {
+			
+			moveRecorder = new MoveRecorder(
+					context.getFileStreamPath(REPLAY_FILE_NAME), 
+					board);
+			board.registerMoveListener(moveRecorder);
+			
+		} catch (IOException e) {
+			moveRecorder = null;
+		}
+	}
+	
+	/**
+	 * Take a board of a spec from the puzzle pack. The pack is opened the 
+	 * first time it is needed and kept open for later games.
+	 * 
+	 * @param context Android context to find the pack file from.
+	 * @param spec Spec of the board.
+	 * @return Board, null if there is no pack or it has no boards of the spec.
+	 */
+	private static synchronized DefaultBoard takePackBoard(
+			Context context, 
+			BoardSpec spec) {
+		
+		if (!packOpened) {
+			
+			packOpened = true;
+			
+			File packFile = context.getFileStreamPath(PUZZLE_PACK_FILE_NAME);
+			
+			if (packFile.exists()) {
+				
+				try {
+					packGenerator = 
+						new PuzzlePackBoardGenerator(PuzzlePack.open(packFile));
+				} catch (IOException e) {
+					// Unreadable packs are left to the pool.
+					packGenerator = null;
+				}
+			}
+		}
+		
+		if (packGenerator == null) {
+			return null;
+		}
+		
+		packGenerator.setUniqueSolution(spec.isUniqueSolution());
+		
+		return (DefaultBoard) packGenerator.generateCustomBoard(
+				spec.getBoardWidth(), 
+				spec.getBoardHeight(), 
+				spec.getPieceLengths(), 
+				spec.getNumberOfFreeEmpty(), 
+				spec.getNumberOfFreeTargets());
+	}
+	
+	/**
+	 * Get the difficulty set in the game options.
+	 * 
+	 * @param preferences Preferences holding the game options.
+	 * @param resources Android resources holding the option names.
+	 * @return Difficulty setting.
+	 */
+	private static String getDifficulty(
+			SharedPreferences preferences, 
+			Resources resources) {
+		
+		return preferences.getString(
+				(String) resources.getText(R.string.difficulty_key), 
+				(String) resources.getText(R.string.easy_setting));
+	}
+	
+	/**
+	 * Get the board size set in the game options.
+	 * 
+	 * @param preferences Preferences holding the game options.
+	 * @param resources Android resources holding the option names.
+	 * @return Board size setting.
+	 */
+	private static String getBoardSize(
+			SharedPreferences preferences, 
+			Resources resources) {
+		
+		return preferences.getString(
+				(String) resources.getText(R.string.board_size_key), 
+				(String) resources.getText(R.string.six_by_six));
+	}
+	
+	/**
+	 * Get the spec of the boards for a board size and difficulty. Only 
+	 * boards with one solution are handed out, so any arrangement that 
+	 * matches the legends is the winning one.
+	 * 
+	 * @param resources Android resources holding the option names.
+	 * @param boardSize Board size setting.
+	 * @param difficulty Difficulty setting.
+	 * @return Board spec.
 	 */
-	private void initializeGameOptionTables() {
+	private static BoardSpec getBoardSpec(
+			Resources resources, 
+			String boardSize, 
+			String difficulty) {
+		
+		initializeGameOptionTables(resources);
+		
+		Integer boardDimension = boardSizeDimensionsTable.get(boardSize);
+		int[] boardPieceLengths = boardSizePieceLengthsTable.get(boardSize);
+		
+		Integer numFreeEmpty = 
+			boardSizeFreeTilesTable.get(boardSize).get(difficulty);
+		
+		Integer numFreeTargets =
+			boardSizeFreeTargetsTable.get(boardSize).get(difficulty);
+		
+		return new BoardSpec(
+				boardDimension.intValue(), 
+				boardDimension.intValue(), 
+				boardPieceLengths, 
+				numFreeEmpty.intValue(),
+				numFreeTargets.intValue(),
+				true);
+	}
+	
+	/**
+	 * Setup the lookup tables for the different game configurations, the 
+	 * first time they are needed.
+	 * 
+	 * @param resources Android resources holding the option names.
+	 */
+	private static synchronized void initializeGameOptionTables(
+			Resources resources) {
+		
+		if (boardSizeDimensionsTable != null) {
+			return;
+		}
 		
 		// Set the board size dimension table.
 		boardSizeDimensionsTable = new HashMap<String, Integer>();
 		
 		boardSizeDimensionsTable.put(
-				(String) this.resources.getText(R.string.four_by_four), 4);
+				(String) resources.getText(R.string.four_by_four), 4);
 		boardSizeDimensionsTable.put(
-				(String) this.resources.getText(R.string.five_by_five), 5);
+				(String) resources.getText(R.string.five_by_five), 5);
 		boardSizeDimensionsTable.put(
-				(String) this.resources.getText(R.string.six_by_six), 6);
+				(String) resources.getText(R.string.six_by_six), 6);
 		boardSizeDimensionsTable.put(
-				(String) this.resources.getText(R.string.seven_by_seven), 7);
+				(String) resources.getText(R.string.seven_by_seven), 7);
 		boardSizeDimensionsTable.put(
-				(String) this.resources.getText(R.string.eight_by_eight), 8);
+				(String) resources.getText(R.string.eight_by_eight), 8);
 		boardSizeDimensionsTable.put(
-				(String) this.resources.getText(R.string.nine_by_nine), 9);
+				(String) resources.getText(R.string.nine_by_nine), 9);
 		boardSizeDimensionsTable.put(
-				(String) this.resources.getText(R.string.ten_by_ten), 10);
+				(String) resources.getText(R.string.ten_by_ten), 10);
 		
 		// Set the board size piece lengths table.
 		boardSizePieceLengthsTable = new HashMap<String, int[]>();
 		
 		boardSizePieceLengthsTable.put(
-				(String) this.resources.getText(R.string.four_by_four),
+				(String) resources.getText(R.string.four_by_four),
 				new int[] {2, 1, 1});
 		boardSizePieceLengthsTable.put(
-				(String) this.resources.getText(R.string.five_by_five),
+				(String) resources.getText(R.string.five_by_five),
 				new int[] {2, 1, 1, 1});
 		boardSizePieceLengthsTable.put(
-				(String) this.resources.getText(R.string.six_by_six),
+				(String) resources.getText(R.string.six_by_six),
 				new int[] {3, 2, 1, 1, 1});
 		boardSizePieceLengthsTable.put(
-				(String) this.resources.getText(R.string.seven_by_seven),
+				(String) resources.getText(R.string.seven_by_seven),
 				new int[] {3, 3, 2, 2, 1, 1});
 		boardSizePieceLengthsTable.put(
-				(String) this.resources.getText(R.string.eight_by_eight),
+				(String) resources.getText(R.string.eight_by_eight),
 				new int[] {4, 3, 2, 2, 1, 1, 1});
 		boardSizePieceLengthsTable.put(
-				(String) this.resources.getText(R.string.nine_by_nine),
+				(String) resources.getText(R.string.nine_by_nine),
 				new int[] {4, 3, 3, 2, 2, 1, 1, 1});
 		boardSizePieceLengthsTable.put(
-				(String) this.resources.getText(R.string.ten_by_ten),
+				(String) resources.getText(R.string.ten_by_ten),
 				new int[] {4, 3, 3, 2, 2, 2, 1, 1, 1, 1});
 	
 		// Set the number of free targets based on board size and difficulty.
@@ -361,113 +725,113 @@ public class GameManager extends Thread implements OpenGLRendererListener {
 		// 4x4
 		tmpMap = new HashMap<String, Integer>();
 		tmpMap.put(
-				(String) this.resources.getText(R.string.easy_setting),
+				(String) resources.getText(R.string.easy_setting),
 				Integer.valueOf(1));
 		tmpMap.put(
-				(String) this.resources.getText(R.string.medium_setting),
+				(String) resources.getText(R.string.medium_setting),
 				Integer.valueOf(1));
 		tmpMap.put(
-				(String) this.resources.getText(R.string.hard_setting),
+				(String) resources.getText(R.string.hard_setting),
 				Integer.valueOf(0));
 		
 		boardSizeFreeTargetsTable.put(
-				(String) this.resources.getText(R.string.four_by_four),
+				(String) resources.getText(R.string.four_by_four),
 				tmpMap);
 
 		// 5x5
 		tmpMap = new HashMap<String, Integer>();
 		tmpMap.put(
-				(String) this.resources.getText(R.string.easy_setting),
+				(String) resources.getText(R.string.easy_setting),
 				Integer.valueOf(2));
 		tmpMap.put(
-				(String) this.resources.getText(R.string.medium_setting),
+				(String) resources.getText(R.string.medium_setting),
 				Integer.valueOf(1));
 		tmpMap.put(
-				(String) this.resources.getText(R.string.hard_setting),
+				(String) resources.getText(R.string.hard_setting),
 				Integer.valueOf(0));
 		
 		boardSizeFreeTargetsTable.put(
-				(String) this.resources.getText(R.string.five_by_five),
+				(String) resources.getText(R.string.five_by_five),
 				tmpMap);
 		
 		// 6x6
 		tmpMap = new HashMap<String, Integer>();
 		tmpMap.put(
-				(String) this.resources.getText(R.string.easy_setting),
+				(String) resources.getText(R.string.easy_setting),
 				Integer.valueOf(3));
 		tmpMap.put(
-				(String) this.resources.getText(R.string.medium_setting),
+				(String) resources.getText(R.string.medium_setting),
 				Integer.valueOf(2));
 		tmpMap.put(
-				(String) this.resources.getText(R.string.hard_setting),
+				(String) resources.getText(R.string.hard_setting),
 				Integer.valueOf(1));
 		
 		boardSizeFreeTargetsTable.put(
-				(String) this.resources.getText(R.string.six_by_six),
+				(String) resources.getText(R.string.six_by_six),
 				tmpMap);
 		
 		// 7x7
 		tmpMap = new HashMap<String, Integer>();
 		tmpMap.put(
-				(String) this.resources.getText(R.string.easy_setting),
+				(String) resources.getText(R.string.easy_setting),
 				Integer.valueOf(4));
 		tmpMap.put(
-				(String) this.resources.getText(R.string.medium_setting),
+				(String) resources.getText(R.string.medium_setting),
 				Integer.valueOf(3));
 		tmpMap.put(
-				(String) this.resources.getText(R.string.hard_setting),
+				(String) resources.getText(R.string.hard_setting),
 				Integer.valueOf(2));
 		
 		boardSizeFreeTargetsTable.put(
-				(String) this.resources.getText(R.string.seven_by_seven),
+				(String) resources.getText(R.string.seven_by_seven),
 				tmpMap);
 		
 		// 8x8
 		tmpMap = new HashMap<String, Integer>();
 		tmpMap.put(
-				(String) this.resources.getText(R.string.easy_setting),
+				(String) resources.getText(R.string.easy_setting),
 				Integer.valueOf(5));
 		tmpMap.put(
-				(String) this.resources.getText(R.string.medium_setting),
+				(String) resources.getText(R.string.medium_setting),
 				Integer.valueOf(4));
 		tmpMap.put(
-				(String) this.resources.getText(R.string.hard_setting),
+				(String) resources.getText(R.string.hard_setting),
 				Integer.valueOf(3));
 		
 		boardSizeFreeTargetsTable.put(
-				(String) this.resources.getText(R.string.eight_by_eight),
+				(String) resources.getText(R.string.eight_by_eight),
 				tmpMap);
 		
 		//9x9
 		tmpMap = new HashMap<String, Integer>();
 		tmpMap.put(
-				(String) this.resources.getText(R.string.easy_setting),
+				(String) resources.getText(R.string.easy_setting),
 				Integer.valueOf(6));
 		tmpMap.put(
-				(String) this.resources.getText(R.string.medium_setting),
+				(String) resources.getText(R.string.medium_setting),
 				Integer.valueOf(5));
 		tmpMap.put(
-				(String) this.resources.getText(R.string.hard_setting),
+				(String) resources.getText(R.string.hard_setting),
 				Integer.valueOf(4));
 		
 		boardSizeFreeTargetsTable.put(
-				(String) this.resources.getText(R.string.nine_by_nine),
+				(String) resources.getText(R.string.nine_by_nine),
 				tmpMap);
 		
 		// 10x10
 		tmpMap = new HashMap<String, Integer>();
 		tmpMap.put(
-				(String) this.resources.getText(R.string.easy_setting),
+				(String) resources.getText(R.string.easy_setting),
 				Integer.valueOf(9));
 		tmpMap.put(
-				(String) this.resources.getText(R.string.medium_setting),
+				(String) resources.getText(R.string.medium_setting),
 				Integer.valueOf(8));
 		tmpMap.put(
-				(String) this.resources.getText(R.string.hard_setting),
+				(String) resources.getText(R.string.hard_setting),
 				Integer.valueOf(7));
 		
 		boardSizeFreeTargetsTable.put(
-				(String) this.resources.getText(R.string.ten_by_ten),
+				(String) resources.getText(R.string.ten_by_ten),
 				tmpMap);
 		
 		//----------------------------------------------------------------------
@@ -477,113 +841,113 @@ public class GameManager extends Thread implements OpenGLRendererListener {
 		// 4x4
 		tmpMap = new HashMap<String, Integer>();
 		tmpMap.put(
-				(String) this.resources.getText(R.string.easy_setting),
+				(String) resources.getText(R.string.easy_setting),
 				Integer.valueOf(4));
 		tmpMap.put(
-				(String) this.resources.getText(R.string.medium_setting),
+				(String) resources.getText(R.string.medium_setting),
 				Integer.valueOf(3));
 		tmpMap.put(
-				(String) this.resources.getText(R.string.hard_setting),
+				(String) resources.getText(R.string.hard_setting),
 				Integer.valueOf(2));
 		
 		boardSizeFreeTilesTable.put(
-				(String) this.resources.getText(R.string.four_by_four),
+				(String) resources.getText(R.string.four_by_four),
 				tmpMap);
 		
 		// 5x5
 		tmpMap = new HashMap<String, Integer>();
 		tmpMap.put(
-				(String) this.resources.getText(R.string.easy_setting),
+				(String) resources.getText(R.string.easy_setting),
 				Integer.valueOf(6));
 		tmpMap.put(
-				(String) this.resources.getText(R.string.medium_setting),
+				(String) resources.getText(R.string.medium_setting),
 				Integer.valueOf(5));
 		tmpMap.put(
-				(String) this.resources.getText(R.string.hard_setting),
+				(String) resources.getText(R.string.hard_setting),
 				Integer.valueOf(4));
 		
 		boardSizeFreeTilesTable.put(
-				(String) this.resources.getText(R.string.five_by_five),
+				(String) resources.getText(R.string.five_by_five),
 				tmpMap);
 		
 		// 6x6
 		tmpMap = new HashMap<String, Integer>();
 		tmpMap.put(
-				(String) this.resources.getText(R.string.easy_setting),
+				(String) resources.getText(R.string.easy_setting),
 				Integer.valueOf(8));
 		tmpMap.put(
-				(String) this.resources.getText(R.string.medium_setting),
+				(String) resources.getText(R.string.medium_setting),
 				Integer.valueOf(6));
 		tmpMap.put(
-				(String) this.resources.getText(R.string.hard_setting),
+				(String) resources.getText(R.string.hard_setting),
 				Integer.valueOf(4));
 		
 		boardSizeFreeTilesTable.put(
-				(String) this.resources.getText(R.string.six_by_six),
+				(String) resources.getText(R.string.six_by_six),
 				tmpMap);
 		
 		// 7x7
 		tmpMap = new HashMap<String, Integer>();
 		tmpMap.put(
-				(String) this.resources.getText(R.string.easy_setting),
+				(String) resources.getText(R.string.easy_setting),
 				Integer.valueOf(11));
 		tmpMap.put(
-				(String) this.resources.getText(R.string.medium_setting),
+				(String) resources.getText(R.string.medium_setting),
 				Integer.valueOf(8));
 		tmpMap.put(
-				(String) this.resources.getText(R.string.hard_setting),
+				(String) resources.getText(R.string.hard_setting),
 				Integer.valueOf(6));
 		
 		boardSizeFreeTilesTable.put(
-				(String) this.resources.getText(R.string.seven_by_seven),
+				(String) resources.getText(R.string.seven_by_seven),
 				tmpMap);
 		
 		// 8x8
 		tmpMap = new HashMap<String, Integer>();
 		tmpMap.put(
-				(String) this.resources.getText(R.string.easy_setting),
+				(String) resources.getText(R.string.easy_setting),
 				Integer.valueOf(12));
 		tmpMap.put(
-				(String) this.resources.getText(R.string.medium_setting),
+				(String) resources.getText(R.string.medium_setting),
 				Integer.valueOf(9));
 		tmpMap.put(
-				(String) this.resources.getText(R.string.hard_setting),
+				(String) resources.getText(R.string.hard_setting),
 				Integer.valueOf(6));
 		
 		boardSizeFreeTilesTable.put(
-				(String) this.resources.getText(R.string.eight_by_eight),
+				(String) resources.getText(R.string.eight_by_eight),
 				tmpMap);
 		
 		//9x9
 		tmpMap = new HashMap<String, Integer>();
 		tmpMap.put(
-				(String) this.resources.getText(R.string.easy_setting),
+				(String) resources.getText(R.string.easy_setting),
 				Integer.valueOf(15));
 		tmpMap.put(
-				(String) this.resources.getText(R.string.medium_setting),
+				(String) resources.getText(R.string.medium_setting),
 				Integer.valueOf(13));
 		tmpMap.put(
-				(String) this.resources.getText(R.string.hard_setting),
+				(String) resources.getText(R.string.hard_setting),
 				Integer.valueOf(11));
 		
 		boardSizeFreeTilesTable.put(
-				(String) this.resources.getText(R.string.nine_by_nine),
+				(String) resources.getText(R.string.nine_by_nine),
 				tmpMap);
 		
 		// 10x10
 		tmpMap = new HashMap<String, Integer>();
 		tmpMap.put(
-				(String) this.resources.getText(R.string.easy_setting),
+				(String) resources.getText(R.string.easy_setting),
 				Integer.valueOf(21));
 		tmpMap.put(
-				(String) this.resources.getText(R.string.medium_setting),
+				(String) resources.getText(R.string.medium_setting),
 				Integer.valueOf(18));
 		tmpMap.put(
-				(String) this.resources.getText(R.string.hard_setting),
+				(String) resources.getText(R.string.hard_setting),
 				Integer.valueOf(15));
 		
 		boardSizeFreeTilesTable.put(
-				(String) this.resources.getText(R.string.ten_by_ten),
+				(String) resources.getText(R.string.ten_by_ten),
 				tmpMap);
 
 	}
@@ -593,7 +957,8 @@ public class GameManager extends Thread implements OpenGLRendererListener {
 	//--------------------------------------------------------------------------
 	
 	/**
-	 * Game loop.
+	 * Game loop. Blocks until the board signals the winning move or the game
+	 * is quit, rather than polling the board.
 	 */
 	public void run() {
 		
@@ -611,29 +976,7 @@ public class GameManager extends Thread implements OpenGLRendererListener {
 		
 		gameInProgress = true;
 		
-		while (!board.isGameOver() && gameInProgress) {
-		
-			try {
-				this.sleep(100);
-			} catch (InterruptedException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
-			}
-			
-			synchronized (this) {
-
-				while(pause) {
-					try {
-						this.wait();
-					} catch (InterruptedException e) {
-						// TODO Auto-generated catch block
-						e.printStackTrace();
-					}
-				}
-			}
-		}
-		
-		if (board.isGameOver() && gameInProgress) {
+		if (gameMonitor.awaitGameEnd() && gameInProgress) {
 			// Notify all listeners that the game was won.
 			notifyListeners(GameManagerListener.GM_GAME_WON);
 		} else {
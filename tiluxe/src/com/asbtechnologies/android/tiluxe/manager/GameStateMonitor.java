@@ -0,0 +1,154 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+package com.asbtechnologies.android.tiluxe.manager;
+
+// External Imports
+
+// Internal Imports
+import com.asbtechnologies.android.tiluxe.board.BoardStateListener;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoard;
+
+/**
+ * Waits for a game on a board to end. The game thread blocks in 
+ * awaitGameEnd() until the board signals that the move just made completed 
+ * it, or the game is quit. Nothing polls the board, so a paused or idle game
+ * does not use any CPU, and the game thread wakes on the winning move.
+ * 
+ * Has no Android dependencies so it can be driven from plain unit tests.
+ *
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class GameStateMonitor implements BoardStateListener {
+	
+	/** Value returned by getWinLatency() if the game has not been won. */
+	public static final long NO_LATENCY = -1;
+	
+	/** The board being played. */
+	private DefaultBoard board;
+	
+	/** Flag paused game. */
+	private boolean paused;
+	
+	/** Flag game quit. */
+	private boolean quit;
+	
+	/** System.nanoTime() of the move that completed the board. */
+	private long gameOverTime;
+	
+	/** Nanoseconds from the completing move to awaitGameEnd() returning. */
+	private long winLatency;
+	
+	/**
+	 * Default constructor. Registers with the board for state changes.
+	 * 
+	 * @param board The board being played.
+	 */
+	public GameStateMonitor(DefaultBoard board) {
+		
+		this.board = board;
+		this.paused = false;
+		this.quit = false;
+		this.winLatency = NO_LATENCY;
+		
+		this.board.registerListener(this);
+	}
+	
+	//--------------------------------------------------------------------------
+	// Methods required by BoardStateListener
+	//--------------------------------------------------------------------------
+	
+	/* (non-Javadoc)
+	 * @see com.asbtechnologies.android.tiluxe.board.BoardStateListener#boardStateNotification(int)
+	 */
+	@Override
+	public void boardStateNotification(int message) {
+		
+		// Only the completing move needs to wake the game thread.
+		if (message == BoardStateListener.BOARD_GAME_OVER) {
+			
+			synchronized (this) {
+				gameOverTime = System.nanoTime();
+				this.notifyAll();
+			}
+		}
+	}
+	
+	//--------------------------------------------------------------------------
+	// Public methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Block until the game is won or quit. While the game is paused this 
+	 * keeps waiting, even if the board is complete, until it is resumed. If 
+	 * the waiting thread is interrupted the game is treated as quit.
+	 * 
+	 * @return True if the game was won, false if it was quit
+	 */
+	public synchronized boolean awaitGameEnd() {
+		
+		while (!quit && (paused || !board.isGameOver())) {
+			
+			try {
+				this.wait();
+			} catch (InterruptedException e) {
+				quit = true;
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		if (quit) {
+			return false;
+		}
+		
+		winLatency = System.nanoTime() - gameOverTime;
+		
+		return true;
+	}
+	
+	/**
+	 * Pause the game. awaitGameEnd() will not return a win until the game is
+	 * resumed.
+	 */
+	public synchronized void pauseGame() {
+		
+		paused = true;
+	}
+	
+	/**
+	 * Resume the paused game.
+	 */
+	public synchronized void resumeGame() {
+		
+		paused = false;
+		this.notifyAll();
+	}
+	
+	/**
+	 * Quit the game. awaitGameEnd() returns false.
+	 */
+	public synchronized void quitGame() {
+		
+		quit = true;
+		this.notifyAll();
+	}
+	
+	/**
+	 * Get the time taken from the move that completed the board to the game
+	 * thread seeing the win. If the game was resumed from a pause after the 
+	 * board was completed this includes the time spent paused.
+	 * 
+	 * @return Latency in nanoseconds, or NO_LATENCY if the game has not been 
+	 * won
+	 */
+	public synchronized long getWinLatency() {
+		
+		return winLatency;
+	}
+}
@@ -0,0 +1,404 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+package com.asbtechnologies.android.tiluxe.manager;
+
+// External Imports
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+
+// Internal Imports
+import com.asbtechnologies.android.tiluxe.board.BoardSpec;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoard;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoardGenerator;
+
+/**
+ * Keeps boards ready to play for each game option key, such as a board size
+ * and difficulty pair. A low priority background thread tops each key up to
+ * the pool depth, so starting a new game only has to take a board off a
+ * queue. If no board is ready the caller generates one itself and the miss
+ * is counted.
+ * 
+ * Keys are registered by prefill(), ahead of the first game that needs
+ * them, or else by the first take() for them. Has no Android dependencies
+ * so it can be driven from plain unit tests.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class PuzzlePool {
+	
+	/** Number of boards kept ready for each key unless set otherwise. */
+	public static final int DEFAULT_DEPTH = 2;
+	
+	/** Shared pool used by the game. */
+	private static PuzzlePool poolInstance;
+	
+	/** Ready boards for each key, oldest first. */
+	private HashMap<String, LinkedList<DefaultBoard>> readyBoards;
+	
+	/** Spec of the boards for each key. */
+	private HashMap<String, BoardSpec> specs;
+	
+	/** Keys in the order they were registered, refilled in this order. */
+	private ArrayList<String> keys;
+	
+	/** Keys whose pieces do not fit on the board, no longer refilled. */
+	private HashSet<String> unfitKeys;
+	
+	/** Number of boards to keep ready for each key. */
+	private int depth;
+	
+	/** Number of takes answered with a ready board. */
+	private int hitCount;
+	
+	/** Number of takes that had to generate a board. */
+	private int missCount;
+	
+	/** Background thread refilling the pool, null until first needed. */
+	private Thread refillThread;
+	
+	/** Flag the pool is shut down. */
+	private boolean shutDown;
+	
+	/**
+	 * Default constructor.
+	 * 
+	 * @param depth Number of boards to keep ready for each key
+	 */
+	public PuzzlePool(int depth) {
+		
+		this.readyBoards = new HashMap<String, LinkedList<DefaultBoard>>();
+		this.specs = new HashMap<String, BoardSpec>();
+		this.keys = new ArrayList<String>();
+		this.unfitKeys = new HashSet<String>();
+		
+		setDepth(depth);
+	}
+	
+	/**
+	 * Get the pool shared by the game.
+	 * 
+	 * @return Shared pool
+	 */
+	public static synchronized PuzzlePool getInstance() {
+		
+		if (poolInstance == null) {
+			poolInstance = new PuzzlePool(DEFAULT_DEPTH);
+		}
+		
+		return poolInstance;
+	}
+	
+	//--------------------------------------------------------------------------
+	// Public methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Register a key and wake the background thread to fill it, so that the
+	 * first take for it is answered with a ready board. A key already 
+	 * registered keeps its spec.
+	 * 
+	 * @param key Game option key, for example board size and difficulty
+	 * @param spec Spec of the boards for the key
+	 */
+	public synchronized void prefill(String key, BoardSpec spec) {
+		
+		register(key, spec);
+		
+		startRefill();
+		this.notifyAll();
+	}
+	
+	/**
+	 * Take a board for a key. A ready board is returned straight away.
+	 * Otherwise one is generated on the calling thread. Either way the
+	 * background thread is woken to top the key back up.
+	 * 
+	 * @param key Game option key, for example board size and difficulty
+	 * @param spec Spec of the boards for the key, only used by the background
+	 * thread if the key was not registered before
+	 * @return Board to play, null if the pieces do not fit on the board
+	 */
+	public DefaultBoard take(String key, BoardSpec spec) {
+		
+		synchronized (this) {
+			
+			DefaultBoard board = register(key, spec).poll();
+			
+			startRefill();
+			this.notifyAll();
+			
+			if (board != null) {
+				hitCount++;
+				return board;
+			}
+			
+			missCount++;
+		}
+		
+		return generate(spec, new DefaultBoardGenerator());
+	}
+	
+	/**
+	 * Set the number of boards to keep ready for each key. Lowering the depth
+	 * drops any boards over the new depth.
+	 * 
+	 * @param depth Number of boards to keep ready for each key, 0 or more
+	 * @throws IllegalArgumentException if depth is negative
+	 */
+	public synchronized void setDepth(int depth) {
+		
+		if (depth < 0) {
+			throw new IllegalArgumentException(
+					"Pool depth can not be negative: " + depth);
+		}
+		
+		this.depth = depth;
+		
+		for (int i = 0; i < keys.size(); i++) {
+			
+			LinkedList<DefaultBoard> queue = readyBoards.get(keys.get(i));
+			
+			while (queue.size() > depth) {
+				queue.removeLast();
+			}
+		}
+		
+		this.notifyAll();
+	}
+	
+	/**
+	 * Get the number of boards kept ready for each key.
+	 * 
+	 * @return Pool depth
+	 */
+	public synchronized int getDepth() {
+		
+		return depth;
+	}
+	
+	/**
+	 * Get the number of boards ready for a key.
+	 * 
+	 * @param key Game option key
+	 * @return Number of ready boards, 0 for a key never registered
+	 */
+	public synchronized int getReadyCount(String key) {
+		
+		LinkedList<DefaultBoard> queue = readyBoards.get(key);
+		
+		if (queue == null) {
+			return 0;
+		}
+		
+		return queue.size();
+	}
+	
+	/**
+	 * Get the number of takes answered with a ready board.
+	 * 
+	 * @return Number of hits
+	 */
+	public synchronized int getHitCount() {
+		
+		return hitCount;
+	}
+	
+	/**
+	 * Get the number of takes that had to generate a board.
+	 * 
+	 * @return Number of misses
+	 */
+	public synchronized int getMissCount() {
+		
+		return missCount;
+	}
+	
+	/**
+	 * Block until every registered key has its full depth of boards ready,
+	 * or the pool is shut down.
+	 * 
+	 * @throws InterruptedException if the waiting thread is interrupted
+	 */
+	public synchronized void awaitFull() throws InterruptedException {
+		
+		while (!shutDown && nextKeyToRefill() != null) {
+			this.wait();
+		}
+	}
+	
+	/**
+	 * Stop the background thread and drop every ready board. Takes still
+	 * work, generating on the calling thread.
+	 */
+	public synchronized void shutDown() {
+		
+		shutDown = true;
+		
+		for (int i = 0; i < keys.size(); i++) {
+			readyBoards.get(keys.get(i)).clear();
+		}
+		
+		this.notifyAll();
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Register a key if it is not registered yet. Must be called holding the
+	 * pool lock.
+	 * 
+	 * @param key Game option key
+	 * @param spec Spec of the boards for the key
+	 * @return Ready boards of the key
+	 */
+	private LinkedList<DefaultBoard> register(String key, BoardSpec spec) {
+		
+		LinkedList<DefaultBoard> queue = readyBoards.get(key);
+		
+		if (queue == null) {
+			
+			queue = new LinkedList<DefaultBoard>();
+			readyBoards.put(key, queue);
+			specs.put(key, spec);
+			keys.add(key);
+		}
+		
+		return queue;
+	}
+	
+	/**
+	 * Start the background thread if it is not running. Must be called
+	 * holding the pool lock.
+	 */
+	private void startRefill() {
+		
+		if (refillThread != null || shutDown) {
+			return;
+		}
+		
+		refillThread = new Thread(new RefillWorker(), "PuzzlePool refill");
+		refillThread.setDaemon(true);
+		refillThread.setPriority(Thread.MIN_PRIORITY);
+		refillThread.start();
+	}
+	
+	/**
+	 * Find the first key with fewer boards ready than the depth, skipping
+	 * keys whose pieces do not fit. Must be called holding the pool lock.
+	 * 
+	 * @return Key to refill, null if every key is full
+	 */
+	private String nextKeyToRefill() {
+		
+		for (int i = 0; i < keys.size(); i++) {
+			
+			if (readyBoards.get(keys.get(i)).size() < depth &&
+					!unfitKeys.contains(keys.get(i))) {
+				return keys.get(i);
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Generate a board for a spec.
+	 * 
+	 * @param spec Spec of the board
+	 * @param generator Generator to use
+	 * @return Generated board, null if the pieces do not fit on the board
+	 */
+	private static DefaultBoard generate(
+			BoardSpec spec,
+			DefaultBoardGenerator generator) {
+		
+		generator.setUniqueSolution(spec.isUniqueSolution());
+		
+		return (DefaultBoard) generator.generateCustomBoard(
+				spec.getBoardWidth(),
+				spec.getBoardHeight(),
+				spec.getPieceLengths(),
+				spec.getNumberOfFreeEmpty(),
+				spec.getNumberOfFreeTargets());
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private classes
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Tops up each key in turn, sleeping while the pool is full.
+	 */
+	private class RefillWorker implements Runnable {
+		
+		/** Generator owned by the refill thread. */
+		private DefaultBoardGenerator generator = new DefaultBoardGenerator();
+		
+		/* (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+			
+			while (true) {
+				
+				String key;
+				BoardSpec spec;
+				
+				synchronized (PuzzlePool.this) {
+					
+					key = nextKeyToRefill();
+					
+					while (!shutDown && key == null) {
+						
+						try {
+							PuzzlePool.this.wait();
+						} catch (InterruptedException e) {
+							return;
+						}
+						
+						key = nextKeyToRefill();
+					}
+					
+					if (shutDown) {
+						return;
+					}
+					
+					spec = specs.get(key);
+				}
+				
+				// Generate without holding the lock so takes are not held up.
+				DefaultBoard board = generate(spec, generator);
+				
+				synchronized (PuzzlePool.this) {
+					
+					LinkedList<DefaultBoard> queue = readyBoards.get(key);
+					
+					if (board == null) {
+						
+						// The generator only fails once every placement of
+						// the pieces has been tried, so stop refilling this
+						// key. Boards already ready are left to be taken.
+						unfitKeys.add(key);
+						
+					} else if (queue.size() < depth) {
+						queue.add(board);
+					}
+					
+					PuzzlePool.this.notifyAll();
+				}
+			}
+		}
+	}
+}
@@ -9,7 +9,7 @@
 package com.asbtechnologies.android.tiluxe.manager;
 
 // External Imports
-import java.util.HashMap;
+import java.util.Random;
 
 import javax.microedition.khronos.opengles.GL10;
 
@@ -17,9 +17,12 @@ import android.content.Context;
 import android.content.res.Resources;
 
 //Internal Imports
+import com.asbtechnologies.android.tiluxe.board.BoardCellVisitor;
 import com.asbtechnologies.android.tiluxe.board.BoardPiece;
+import com.asbtechnologies.android.tiluxe.board.BoardPieceState;
+import com.asbtechnologies.android.tiluxe.board.ContradictionChecker;
 import com.asbtechnologies.android.tiluxe.board.DefaultBoard;
-import com.asbtechnologies.android.tiluxe.board.DefaultBoardPiece;
+import com.asbtechnologies.android.tiluxe.board.PuzzleId;
 import com.asbtechnologies.android.tiluxe.rendering.nodes.GameObject;
 import com.asbtechnologies.android.tiluxe.rendering.nodes.LegendGameObject;
 import com.asbtechnologies.android.tiluxe.rendering.nodes.PickableGameObject;
@@ -53,12 +56,24 @@ public class SimpleSceneManager {
 	/** Game objects to draw each frame. */
 	private GameObject[] gameObjects;
 	
-	/** Map of BoardPiece reference ID's to GameObject map. */
-	private HashMap<Integer, GameObject> referenceIDToGameObjMap;
+	/** 
+	 * Tile GameObjects indexed by the BoardPiece reference ID. Piece IDs are
+	 * the board location index, so every ID has a slot.
+	 */
+	private GameObject[] referenceIDToGameObj;
 	
 	/** The last picked reference ID */
 	private int lastPickReferenceID;
 	
+	/** Horizontal legend hints, refilled each time the legends update. */
+	private int[] horizontalHint;
+	
+	/** Vertical legend hints, refilled each time the legends update. */
+	private int[] verticalHint;
+	
+	/** Finds the tiles marked in conflict, shown with the legends. */
+	private ContradictionChecker contradictionChecker;
+	
 	/** Texture resources to load up. */
 	private String[] textureResources = new String[] {
 			"free_space",
@@ -129,8 +144,17 @@ public class SimpleSceneManager {
 	public void disposeOfScene() {
 		
 		textureLoader.dispose();
+		
+		if (contradictionChecker != null) {
+			
+			board.removeMoveListener(contradictionChecker);
+			contradictionChecker = null;
+		}
+		
 		gameObjects = null;
-		referenceIDToGameObjMap = null;
+		referenceIDToGameObj = null;
+		horizontalHint = null;
+		verticalHint = null;
 		context = null;
 		isSceneLive = false;
 		board = null;
@@ -184,8 +208,11 @@ public class SimpleSceneManager {
 						gameObjects[i].getReferenceID()) {
 
 						// Move the last pick back
-						GameObject oldPick = 
-							referenceIDToGameObjMap.get(lastPickReferenceID);
+						GameObject oldPick = null;
+						
+						if (lastPickReferenceID != BoardPiece.NO_ID) {
+							oldPick = referenceIDToGameObj[lastPickReferenceID];
+						}
 						
 						if (oldPick != null) {
 							oldPick.translateObject(0.0f, 0.0f, 0.0f);
@@ -204,14 +231,25 @@ public class SimpleSceneManager {
 	}
 	
 	/**
-	 * Update the legend hints displayed around the game board.
+	 * Update the legend hints displayed around the game board, and the 
+	 * conflict of the tiles changed by the last move.
 	 */
 	public void updateLegends() {
 		
-		int[] horizontalHint = 
-			board.getHorizontalLegendHint();
-		int[] verticalHint = 
-			board.getVerticalLegendHint();
+		updateLegends(true);
+	}
+	
+	/**
+	 * Update the legend hints displayed around the game board.
+	 * 
+	 * @param showConflicts True to also repaint the conflict of the tiles 
+	 * changed by the last move. Must be false while another thread is 
+	 * changing the board, as the contradiction checker is not thread safe.
+	 */
+	public void updateLegends(boolean showConflicts) {
+		
+		board.getHorizontalLegendHint(horizontalHint);
+		board.getVerticalLegendHint(verticalHint);
 		
 		for (int j = 0; j < gameObjects.length; j++) {
 			
@@ -225,6 +263,33 @@ public class SimpleSceneManager {
 
 			}
 		}
+		
+		// Tint the tiles whose marks can not be part of any solution. Only
+		// the tiles whose conflict changed on the last move are redrawn.
+		if (showConflicts && contradictionChecker != null) {
+			
+			int changedCount = contradictionChecker.getChangedCount();
+			
+			for (int i = 0; i < changedCount; i++) {
+				showConflict(contradictionChecker.getChangedCell(i));
+			}
+		}
+	}
+	
+	/**
+	 * Tint every tile whose mark can not be part of any solution. The 
+	 * contradiction checker only keeps the tiles changed by the last move,
+	 * so this is needed after a run of moves, such as a reset or a replay.
+	 */
+	public void refreshConflicts() {
+		
+		if (contradictionChecker == null) {
+			return;
+		}
+		
+		for (int i = 0; i < referenceIDToGameObj.length; i++) {
+			showConflict(i);
+		}
 	}
 	
 	public void resetScene() {
@@ -233,12 +298,47 @@ public class SimpleSceneManager {
 			
 			gameObjects[i].reset();
 		}
+		
+		refreshConflicts();
+	}
+	
+	/**
+	 * Show the selection state of a tile after its board piece was changed 
+	 * other than by picking it.
+	 * 
+	 * @param pieceID ID of the board piece.
+	 * @param state BoardPieceState to show.
+	 */
+	public void showTileState(int pieceID, int state) {
+		
+		if (referenceIDToGameObj == null) {
+			return;
+		}
+		
+		GameObject gameObject = referenceIDToGameObj[pieceID];
+		
+		if (gameObject instanceof TileGameObject) {
+			((TileGameObject) gameObject).showState(state);
+		}
 	}
 	
 	//--------------------------------------------------------------------------
 	// Private methods
 	//--------------------------------------------------------------------------
 	
+	/**
+	 * Tint a tile if its mark is in conflict, or draw it as normal if not.
+	 * 
+	 * @param pieceID ID of the board piece.
+	 */
+	private void showConflict(int pieceID) {
+		
+		if (referenceIDToGameObj[pieceID] instanceof TileGameObject) {
+			((TileGameObject) referenceIDToGameObj[pieceID]).setConflicted(
+					contradictionChecker.isConflicted(pieceID));
+		}
+	}
+	
 	/**
 	 * Setup all of the scene objects before rendering the first frame.
 	 * 
@@ -251,21 +351,25 @@ public class SimpleSceneManager {
 			int displayWidth, 
 			int displayHeight) {
 		
-		DefaultBoardPiece[][] boardPieces = 
-			(DefaultBoardPiece[][]) board.getBoardPieces();
-		
-		if (boardPieces == null) {
+		if (board == null) {
 			return;
 		}
 		
 		this.board = board;
 		
-		referenceIDToGameObjMap = new HashMap<Integer, GameObject>();
-		
 		// Get the dimensions of the board.
 		int boardWidth = board.getWidth();
 		int boardHeight = board.getHeight();
 		
+		referenceIDToGameObj = new GameObject[boardWidth * boardHeight];
+		lastPickReferenceID = BoardPiece.NO_ID;
+		
+		horizontalHint = new int[boardWidth];
+		verticalHint = new int[boardHeight];
+		
+		contradictionChecker = new ContradictionChecker(board);
+		board.registerMoveListener(contradictionChecker);
+		
 		// The fill width is the most critical piece because it is the least 
 		// amount of space to fill. We will then use the same value to make
 		// each tile square in the height dimension. Use boardWidth + 1 
@@ -294,41 +398,30 @@ public class SimpleSceneManager {
 		
 		gameObjects = new GameObject[totalNumberOfObjects];
 		
-		// Start by filling the board with the tiles.
-		int indexTracker = 0;
-		boolean isEmpty;
+		// Seed the tile textures from the puzzle, so a generated board looks
+		// the same each time it is played.
+		PuzzleId puzzleId = board.getPuzzleId();
+		Random textureRandom = puzzleId == null ? 
+				new Random() : new Random(puzzleId.getSeed());
 		
-		for (int w = 0; w < boardWidth; w++) {
-			for (int h = 0; h < boardHeight; h++) {
-				
-				isEmpty = false;
-				
-				if (boardPieces[w][h].isEmpty()) {
-					
-					isEmpty = true;
-				}
-				
-				gameObjects[indexTracker] = new TileGameObject(
-						textureLoader, 
-						startTopLeftXPosition + initialXPosition + tileWidth * w, 
-						startTopLeftYPosition - initialYPosition - tileHeight * h + FIXED_VERTICAL_ADJUSTMENT, 
-						tileWidth - 2.0f * tilePadding, 
-						tileHeight - 2.0f * tilePadding,
-						isEmpty,
-						boardPieces[w][h].getPieceID(),
-						boardPieces[w][h].getCurrentState());
-				
-				referenceIDToGameObjMap.put(
-						boardPieces[w][h].getPieceID(), 
-						gameObjects[indexTracker]);
+		// Start by filling the board with the tiles. The tiles are created 
+		// straight from the board locations, column by column.
+		TileBuilder tileBuilder = new TileBuilder(
+				startTopLeftXPosition + initialXPosition, 
+				startTopLeftYPosition - initialYPosition + 
+					FIXED_VERTICAL_ADJUSTMENT, 
+				tileWidth, 
+				tileHeight, 
+				tilePadding,
+				textureRandom);
+		
+		board.forEachCell(tileBuilder);
 				
-				indexTracker++;
-			}
-		}
+		int indexTracker = tileBuilder.getTileCount();
 		
 		// Now create the legend pieces. Start with the vertical legend and then
 		// create the horizontal legend.
-		int[] verticalLegend = board.getVerticalLegend();
+		int[] verticalLegend = board.getVerticalLegend(verticalHint);
 		
 		for (int i = 0; i < verticalLegend.length; i++) {
 			
@@ -345,7 +438,7 @@ public class SimpleSceneManager {
 			indexTracker++;
 		}
 		
-		int[] horizontalLegend = board.getHorizontalLegend();
+		int[] horizontalLegend = board.getHorizontalLegend(horizontalHint);
 		
 		for (int i = 0; i < horizontalLegend.length; i++) {
 			
@@ -390,4 +483,108 @@ public class SimpleSceneManager {
 		// Now load the textures for use.
 		textureLoader.loadTextures();
 	}
+	
+	//--------------------------------------------------------------------------
+	// Private classes
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Creates a tile game object for each board location visited, filling the
+	 * game objects from the start of the array.
+	 */
+	private class TileBuilder implements BoardCellVisitor {
+		
+		/** Horizontal center of the tile in the first column. */
+		private float firstXPosition;
+		
+		/** Vertical center of the tile in the first row. */
+		private float firstYPosition;
+		
+		/** Width of each tile, including padding. */
+		private float tileWidth;
+		
+		/** Height of each tile, including padding. */
+		private float tileHeight;
+		
+		/** Padding applied to each side of every tile. */
+		private float tilePadding;
+		
+		/** Number of tiles created so far. */
+		private int tileCount;
+		
+		/** Chooses the texture of each tile. */
+		private Random textureRandom;
+		
+		/**
+		 * Default constructor.
+		 * 
+		 * @param firstXPosition Horizontal center of the first column
+		 * @param firstYPosition Vertical center of the first row
+		 * @param tileWidth Width of each tile, including padding
+		 * @param tileHeight Height of each tile, including padding
+		 * @param tilePadding Padding applied to each side of every tile
+		 * @param textureRandom Chooses the texture of each tile
+		 */
+		TileBuilder(
+				float firstXPosition, 
+				float firstYPosition, 
+				float tileWidth, 
+				float tileHeight,
+				float tilePadding,
+				Random textureRandom) {
+			
+			this.firstXPosition = firstXPosition;
+			this.firstYPosition = firstYPosition;
+			this.tileWidth = tileWidth;
+			this.tileHeight = tileHeight;
+			this.tilePadding = tilePadding;
+			this.textureRandom = textureRandom;
+		}
+		
+		//----------------------------------------------------------------------
+		// Methods required by BoardCellVisitor
+		//----------------------------------------------------------------------
+		
+		/* (non-Javadoc)
+		 * @see com.asbtechnologies.android.tiluxe.board.BoardCellVisitor#visitCell(int, int, int, int, int, int)
+		 */
+		@Override
+		public void visitCell(
+				int xPos, 
+				int yPos, 
+				int pieceID, 
+				int groupID, 
+				int matchState, 
+				int currentState) {
+			
+			gameObjects[tileCount] = new TileGameObject(
+					textureLoader, 
+					firstXPosition + tileWidth * xPos, 
+					firstYPosition - tileHeight * yPos, 
+					tileWidth - 2.0f * tilePadding, 
+					tileHeight - 2.0f * tilePadding,
+					currentState == BoardPieceState.EMPTY,
+					pieceID,
+					currentState,
+					textureRandom);
+			
+			referenceIDToGameObj[pieceID] = gameObjects[tileCount];
+			
+			tileCount++;
+		}
+		
+		//----------------------------------------------------------------------
+		// Package methods
+		//----------------------------------------------------------------------
+		
+		/**
+		 * Get the number of tiles created.
+		 * 
+		 * @return Number of tiles created
+		 */
+		int getTileCount() {
+			
+			return tileCount;
+		}
+	}
 }
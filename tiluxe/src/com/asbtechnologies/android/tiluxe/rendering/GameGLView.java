@@ -14,8 +14,10 @@ import android.opengl.GLSurfaceView;
 import android.view.MotionEvent;
 
 // Internal Imports
+import com.asbtechnologies.android.tiluxe.board.BoardMoveListener;
 import com.asbtechnologies.android.tiluxe.board.DefaultBoard;
 import com.asbtechnologies.android.tiluxe.board.DefaultBoardPiece;
+import com.asbtechnologies.android.tiluxe.board.MoveReplayer;
 
 /**
  * Game view for Android Activities that want a visual game board 
@@ -25,7 +27,7 @@ import com.asbtechnologies.android.tiluxe.board.DefaultBoardPiece;
  * @author Ben Yarger
  * @version $Revision: 1.6 $
  */
-public class GameGLView extends GLSurfaceView {
+public class GameGLView extends GLSurfaceView implements BoardMoveListener {
 	
 	/** Reference to Android context (parent Activity). */
 	private Context context;
@@ -95,6 +97,34 @@ public class GameGLView extends GLSurfaceView {
 		return true;
 	}
 	
+	//--------------------------------------------------------------------------
+	// Methods required by BoardMoveListener
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Show a move being replayed. The board is changed on the replaying 
+	 * thread, so the tile and legends are updated on the render thread. The 
+	 * contradiction checker is still being changed by the replay, so the 
+	 * conflicts are only shown once the whole run is played.
+	 * 
+	 * @param cellIndex Index of the cell, which is also its piece ID.
+	 * @param state New BoardPieceState value.
+	 */
+	@Override
+	public void boardMoveNotification(final int cellIndex, final int state) {
+		
+		queueEvent(new Runnable() {
+			
+			@Override
+			public void run() {
+				
+				if (glRenderer != null) {
+					glRenderer.showTileState(cellIndex, state, false);
+				}
+			}
+		});
+	}
+	
 	//--------------------------------------------------------------------------
 	// Public methods
 	//--------------------------------------------------------------------------
@@ -130,4 +160,90 @@ public class GameGLView extends GLSurfaceView {
 	public void resetGraphics() {
 		glRenderer.resetGraphics();
 	}
+	
+	/**
+	 * Play a run of recorded moves on the board shown by the view, showing
+	 * each tile and the legends as they change, and the conflicts once the
+	 * run is played. The view must have been created with the board of the
+	 * replayer.
+	 * 
+	 * @param replayer Replayer loaded with the moves.
+	 * @param fromMove First move to play.
+	 * @param toMove Move after the last one to play.
+	 * @return Nanoseconds taken to play the moves on the board.
+	 * @throws IllegalArgumentException if the replayer plays another board
+	 */
+	public long replayMoves(MoveReplayer replayer, int fromMove, int toMove) {
+		
+		if (replayer.getBoard() != board) {
+			throw new IllegalArgumentException(
+					"The replayer does not play the board of the view.");
+		}
+		
+		board.registerMoveListener(this);
+		
+		try {
+			return replayer.replay(fromMove, toMove);
+		} finally {
+			
+			board.removeMoveListener(this);
+			
+			queueEvent(new Runnable() {
+				
+				@Override
+				public void run() {
+					
+					if (glRenderer != null) {
+						glRenderer.refreshConflicts();
+					}
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Undo the last move on the board and show the tile it changed.
+	 * 
+	 * @return True if there was a move to undo.
+	 */
+	public boolean undoMove() {
+		
+		return showMove(board.undoMove());
+	}
+	
+	/**
+	 * Play the last move undone again and show the tile it changed.
+	 * 
+	 * @return True if there was a move to redo.
+	 */
+	public boolean redoMove() {
+		
+		return showMove(board.redoMove());
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Show the state a move left a board piece in.
+	 * 
+	 * @param pieceID ID of the board piece changed, -1 if none was.
+	 * @return True if a board piece was changed.
+	 */
+	private boolean showMove(int pieceID) {
+		
+		if (pieceID < 0) {
+			return false;
+		}
+		
+		glRenderer.showTileState(
+				pieceID, 
+				board.getCurrentState(
+						pieceID / board.getHeight(), 
+						pieceID % board.getHeight()),
+				true);
+		
+		return true;
+	}
 }
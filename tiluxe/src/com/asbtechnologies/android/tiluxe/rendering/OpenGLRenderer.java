@@ -124,6 +124,37 @@ public class OpenGLRenderer implements Renderer {
 		sceneManager.updateLegends();
 	}
 	
+	/**
+	 * Show the selection state of a tile changed other than by picking it, 
+	 * and the legends it affects.
+	 * 
+	 * @param pieceID ID of the board piece.
+	 * @param state BoardPieceState to show.
+	 * @param showConflicts True to also show the conflicts changed by the 
+	 * move, false if the board is still being changed by another thread.
+	 */
+	public void showTileState(int pieceID, int state, boolean showConflicts) {
+		
+		if (sceneManager == null) {
+			return;
+		}
+		
+		sceneManager.showTileState(pieceID, state);
+		sceneManager.updateLegends(showConflicts);
+	}
+	
+	/**
+	 * Show the conflict of every tile, after a run of changes to the board.
+	 */
+	public void refreshConflicts() {
+		
+		if (sceneManager == null) {
+			return;
+		}
+		
+		sceneManager.refreshConflicts();
+	}
+	
 	//--------------------------------------------------------------------------
 	// Private methods
 	//--------------------------------------------------------------------------
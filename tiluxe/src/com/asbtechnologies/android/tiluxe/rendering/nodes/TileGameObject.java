@@ -13,6 +13,8 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.Random;
 
+import javax.microedition.khronos.opengles.GL10;
+
 import android.view.MotionEvent;
 
 // Internal Imports
@@ -61,6 +63,11 @@ public class TileGameObject extends BaseGameObject
 	 */
 	private int textureCycleIndex;
 	
+	/**
+	 * True to tint the tile to show its mark can not be part of a solution.
+	 */
+	private boolean conflicted;
+	
 	/**
 	 * Default constructor. Takes in the parameters for the 2D tile and then
 	 * creates the geometric representation of the tile with one of the 
@@ -74,6 +81,8 @@ public class TileGameObject extends BaseGameObject
 	 * @param isEmtpy True to create an empty tile piece, false otherwise.
 	 * @param pieceID Unique ID reference back to board piece.
 	 * @param currentState The current selection state of the tile.
+	 * @param textureRandom Chooses the standard tile texture. Seeding it the
+	 * same way gives the same textures.
 	 */
 	public TileGameObject(
 			TextureLoader textureLoader, 
@@ -83,7 +92,8 @@ public class TileGameObject extends BaseGameObject
 			float height,
 			boolean isEmpty,
 			int pieceID,
-			int currentState) {
+			int currentState,
+			Random textureRandom) {
 		
 		super(textureLoader, pieceID);
 
@@ -94,7 +104,7 @@ public class TileGameObject extends BaseGameObject
 		this.isEmpty = isEmpty;
 		this.currentState = currentState;
 		
-		initializeTile();
+		initializeTile(textureRandom);
 	}
 
 	/* (non-Javadoc)
@@ -106,6 +116,61 @@ public class TileGameObject extends BaseGameObject
 		useTexture = textureCycle[textureCycleIndex];
 	}
 	
+	/* (non-Javadoc)
+	 * @see com.asbtechnologies.android.tiluxe.rendering.nodes.BaseGameObject#drawObject(javax.microedition.khronos.opengles.GL10)
+	 */
+	@Override
+	public void drawObject(GL10 gl) {
+		
+		if (!conflicted) {
+			super.drawObject(gl);
+			return;
+		}
+		
+		// The colour is multiplied into the texture.
+		gl.glColor4f(1.0f, 0.4f, 0.4f, 1.0f);
+		super.drawObject(gl);
+		gl.glColor4f(1.0f, 1.0f, 1.0f, 1.0f);
+	}
+	
+	//--------------------------------------------------------------------------
+	// Public methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Show the texture of a selection state, for changes made to the board
+	 * other than by picking the tile.
+	 * 
+	 * @param state BoardPieceState to show.
+	 */
+	public void showState(int state) {
+		
+		if (isEmpty) {
+			return;
+		}
+		
+		if (state == BoardPieceState.STATE_ALIVE) {
+			textureCycleIndex = 1;
+		} else if (state == BoardPieceState.STATE_DEAD) {
+			textureCycleIndex = 2;
+		} else {
+			textureCycleIndex = 0;
+		}
+		
+		useTexture = textureCycle[textureCycleIndex];
+	}
+	
+	/**
+	 * Set if the tile is tinted to show its mark can not be part of any 
+	 * solution.
+	 * 
+	 * @param conflicted True to tint the tile, false to draw it as normal.
+	 */
+	public void setConflicted(boolean conflicted) {
+		
+		this.conflicted = conflicted;
+	}
+	
 	//--------------------------------------------------------------------------
 	// Methods required by PickableGameObject
 	//--------------------------------------------------------------------------
@@ -167,8 +232,10 @@ public class TileGameObject extends BaseGameObject
 	/**
 	 * Initialize the tile based on the position, width and height supplied to
 	 * the constructor.
+	 * 
+	 * @param textureRandom Chooses the standard tile texture.
 	 */
-	private void initializeTile() {
+	private void initializeTile(Random textureRandom) {
 	
 		// Coordinates ordered bottom left, bottom right, top left, top right.
 		coords = new float[] {
@@ -213,8 +280,7 @@ public class TileGameObject extends BaseGameObject
 			};
 			
 		} else {
-			Random randomGenerator = new Random();
-			int randomIndex = randomGenerator.nextInt(4)+1;
+			int randomIndex = textureRandom.nextInt(4)+1;
 			defaultTexture = textureOptions[randomIndex];
 			
 			textureCycle = new String[] {
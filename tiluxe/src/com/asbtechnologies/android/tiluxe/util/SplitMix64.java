@@ -0,0 +1,50 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.util;
+
+//External Imports
+
+//Internal Imports
+
+/**
+ * The finishing step of the SplitMix64 random number generator, used to
+ * scramble values into hashes, seeds and keys. Every bit of the result
+ * depends on every bit of the value, so values that differ in one bit give
+ * unrelated results.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class SplitMix64 {
+	
+	/**
+	 * Private constructor, only static methods.
+	 */
+	private SplitMix64() {
+	}
+	
+	//--------------------------------------------------------------------------
+	// Public methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Scramble a value.
+	 * 
+	 * @param value Value to scramble
+	 * @return Scrambled value
+	 */
+	public static long mix(long value) {
+		
+		value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+		value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+		
+		return value ^ (value >>> 31);
+	}
+}
@@ -0,0 +1,169 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.util;
+
+//External Imports
+import java.nio.ByteBuffer;
+
+//Internal Imports
+
+/**
+* Base64 with the URL and file name safe alphabet of RFC 4648, - and _ in
+* place of + and /, and no = padding. Codes can be put in a link or typed
+* in without escaping.
+* 
+* @author Ben Yarger
+* @version $Revision: 1.1 $
+*/
+public class UrlSafeBase64 {
+	
+	/** Characters for each 6 bit value. */
+	private static final char[] ALPHABET =
+		("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_")
+		.toCharArray();
+	
+	/** 6 bit value of each character, -1 for characters not in the code. */
+	private static final byte[] VALUES = new byte[128];
+	
+	static {
+		
+		for (int i = 0; i < VALUES.length; i++) {
+			VALUES[i] = -1;
+		}
+		
+		for (int i = 0; i < ALPHABET.length; i++) {
+			VALUES[ALPHABET[i]] = (byte) i;
+		}
+	}
+	
+	/**
+	 * Only static methods.
+	 */
+	private UrlSafeBase64() {
+	}
+	
+	/**
+	 * Get the number of characters a number of bytes encodes to.
+	 * 
+	 * @param byteCount Number of bytes
+	 * @return Number of characters
+	 */
+	public static int getEncodedLength(int byteCount) {
+		
+		return (byteCount * 4 + 2) / 3;
+	}
+	
+	/**
+	 * Get the number of bytes a code decodes to.
+	 * 
+	 * @param text Code
+	 * @return Number of bytes
+	 * @throws IllegalArgumentException if no number of bytes encodes to a
+	 * code of that length
+	 */
+	public static int getDecodedLength(CharSequence text) {
+		
+		if (text.length() % 4 == 1) {
+			throw new IllegalArgumentException(
+					"Not a base64 code length: " + text.length());
+		}
+		
+		return text.length() * 3 / 4;
+	}
+	
+	/**
+	 * Encode the remaining bytes of a buffer. The buffer position is moved to
+	 * its limit.
+	 * 
+	 * @param source Bytes to encode
+	 * @return Code
+	 */
+	public static String encode(ByteBuffer source) {
+		
+		char[] code = new char[getEncodedLength(source.remaining())];
+		int charIndex = 0;
+		
+		while (source.remaining() >= 3) {
+			
+			int bits = (source.get() & 0xFF) << 16 |
+				(source.get() & 0xFF) << 8 |
+				(source.get() & 0xFF);
+			
+			code[charIndex++] = ALPHABET[bits >>> 18];
+			code[charIndex++] = ALPHABET[(bits >>> 12) & 0x3F];
+			code[charIndex++] = ALPHABET[(bits >>> 6) & 0x3F];
+			code[charIndex++] = ALPHABET[bits & 0x3F];
+		}
+		
+		if (source.remaining() == 2) {
+			
+			int bits = (source.get() & 0xFF) << 8 | (source.get() & 0xFF);
+			
+			code[charIndex++] = ALPHABET[bits >>> 10];
+			code[charIndex++] = ALPHABET[(bits >>> 4) & 0x3F];
+			code[charIndex++] = ALPHABET[(bits << 2) & 0x3F];
+			
+		} else if (source.remaining() == 1) {
+			
+			int bits = source.get() & 0xFF;
+			
+			code[charIndex++] = ALPHABET[bits >>> 2];
+			code[charIndex++] = ALPHABET[(bits << 4) & 0x3F];
+		}
+		
+		return new String(code);
+	}
+	
+	/**
+	 * Decode a code into a buffer, starting at its position.
+	 * 
+	 * @param text Code
+	 * @param target Buffer to write the bytes to, with room for
+	 * getDecodedLength(text) bytes
+	 * @return Number of bytes written
+	 * @throws IllegalArgumentException if the text is not a code
+	 */
+	public static int decode(CharSequence text, ByteBuffer target) {
+		
+		int byteCount = getDecodedLength(text);
+		int length = text.length();
+		int bits = 0;
+		int bitCount = 0;
+		
+		for (int i = 0; i < length; i++) {
+			
+			char c = text.charAt(i);
+			int value = c < VALUES.length ? VALUES[c] : -1;
+			
+			if (value < 0) {
+				throw new IllegalArgumentException(
+						"Not a base64 character: " + c);
+			}
+			
+			bits = bits << 6 | value;
+			bitCount += 6;
+			
+			if (bitCount >= 8) {
+				
+				bitCount -= 8;
+				target.put((byte) (bits >>> bitCount));
+				bits &= (1 << bitCount) - 1;
+			}
+		}
+		
+		// Bits left over pad the last byte and must be zero.
+		if (bits != 0) {
+			throw new IllegalArgumentException(
+					"Not a base64 code, padding bits are set.");
+		}
+		
+		return byteCount;
+	}
+}
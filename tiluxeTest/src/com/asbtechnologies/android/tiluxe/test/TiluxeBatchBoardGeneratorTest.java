@@ -0,0 +1,235 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.test;
+
+// External Imports
+import java.util.ArrayList;
+import java.util.List;
+
+import android.util.Log;
+
+import com.asbtechnologies.android.tiluxe.board.BatchBoardGenerator;
+import com.asbtechnologies.android.tiluxe.board.Board;
+import com.asbtechnologies.android.tiluxe.board.BoardConsumer;
+import com.asbtechnologies.android.tiluxe.board.BoardSpec;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoard;
+import com.asbtechnologies.android.tiluxe.board.solver.Puzzle;
+import com.asbtechnologies.android.tiluxe.board.solver.PuzzleSolver;
+import com.asbtechnologies.android.tiluxe.board.solver.SolverResult;
+
+import junit.framework.TestCase;
+
+// Internal Imports
+
+/**
+ * Unit tests for BatchBoardGenerator.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class TiluxeBatchBoardGeneratorTest extends TestCase {
+	
+	/**
+	 * Default constructor.
+	 * 
+	 * @param name
+	 */
+	public TiluxeBatchBoardGeneratorTest(String name) {
+		super(name);
+	}
+	
+	/**
+	 * Every index of the batch is handed to the consumer exactly once.
+	 */
+	public void testBatchDeliversEveryIndex() {
+		
+		BoardSpec spec = new BoardSpec(
+				10, 10, TiluxeTestBoards.TEN_BY_TEN_PIECES, 15, 7, false);
+		IndexRecorder recorder = new IndexRecorder(100);
+		
+		int generated =
+			new BatchBoardGenerator().generateBatch(spec, 100, 4, recorder);
+		
+		assertEquals(100, generated);
+		
+		for (int i = 0; i < 100; i++) {
+			assertEquals(1, recorder.getDeliveryCount(i));
+		}
+		
+		// The spec keeps its own copy of the lengths.
+		assertEquals(4, spec.getPieceLengths()[0]);
+	}
+	
+	/**
+	 * Batches with a unique solution required only contain unique boards.
+	 */
+	public void testUniqueBatch() {
+		
+		BoardSpec spec = new BoardSpec(8, 8, new int[] {4, 3, 2, 2, 1, 1, 1},
+				6, 3, true);
+		BoardCollector collector = new BoardCollector();
+		
+		assertEquals(
+				30,
+				new BatchBoardGenerator().generateBatch(
+						spec, 30, 3, collector));
+		
+		PuzzleSolver solver = new PuzzleSolver();
+		List<Board> boards = collector.getBoards();
+		
+		assertEquals(30, boards.size());
+		
+		for (int i = 0; i < boards.size(); i++) {
+			
+			SolverResult result =
+				solver.solve(Puzzle.fromBoard((DefaultBoard) boards.get(i)));
+			
+			assertEquals(SolverResult.SOLVED, result.getStatus());
+		}
+	}
+	
+	/**
+	 * Bad arguments and fleets that can not fit are refused.
+	 */
+	public void testBadBatches() {
+		
+		BatchBoardGenerator generator = new BatchBoardGenerator();
+		BoardSpec spec = new BoardSpec(
+				10, 10, TiluxeTestBoards.TEN_BY_TEN_PIECES, 0, 0, false);
+		BoardCollector collector = new BoardCollector();
+		
+		assertEquals(0, generator.generateBatch(spec, 0, 4, collector));
+		
+		try {
+			generator.generateBatch(spec, 10, 0, collector);
+			fail("Parallelism of 0 should be refused.");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+		
+		try {
+			generator.generateBatch(spec, -1, 2, collector);
+			fail("Negative batch size should be refused.");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+		
+		BoardSpec crowded =
+			new BoardSpec(3, 3, new int[] {1, 1, 1, 1, 1}, 0, 0, false);
+		
+		try {
+			generator.generateBatch(crowded, 10, 2, collector);
+			fail("Fleet that can not fit should be refused.");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+		
+		assertEquals(0, collector.getBoards().size());
+	}
+	
+	/**
+	 * Time a batch on one thread and on one thread per core.
+	 */
+	public void testBatchBenchmark() {
+		
+		BoardSpec spec = new BoardSpec(
+				10, 10, TiluxeTestBoards.TEN_BY_TEN_PIECES, 15, 7, true);
+		BatchBoardGenerator generator = new BatchBoardGenerator();
+		IndexRecorder recorder = new IndexRecorder(400);
+		int cores = Runtime.getRuntime().availableProcessors();
+		
+		// Warm up before timing.
+		generator.generateBatch(spec, 400, cores, recorder);
+		
+		long startTime = System.nanoTime();
+		generator.generateBatch(spec, 400, 1, recorder);
+		long serialMicros = (System.nanoTime() - startTime) / 1000;
+		
+		startTime = System.nanoTime();
+		generator.generateBatch(spec, 400, cores, recorder);
+		long parallelMicros = (System.nanoTime() - startTime) / 1000;
+		
+		Log.i("TiluxeBatchBoardGeneratorTest - batch benchmark",
+				"400 boards: " + serialMicros + " us on 1 thread, " +
+				parallelMicros + " us on " + cores + " threads");
+		
+		for (int i = 0; i < 400; i++) {
+			assertEquals(3, recorder.getDeliveryCount(i));
+		}
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private classes
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Counts how many times each index is delivered.
+	 */
+	private static class IndexRecorder implements BoardConsumer {
+		
+		/** Number of deliveries of each index. */
+		private int[] deliveryCounts;
+		
+		/**
+		 * Default constructor.
+		 * 
+		 * @param count Number of indexes to record
+		 */
+		IndexRecorder(int count) {
+			deliveryCounts = new int[count];
+		}
+		
+		/* (non-Javadoc)
+		 * @see com.asbtechnologies.android.tiluxe.board.BoardConsumer#consumeBoard(int, com.asbtechnologies.android.tiluxe.board.Board)
+		 */
+		@Override
+		public synchronized void consumeBoard(int index, Board board) {
+			
+			assertNotNull(board);
+			deliveryCounts[index]++;
+		}
+		
+		/**
+		 * Get the number of times an index was delivered.
+		 * 
+		 * @param index Index to look up
+		 * @return Number of deliveries
+		 */
+		synchronized int getDeliveryCount(int index) {
+			return deliveryCounts[index];
+		}
+	}
+	
+	/**
+	 * Keeps every board delivered.
+	 */
+	private static class BoardCollector implements BoardConsumer {
+		
+		/** Boards delivered so far. */
+		private List<Board> boards = new ArrayList<Board>();
+		
+		/* (non-Javadoc)
+		 * @see com.asbtechnologies.android.tiluxe.board.BoardConsumer#consumeBoard(int, com.asbtechnologies.android.tiluxe.board.Board)
+		 */
+		@Override
+		public synchronized void consumeBoard(int index, Board board) {
+			boards.add(board);
+		}
+		
+		/**
+		 * Get the boards delivered so far.
+		 * 
+		 * @return Delivered boards
+		 */
+		synchronized List<Board> getBoards() {
+			return new ArrayList<Board>(boards);
+		}
+	}
+}
@@ -0,0 +1,372 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.test;
+
+// External Imports
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import android.util.Log;
+
+import com.asbtechnologies.android.tiluxe.board.BoardCodec;
+import com.asbtechnologies.android.tiluxe.board.BoardPiece;
+import com.asbtechnologies.android.tiluxe.board.BoardPieceState;
+import com.asbtechnologies.android.tiluxe.board.BoardState;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoard;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoardGenerator;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoardPiece;
+import com.asbtechnologies.android.tiluxe.util.UrlSafeBase64;
+
+import junit.framework.TestCase;
+
+// Internal Imports
+
+/**
+ * Unit tests for BoardCodec and UrlSafeBase64.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class TiluxeBoardCodecTest extends TestCase {
+	
+	/** Win rules to write. */
+	private static final int[] WIN_RULES = new int[] {
+		BoardState.WIN_RULE_ALIVE_MATCH,
+		BoardState.WIN_RULE_DEAD_MATCH,
+		BoardState.WIN_RULE_ALIVE_OR_DEAD_MATCH
+	};
+	
+	/**
+	 * Default constructor.
+	 * 
+	 * @param name
+	 */
+	public TiluxeBoardCodecTest(String name) {
+		super(name);
+	}
+	
+	/**
+	 * Generated boards with play on them read back the same.
+	 */
+	public void testRoundTrip() {
+		
+		BoardCodec codec = new BoardCodec();
+		DefaultBoardGenerator generator =
+			new DefaultBoardGenerator(new Random(21));
+		Random random = new Random(4);
+		ByteBuffer buffer = ByteBuffer.allocate(1024);
+		
+		generator.setUniqueSolution(true);
+		
+		for (int i = 0; i < 30; i++) {
+			
+			DefaultBoard board = (DefaultBoard) generator.generateCustomBoard(
+					10, 10, TiluxeTestBoards.TEN_BY_TEN_PIECES, 15, 7);
+			
+			TiluxeTestBoards.play(board, random, 30);
+			board.setWinRule(WIN_RULES[i % WIN_RULES.length]);
+			
+			buffer.clear();
+			codec.write(board, buffer);
+			
+			assertEquals(codec.getEncodedSize(board), buffer.position());
+			
+			buffer.flip();
+			DefaultBoard copy = codec.read(buffer);
+			
+			assertFalse(buffer.hasRemaining());
+			assertSameBoard(board, copy);
+		}
+	}
+	
+	/**
+	 * Boards without a puzzle ID and with sides of different lengths read back
+	 * the same.
+	 */
+	public void testHandBuiltBoard() {
+		
+		BoardCodec codec = new BoardCodec();
+		DefaultBoard board = new DefaultBoard(13, 5);
+		
+		board.addBoardPiece(new DefaultBoardPiece(
+				12, 0, BoardPiece.VERTICAL_ORIENTATION, 5,
+				BoardPieceState.STATE_ALIVE, board.generateGroupID()));
+		board.addBoardPiece(new DefaultBoardPiece(
+				0, 4, BoardPiece.HORIZONTAL_ORIENTATION, 11,
+				BoardPieceState.STATE_ALIVE, board.generateGroupID()));
+		((DefaultBoardPiece) board.getBoardPiece(5, 4)).setDefaultState(
+				BoardPieceState.STATE_ALIVE);
+		((DefaultBoardPiece) board.getBoardPiece(3, 1)).setState(
+				BoardPieceState.STATE_DEAD);
+		
+		DefaultBoardPiece emptyPiece = new DefaultBoardPiece(
+				6, 2, BoardPiece.HORIZONTAL_ORIENTATION, 1,
+				BoardPieceState.EMPTY, BoardPiece.NO_GROUP);
+		emptyPiece.setDefaultState(BoardPieceState.EMPTY);
+		board.addBoardPiece(emptyPiece);
+		
+		DefaultBoard copy = codec.fromShareCode(codec.toShareCode(board));
+		
+		assertNull(copy.getPuzzleId());
+		assertSameBoard(board, copy);
+	}
+	
+	/**
+	 * Share codes only use URL safe characters and are short.
+	 */
+	public void testShareCode() {
+		
+		BoardCodec codec = new BoardCodec();
+		DefaultBoard board = TiluxeTestBoards.generateBoard(-1L, true);
+		
+		String shareCode = codec.toShareCode(board);
+		
+		assertEquals(95, shareCode.length());
+		
+		for (int i = 0; i < shareCode.length(); i++) {
+			
+			char c = shareCode.charAt(i);
+			
+			assertTrue(Character.isLetterOrDigit(c) || c == '-' || c == '_');
+		}
+		
+		assertSameBoard(board, codec.fromShareCode(shareCode));
+	}
+	
+	/**
+	 * Codes that are not boards are refused.
+	 */
+	public void testBadInput() {
+		
+		BoardCodec codec = new BoardCodec();
+		DefaultBoard board = new DefaultBoard(4, 4);
+		String shareCode = codec.toShareCode(board);
+		
+		// Unknown format version.
+		try {
+			codec.read(ByteBuffer.wrap(new byte[] {2, 4, 4, 0, 0, 0}));
+			fail("Unknown version should be refused.");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+		
+		// A piece running off the board.
+		try {
+			codec.read(ByteBuffer.wrap(new byte[] {1, 4, 4, 1, 0x1C, 0, 0}));
+			fail("Piece off the board should be refused.");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+		
+		String[] badCodes = new String[] {
+				shareCode.substring(0, shareCode.length() - 4),
+				shareCode.substring(1),
+				shareCode + "+",
+				"AAAAA"
+		};
+		
+		for (int i = 0; i < badCodes.length; i++) {
+			
+			try {
+				codec.fromShareCode(badCodes[i]);
+				fail("Should not read: " + badCodes[i]);
+			} catch (IllegalArgumentException e) {
+				// Expected
+			}
+		}
+	}
+	
+	/**
+	 * Snapshots restore the board and the marks played on it, and refuse 
+	 * bytes cut short or with extra bytes after the board.
+	 */
+	public void testSnapshot() {
+		
+		DefaultBoard board = TiluxeTestBoards.generateBoard(11L, true);
+		
+		TiluxeTestBoards.play(board, new Random(12), 25);
+		
+		byte[] snapshot = board.saveSnapshot();
+		DefaultBoard copy = DefaultBoard.restoreSnapshot(snapshot);
+		
+		assertEquals(board.getPuzzleId(), copy.getPuzzleId());
+		assertSameBoard(board, copy);
+		
+		byte[] shortSnapshot = new byte[snapshot.length - 1];
+		byte[] longSnapshot = new byte[snapshot.length + 1];
+		
+		System.arraycopy(snapshot, 0, shortSnapshot, 0, shortSnapshot.length);
+		System.arraycopy(snapshot, 0, longSnapshot, 0, snapshot.length);
+		
+		try {
+			DefaultBoard.restoreSnapshot(shortSnapshot);
+			fail("Snapshot cut short should be refused.");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+		
+		try {
+			DefaultBoard.restoreSnapshot(longSnapshot);
+			fail("Snapshot with bytes left over should be refused.");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+	}
+	
+	/**
+	 * Base64 codes match RFC 4648 with the URL safe alphabet and no padding.
+	 */
+	public void testUrlSafeBase64() {
+		
+		String[] text = new String[] {"", "f", "fo", "foo", "foob", "fooba"};
+		String[] codes = new String[] {"", "Zg", "Zm8", "Zm9v", "Zm9vYg",
+				"Zm9vYmE"};
+		
+		for (int i = 0; i < text.length; i++) {
+			
+			byte[] bytes = text[i].getBytes();
+			
+			assertEquals(codes[i], UrlSafeBase64.encode(ByteBuffer.wrap(bytes)));
+			
+			ByteBuffer decoded = ByteBuffer.allocate(bytes.length);
+			
+			assertEquals(
+					bytes.length,
+					UrlSafeBase64.decode(codes[i], decoded));
+			assertEquals(new String(bytes), new String(decoded.array()));
+		}
+		
+		byte[] high = new byte[] {(byte) 0xFB, (byte) 0xFF};
+		
+		assertEquals("-_8", UrlSafeBase64.encode(ByteBuffer.wrap(high)));
+		
+		try {
+			UrlSafeBase64.decode("Zh", ByteBuffer.allocate(1));
+			fail("Set padding bits should be refused.");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+	}
+	
+	/**
+	 * Time writing and reading a played 10x10 board.
+	 */
+	public void testCodecBenchmark() {
+		
+		BoardCodec codec = new BoardCodec();
+		DefaultBoard board = TiluxeTestBoards.generateBoard(7L, true);
+		ByteBuffer buffer = ByteBuffer.allocateDirect(128);
+		int repeats = 20000;
+		
+		TiluxeTestBoards.play(board, new Random(8), 40);
+		
+		// Warm up before timing.
+		for (int i = 0; i < repeats; i++) {
+			
+			buffer.clear();
+			codec.write(board, buffer);
+			buffer.flip();
+			codec.read(buffer);
+		}
+		
+		long startTime = System.nanoTime();
+		
+		for (int i = 0; i < repeats; i++) {
+			
+			buffer.clear();
+			codec.write(board, buffer);
+		}
+		
+		long writeNanos = (System.nanoTime() - startTime) / repeats;
+		
+		startTime = System.nanoTime();
+		
+		for (int i = 0; i < repeats; i++) {
+			
+			buffer.rewind();
+			codec.read(buffer);
+		}
+		
+		long readNanos = (System.nanoTime() - startTime) / repeats;
+		
+		Log.i("TiluxeBoardCodecTest - codec benchmark",
+				"10x10 board of " + codec.getEncodedSize(board) + " bytes: write " +
+				writeNanos + " ns, read " + readNanos + " ns");
+		
+		buffer.rewind();
+		assertSameBoard(board, codec.read(buffer));
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Check two boards have the same layout, state of play, target pieces,
+	 * win rule and puzzle ID.
+	 * 
+	 * @param expected Expected board
+	 * @param actual Board to check
+	 */
+	private void assertSameBoard(DefaultBoard expected, DefaultBoard actual) {
+		
+		assertEquals(expected.getWidth(), actual.getWidth());
+		assertEquals(expected.getHeight(), actual.getHeight());
+		assertEquals(expected.getWinRule(), actual.getWinRule());
+		assertEquals(expected.getPuzzleId(), actual.getPuzzleId());
+		assertEquals(expected.isGameOver(), actual.isGameOver());
+		
+		for (int x = 0; x < expected.getWidth(); x++) {
+			for (int y = 0; y < expected.getHeight(); y++) {
+				
+				assertEquals(
+						expected.getMatchState(x, y),
+						actual.getMatchState(x, y));
+				assertEquals(
+						expected.getCurrentState(x, y),
+						actual.getCurrentState(x, y));
+				assertEquals(
+						expected.getStartingState(x, y),
+						actual.getStartingState(x, y));
+				assertEquals(
+						expected.getBoardPiece(x, y).getGroupID(),
+						actual.getBoardPiece(x, y).getGroupID());
+			}
+		}
+		
+		int pieceCount = expected.getParentTargetPieceCount();
+		BoardPiece[] expectedPieces = new BoardPiece[pieceCount];
+		BoardPiece[] actualPieces = new BoardPiece[pieceCount];
+		
+		assertEquals(pieceCount, actual.getParentTargetPieceCount());
+		
+		expected.getParentTargetPieces(expectedPieces);
+		actual.getParentTargetPieces(actualPieces);
+		
+		for (int i = 0; i < pieceCount; i++) {
+			
+			assertEquals(expectedPieces[i].getX(), actualPieces[i].getX());
+			assertEquals(expectedPieces[i].getY(), actualPieces[i].getY());
+			assertEquals(
+					expectedPieces[i].getOrientation(),
+					actualPieces[i].getOrientation());
+			assertEquals(
+					expectedPieces[i].getLength(),
+					actualPieces[i].getLength());
+		}
+		
+		int[] expectedLegend = expected.getVerticalLegend();
+		int[] actualLegend = actual.getVerticalLegend();
+		
+		for (int i = 0; i < expectedLegend.length; i++) {
+			assertEquals(expectedLegend[i], actualLegend[i]);
+		}
+	}
+}
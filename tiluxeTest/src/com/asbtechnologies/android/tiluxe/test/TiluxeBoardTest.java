@@ -10,11 +10,17 @@
 package com.asbtechnologies.android.tiluxe.test;
 
 // External Imports
+import java.util.Arrays;
+import java.util.Random;
+
+import android.os.Debug;
 import android.util.Log;
 
+import com.asbtechnologies.android.tiluxe.board.BoardCellVisitor;
 import com.asbtechnologies.android.tiluxe.board.BoardPerimeterLegend;
 import com.asbtechnologies.android.tiluxe.board.BoardPiece;
 import com.asbtechnologies.android.tiluxe.board.BoardPieceState;
+import com.asbtechnologies.android.tiluxe.board.BoardState;
 import com.asbtechnologies.android.tiluxe.board.DefaultBoard;
 import com.asbtechnologies.android.tiluxe.board.DefaultBoardPiece;
 import com.asbtechnologies.android.tiluxe.util.IdGenerator;
@@ -446,6 +452,10 @@ public class TiluxeBoardTest extends TestCase {
 		// Validate that we got a board back.
 		assertNotNull(defaultBoard);
 		
+		// Setting dead pieces to dead only finishes the game under the dead 
+		// match rule.
+		defaultBoard.setWinRule(BoardState.WIN_RULE_DEAD_MATCH);
+		
 		// Add alive pieces to the board to minimize how many pieces need to be
 		// set to dead to complete this test.
 		
@@ -860,6 +870,10 @@ public class TiluxeBoardTest extends TestCase {
 		// Validate that we got a board back.
 		assertNotNull(defaultBoard);
 		
+		// Setting dead pieces to dead only finishes the game under the dead 
+		// match rule.
+		defaultBoard.setWinRule(BoardState.WIN_RULE_DEAD_MATCH);
+		
 		// Add alive pieces to the board to minimize how many pieces need to be
 		// set to dead to complete this test.
 		
@@ -1097,6 +1111,10 @@ public class TiluxeBoardTest extends TestCase {
 		// Validate that we got a board back.
 		assertNotNull(defaultBoard);
 		
+		// Setting dead pieces to dead only finishes the game under the dead 
+		// match rule.
+		defaultBoard.setWinRule(BoardState.WIN_RULE_DEAD_MATCH);
+		
 		// Add alive pieces to the board to minimize how many pieces need to be
 		// set to dead to complete this test.
 		
@@ -1922,4 +1940,855 @@ public class TiluxeBoardTest extends TestCase {
 		horizontalLegendHint = null;
 		defaultBoard = null;
 	}
+	
+	//--------------------------------------------------------------------------
+	// Test incremental counts against a full scan
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Pieces can be picked by their piece ID, one at a time or in bulk. The 
+	 * piece ID names a location, so picking it gives whatever piece is at 
+	 * the location now. IDs off the board pick nothing.
+	 */
+	public void testPickByID() {
+		
+		DefaultBoard defaultBoard = new DefaultBoard(5, 5);
+		
+		DefaultBoardPiece boardPiece = new DefaultBoardPiece(
+				1, 
+				2, 
+				BoardPiece.HORIZONTAL_ORIENTATION, 
+				3, 
+				BoardPieceState.STATE_ALIVE, 
+				IdGenerator.getInstance().generateID());
+		
+		defaultBoard.pickBoardLocation(2, 2);
+		BoardPiece replacedPiece = defaultBoard.getLastPick();
+		assertSame(
+				replacedPiece, 
+				defaultBoard.pickByID(replacedPiece.getPieceID()));
+		
+		assertEquals(12, replacedPiece.getPieceID());
+		
+		defaultBoard.addBoardPiece(boardPiece);
+		
+		BoardPiece[] subPieces = boardPiece.getSubPieces();
+		
+		assertSame(
+				subPieces[1], 
+				defaultBoard.pickByID(replacedPiece.getPieceID()));
+		assertNull(defaultBoard.pickByID(-1));
+		assertNull(defaultBoard.pickByID(25));
+		assertNull(defaultBoard.getLastPick());
+		
+		int[] pieceIDs = new int[subPieces.length + 1];
+		
+		for (int i = 0; i < subPieces.length; i++) {
+			
+			assertSame(
+					subPieces[i], 
+					defaultBoard.pickByID(subPieces[i].getPieceID()));
+			assertSame(subPieces[i], defaultBoard.getLastPick());
+			pieceIDs[i] = subPieces[i].getPieceID();
+		}
+		
+		pieceIDs[subPieces.length] = 25;
+		BoardPiece[] pickedPieces = defaultBoard.pickByIDs(pieceIDs);
+		
+		assertEquals(pieceIDs.length, pickedPieces.length);
+		
+		for (int i = 0; i < subPieces.length; i++) {
+			assertSame(subPieces[i], pickedPieces[i]);
+		}
+		
+		assertNull(pickedPieces[subPieces.length]);
+		
+		defaultBoard.removeBoardPiece(boardPiece);
+		
+		for (int i = 0; i < subPieces.length; i++) {
+			
+			BoardPiece pickedPiece = 
+				defaultBoard.pickByID(subPieces[i].getPieceID());
+			
+			assertNotSame(subPieces[i], pickedPiece);
+			assertTrue(((DefaultBoardPiece) pickedPiece).isEmpty());
+		}
+		
+		defaultBoard.pickBoardLocation(2, 2);
+		assertSame(
+				defaultBoard.getLastPick(), 
+				defaultBoard.pickByID(defaultBoard.getLastPick().getPieceID()));
+		
+		pickedPieces = null;
+		pieceIDs = null;
+		subPieces = null;
+		replacedPiece = null;
+		boardPiece = null;
+		defaultBoard = null;
+	}
+	
+	/**
+	 * IDs are handed out by each board from its own range. Piece IDs are the
+	 * location index and group IDs count up from 0, independent of any other
+	 * board.
+	 */
+	public void testBoardScopedIDs() {
+		
+		DefaultBoard defaultBoard = new DefaultBoard(4, 3);
+		DefaultBoard otherBoard = new DefaultBoard(4, 3);
+		
+		for (int w = 0; w < 4; w++) {
+			for (int h = 0; h < 3; h++) {
+				
+				BoardPiece boardPiece = defaultBoard.getBoardPiece(w, h);
+				
+				assertEquals(w * 3 + h, boardPiece.getPieceID());
+				assertEquals(BoardPiece.NO_GROUP, boardPiece.getGroupID());
+			}
+		}
+		
+		assertEquals(0, defaultBoard.generateGroupID());
+		assertEquals(1, defaultBoard.generateGroupID());
+		assertEquals(0, otherBoard.generateGroupID());
+		
+		DefaultBoardPiece boardPiece = new DefaultBoardPiece(
+				0, 
+				1, 
+				BoardPiece.HORIZONTAL_ORIENTATION, 
+				2, 
+				BoardPieceState.STATE_ALIVE, 
+				defaultBoard.generateGroupID());
+		
+		assertEquals(BoardPiece.NO_ID, boardPiece.getPieceID());
+		
+		defaultBoard.addBoardPiece(boardPiece);
+		
+		assertEquals(2, boardPiece.getGroupID());
+		assertEquals(1, boardPiece.getSubPiece(0).getPieceID());
+		assertEquals(4, boardPiece.getSubPiece(1).getPieceID());
+		
+		// A piece outside of any group is only removed from its own location.
+		defaultBoard.removeBoardPiece(defaultBoard.getBoardPiece(3, 2));
+		
+		for (int w = 0; w < 4; w++) {
+			for (int h = 0; h < 3; h++) {
+				
+				if (w == 3 && h == 2) {
+					assertEquals(
+							BoardPieceState.EMPTY, 
+							defaultBoard.getMatchState(w, h));
+				} else {
+					assertTrue(
+							defaultBoard.getMatchState(w, h) != 
+								BoardPieceState.EMPTY);
+				}
+			}
+		}
+		
+		boardPiece = null;
+		otherBoard = null;
+		defaultBoard = null;
+	}
+	
+	/**
+	 * Pieces handed out by the board are views of the board's cell storage.
+	 * Confirm the same location always gives back the same view, changes made
+	 * through a view reach the board, and a view that is replaced keeps the 
+	 * values it had on the board.
+	 */
+	public void testCellViews() {
+		
+		DefaultBoard defaultBoard = new DefaultBoard(4, 4);
+		
+		defaultBoard.pickBoardLocation(1, 1);
+		DefaultBoardPiece cellView = 
+			(DefaultBoardPiece) defaultBoard.getLastPick();
+		int cellPieceID = cellView.getPieceID();
+		
+		assertSame(cellView, defaultBoard.getBoardPieces()[1][1]);
+		assertSame(cellView, defaultBoard.pickByID(cellPieceID));
+		assertFalse(defaultBoard.pickBoardLocation(4, 0));
+		assertFalse(defaultBoard.pickBoardLocation(0, 4));
+		
+		cellView.setState(BoardPieceState.STATE_ALIVE);
+		assertEquals(
+				BoardPerimeterLegend.HINT_TOO_MANY, 
+				defaultBoard.getVerticalLegendHint()[1]);
+		
+		// Replace the location, the old view keeps its values but no longer
+		// changes the board.
+		DefaultBoardPiece boardPiece = new DefaultBoardPiece(
+				1, 
+				1, 
+				BoardPiece.HORIZONTAL_ORIENTATION, 
+				1, 
+				BoardPieceState.STATE_ALIVE, 
+				IdGenerator.getInstance().generateID());
+		
+		defaultBoard.addBoardPiece(boardPiece);
+		
+		assertEquals(BoardPieceState.STATE_ALIVE, cellView.getCurrentState());
+		assertEquals(BoardPieceState.STATE_DEAD, cellView.getMatchState());
+		assertEquals(cellPieceID, cellView.getPieceID());
+		assertSame(boardPiece, defaultBoard.pickByID(cellPieceID));
+		
+		cellView.setState(BoardPieceState.STATE_DEAD);
+		assertEquals(
+				BoardPieceState.STATE_LIMBO, 
+				boardPiece.getCurrentState());
+		
+		boardPiece.setState(BoardPieceState.STATE_ALIVE);
+		assertEquals(
+				BoardPerimeterLegend.HINT_ALL_CORRECT, 
+				defaultBoard.getVerticalLegendHint()[1]);
+		
+		// Sub pieces of a piece placed before they are asked for are the 
+		// views of the locations the piece covers.
+		DefaultBoardPiece longPiece = new DefaultBoardPiece(
+				0, 
+				3, 
+				BoardPiece.HORIZONTAL_ORIENTATION, 
+				3, 
+				BoardPieceState.STATE_ALIVE, 
+				IdGenerator.getInstance().generateID());
+		
+		defaultBoard.addBoardPiece(longPiece);
+		
+		DefaultBoardPiece[] subPieces = longPiece.getSubPieces();
+		
+		for (int i = 0; i < subPieces.length; i++) {
+			
+			defaultBoard.pickBoardLocation(i, 3);
+			assertSame(subPieces[i], defaultBoard.getLastPick());
+			assertEquals(longPiece.getGroupID(), subPieces[i].getGroupID());
+			
+			subPieces[i].setState(BoardPieceState.STATE_ALIVE);
+		}
+		
+		assertTrue(longPiece.isGroupStateCorrect());
+		assertTrue(defaultBoard.isGameOver());
+		
+		// Removing the piece leaves the sub pieces with their last state.
+		defaultBoard.removeBoardPiece(longPiece);
+		
+		for (int i = 0; i < subPieces.length; i++) {
+			
+			assertEquals(
+					BoardPieceState.STATE_ALIVE, 
+					subPieces[i].getCurrentState());
+			
+			defaultBoard.pickBoardLocation(i, 3);
+			assertNotSame(subPieces[i], defaultBoard.getLastPick());
+			assertEquals(
+					BoardPieceState.EMPTY, 
+					((DefaultBoardPiece) defaultBoard.getLastPick(
+							)).getMatchState());
+		}
+		
+		subPieces = null;
+		longPiece = null;
+		boardPiece = null;
+		cellView = null;
+		defaultBoard = null;
+	}
+	
+	/**
+	 * Read the board through the allocation free API and confirm it agrees 
+	 * with the copying API.
+	 */
+	public void testAllocationFreeReads() {
+		
+		final DefaultBoard defaultBoard = new DefaultBoard(5, 4);
+		
+		DefaultBoardPiece longPiece = new DefaultBoardPiece(
+				1, 
+				0, 
+				BoardPiece.VERTICAL_ORIENTATION, 
+				3, 
+				BoardPieceState.STATE_ALIVE, 
+				IdGenerator.getInstance().generateID());
+		
+		defaultBoard.addBoardPiece(longPiece);
+		
+		assertEquals(1, longPiece.getX());
+		assertEquals(0, longPiece.getY());
+		assertEquals(3, longPiece.getSubPieceCount());
+		assertEquals(2, longPiece.getSubPiece(2).getY());
+		assertEquals(0, longPiece.getSubPiece(2).getSubPieceCount());
+		
+		int[] location = new int[2];
+		assertSame(location, longPiece.getSubPiece(1).getLocation(location));
+		assertEquals(1, location[0]);
+		assertEquals(1, location[1]);
+		
+		BoardPiece[][] boardPieces = defaultBoard.getBoardPieces();
+		BoardPiece[][] filledPieces = new BoardPiece[5][4];
+		defaultBoard.getBoardPieces(filledPieces);
+		
+		for (int w = 0; w < 5; w++) {
+			for (int h = 0; h < 4; h++) {
+				
+				assertSame(boardPieces[w][h], filledPieces[w][h]);
+				assertSame(boardPieces[w][h], defaultBoard.getBoardPiece(w, h));
+				assertEquals(
+						((DefaultBoardPiece) boardPieces[w][h]).getMatchState(), 
+						defaultBoard.getMatchState(w, h));
+			}
+		}
+		
+		assertNull(defaultBoard.getBoardPiece(5, 0));
+		assertNull(defaultBoard.getLastPick());
+		
+		final int[] visitCount = new int[1];
+		
+		defaultBoard.forEachCell(new BoardCellVisitor() {
+			
+			@Override
+			public void visitCell(
+					int xPos, 
+					int yPos, 
+					int pieceID, 
+					int groupID, 
+					int matchState, 
+					int currentState) {
+				
+				DefaultBoardPiece boardPiece = (DefaultBoardPiece)
+					defaultBoard.getBoardPiece(xPos, yPos);
+				
+				assertEquals(boardPiece.getPieceID(), pieceID);
+				assertEquals(boardPiece.getGroupID(), groupID);
+				assertEquals(boardPiece.getMatchState(), matchState);
+				assertEquals(boardPiece.getCurrentState(), currentState);
+				
+				visitCount[0]++;
+			}
+		});
+		
+		assertEquals(20, visitCount[0]);
+		
+		BoardPiece[] parentPieces = 
+			new BoardPiece[defaultBoard.getParentTargetPieceCount()];
+		assertEquals(1, defaultBoard.getParentTargetPieces(parentPieces));
+		assertSame(longPiece, parentPieces[0]);
+		
+		int[] verticalLegend = new int[4];
+		int[] horizontalLegend = new int[5];
+		
+		assertTrue(Arrays.equals(
+				defaultBoard.getVerticalLegend(), 
+				defaultBoard.getVerticalLegend(verticalLegend)));
+		assertTrue(Arrays.equals(
+				defaultBoard.getHorizontalLegend(), 
+				defaultBoard.getHorizontalLegend(horizontalLegend)));
+		
+		longPiece = null;
+	}
+	
+	/**
+	 * Once the pieces have been looked at once, reading the board through the 
+	 * allocation free API must not allocate anything. Nothing in the counted 
+	 * section asserts or boxes values.
+	 */
+	public void testReadsDoNotAllocate() {
+		
+		DefaultBoard defaultBoard = new DefaultBoard(10, 10);
+		
+		DefaultBoardPiece longPiece = new DefaultBoardPiece(
+				2, 
+				3, 
+				BoardPiece.HORIZONTAL_ORIENTATION, 
+				4, 
+				BoardPieceState.STATE_ALIVE, 
+				IdGenerator.getInstance().generateID());
+		
+		defaultBoard.addBoardPiece(longPiece);
+		
+		BoardPiece[][] boardPieces = new BoardPiece[10][10];
+		BoardPiece[] parentPieces = new BoardPiece[1];
+		int[] legend = new int[10];
+		int[] location = new int[2];
+		StateCounter stateCounter = new StateCounter();
+		
+		// Warm up, creating the piece views and loading the classes.
+		int checksum = readBoard(
+				defaultBoard, 
+				longPiece, 
+				boardPieces, 
+				parentPieces, 
+				legend, 
+				location, 
+				stateCounter);
+		
+		Debug.startAllocCounting();
+		Debug.resetThreadAllocCount();
+		
+		for (int i = 0; i < 100; i++) {
+			checksum += readBoard(
+					defaultBoard, 
+					longPiece, 
+					boardPieces, 
+					parentPieces, 
+					legend, 
+					location, 
+					stateCounter);
+		}
+		
+		int allocations = Debug.getThreadAllocCount();
+		Debug.stopAllocCounting();
+		
+		assertEquals(0, allocations);
+		assertEquals(101 * readBoard(
+				defaultBoard, 
+				longPiece, 
+				boardPieces, 
+				parentPieces, 
+				legend, 
+				location, 
+				stateCounter), checksum);
+		
+		longPiece = null;
+		defaultBoard = null;
+	}
+	
+	/**
+	 * The number of pieces breaking each win rule is kept up to date as pieces
+	 * change state. Apply random moves and resets and confirm the game over 
+	 * check agrees with a scan of every piece, for every win rule.
+	 */
+	public void testMismatchCountMatchesScan() {
+		
+		int boardWidth = 10;
+		int boardHeight = 10;
+		int[] winRules = new int[] {
+				BoardState.WIN_RULE_ALIVE_MATCH,
+				BoardState.WIN_RULE_DEAD_MATCH,
+				BoardState.WIN_RULE_ALIVE_OR_DEAD_MATCH};
+		
+		DefaultBoard defaultBoard = new DefaultBoard(boardWidth, boardHeight);
+		
+		assertEquals(
+				BoardState.WIN_RULE_ALIVE_MATCH, 
+				defaultBoard.getWinRule());
+		
+		// a a a a d d d d d a
+		// d d d d d d a d d d
+		// d d d d d d a d d d
+		// a d d d d d d d d d
+		// a d a a d d d d e d
+		// d d d d d d d d d d
+		int[][] pieceSetup = new int[][] {
+				{0, 0, BoardPiece.HORIZONTAL_ORIENTATION, 4, 
+					BoardPieceState.STATE_ALIVE},
+				{9, 0, BoardPiece.HORIZONTAL_ORIENTATION, 1, 
+					BoardPieceState.STATE_ALIVE},
+				{6, 1, BoardPiece.VERTICAL_ORIENTATION, 2, 
+					BoardPieceState.STATE_ALIVE},
+				{0, 3, BoardPiece.VERTICAL_ORIENTATION, 2, 
+					BoardPieceState.STATE_ALIVE},
+				{2, 4, BoardPiece.HORIZONTAL_ORIENTATION, 2, 
+					BoardPieceState.STATE_ALIVE},
+				{8, 4, BoardPiece.HORIZONTAL_ORIENTATION, 1, 
+					BoardPieceState.EMPTY}};
+		
+		for (int i = 0; i < pieceSetup.length; i++) {
+			
+			defaultBoard.addBoardPiece(new DefaultBoardPiece(
+					pieceSetup[i][0], 
+					pieceSetup[i][1], 
+					pieceSetup[i][2], 
+					pieceSetup[i][3], 
+					pieceSetup[i][4], 
+					IdGenerator.getInstance().generateID()));
+		}
+		
+		assertGameOverMatchesScan(defaultBoard, winRules);
+		
+		Random random = new Random(42);
+		int[] states = new int[] {
+				BoardPieceState.STATE_ALIVE,
+				BoardPieceState.STATE_DEAD,
+				BoardPieceState.STATE_LIMBO};
+		DefaultBoardPiece piece;
+		
+		for (int i = 0; i < 2000; i++) {
+			
+			defaultBoard.pickBoardLocation(
+					random.nextInt(boardWidth), 
+					random.nextInt(boardHeight));
+			piece = (DefaultBoardPiece) defaultBoard.getLastPick();
+			
+			// Mostly player moves, with the odd direct state change and
+			// reset thrown in.
+			int move = random.nextInt(20);
+			
+			if (move == 0) {
+				defaultBoard.resetBoard();
+			} else if (move < 5) {
+				piece.setState(states[random.nextInt(states.length)]);
+			} else {
+				piece.setNextState();
+			}
+			
+			assertGameOverMatchesScan(defaultBoard, winRules);
+		}
+		
+		// Set every piece to its match state, which meets every win rule.
+		for (int w = 0; w < boardWidth; w++) {
+			for (int h = 0; h < boardHeight; h++) {
+				
+				defaultBoard.pickBoardLocation(w, h);
+				piece = (DefaultBoardPiece) defaultBoard.getLastPick();
+				piece.setState(piece.getMatchState());
+			}
+		}
+		
+		for (int i = 0; i < winRules.length; i++) {
+			
+			defaultBoard.setWinRule(winRules[i]);
+			assertTrue(defaultBoard.isGameOver());
+		}
+		
+		assertGameOverMatchesScan(defaultBoard, winRules);
+		
+		random = null;
+		piece = null;
+		pieceSetup = null;
+		defaultBoard = null;
+	}
+	
+	/**
+	 * Hints are kept up to date with row and column counts as pieces change
+	 * state. Cycle random pieces through their states, reset the board part
+	 * way through, and confirm the hints always match hints worked out by 
+	 * scanning the pieces.
+	 */
+	public void testIncrementalHintsMatchScan() {
+		
+		int boardWidth = 8;
+		int boardHeight = 7;
+		
+		DefaultBoard defaultBoard = new DefaultBoard(boardWidth, boardHeight);
+		
+		// d a a a d d d d
+		// d d d d d d d a
+		// a d d d e d d a
+		// d d d d d d d d
+		// d d a d d d d d
+		// d d a d d a a d
+		// d d a d d d d d
+		int[][] pieceSetup = new int[][] {
+				{1, 0, BoardPiece.HORIZONTAL_ORIENTATION, 3},
+				{7, 1, BoardPiece.VERTICAL_ORIENTATION, 2},
+				{0, 2, BoardPiece.HORIZONTAL_ORIENTATION, 1},
+				{2, 4, BoardPiece.VERTICAL_ORIENTATION, 3},
+				{5, 5, BoardPiece.HORIZONTAL_ORIENTATION, 2}};
+		
+		for (int i = 0; i < pieceSetup.length; i++) {
+			
+			defaultBoard.addBoardPiece(new DefaultBoardPiece(
+					pieceSetup[i][0], 
+					pieceSetup[i][1], 
+					pieceSetup[i][2], 
+					pieceSetup[i][3], 
+					BoardPieceState.STATE_ALIVE, 
+					IdGenerator.getInstance().generateID()));
+		}
+		
+		DefaultBoardPiece emptyPiece = new DefaultBoardPiece(
+				4, 
+				2, 
+				BoardPiece.HORIZONTAL_ORIENTATION, 
+				1, 
+				BoardPieceState.EMPTY, 
+				IdGenerator.getInstance().generateID());
+		emptyPiece.setDefaultState(BoardPieceState.EMPTY);
+		defaultBoard.addBoardPiece(emptyPiece);
+		
+		// Give one piece away as started on so the reset has a non limbo
+		// state to return to.
+		defaultBoard.pickBoardLocation(2, 0);
+		((DefaultBoardPiece)defaultBoard.getLastPick()).setDefaultState(
+				BoardPieceState.STATE_ALIVE);
+		
+		assertHintsMatchScan(defaultBoard);
+		
+		Random random = new Random(7);
+		int[] verticalLegendHint = new int[boardHeight];
+		int[] horizontalLegendHint = new int[boardWidth];
+		
+		for (int i = 0; i < 1000; i++) {
+			
+			defaultBoard.pickBoardLocation(
+					random.nextInt(boardWidth), 
+					random.nextInt(boardHeight));
+			((DefaultBoardPiece)defaultBoard.getLastPick()).setNextState();
+			
+			if (i == 500) {
+				defaultBoard.resetBoard();
+			}
+			
+			assertHintsMatchScan(defaultBoard);
+			
+			// The fill in versions must agree with the allocating versions.
+			defaultBoard.getVerticalLegendHint(verticalLegendHint);
+			defaultBoard.getHorizontalLegendHint(horizontalLegendHint);
+			
+			int[] verticalCheck = defaultBoard.getVerticalLegendHint();
+			int[] horizontalCheck = defaultBoard.getHorizontalLegendHint();
+			
+			for (int h = 0; h < boardHeight; h++) {
+				assertEquals(verticalCheck[h], verticalLegendHint[h]);
+			}
+			
+			for (int w = 0; w < boardWidth; w++) {
+				assertEquals(horizontalCheck[w], horizontalLegendHint[w]);
+			}
+		}
+		
+		random = null;
+		emptyPiece = null;
+		pieceSetup = null;
+		defaultBoard = null;
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Read the board through each allocation free call.
+	 * 
+	 * @param board Board to read
+	 * @param piece Piece with sub pieces to read
+	 * @param boardPieces Array of [width][height] to fill
+	 * @param parentPieces Array to fill with the parent target pieces
+	 * @param legend Array of at least width and height entries to fill
+	 * @param location Array of 2 entries to fill
+	 * @param stateCounter Visitor to count states with
+	 * @return Checksum of the values read
+	 */
+	private int readBoard(
+			DefaultBoard board, 
+			DefaultBoardPiece piece,
+			BoardPiece[][] boardPieces,
+			BoardPiece[] parentPieces,
+			int[] legend,
+			int[] location,
+			StateCounter stateCounter) {
+		
+		int checksum = 0;
+		
+		board.getBoardPieces(boardPieces);
+		checksum += board.getParentTargetPieces(parentPieces);
+		
+		board.getVerticalLegend(legend);
+		checksum += legend[3];
+		board.getHorizontalLegend(legend);
+		checksum += legend[2];
+		board.getVerticalLegendHint(legend);
+		checksum += legend[3];
+		
+		for (int i = 0; i < piece.getSubPieceCount(); i++) {
+			
+			piece.getSubPiece(i).getLocation(location);
+			checksum += location[0] + location[1];
+			checksum += board.getBoardPiece(location[0], location[1]).getX();
+			checksum += board.getMatchState(location[0], location[1]);
+		}
+		
+		stateCounter.aliveCount = 0;
+		board.forEachCell(stateCounter);
+		checksum += stateCounter.aliveCount;
+		
+		return checksum;
+	}
+	
+	/**
+	 * Confirm the game over check of the board matches the result of scanning 
+	 * every piece, for each of the win rules. The board is left set to the 
+	 * last win rule.
+	 * 
+	 * @param board Board to check
+	 * @param winRules BoardState win rules to check
+	 */
+	private void assertGameOverMatchesScan(DefaultBoard board, int[] winRules) {
+		
+		BoardPiece[][] boardPieces = board.getBoardPieces();
+		boolean aliveMatch = true;
+		boolean deadMatch = true;
+		
+		for (int w = 0; w < board.getWidth(); w++) {
+			for (int h = 0; h < board.getHeight(); h++) {
+				
+				BoardPieceState piece = (BoardPieceState) boardPieces[w][h];
+				int matchState = piece.getMatchState();
+				int currentState = piece.getCurrentState();
+				
+				if (matchState == BoardPieceState.EMPTY) {
+					continue;
+				}
+				
+				if (matchState == BoardPieceState.STATE_ALIVE && 
+						currentState != BoardPieceState.STATE_ALIVE) {
+					aliveMatch = false;
+				} else if (matchState != BoardPieceState.STATE_ALIVE && 
+						currentState == BoardPieceState.STATE_ALIVE) {
+					aliveMatch = false;
+				}
+				
+				if (matchState == BoardPieceState.STATE_DEAD && 
+						currentState != BoardPieceState.STATE_DEAD) {
+					deadMatch = false;
+				} else if (matchState != BoardPieceState.STATE_DEAD && 
+						currentState == BoardPieceState.STATE_DEAD) {
+					deadMatch = false;
+				}
+			}
+		}
+		
+		for (int i = 0; i < winRules.length; i++) {
+			
+			board.setWinRule(winRules[i]);
+			
+			switch (winRules[i]) {
+			case BoardState.WIN_RULE_DEAD_MATCH:
+				assertEquals(deadMatch, board.isGameOver());
+				break;
+				
+			case BoardState.WIN_RULE_ALIVE_OR_DEAD_MATCH:
+				assertEquals(aliveMatch || deadMatch, board.isGameOver());
+				break;
+				
+			default:
+				assertEquals(aliveMatch, board.isGameOver());
+				break;
+			}
+		}
+	}
+	
+	/**
+	 * Confirm the legends and hints reported by the board match the values
+	 * worked out by scanning every piece on the board.
+	 * 
+	 * @param board Board to check
+	 */
+	private void assertHintsMatchScan(DefaultBoard board) {
+		
+		BoardPiece[][] boardPieces = board.getBoardPieces();
+		int[] verticalLegend = board.getVerticalLegend();
+		int[] horizontalLegend = board.getHorizontalLegend();
+		int[] verticalHint = board.getVerticalLegendHint();
+		int[] horizontalHint = board.getHorizontalLegendHint();
+		
+		for (int h = 0; h < board.getHeight(); h++) {
+			
+			int legend = 0;
+			int alive = 0;
+			boolean correctLocations = true;
+			
+			for (int w = 0; w < board.getWidth(); w++) {
+				
+				BoardPieceState piece = (BoardPieceState) boardPieces[w][h];
+				
+				if (piece.getMatchState() == BoardPieceState.STATE_ALIVE) {
+					legend++;
+				}
+				
+				if (piece.getCurrentState() == BoardPieceState.STATE_ALIVE) {
+					
+					alive++;
+					
+					if (!piece.isStateCorrect()) {
+						correctLocations = false;
+					}
+				}
+			}
+			
+			assertEquals(legend, verticalLegend[h]);
+			assertEquals(
+					scanHint(legend, alive, correctLocations), 
+					verticalHint[h]);
+		}
+		
+		for (int w = 0; w < board.getWidth(); w++) {
+			
+			int legend = 0;
+			int alive = 0;
+			boolean correctLocations = true;
+			
+			for (int h = 0; h < board.getHeight(); h++) {
+				
+				BoardPieceState piece = (BoardPieceState) boardPieces[w][h];
+				
+				if (piece.getMatchState() == BoardPieceState.STATE_ALIVE) {
+					legend++;
+				}
+				
+				if (piece.getCurrentState() == BoardPieceState.STATE_ALIVE) {
+					
+					alive++;
+					
+					if (!piece.isStateCorrect()) {
+						correctLocations = false;
+					}
+				}
+			}
+			
+			assertEquals(legend, horizontalLegend[w]);
+			assertEquals(
+					scanHint(legend, alive, correctLocations), 
+					horizontalHint[w]);
+		}
+	}
+	
+	/**
+	 * Work out a row or column hint the way the full board scan does.
+	 * 
+	 * @param legend Number of pieces to be discovered
+	 * @param alive Number of pieces set to alive
+	 * @param correctLocations True if every alive piece should be alive
+	 * @return BoardPerimeterLegend hint value
+	 */
+	private int scanHint(int legend, int alive, boolean correctLocations) {
+		
+		if (legend == alive && correctLocations) {
+			return BoardPerimeterLegend.HINT_ALL_CORRECT;
+		} else if (legend == alive) {
+			return BoardPerimeterLegend.HINT_ALMOST_CORRECT;
+		} else if (legend > alive) {
+			return BoardPerimeterLegend.HINT_TOO_FEW;
+		}
+		
+		return BoardPerimeterLegend.HINT_TOO_MANY;
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private classes
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Counts the locations that must be matched to alive.
+	 */
+	private static class StateCounter implements BoardCellVisitor {
+		
+		/** Number of locations visited that must be matched to alive. */
+		int aliveCount;
+		
+		/* (non-Javadoc)
+		 * @see com.asbtechnologies.android.tiluxe.board.BoardCellVisitor#visitCell(int, int, int, int, int, int)
+		 */
+		@Override
+		public void visitCell(
+				int xPos, 
+				int yPos, 
+				int pieceID, 
+				int groupID, 
+				int matchState, 
+				int currentState) {
+			
+			if (matchState == BoardPieceState.STATE_ALIVE) {
+				aliveCount++;
+			}
+		}
+	}
 }
@@ -0,0 +1,250 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.test;
+
+// External Imports
+import java.util.Random;
+
+import android.util.Log;
+
+import com.asbtechnologies.android.tiluxe.board.BoardPiece;
+import com.asbtechnologies.android.tiluxe.board.BoardPieceState;
+import com.asbtechnologies.android.tiluxe.board.ContradictionChecker;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoard;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoardPiece;
+
+import junit.framework.TestCase;
+
+// Internal Imports
+
+/**
+ * Unit tests for ContradictionChecker.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class TiluxeContradictionCheckerTest extends TestCase {
+	
+	/**
+	 * Default constructor.
+	 * 
+	 * @param name
+	 */
+	public TiluxeContradictionCheckerTest(String name) {
+		super(name);
+	}
+	
+	/**
+	 * Each rule puts the marks that break it in conflict, and taking the
+	 * mark back clears them.
+	 */
+	public void testRules() {
+		
+		DefaultBoard board = buildBoard();
+		ContradictionChecker checker = new ContradictionChecker(board);
+		board.registerMoveListener(checker);
+		
+		assertEquals(0, checker.getConflictCount());
+		
+		// Row 1 has no targets.
+		mark(board, 1, 1, BoardPieceState.STATE_ALIVE);
+		
+		assertTrue(checker.isConflicted(cell(1, 1)));
+		assertEquals(1, checker.getChangedCount());
+		assertEquals(cell(1, 1), checker.getChangedCell(0));
+		
+		mark(board, 1, 1, BoardPieceState.STATE_LIMBO);
+		
+		assertEquals(0, checker.getConflictCount());
+		assertEquals(1, checker.getChangedCount());
+		
+		// Targets touching corner to corner, each allowed by the legends.
+		mark(board, 2, 2, BoardPieceState.STATE_ALIVE);
+		
+		assertEquals(0, checker.getChangedCount());
+		
+		mark(board, 1, 3, BoardPieceState.STATE_ALIVE);
+		
+		assertTrue(checker.isConflicted(cell(2, 2)));
+		assertTrue(checker.isConflicted(cell(1, 3)));
+		assertEquals(2, checker.getChangedCount());
+		
+		mark(board, 2, 2, BoardPieceState.STATE_LIMBO);
+		mark(board, 1, 3, BoardPieceState.STATE_LIMBO);
+		
+		assertEquals(0, checker.getConflictCount());
+		
+		// A bend, whose ends also touch corner to corner.
+		mark(board, 0, 3, BoardPieceState.STATE_ALIVE);
+		mark(board, 0, 4, BoardPieceState.STATE_ALIVE);
+		
+		assertEquals(0, checker.getConflictCount());
+		
+		mark(board, 1, 4, BoardPieceState.STATE_ALIVE);
+		
+		assertEquals(3, checker.getConflictCount());
+		assertTrue(checker.isConflicted(cell(0, 4)));
+		
+		mark(board, 1, 4, BoardPieceState.STATE_LIMBO);
+		
+		assertEquals(0, checker.getConflictCount());
+		
+		mark(board, 0, 3, BoardPieceState.STATE_LIMBO);
+		mark(board, 0, 4, BoardPieceState.STATE_LIMBO);
+		
+		// A run longer than the longest piece, in a row with room for it.
+		mark(board, 0, 0, BoardPieceState.STATE_ALIVE);
+		mark(board, 1, 0, BoardPieceState.STATE_ALIVE);
+		mark(board, 2, 0, BoardPieceState.STATE_ALIVE);
+		
+		assertEquals(0, checker.getConflictCount());
+		
+		mark(board, 3, 0, BoardPieceState.STATE_ALIVE);
+		
+		assertEquals(4, checker.getConflictCount());
+		
+		mark(board, 3, 0, BoardPieceState.STATE_LIMBO);
+		
+		assertEquals(0, checker.getConflictCount());
+		assertEquals(4, checker.getChangedCount());
+		
+		// Too many empty marks for row 2 to meet its legend.
+		for (int x = 0; x < 6; x++) {
+			
+			if (x != 4) {
+				mark(board, x, 2, BoardPieceState.STATE_DEAD);
+			}
+		}
+		
+		assertEquals(0, checker.getConflictCount());
+		
+		mark(board, 4, 2, BoardPieceState.STATE_DEAD);
+		
+		assertEquals(6, checker.getConflictCount());
+		
+		int[] conflictedCells = new int[checker.getConflictCount()];
+		
+		assertEquals(6, checker.getConflictedCells(conflictedCells));
+		
+		for (int i = 0; i < conflictedCells.length; i++) {
+			assertEquals(2, conflictedCells[i] % 6);
+		}
+		
+		board.removeMoveListener(checker);
+	}
+	
+	/**
+	 * Checking only the cells a move touches keeps the same conflicts as
+	 * checking the whole board from scratch.
+	 */
+	public void testIncrementalMatchesFull() {
+		
+		DefaultBoard board = TiluxeTestBoards.generateBoard(11L, true);
+		ContradictionChecker checker = new ContradictionChecker(board);
+		board.registerMoveListener(checker);
+		
+		Random random = new Random(13);
+		int moves = 2000;
+		long moveNanos = 0;
+		int maxConflicts = 0;
+		
+		for (int i = 0; i < moves; i++) {
+			
+			DefaultBoardPiece piece = (DefaultBoardPiece) board.getBoardPiece(
+					random.nextInt(10), random.nextInt(10));
+			
+			long startTime = System.nanoTime();
+			piece.setNextState();
+			moveNanos += System.nanoTime() - startTime;
+			
+			maxConflicts = Math.max(maxConflicts, checker.getConflictCount());
+			
+			if (i % 50 == 0) {
+				
+				ContradictionChecker fullChecker =
+					new ContradictionChecker(board);
+				
+				assertEquals(
+						fullChecker.getConflictCount(),
+						checker.getConflictCount());
+				
+				for (int c = 0; c < 100; c++) {
+					assertEquals(
+							fullChecker.isConflicted(c),
+							checker.isConflicted(c));
+				}
+			}
+		}
+		
+		Log.i("TiluxeContradictionCheckerTest",
+				"Moves with checking " + (moveNanos / moves) +
+				" ns, most conflicts " + maxConflicts);
+		
+		assertTrue(maxConflicts > 0);
+		
+		board.removeMoveListener(checker);
+	}
+	
+	/**
+	 * Build a 6x6 board with a length 3 and a length 1 piece in row 0, a
+	 * length 2 piece down from 0,3 and length 1 pieces at 4,2 and 2,4. The
+	 * row legends are 4, 0, 1, 1, 2, 0 and the column legends 3, 1, 2, 0, 2,
+	 * 0.
+	 * 
+	 * @return Board
+	 */
+	private DefaultBoard buildBoard() {
+		
+		DefaultBoard board = new DefaultBoard(6, 6);
+		
+		board.addBoardPiece(new DefaultBoardPiece(
+				0, 0, BoardPiece.HORIZONTAL_ORIENTATION, 3,
+				BoardPieceState.STATE_ALIVE, board.generateGroupID()));
+		board.addBoardPiece(new DefaultBoardPiece(
+				4, 0, BoardPiece.HORIZONTAL_ORIENTATION, 1,
+				BoardPieceState.STATE_ALIVE, board.generateGroupID()));
+		board.addBoardPiece(new DefaultBoardPiece(
+				0, 3, BoardPiece.VERTICAL_ORIENTATION, 2,
+				BoardPieceState.STATE_ALIVE, board.generateGroupID()));
+		board.addBoardPiece(new DefaultBoardPiece(
+				4, 2, BoardPiece.HORIZONTAL_ORIENTATION, 1,
+				BoardPieceState.STATE_ALIVE, board.generateGroupID()));
+		board.addBoardPiece(new DefaultBoardPiece(
+				2, 4, BoardPiece.HORIZONTAL_ORIENTATION, 1,
+				BoardPieceState.STATE_ALIVE, board.generateGroupID()));
+		
+		return board;
+	}
+	
+	/**
+	 * Set the mark on a location of the 6x6 board.
+	 * 
+	 * @param board Board
+	 * @param xPos Horizontal column number
+	 * @param yPos Vertical row number
+	 * @param state BoardPieceState to mark
+	 */
+	private void mark(DefaultBoard board, int xPos, int yPos, int state) {
+		
+		((DefaultBoardPiece) board.getBoardPiece(xPos, yPos)).setState(state);
+	}
+	
+	/**
+	 * Get the index of a location of the 6x6 board.
+	 * 
+	 * @param xPos Horizontal column number
+	 * @param yPos Vertical row number
+	 * @return Cell index
+	 */
+	private int cell(int xPos, int yPos) {
+		
+		return xPos * 6 + yPos;
+	}
+}
@@ -0,0 +1,214 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.test;
+
+// External Imports
+import java.util.Random;
+
+import android.util.Log;
+
+import com.asbtechnologies.android.tiluxe.board.Board;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoard;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoardGenerator;
+import com.asbtechnologies.android.tiluxe.board.solver.DifficultyEstimator;
+import com.asbtechnologies.android.tiluxe.board.solver.Puzzle;
+
+import junit.framework.TestCase;
+
+// Internal Imports
+
+/**
+ * Unit tests for DifficultyEstimator.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class TiluxeDifficultyEstimatorTest extends TestCase {
+	
+	/** Piece lengths of a 10x10 board. */
+	private static final int[] PIECE_LENGTHS = {4, 3, 3, 2, 2, 2, 1, 1, 1, 1};
+	
+	/**
+	 * Default constructor.
+	 * 
+	 * @param name
+	 */
+	public TiluxeDifficultyEstimatorTest(String name) {
+		super(name);
+	}
+	
+	/**
+	 * A puzzle the simple rules finish is EASY, and one with two solutions
+	 * is not graded.
+	 */
+	public void testEasyAndUnrated() {
+		
+		DifficultyEstimator estimator = new DifficultyEstimator();
+		
+		// The row legend places the only piece straight away.
+		Puzzle puzzle = new Puzzle(
+				4,
+				4,
+				new int[] {0, 4, 0, 0},
+				new int[] {1, 1, 1, 1},
+				new int[] {4});
+		
+		int score = estimator.estimate(puzzle);
+		
+		assertEquals(DifficultyEstimator.EASY, estimator.getLevel());
+		assertEquals(0, estimator.getFitRoundCount());
+		assertEquals(0, estimator.getGuessCount());
+		assertEquals(0, estimator.getMaxDepth());
+		assertEquals(estimator.getRoundCount(), score);
+		assertTrue(score > 0);
+		
+		// The puzzle passed in is left as it was.
+		assertEquals(0, puzzle.getKnownCount());
+		
+		// Pieces at 0,0 and 2,2 or at 2,0 and 0,2.
+		puzzle = new Puzzle(
+				4,
+				4,
+				new int[] {1, 0, 1, 0},
+				new int[] {1, 0, 1, 0},
+				new int[] {1, 1});
+		
+		assertEquals(DifficultyEstimator.UNRATED, estimator.estimate(puzzle));
+		assertEquals(DifficultyEstimator.UNRATED, estimator.getLevel());
+		
+		// Revealing one location settles it.
+		puzzle.setCell(0, 0, Puzzle.SHIP);
+		
+		assertTrue(estimator.estimate(puzzle) > 0);
+		assertTrue(estimator.getLevel() != DifficultyEstimator.UNRATED);
+	}
+	
+	/**
+	 * Generated boards with one solution are all graded, their level agrees
+	 * with the work done, and giving away fewer tiles makes them harder.
+	 */
+	public void testGeneratedBoards() {
+		
+		DefaultBoardGenerator generator =
+			new DefaultBoardGenerator(new Random(20110));
+		generator.setUniqueSolution(true);
+		
+		DifficultyEstimator estimator = new DifficultyEstimator();
+		
+		long easyTotal = 0;
+		long hardTotal = 0;
+		int[] levelCounts = new int[3];
+		
+		for (int i = 0; i < 100; i++) {
+			
+			easyTotal += checkEstimate(
+					estimator,
+					generator.generateCustomBoard(
+							10, 10, PIECE_LENGTHS.clone(), 21, 9),
+					levelCounts);
+			hardTotal += checkEstimate(
+					estimator,
+					generator.generateCustomBoard(
+							10, 10, PIECE_LENGTHS.clone(), 0, 0),
+					levelCounts);
+		}
+		
+		Log.i("TiluxeDifficultyEstimatorTest",
+				"Mean score, easy spec " + (easyTotal / 100) +
+				", hard spec " + (hardTotal / 100) + ". Levels " +
+				levelCounts[DifficultyEstimator.EASY] + " easy, " +
+				levelCounts[DifficultyEstimator.MEDIUM] + " medium, " +
+				levelCounts[DifficultyEstimator.HARD] + " hard.");
+		
+		assertTrue(hardTotal > easyTotal);
+		assertTrue(levelCounts[DifficultyEstimator.EASY] > 0);
+		assertTrue(levelCounts[DifficultyEstimator.HARD] > 0);
+	}
+	
+	/**
+	 * Grading keeps up with the generation pipeline, thousands of boards a
+	 * second.
+	 */
+	public void testThroughput() {
+		
+		DefaultBoardGenerator generator =
+			new DefaultBoardGenerator(new Random(20111));
+		generator.setUniqueSolution(true);
+		
+		Puzzle[] puzzles = new Puzzle[50];
+		
+		for (int i = 0; i < puzzles.length; i++) {
+			puzzles[i] = Puzzle.fromBoard((DefaultBoard)
+					generator.generateCustomBoard(
+							10, 10, PIECE_LENGTHS.clone(), 15, 7));
+		}
+		
+		DifficultyEstimator estimator = new DifficultyEstimator();
+		int rounds = 20;
+		
+		// Warm up before timing.
+		for (int i = 0; i < puzzles.length; i++) {
+			estimator.estimate(puzzles[i]);
+		}
+		
+		long startTime = System.nanoTime();
+		
+		for (int r = 0; r < rounds; r++) {
+			for (int i = 0; i < puzzles.length; i++) {
+				
+				assertTrue(estimator.estimate(puzzles[i]) !=
+					DifficultyEstimator.UNRATED);
+			}
+		}
+		
+		long elapsed = System.nanoTime() - startTime;
+		long perSecond =
+			(long) rounds * puzzles.length * 1000000000L / Math.max(1, elapsed);
+		
+		Log.i("TiluxeDifficultyEstimatorTest",
+				"Graded " + perSecond + " 10x10 boards per second.");
+	}
+	
+	/**
+	 * Grade a generated board and check the result agrees with the work
+	 * done.
+	 * 
+	 * @param estimator Estimator to grade with
+	 * @param board Board with one solution
+	 * @param levelCounts Number of boards at each level, updated
+	 * @return Score
+	 */
+	private int checkEstimate(
+			DifficultyEstimator estimator,
+			Board board,
+			int[] levelCounts) {
+		
+		int score = estimator.estimate((DefaultBoard) board);
+		int level = estimator.getLevel();
+		
+		assertTrue(score > 0);
+		assertTrue(score >= estimator.getRoundCount());
+		
+		if (estimator.getGuessCount() > 0) {
+			
+			assertEquals(DifficultyEstimator.HARD, level);
+			assertTrue(estimator.getMaxDepth() > 0);
+			
+		} else if (estimator.getFitRoundCount() > 0) {
+			assertEquals(DifficultyEstimator.MEDIUM, level);
+		} else {
+			assertEquals(DifficultyEstimator.EASY, level);
+		}
+		
+		levelCounts[level]++;
+		
+		return score;
+	}
+}
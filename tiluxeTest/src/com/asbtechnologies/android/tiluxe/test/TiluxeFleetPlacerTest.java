@@ -0,0 +1,245 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.test;
+
+// External Imports
+import java.util.Random;
+
+import com.asbtechnologies.android.tiluxe.board.BoardPiece;
+import com.asbtechnologies.android.tiluxe.board.FleetPlacer;
+
+import junit.framework.TestCase;
+
+// Internal Imports
+
+/**
+ * Unit tests for FleetPlacer.
+ *
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class TiluxeFleetPlacerTest extends TestCase {
+	
+	/**
+	 * Default constructor.
+	 *
+	 * @param name
+	 */
+	public TiluxeFleetPlacerTest(String name) {
+		super(name);
+	}
+	
+	/**
+	 * Place the default fleet many times and confirm every placement is on
+	 * the board with no two pieces touching.
+	 */
+	public void testPlacementsAreLegal() {
+		
+		int[] pieceLengths = new int[] {4, 3, 3, 2, 2, 2, 1, 1, 1, 1};
+		FleetPlacer fleetPlacer = new FleetPlacer(10, 10);
+		Random random = new Random(11);
+		
+		for (int i = 0; i < 500; i++) {
+			
+			assertTrue(fleetPlacer.placeFleet(pieceLengths, random));
+			assertLegalPlacement(fleetPlacer, pieceLengths, 10, 10);
+		}
+		
+		// The lengths passed in are left in their original order.
+		assertEquals(4, pieceLengths[0]);
+		assertEquals(1, pieceLengths[9]);
+	}
+	
+	/**
+	 * Fleets that only just fit are found by backing up rather than failing.
+	 */
+	public void testDenseFleetsArePlaced() {
+		
+		Random random = new Random(5);
+		
+		// Only the four corners can take a piece.
+		int[] corners = new int[] {1, 1, 1, 1};
+		FleetPlacer fleetPlacer = new FleetPlacer(3, 3);
+		
+		for (int i = 0; i < 50; i++) {
+			
+			assertTrue(fleetPlacer.placeFleet(corners, random));
+			assertLegalPlacement(fleetPlacer, corners, 3, 3);
+		}
+		
+		// Three full length pieces on every other row or column.
+		int[] stripes = new int[] {5, 5, 5};
+		fleetPlacer = new FleetPlacer(5, 5);
+		
+		for (int i = 0; i < 50; i++) {
+			
+			assertTrue(fleetPlacer.placeFleet(stripes, random));
+			assertLegalPlacement(fleetPlacer, stripes, 5, 5);
+		}
+		
+		int[] denseFleet = new int[] {5, 4, 4, 3, 3, 3, 2, 2, 2, 2, 1, 1, 1};
+		fleetPlacer = new FleetPlacer(10, 10);
+		
+		for (int i = 0; i < 50; i++) {
+			
+			assertTrue(fleetPlacer.placeFleet(denseFleet, random));
+			assertLegalPlacement(fleetPlacer, denseFleet, 10, 10);
+		}
+	}
+	
+	/**
+	 * A fleet that fits is placed from every seed, even when the first 
+	 * searches run out of nodes.
+	 */
+	public void testFittingFleetIsPlacedFromEverySeed() {
+		
+		int[] pieceLengths = new int[] {2, 4, 2, 3, 1, 5, 1, 4, 2, 2, 2};
+		FleetPlacer fleetPlacer = new FleetPlacer(8, 8);
+		
+		assertTrue(fleetPlacer.canFit(pieceLengths));
+		
+		for (long seed = 0; seed < 20; seed++) {
+			
+			assertTrue(fleetPlacer.placeFleet(pieceLengths, new Random(seed)));
+			assertLegalPlacement(fleetPlacer, pieceLengths, 8, 8);
+		}
+	}
+	
+	/**
+	 * Fleets that can not fit fail without retrying forever.
+	 */
+	public void testImpossibleFleetsFail() {
+		
+		Random random = new Random(3);
+		FleetPlacer fleetPlacer = new FleetPlacer(3, 3);
+		
+		assertFalse(fleetPlacer.canFit(new int[] {1, 1, 1, 1, 1}));
+		assertFalse(fleetPlacer.placeFleet(new int[] {1, 1, 1, 1, 1}, random));
+		assertFalse(fleetPlacer.placeFleet(new int[] {4}, random));
+		assertFalse(fleetPlacer.placeFleet(new int[] {0}, random));
+		
+		// Passes the area check, but the search has to rule it out.
+		assertTrue(fleetPlacer.canFit(new int[] {2, 2, 1}));
+		assertFalse(fleetPlacer.placeFleet(new int[] {2, 2, 1}, random));
+		
+		try {
+			new FleetPlacer(FleetPlacer.MAX_DIMENSION + 1, 10);
+			fail("Board wider than MAX_DIMENSION should be refused.");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+	}
+	
+	/**
+	 * A dense fleet that passes the area check but can not fit fails in
+	 * bounded time, and the same fleet two pieces short is still placed.
+	 */
+	public void testUnfittableDenseFleetFailsQuickly() {
+		
+		// At most 25 pieces of length 1 fit on a 10x10 board, one in each 2x2
+		// square.
+		int[] singles = new int[26];
+		
+		for (int i = 0; i < singles.length; i++) {
+			singles[i] = 1;
+		}
+		
+		FleetPlacer fleetPlacer = new FleetPlacer(10, 10);
+		
+		assertTrue(fleetPlacer.canFit(singles));
+		
+		long startTime = System.nanoTime();
+		
+		assertFalse(fleetPlacer.placeFleet(singles, new Random(7)));
+		assertTrue(System.nanoTime() - startTime < 5000000000L);
+		
+		int[] fitting = new int[24];
+		System.arraycopy(singles, 0, fitting, 0, fitting.length);
+		
+		startTime = System.nanoTime();
+		
+		assertTrue(fleetPlacer.placeFleet(fitting, new Random(7)));
+		assertTrue(System.nanoTime() - startTime < 5000000000L);
+		assertLegalPlacement(fleetPlacer, fitting, 10, 10);
+	}
+	
+	/**
+	 * The largest supported board places a large fleet.
+	 */
+	public void testLargeBoard() {
+		
+		int dimension = FleetPlacer.MAX_DIMENSION;
+		int[] pieceLengths = new int[200];
+		
+		for (int i = 0; i < pieceLengths.length; i++) {
+			pieceLengths[i] = 1 + i % 6;
+		}
+		
+		FleetPlacer fleetPlacer = new FleetPlacer(dimension, dimension);
+		
+		assertTrue(fleetPlacer.placeFleet(pieceLengths, new Random(9)));
+		assertLegalPlacement(fleetPlacer, pieceLengths, dimension, dimension);
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Confirm the placed pieces are on the board and that no two pieces touch.
+	 *
+	 * @param fleetPlacer Placer holding the placements
+	 * @param pieceLengths Lengths of the placed pieces
+	 * @param boardWidth Width of the board
+	 * @param boardHeight Height of the board
+	 */
+	private void assertLegalPlacement(
+			FleetPlacer fleetPlacer,
+			int[] pieceLengths,
+			int boardWidth,
+			int boardHeight) {
+		
+		int[][] owner = new int[boardWidth][boardHeight];
+		
+		for (int i = 0; i < pieceLengths.length; i++) {
+			
+			for (int l = 0; l < pieceLengths[i]; l++) {
+				
+				int x = fleetPlacer.getX(i);
+				int y = fleetPlacer.getY(i);
+				
+				if (fleetPlacer.getOrientation(i) ==
+					BoardPiece.HORIZONTAL_ORIENTATION) {
+					x += l;
+				} else {
+					y += l;
+				}
+				
+				assertTrue(x >= 0 && x < boardWidth);
+				assertTrue(y >= 0 && y < boardHeight);
+				
+				// No other piece may be on or next to the location.
+				for (int w = x - 1; w <= x + 1; w++) {
+					for (int h = y - 1; h <= y + 1; h++) {
+						
+						if (w >= 0 && w < boardWidth &&
+								h >= 0 && h < boardHeight) {
+							
+							assertTrue(
+									owner[w][h] == 0 || owner[w][h] == i + 1);
+						}
+					}
+				}
+				
+				owner[x][y] = i + 1;
+			}
+		}
+	}
+}
@@ -0,0 +1,194 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.test;
+
+// External Imports
+import com.asbtechnologies.android.tiluxe.board.BoardPiece;
+import com.asbtechnologies.android.tiluxe.board.BoardPieceState;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoard;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoardPiece;
+import com.asbtechnologies.android.tiluxe.manager.GameStateMonitor;
+import com.asbtechnologies.android.tiluxe.util.IdGenerator;
+
+import junit.framework.TestCase;
+
+// Internal Imports
+
+/**
+ * Unit tests for GameStateMonitor. Runs the game thread side of the monitor
+ * on its own thread and drives the board from the test thread.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class TiluxeGameStateMonitorTest extends TestCase {
+	
+	/** Longest time to wait on the game thread before failing. */
+	private static final long JOIN_TIMEOUT = 5000;
+	
+	/** 
+	 * Win detection latency allowed, in nanoseconds. The old game loop polled
+	 * the board every 100 ms.
+	 */
+	private static final long LATENCY_LIMIT = 100000000L;
+	
+	/** Board being played. */
+	private DefaultBoard defaultBoard;
+	
+	/** Only piece that must be set to alive to win. */
+	private DefaultBoardPiece targetPiece;
+	
+	/** Monitor under test. */
+	private GameStateMonitor gameMonitor;
+	
+	/** Result of awaitGameEnd() on the game thread. */
+	private volatile boolean gameWon;
+	
+	/**
+	 * Default constructor.
+	 * 
+	 * @param name
+	 */
+	public TiluxeGameStateMonitorTest(String name) {
+		super(name);
+	}
+	
+	/* (non-Javadoc)
+	 * @see junit.framework.TestCase#setUp()
+	 */
+	@Override
+	protected void setUp() throws Exception {
+		
+		super.setUp();
+		
+		defaultBoard = new DefaultBoard(3, 3);
+		
+		targetPiece = new DefaultBoardPiece(
+				1, 
+				1, 
+				BoardPiece.HORIZONTAL_ORIENTATION, 
+				1, 
+				BoardPieceState.STATE_ALIVE, 
+				IdGenerator.getInstance().generateID());
+		
+		defaultBoard.addBoardPiece(targetPiece);
+		
+		gameMonitor = new GameStateMonitor(defaultBoard);
+		gameWon = false;
+	}
+	
+	/* (non-Javadoc)
+	 * @see junit.framework.TestCase#tearDown()
+	 */
+	@Override
+	protected void tearDown() throws Exception {
+		
+		gameMonitor = null;
+		targetPiece = null;
+		defaultBoard = null;
+		
+		super.tearDown();
+	}
+	
+	/**
+	 * Confirm the game thread wakes on the move that completes the board and 
+	 * report the win detection latency.
+	 */
+	public void testWinOnCompletingMove() throws InterruptedException {
+		
+		Thread gameThread = startGameThread();
+		
+		assertEquals(GameStateMonitor.NO_LATENCY, gameMonitor.getWinLatency());
+		
+		targetPiece.setState(BoardPieceState.STATE_ALIVE);
+		gameThread.join(JOIN_TIMEOUT);
+		
+		assertFalse(gameThread.isAlive());
+		assertTrue(gameWon);
+		
+		long winLatency = gameMonitor.getWinLatency();
+		
+		assertTrue(winLatency >= 0);
+		assertTrue(
+				"Win detection took " + winLatency + " ns", 
+				winLatency < LATENCY_LIMIT);
+		
+		gameThread = null;
+	}
+	
+	/**
+	 * Confirm a paused game waits without running, even if the board is 
+	 * completed, and reports the win once resumed.
+	 */
+	public void testPausedGameWaits() throws InterruptedException {
+		
+		gameMonitor.pauseGame();
+		Thread gameThread = startGameThread();
+		
+		targetPiece.setState(BoardPieceState.STATE_ALIVE);
+		gameThread.join(200);
+		
+		assertTrue(gameThread.isAlive());
+		assertEquals(Thread.State.WAITING, gameThread.getState());
+		
+		gameMonitor.resumeGame();
+		gameThread.join(JOIN_TIMEOUT);
+		
+		assertFalse(gameThread.isAlive());
+		assertTrue(gameWon);
+		
+		gameThread = null;
+	}
+	
+	/**
+	 * Confirm quitting wakes the game thread and does not report a win.
+	 */
+	public void testQuitGame() throws InterruptedException {
+		
+		Thread gameThread = startGameThread();
+		
+		gameMonitor.quitGame();
+		gameThread.join(JOIN_TIMEOUT);
+		
+		assertFalse(gameThread.isAlive());
+		assertFalse(gameWon);
+		assertEquals(GameStateMonitor.NO_LATENCY, gameMonitor.getWinLatency());
+		
+		gameThread = null;
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Start a thread that waits on the monitor for the game to end, and wait
+	 * for it to block.
+	 * 
+	 * @return The started thread
+	 */
+	private Thread startGameThread() throws InterruptedException {
+		
+		Thread gameThread = new Thread() {
+			public void run() {
+				gameWon = gameMonitor.awaitGameEnd();
+			}
+		};
+		
+		gameThread.start();
+		
+		while (gameThread.getState() != Thread.State.WAITING && 
+				gameThread.isAlive()) {
+			Thread.sleep(1);
+		}
+		
+		return gameThread;
+	}
+}
@@ -0,0 +1,190 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.test;
+
+// External Imports
+import android.util.Log;
+
+import com.asbtechnologies.android.tiluxe.board.BoardPieceState;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoard;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoardPiece;
+import com.asbtechnologies.android.tiluxe.board.solver.DifficultyEstimator;
+import com.asbtechnologies.android.tiluxe.board.solver.Hint;
+import com.asbtechnologies.android.tiluxe.board.solver.HintEngine;
+
+import junit.framework.TestCase;
+
+// Internal Imports
+
+/**
+ * Unit tests for HintEngine.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class TiluxeHintEngineTest extends TestCase {
+	
+	/**
+	 * Default constructor.
+	 * 
+	 * @param name
+	 */
+	public TiluxeHintEngineTest(String name) {
+		super(name);
+	}
+	
+	/**
+	 * Every hint is right, and following them finishes any board that can
+	 * be solved without guessing. Hints stay well inside a frame.
+	 */
+	public void testHintsFinishBoard() {
+		
+		DifficultyEstimator estimator = new DifficultyEstimator();
+		long hintNanos = 0;
+		long maxHintNanos = 0;
+		int hintCount = 0;
+		int finishedCount = 0;
+		
+		for (long seed = 1; seed <= 20; seed++) {
+			
+			DefaultBoard board = TiluxeTestBoards.generateBoard(seed, true);
+			HintEngine engine = new HintEngine(board);
+			board.registerMoveListener(engine);
+			
+			estimator.estimate(board);
+			
+			while (true) {
+				
+				long startTime = System.nanoTime();
+				Hint hint = engine.nextHint();
+				long elapsed = System.nanoTime() - startTime;
+				
+				if (hint == null) {
+					break;
+				}
+				
+				hintNanos += elapsed;
+				maxHintNanos = Math.max(maxHintNanos, elapsed);
+				hintCount++;
+				
+				assertTrue(hint.getRule() != Hint.RULE_MISTAKE);
+				assertEquals(
+						board.getMatchState(hint.getX(), hint.getY()) ==
+							BoardPieceState.STATE_ALIVE,
+						hint.isShip());
+				assertEquals(
+						BoardPieceState.STATE_LIMBO,
+						board.getCurrentState(hint.getX(), hint.getY()));
+				
+				markCell(board, hint.getX(), hint.getY(), hint.isShip());
+			}
+			
+			if (estimator.getLevel() != DifficultyEstimator.HARD) {
+				
+				assertTrue(board.isGameOver());
+				finishedCount++;
+			}
+			
+			board.removeMoveListener(engine);
+		}
+		
+		Log.i("TiluxeHintEngineTest",
+				hintCount + " hints, " + (hintNanos / hintCount / 1000) +
+				" us mean, " + (maxHintNanos / 1000) + " us max, " +
+				finishedCount + " boards finished.");
+		
+		assertTrue(finishedCount > 0);
+		assertTrue(hintNanos / hintCount < 2000000L);
+	}
+	
+	/**
+	 * A wrong mark is pointed out before anything else, and taking back a
+	 * right mark the hints relied on does not leave them ahead of the
+	 * player.
+	 */
+	public void testMistakesAndTakingBack() {
+		
+		DefaultBoard board = TiluxeTestBoards.generateBoard(7, true);
+		HintEngine engine = new HintEngine(board);
+		board.registerMoveListener(engine);
+		
+		Hint hint = engine.nextHint();
+		
+		assertNotNull(hint);
+		
+		// The same hint comes back until it is followed.
+		Hint again = engine.nextHint();
+		
+		assertEquals(hint.getX(), again.getX());
+		assertEquals(hint.getY(), again.getY());
+		assertEquals(hint.getRule(), again.getRule());
+		
+		// Mark the hinted location wrongly.
+		markCell(board, hint.getX(), hint.getY(), !hint.isShip());
+		
+		assertEquals(1, engine.getMistakeCount());
+		
+		Hint mistake = engine.nextHint();
+		
+		assertEquals(Hint.RULE_MISTAKE, mistake.getRule());
+		assertEquals(hint.getX(), mistake.getX());
+		assertEquals(hint.getY(), mistake.getY());
+		assertEquals(hint.isShip(), mistake.isShip());
+		
+		// Put it right and follow the hints for a while.
+		markCell(board, hint.getX(), hint.getY(), hint.isShip());
+		
+		assertEquals(0, engine.getMistakeCount());
+		
+		for (int i = 0; i < 10; i++) {
+			
+			hint = engine.nextHint();
+			markCell(board, hint.getX(), hint.getY(), hint.isShip());
+		}
+		
+		// Clear the board, so every hint has to be built again from the
+		// tiles given away.
+		board.resetBoard();
+		
+		HintEngine freshEngine = new HintEngine(board);
+		hint = engine.nextHint();
+		Hint freshHint = freshEngine.nextHint();
+		
+		assertEquals(freshHint.getX(), hint.getX());
+		assertEquals(freshHint.getY(), hint.getY());
+		assertEquals(freshHint.getRule(), hint.getRule());
+		
+		board.removeMoveListener(engine);
+	}
+	
+	/**
+	 * Tap a location until it is marked as a target or as empty.
+	 * 
+	 * @param board Board
+	 * @param xPos Horizontal column number
+	 * @param yPos Vertical row number
+	 * @param ship True to mark a target, false to mark empty
+	 */
+	private void markCell(
+			DefaultBoard board,
+			int xPos,
+			int yPos,
+			boolean ship) {
+		
+		int state = ship ?
+				BoardPieceState.STATE_ALIVE : BoardPieceState.STATE_DEAD;
+		DefaultBoardPiece piece =
+			(DefaultBoardPiece) board.getBoardPiece(xPos, yPos);
+		
+		while (board.getCurrentState(xPos, yPos) != state) {
+			piece.setNextState();
+		}
+	}
+}
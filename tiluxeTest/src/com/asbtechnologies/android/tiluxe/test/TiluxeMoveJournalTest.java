@@ -0,0 +1,235 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.test;
+
+// External Imports
+import java.util.Arrays;
+import java.util.Random;
+
+import com.asbtechnologies.android.tiluxe.board.BoardPieceState;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoard;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoardPiece;
+import com.asbtechnologies.android.tiluxe.board.MoveJournal;
+
+import junit.framework.TestCase;
+
+// Internal Imports
+
+/**
+ * Unit tests for MoveJournal and undoing moves on DefaultBoard.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class TiluxeMoveJournalTest extends TestCase {
+	
+	/**
+	 * Default constructor.
+	 * 
+	 * @param name
+	 */
+	public TiluxeMoveJournalTest(String name) {
+		super(name);
+	}
+	
+	/**
+	 * Moves come back in reverse order, the oldest are dropped once the ring 
+	 * is full and a new move drops the moves undone.
+	 */
+	public void testJournal() {
+		
+		MoveJournal journal = new MoveJournal(4);
+		
+		assertEquals(MoveJournal.NO_MOVE, journal.undo());
+		
+		for (int i = 0; i < 6; i++) {
+			journal.record(
+					1000 + i, 
+					BoardPieceState.STATE_LIMBO, 
+					i % 2 == 0 ? 
+							BoardPieceState.STATE_ALIVE : 
+							BoardPieceState.STATE_DEAD);
+		}
+		
+		assertEquals(4, journal.getUndoCount());
+		
+		for (int i = 5; i >= 2; i--) {
+			
+			int move = journal.undo();
+			
+			assertEquals(1000 + i, MoveJournal.getCellIndex(move));
+			assertEquals(
+					BoardPieceState.STATE_LIMBO, 
+					MoveJournal.getFromState(move));
+			assertEquals(
+					i % 2 == 0 ? 
+							BoardPieceState.STATE_ALIVE : 
+							BoardPieceState.STATE_DEAD,
+					MoveJournal.getToState(move));
+		}
+		
+		assertEquals(MoveJournal.NO_MOVE, journal.undo());
+		assertEquals(4, journal.getRedoCount());
+		
+		assertEquals(1002, MoveJournal.getCellIndex(journal.redo()));
+		assertEquals(1003, MoveJournal.getCellIndex(journal.redo()));
+		
+		journal.record(7, BoardPieceState.EMPTY, BoardPieceState.STATE_DEAD);
+		
+		assertEquals(0, journal.getRedoCount());
+		assertEquals(MoveJournal.NO_MOVE, journal.redo());
+		
+		int move = journal.undo();
+		
+		assertEquals(7, MoveJournal.getCellIndex(move));
+		assertEquals(BoardPieceState.EMPTY, MoveJournal.getFromState(move));
+		assertEquals(1003, MoveJournal.getCellIndex(journal.undo()));
+		
+		journal.clear();
+		
+		assertEquals(0, journal.getUndoCount());
+		assertEquals(0, journal.getRedoCount());
+	}
+	
+	/**
+	 * Undoing and redoing moves gives back the cell states and legend hints
+	 * the board had after each move.
+	 */
+	public void testBoardUndoRedo() {
+		
+		DefaultBoard board = TiluxeTestBoards.generateBoard(3L, false);
+		Random random = new Random(5);
+		int moves = 60;
+		int[][] states = new int[moves + 1][];
+		int[][] hints = new int[moves + 1][];
+		
+		states[0] = TiluxeTestBoards.getStates(board);
+		hints[0] = getHints(board);
+		
+		assertFalse(board.canUndoMove());
+		assertEquals(-1, board.undoMove());
+		
+		for (int i = 1; i <= moves; i++) {
+			
+			DefaultBoardPiece piece;
+			
+			do {
+				piece = (DefaultBoardPiece) board.getBoardPiece(
+						random.nextInt(board.getWidth()), 
+						random.nextInt(board.getHeight()));
+			} while (piece.isEmpty());
+			
+			piece.setNextState();
+			
+			states[i] = TiluxeTestBoards.getStates(board);
+			hints[i] = getHints(board);
+		}
+		
+		for (int i = moves - 1; i >= 0; i--) {
+			
+			assertTrue(board.undoMove() >= 0);
+			assertTrue(Arrays.equals(
+					states[i], TiluxeTestBoards.getStates(board)));
+			assertTrue(Arrays.equals(hints[i], getHints(board)));
+		}
+		
+		assertFalse(board.canUndoMove());
+		assertTrue(board.canRedoMove());
+		
+		for (int i = 1; i <= moves; i++) {
+			
+			assertTrue(board.redoMove() >= 0);
+			assertTrue(Arrays.equals(
+					states[i], TiluxeTestBoards.getStates(board)));
+			assertTrue(Arrays.equals(hints[i], getHints(board)));
+		}
+		
+		assertFalse(board.canRedoMove());
+		
+		// Counts kept while undoing match those of a board rebuilt from the
+		// same cells.
+		DefaultBoard copy = DefaultBoard.restoreSnapshot(board.saveSnapshot());
+		
+		assertTrue(Arrays.equals(getHints(copy), getHints(board)));
+		assertEquals(copy.isGameOver(), board.isGameOver());
+		
+		board.resetBoard();
+		
+		assertFalse(board.canUndoMove());
+	}
+	
+	/**
+	 * Undoing the move that broke a finished board finishes it again.
+	 */
+	public void testGameOverUndo() {
+		
+		DefaultBoard board = TiluxeTestBoards.generateBoard(9L, false);
+		DefaultBoardPiece alivePiece = null;
+		
+		for (int x = 0; x < board.getWidth(); x++) {
+			for (int y = 0; y < board.getHeight(); y++) {
+				
+				DefaultBoardPiece piece = 
+					(DefaultBoardPiece) board.getBoardPiece(x, y);
+				
+				if (piece.isEmpty()) {
+					continue;
+				}
+				
+				while (piece.getCurrentState() != piece.getMatchState()) {
+					piece.setNextState();
+				}
+				
+				if (piece.getMatchState() == BoardPieceState.STATE_ALIVE) {
+					alivePiece = piece;
+				}
+			}
+		}
+		
+		assertTrue(board.isGameOver());
+		
+		alivePiece.setNextState();
+		
+		assertFalse(board.isGameOver());
+		
+		board.undoMove();
+		
+		assertTrue(board.isGameOver());
+		
+		board.redoMove();
+		
+		assertFalse(board.isGameOver());
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Get the horizontal then vertical legend hints.
+	 * 
+	 * @param board Board
+	 * @return Hints
+	 */
+	private int[] getHints(DefaultBoard board) {
+		
+		int[] horizontalHint = board.getHorizontalLegendHint();
+		int[] verticalHint = board.getVerticalLegendHint();
+		int[] hints = new int[horizontalHint.length + verticalHint.length];
+		
+		System.arraycopy(
+				horizontalHint, 0, hints, 0, horizontalHint.length);
+		System.arraycopy(
+				verticalHint, 0, hints, horizontalHint.length, 
+				verticalHint.length);
+		
+		return hints;
+	}
+}
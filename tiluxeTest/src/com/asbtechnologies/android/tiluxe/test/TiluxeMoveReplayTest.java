@@ -0,0 +1,294 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.test;
+
+// External Imports
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Random;
+
+import android.util.Log;
+
+import com.asbtechnologies.android.tiluxe.board.BoardMoveListener;
+import com.asbtechnologies.android.tiluxe.board.BoardPieceState;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoard;
+import com.asbtechnologies.android.tiluxe.board.MoveRecorder;
+import com.asbtechnologies.android.tiluxe.board.MoveReplayer;
+
+import junit.framework.TestCase;
+
+// Internal Imports
+
+/**
+ * Unit tests for MoveRecorder and MoveReplayer.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class TiluxeMoveReplayTest extends TestCase {
+	
+	/** Replay file written for each test. */
+	private File replayFile;
+	
+	/**
+	 * Default constructor.
+	 * 
+	 * @param name
+	 */
+	public TiluxeMoveReplayTest(String name) {
+		super(name);
+	}
+	
+	/* (non-Javadoc)
+	 * @see junit.framework.TestCase#setUp()
+	 */
+	@Override
+	protected void setUp() throws Exception {
+		
+		replayFile = File.createTempFile("tiluxe", ".tlxr");
+	}
+	
+	/* (non-Javadoc)
+	 * @see junit.framework.TestCase#tearDown()
+	 */
+	@Override
+	protected void tearDown() throws Exception {
+		
+		replayFile.delete();
+	}
+	
+	/**
+	 * A replay holds every change made while recording, and playing it back
+	 * leaves the board as the game left it.
+	 */
+	public void testRecordAndReplay() throws IOException {
+		
+		DefaultBoard board = TiluxeTestBoards.generateBoard(4L, false);
+		int[] startStates = TiluxeTestBoards.getStates(board);
+		MoveLog moveLog = new MoveLog();
+		MoveRecorder recorder = new MoveRecorder(replayFile, board);
+		
+		board.registerMoveListener(recorder);
+		board.registerMoveListener(moveLog);
+		
+		// More moves than the recorder buffers, with undo, redo and a reset.
+		TiluxeTestBoards.play(board, new Random(6), 700);
+		board.undoMove();
+		board.undoMove();
+		board.redoMove();
+		recorder.flush();
+		board.resetBoard();
+		TiluxeTestBoards.play(board, new Random(7), 300);
+		recorder.close();
+		
+		// Moves after closing are not recorded.
+		TiluxeTestBoards.play(board, new Random(8), 1);
+		
+		MoveReplayer replayer = new MoveReplayer(replayFile);
+		
+		assertEquals(moveLog.count - 1, replayer.getMoveCount());
+		assertTrue(replayer.getStartTime() > 0);
+		assertTrue(Arrays.equals(
+				startStates, 
+				TiluxeTestBoards.getStates(replayer.getBoard())));
+		
+		for (int i = 0; i < replayer.getMoveCount(); i++) {
+			
+			assertEquals(moveLog.cells[i], replayer.getMoveCellIndex(i));
+			assertEquals(moveLog.states[i], replayer.getMoveState(i));
+			
+			if (i > 0) {
+				assertTrue(replayer.getMoveTime(i) >= 
+					replayer.getMoveTime(i - 1));
+			}
+		}
+		
+		MoveLog replayLog = new MoveLog();
+		
+		replayer.getBoard().registerMoveListener(replayLog);
+		replayer.replay(0, 700);
+		
+		assertEquals(700, replayLog.count);
+		
+		replayer.replay(700, replayer.getMoveCount());
+		
+		// Take back the move made after closing.
+		board.undoMove();
+		
+		assertTrue(Arrays.equals(
+				TiluxeTestBoards.getStates(board), 
+				TiluxeTestBoards.getStates(replayer.getBoard())));
+		assertTrue(Arrays.equals(
+				board.getHorizontalLegendHint(), 
+				replayer.getBoard().getHorizontalLegendHint()));
+		assertTrue(Arrays.equals(
+				board.getVerticalLegendHint(), 
+				replayer.getBoard().getVerticalLegendHint()));
+		assertEquals(board.isGameOver(), replayer.getBoard().isGameOver());
+	}
+	
+	/**
+	 * A move cut short at the end of the file is left out, and files that 
+	 * are not replays are refused.
+	 */
+	public void testBadFiles() throws IOException {
+		
+		DefaultBoard board = TiluxeTestBoards.generateBoard(5L, false);
+		MoveRecorder recorder = new MoveRecorder(replayFile, board);
+		
+		board.registerMoveListener(recorder);
+		TiluxeTestBoards.play(board, new Random(9), 10);
+		recorder.close();
+		
+		FileOutputStream out = new FileOutputStream(replayFile, true);
+		
+		try {
+			out.write(new byte[] {1, 2, 3});
+		} finally {
+			out.close();
+		}
+		
+		assertEquals(10, new MoveReplayer(replayFile).getMoveCount());
+		
+		RandomAccessFile file = new RandomAccessFile(replayFile, "rw");
+		
+		try {
+			
+			file.setLength(20);
+			
+			try {
+				new MoveReplayer(replayFile);
+				fail("Loaded a replay with its board cut short.");
+			} catch (IOException e) {
+				// Expected
+			}
+			
+			file.seek(0);
+			file.writeInt(0x12345678);
+			
+			try {
+				new MoveReplayer(replayFile);
+				fail("Loaded a replay with the wrong magic number.");
+			} catch (IOException e) {
+				// Expected
+			}
+			
+		} finally {
+			file.close();
+		}
+	}
+	
+	/**
+	 * Cell indexes that do not fit the 16 bits of a move record are refused
+	 * rather than written over the time.
+	 */
+	public void testCellIndexRange() throws IOException {
+		
+		DefaultBoard board = TiluxeTestBoards.generateBoard(6L, false);
+		MoveRecorder recorder = new MoveRecorder(replayFile, board);
+		int[] badIndexes = new int[] {-1, 0x10000, Integer.MAX_VALUE};
+		int lastCell = board.getWidth() * board.getHeight() - 1;
+		
+		try {
+			
+			for (int i = 0; i < badIndexes.length; i++) {
+				
+				try {
+					recorder.boardMoveNotification(
+							badIndexes[i], 
+							BoardPieceState.STATE_ALIVE);
+					fail("Recorded cell index " + badIndexes[i]);
+				} catch (IllegalArgumentException e) {
+					// Expected
+				}
+			}
+			
+			recorder.boardMoveNotification(
+					lastCell, 
+					BoardPieceState.STATE_ALIVE);
+			
+		} finally {
+			recorder.close();
+		}
+		
+		MoveReplayer replayer = new MoveReplayer(replayFile);
+		
+		assertEquals(1, replayer.getMoveCount());
+		assertEquals(lastCell, replayer.getMoveCellIndex(0));
+		assertEquals(BoardPieceState.STATE_ALIVE, replayer.getMoveState(0));
+	}
+	
+	/**
+	 * Time replaying a long game through the board.
+	 */
+	public void testReplayBenchmark() throws IOException {
+		
+		DefaultBoard board = TiluxeTestBoards.generateBoard(6L, false);
+		MoveRecorder recorder = new MoveRecorder(replayFile, board);
+		int moves = 20000;
+		
+		board.registerMoveListener(recorder);
+		
+		long startTime = System.nanoTime();
+		
+		TiluxeTestBoards.play(board, new Random(10), moves);
+		
+		long recordNanos = System.nanoTime() - startTime;
+		
+		recorder.close();
+		
+		MoveReplayer replayer = new MoveReplayer(replayFile);
+		
+		assertEquals(moves, replayer.getMoveCount());
+		
+		// Warm up before timing.
+		replayer.replay();
+		
+		long replayNanos = replayer.replay();
+		
+		Log.i("TiluxeMoveReplayTest - replay benchmark",
+				moves + " moves: played with recording " + 
+				recordNanos / moves + " ns/move, replayed " + 
+				replayNanos / moves + " ns/move");
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private classes
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Keeps the moves it is notified of.
+	 */
+	private static class MoveLog implements BoardMoveListener {
+		
+		/** Cell of each move. */
+		int[] cells = new int[4096];
+		
+		/** State of each move. */
+		int[] states = new int[4096];
+		
+		/** Number of moves. */
+		int count;
+		
+		/* (non-Javadoc)
+		 * @see com.asbtechnologies.android.tiluxe.board.BoardMoveListener#boardMoveNotification(int, int)
+		 */
+		@Override
+		public void boardMoveNotification(int cellIndex, int state) {
+			
+			cells[count] = cellIndex;
+			states[count] = state;
+			count++;
+		}
+	}
+}
@@ -0,0 +1,267 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.test;
+
+// External Imports
+import java.util.Random;
+
+import com.asbtechnologies.android.tiluxe.board.BatchBoardGenerator;
+import com.asbtechnologies.android.tiluxe.board.Board;
+import com.asbtechnologies.android.tiluxe.board.BoardConsumer;
+import com.asbtechnologies.android.tiluxe.board.BoardSpec;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoard;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoardGenerator;
+import com.asbtechnologies.android.tiluxe.board.PuzzleId;
+
+import junit.framework.TestCase;
+
+// Internal Imports
+
+/**
+ * Unit tests for PuzzleId and seeded board generation.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class TiluxePuzzleIdTest extends TestCase {
+	
+	/**
+	 * Default constructor.
+	 * 
+	 * @param name
+	 */
+	public TiluxePuzzleIdTest(String name) {
+		super(name);
+	}
+	
+	/**
+	 * The text form lists the lengths in order and reads back to an equal ID.
+	 */
+	public void testTextRoundTrip() {
+		
+		PuzzleId puzzleId = new PuzzleId(
+				new BoardSpec(
+						10, 10, TiluxeTestBoards.TEN_BY_TEN_PIECES, 15, 7,
+						true),
+				123456789L);
+		
+		assertEquals(
+				"10x10/1,1,1,1,2,2,2,3,3,4/15/7/U/00000000075bcd15",
+				puzzleId.toString());
+		
+		PuzzleId parsed = PuzzleId.parse(puzzleId.toString());
+		
+		assertEquals(puzzleId, parsed);
+		assertEquals(puzzleId.hashCode(), parsed.hashCode());
+		assertEquals(123456789L, parsed.getSeed());
+		assertEquals(10, parsed.getSpec().getBoardWidth());
+		assertEquals(10, parsed.getSpec().getBoardHeight());
+		assertEquals(15, parsed.getSpec().getNumberOfFreeEmpty());
+		assertEquals(7, parsed.getSpec().getNumberOfFreeTargets());
+		assertTrue(parsed.getSpec().isUniqueSolution());
+		
+		// Seeds with the top bit set survive the trip.
+		PuzzleId negative = new PuzzleId(
+				new BoardSpec(8, 6, new int[] {3, 1}, 0, 0, false), -2L);
+		
+		assertEquals(
+				"8x6/1,3/0/0/N/fffffffffffffffe",
+				negative.toString());
+		assertEquals(-2L, PuzzleId.parse(negative.toString()).getSeed());
+	}
+	
+	/**
+	 * Text that is not a puzzle ID is refused.
+	 */
+	public void testBadText() {
+		
+		String[] badText = new String[] {
+				"",
+				"10x10/1,2/15/7/U",
+				"10x10/1,2/15/7/X/00000000075bcd15",
+				"10by10/1,2/15/7/U/00000000075bcd15",
+				"10x10/1,a/15/7/U/00000000075bcd15",
+				"10x10/1,2/15/7/U/75bcd15",
+				"10x10/1,2/15/7/U/00000000075bcd1g"
+		};
+		
+		for (int i = 0; i < badText.length; i++) {
+			
+			try {
+				PuzzleId.parse(badText[i]);
+				fail("Should not parse: " + badText[i]);
+			} catch (IllegalArgumentException e) {
+				// Expected
+			}
+		}
+	}
+	
+	/**
+	 * The same spec and seed give the same board, and the board carries the
+	 * ID it was generated from.
+	 */
+	public void testSeededBoardsRepeat() {
+		
+		BoardSpec spec = new BoardSpec(
+				10, 10, TiluxeTestBoards.TEN_BY_TEN_PIECES, 15, 7, true);
+		DefaultBoardGenerator first = new DefaultBoardGenerator();
+		DefaultBoardGenerator second = new DefaultBoardGenerator();
+		Random random = new Random(17);
+		
+		for (int i = 0; i < 50; i++) {
+			
+			long seed = random.nextLong();
+			DefaultBoard board = (DefaultBoard) first.generateBoard(spec, seed);
+			
+			assertEquals(new PuzzleId(spec, seed), board.getPuzzleId());
+			
+			DefaultBoard again = (DefaultBoard) second.generateBoard(
+					PuzzleId.parse(board.getPuzzleId().toString()));
+			
+			assertSameBoard(board, again);
+		}
+	}
+	
+	/**
+	 * Custom and default boards can be generated again from their IDs.
+	 */
+	public void testGeneratedBoardsHaveIds() {
+		
+		DefaultBoardGenerator generator = new DefaultBoardGenerator();
+		DefaultBoardGenerator replay = new DefaultBoardGenerator();
+		
+		generator.setUniqueSolution(true);
+		
+		DefaultBoard custom = (DefaultBoard) generator.generateCustomBoard(
+				10, 10, new int[] {1, 4, 2, 3, 1, 2, 1, 3, 2, 1}, 15, 7);
+		
+		assertTrue(custom.getPuzzleId().getSpec().isUniqueSolution());
+		assertSameBoard(
+				custom,
+				(DefaultBoard) replay.generateBoard(custom.getPuzzleId()));
+		
+		DefaultBoard defaultBoard =
+			(DefaultBoard) generator.generateDefaultBoard();
+		
+		assertSameBoard(
+				defaultBoard,
+				(DefaultBoard) replay.generateBoard(defaultBoard.getPuzzleId()));
+	}
+	
+	/**
+	 * Generators seeded the same way give the same sequence of boards.
+	 */
+	public void testSeededGeneratorsRepeat() {
+		
+		DefaultBoardGenerator first = new DefaultBoardGenerator(new Random(5));
+		DefaultBoardGenerator second = new DefaultBoardGenerator(new Random(5));
+		
+		for (int i = 0; i < 20; i++) {
+			
+			assertSameBoard(
+					(DefaultBoard) first.generateCustomBoard(
+							10, 10, TiluxeTestBoards.TEN_BY_TEN_PIECES, 15, 7),
+					(DefaultBoard) second.generateCustomBoard(
+							10, 10, TiluxeTestBoards.TEN_BY_TEN_PIECES, 15, 7));
+		}
+	}
+	
+	/**
+	 * A batch gives the same board at each index whatever the parallelism.
+	 */
+	public void testBatchesRepeat() {
+		
+		BoardSpec spec = new BoardSpec(
+				10, 10, TiluxeTestBoards.TEN_BY_TEN_PIECES, 15, 7, true);
+		BoardArray serial = new BoardArray(40);
+		BoardArray parallel = new BoardArray(40);
+		
+		new BatchBoardGenerator(new Random(3)).generateBatch(
+				spec, 40, 1, serial);
+		new BatchBoardGenerator(new Random(3)).generateBatch(
+				spec, 40, 4, parallel);
+		
+		for (int i = 0; i < 40; i++) {
+			
+			assertEquals(
+					serial.getBoard(i).getPuzzleId(),
+					parallel.getBoard(i).getPuzzleId());
+			assertSameBoard(serial.getBoard(i), parallel.getBoard(i));
+		}
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Check two boards have the same size, layout and tiles given away.
+	 * 
+	 * @param expected Expected board
+	 * @param actual Board to check
+	 */
+	private void assertSameBoard(DefaultBoard expected, DefaultBoard actual) {
+		
+		assertEquals(expected.getWidth(), actual.getWidth());
+		assertEquals(expected.getHeight(), actual.getHeight());
+		
+		for (int x = 0; x < expected.getWidth(); x++) {
+			for (int y = 0; y < expected.getHeight(); y++) {
+				
+				assertEquals(
+						expected.getMatchState(x, y),
+						actual.getMatchState(x, y));
+				assertEquals(
+						expected.getStartingState(x, y),
+						actual.getStartingState(x, y));
+			}
+		}
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private classes
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Keeps each board delivered at its index.
+	 */
+	private static class BoardArray implements BoardConsumer {
+		
+		/** Boards delivered, by index. */
+		private DefaultBoard[] boards;
+		
+		/**
+		 * Default constructor.
+		 * 
+		 * @param count Number of boards in the batch
+		 */
+		BoardArray(int count) {
+			boards = new DefaultBoard[count];
+		}
+		
+		/* (non-Javadoc)
+		 * @see com.asbtechnologies.android.tiluxe.board.BoardConsumer#consumeBoard(int, com.asbtechnologies.android.tiluxe.board.Board)
+		 */
+		@Override
+		public synchronized void consumeBoard(int index, Board board) {
+			boards[index] = (DefaultBoard) board;
+		}
+		
+		/**
+		 * Get the board delivered at an index.
+		 * 
+		 * @param index Index in the batch
+		 * @return Delivered board
+		 */
+		synchronized DefaultBoard getBoard(int index) {
+			return boards[index];
+		}
+	}
+}
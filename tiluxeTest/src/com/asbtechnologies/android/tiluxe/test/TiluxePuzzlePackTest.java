@@ -0,0 +1,281 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.test;
+
+// External Imports
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import com.asbtechnologies.android.tiluxe.board.BatchBoardGenerator;
+import com.asbtechnologies.android.tiluxe.board.BoardSpec;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoard;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoardGenerator;
+import com.asbtechnologies.android.tiluxe.board.PuzzlePack;
+import com.asbtechnologies.android.tiluxe.board.PuzzlePackBoardGenerator;
+import com.asbtechnologies.android.tiluxe.board.PuzzlePackWriter;
+
+import junit.framework.TestCase;
+
+// Internal Imports
+
+/**
+ * Unit tests for PuzzlePack, PuzzlePackWriter and PuzzlePackBoardGenerator.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class TiluxePuzzlePackTest extends TestCase {
+	
+	/** Number of boards written to each section. */
+	private static final int BOARDS_PER_SECTION = 6;
+	
+	/** Specs of the sections written. */
+	private static final BoardSpec[] SPECS = new BoardSpec[] {
+		new BoardSpec(6, 6, new int[] {3, 2, 2, 1}, 4, 2, true),
+		new BoardSpec(8, 8, new int[] {1, 4, 3, 2, 2, 1}, 8, 3, true),
+		new BoardSpec(7, 7, new int[] {3, 2, 1}, 5, 2, false)
+	};
+	
+	/** Pack file written for each test. */
+	private File packFile;
+	
+	/**
+	 * Default constructor.
+	 * 
+	 * @param name
+	 */
+	public TiluxePuzzlePackTest(String name) {
+		super(name);
+	}
+	
+	/* (non-Javadoc)
+	 * @see junit.framework.TestCase#setUp()
+	 */
+	@Override
+	protected void setUp() throws Exception {
+		
+		packFile = File.createTempFile("tiluxe", ".tlxp");
+		
+		new PuzzlePackWriter(new BatchBoardGenerator(new Random(8)))
+			.write(packFile, SPECS, BOARDS_PER_SECTION, 2);
+	}
+	
+	/* (non-Javadoc)
+	 * @see junit.framework.TestCase#tearDown()
+	 */
+	@Override
+	protected void tearDown() throws Exception {
+		
+		packFile.delete();
+	}
+	
+	/**
+	 * The index describes the sections written.
+	 */
+	public void testIndex() throws IOException {
+		
+		PuzzlePack pack = PuzzlePack.open(packFile);
+		
+		assertEquals(SPECS.length, pack.getSectionCount());
+		
+		for (int i = 0; i < SPECS.length; i++) {
+			
+			assertSameSpec(SPECS[i], pack.getSectionSpec(i));
+			assertEquals(BOARDS_PER_SECTION, pack.getRecordCount(i));
+		}
+		
+		assertEquals(1, pack.findSection(
+				8, 8, new int[] {2, 1, 1, 2, 3, 4}, 8, 3, true));
+		assertEquals(-1, pack.findSection(
+				8, 8, new int[] {2, 1, 1, 2, 3, 4}, 8, 2, true));
+		assertEquals(
+				-1, pack.findSection(6, 6, new int[] {3, 2, 1}, 4, 2, false));
+		
+		// Boards with one solution serve any request, boards that may have 
+		// more only requests that do not need one.
+		assertEquals(1, pack.findSection(
+				8, 8, new int[] {2, 1, 1, 2, 3, 4}, 8, 3, false));
+		assertEquals(
+				2, pack.findSection(7, 7, new int[] {1, 2, 3}, 5, 2, false));
+		assertEquals(
+				-1, pack.findSection(7, 7, new int[] {1, 2, 3}, 5, 2, true));
+	}
+	
+	/**
+	 * Each board in the pack is the board its puzzle ID generates.
+	 */
+	public void testBoardsMatchPuzzleIds() throws IOException {
+		
+		PuzzlePack pack = PuzzlePack.open(packFile);
+		DefaultBoardGenerator generator = new DefaultBoardGenerator();
+		
+		for (int section = 0; section < SPECS.length; section++) {
+			
+			for (int record = 0; record < BOARDS_PER_SECTION; record++) {
+				
+				DefaultBoard board = pack.loadBoard(section, record);
+				
+				assertNotNull(board.getPuzzleId());
+				assertSameSpec(SPECS[section], board.getPuzzleId().getSpec());
+				
+				DefaultBoard expected = (DefaultBoard) 
+					generator.generateBoard(board.getPuzzleId());
+				
+				assertSameStates(expected, board);
+			}
+		}
+		
+		try {
+			pack.loadBoard(0, BOARDS_PER_SECTION);
+			fail("Loaded a record past the end of the section.");
+		} catch (IndexOutOfBoundsException e) {
+			// Expected
+		}
+	}
+	
+	/**
+	 * The generator hands out boards of the specs in the pack only, and only
+	 * boards with one solution when it needs one.
+	 */
+	public void testPackBoardGenerator() throws IOException {
+		
+		PuzzlePackBoardGenerator generator = new PuzzlePackBoardGenerator(
+				PuzzlePack.open(packFile), new Random(3));
+		
+		for (int i = 0; i < 10; i++) {
+			
+			DefaultBoard board = (DefaultBoard) 
+				generator.generateCustomBoard(
+						6, 6, new int[] {1, 2, 2, 3}, 4, 2);
+			
+			assertNotNull(board);
+			assertSameSpec(SPECS[0], board.getPuzzleId().getSpec());
+			assertEquals(4, generator.getTargetPieces().length);
+		}
+		
+		assertNull(generator.generateCustomBoard(
+				10, 10, new int[] {4, 3, 3, 2, 2, 2, 1, 1, 1, 1}, 15, 7));
+		assertNotNull(generator.generateCustomBoard(
+				7, 7, new int[] {3, 2, 1}, 5, 2));
+		
+		generator.setUniqueSolution(true);
+		
+		assertNull(generator.generateCustomBoard(
+				7, 7, new int[] {3, 2, 1}, 5, 2));
+		assertNotNull(generator.generateCustomBoard(
+				6, 6, new int[] {1, 2, 2, 3}, 4, 2));
+		
+		DefaultBoard board = (DefaultBoard) generator.generateDefaultBoard();
+		
+		assertSameSpec(SPECS[0], board.getPuzzleId().getSpec());
+	}
+	
+	/**
+	 * Files that are not packs, or are cut short, are refused.
+	 */
+	public void testBadFiles() throws IOException {
+		
+		RandomAccessFile file = new RandomAccessFile(packFile, "rw");
+		
+		try {
+			
+			file.setLength(file.length() - 1);
+			
+			try {
+				PuzzlePack.open(packFile);
+				fail("Opened a pack with its last record cut short.");
+			} catch (IOException e) {
+				// Expected
+			}
+			
+			file.seek(0);
+			file.writeInt(0x12345678);
+			
+			try {
+				PuzzlePack.open(packFile);
+				fail("Opened a pack with the wrong magic number.");
+			} catch (IOException e) {
+				// Expected
+			}
+			
+		} finally {
+			file.close();
+		}
+		
+		try {
+			new PuzzlePack(ByteBuffer.wrap(new byte[] {0x54, 0x4C, 0x58}));
+			fail("Opened a pack shorter than its header.");
+		} catch (IOException e) {
+			// Expected
+		}
+	}
+	
+	//--------------------------------------------------------------------------
+	// Private methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Check two specs describe the same boards. Piece lengths may be in any
+	 * order.
+	 * 
+	 * @param expected Spec expected
+	 * @param actual Spec read from the pack
+	 */
+	private void assertSameSpec(BoardSpec expected, BoardSpec actual) {
+		
+		int[] expectedLengths = expected.getPieceLengths();
+		int[] actualLengths = actual.getPieceLengths();
+		
+		Arrays.sort(expectedLengths);
+		Arrays.sort(actualLengths);
+		
+		assertEquals(expected.getBoardWidth(), actual.getBoardWidth());
+		assertEquals(expected.getBoardHeight(), actual.getBoardHeight());
+		assertTrue(Arrays.equals(expectedLengths, actualLengths));
+		assertEquals(
+				expected.getNumberOfFreeEmpty(), 
+				actual.getNumberOfFreeEmpty());
+		assertEquals(
+				expected.getNumberOfFreeTargets(), 
+				actual.getNumberOfFreeTargets());
+		assertEquals(expected.isUniqueSolution(), actual.isUniqueSolution());
+	}
+	
+	/**
+	 * Check two boards have the same size and cell states.
+	 * 
+	 * @param expected Board expected
+	 * @param actual Board read from the pack
+	 */
+	private void assertSameStates(DefaultBoard expected, DefaultBoard actual) {
+		
+		assertEquals(expected.getWidth(), actual.getWidth());
+		assertEquals(expected.getHeight(), actual.getHeight());
+		
+		for (int x = 0; x < expected.getWidth(); x++) {
+			for (int y = 0; y < expected.getHeight(); y++) {
+				
+				assertEquals(
+						expected.getMatchState(x, y), 
+						actual.getMatchState(x, y));
+				assertEquals(
+						expected.getStartingState(x, y), 
+						actual.getStartingState(x, y));
+				assertEquals(
+						expected.getCurrentState(x, y), 
+						actual.getCurrentState(x, y));
+			}
+		}
+	}
+}
@@ -0,0 +1,184 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.test;
+
+// External Imports
+import com.asbtechnologies.android.tiluxe.board.BoardSpec;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoard;
+import com.asbtechnologies.android.tiluxe.manager.PuzzlePool;
+
+import junit.framework.TestCase;
+
+// Internal Imports
+
+/**
+ * Unit tests for PuzzlePool.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class TiluxePuzzlePoolTest extends TestCase {
+	
+	/** Spec of a small board. */
+	private static final BoardSpec SIX_BY_SIX =
+		new BoardSpec(6, 6, new int[] {3, 2, 1, 1, 1}, 6, 2, true);
+	
+	/** Spec of a large board. */
+	private static final BoardSpec TEN_BY_TEN = new BoardSpec(
+			10, 10, new int[] {4, 3, 3, 2, 2, 2, 1, 1, 1, 1}, 15, 7, true);
+	
+	/** Pool under test. */
+	private PuzzlePool pool;
+	
+	/**
+	 * Default constructor.
+	 * 
+	 * @param name
+	 */
+	public TiluxePuzzlePoolTest(String name) {
+		super(name);
+	}
+	
+	/* (non-Javadoc)
+	 * @see junit.framework.TestCase#setUp()
+	 */
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		pool = new PuzzlePool(3);
+	}
+	
+	/* (non-Javadoc)
+	 * @see junit.framework.TestCase#tearDown()
+	 */
+	@Override
+	protected void tearDown() throws Exception {
+		pool.shutDown();
+		super.tearDown();
+	}
+	
+	/**
+	 * The first take for a key misses, then the pool fills in the background
+	 * and later takes hit.
+	 */
+	public void testHitsAndMisses() throws InterruptedException {
+		
+		DefaultBoard board = pool.take("6x6/easy", SIX_BY_SIX);
+		
+		assertNotNull(board);
+		assertEquals(6, board.getWidth());
+		assertEquals(0, pool.getHitCount());
+		assertEquals(1, pool.getMissCount());
+		
+		pool.awaitFull();
+		
+		assertEquals(3, pool.getReadyCount("6x6/easy"));
+		
+		for (int i = 0; i < 3; i++) {
+			assertNotNull(pool.take("6x6/easy", SIX_BY_SIX));
+		}
+		
+		assertEquals(3, pool.getHitCount());
+		assertEquals(1, pool.getMissCount());
+		
+		// Each key has its own boards.
+		assertEquals(0, pool.getReadyCount("10x10/hard"));
+		assertEquals(10, pool.take("10x10/hard", TEN_BY_TEN).getWidth());
+		
+		pool.awaitFull();
+		
+		assertEquals(3, pool.getReadyCount("6x6/easy"));
+		assertEquals(3, pool.getReadyCount("10x10/hard"));
+		assertEquals(10, pool.take("10x10/hard", TEN_BY_TEN).getWidth());
+		assertEquals(4, pool.getHitCount());
+		assertEquals(2, pool.getMissCount());
+	}
+	
+	/**
+	 * A key filled ahead of time answers its first take with a ready board.
+	 */
+	public void testPrefill() throws InterruptedException {
+		
+		pool.prefill("10x10/hard", TEN_BY_TEN);
+		pool.awaitFull();
+		
+		assertEquals(3, pool.getReadyCount("10x10/hard"));
+		
+		DefaultBoard board = pool.take("10x10/hard", TEN_BY_TEN);
+		
+		assertNotNull(board);
+		assertEquals(10, board.getWidth());
+		assertEquals(1, pool.getHitCount());
+		assertEquals(0, pool.getMissCount());
+		
+		// Filling a key again leaves its boards as they are.
+		pool.prefill("10x10/hard", SIX_BY_SIX);
+		pool.awaitFull();
+		
+		assertEquals(10, pool.take("10x10/hard", TEN_BY_TEN).getWidth());
+		assertEquals(2, pool.getHitCount());
+		assertEquals(0, pool.getMissCount());
+	}
+	
+	/**
+	 * Changing the depth trims or grows every key.
+	 */
+	public void testDepth() throws InterruptedException {
+		
+		pool.take("6x6/easy", SIX_BY_SIX);
+		pool.awaitFull();
+		
+		pool.setDepth(1);
+		
+		assertEquals(1, pool.getDepth());
+		assertEquals(1, pool.getReadyCount("6x6/easy"));
+		
+		pool.setDepth(5);
+		pool.awaitFull();
+		
+		assertEquals(5, pool.getReadyCount("6x6/easy"));
+		
+		pool.setDepth(0);
+		
+		assertNotNull(pool.take("6x6/easy", SIX_BY_SIX));
+		assertEquals(0, pool.getReadyCount("6x6/easy"));
+		
+		try {
+			pool.setDepth(-1);
+			fail("Negative depth should be refused.");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+	}
+	
+	/**
+	 * A spec whose pieces do not fit gives null and is no longer refilled
+	 * rather than retried forever. A shut down pool still hands out boards.
+	 */
+	public void testBadSpecAndShutDown() throws InterruptedException {
+		
+		BoardSpec crowded =
+			new BoardSpec(3, 3, new int[] {1, 1, 1, 1, 1}, 0, 0, false);
+		
+		assertNull(pool.take("crowded", crowded));
+		
+		pool.awaitFull();
+		
+		assertEquals(0, pool.getReadyCount("crowded"));
+		
+		pool.take("6x6/easy", SIX_BY_SIX);
+		pool.shutDown();
+		pool.awaitFull();
+		
+		assertEquals(0, pool.getReadyCount("6x6/easy"));
+		assertNotNull(pool.take("6x6/easy", SIX_BY_SIX));
+		assertEquals(0, pool.getReadyCount("6x6/easy"));
+	}
+}
@@ -0,0 +1,293 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.test;
+
+// External Imports
+import android.util.Log;
+
+import com.asbtechnologies.android.tiluxe.board.BoardPieceState;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoard;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoardGenerator;
+import com.asbtechnologies.android.tiluxe.board.solver.Puzzle;
+import com.asbtechnologies.android.tiluxe.board.solver.PuzzleSolver;
+import com.asbtechnologies.android.tiluxe.board.solver.SolverResult;
+
+import junit.framework.TestCase;
+
+// Internal Imports
+
+/**
+ * Unit tests for PuzzleSolver.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class TiluxePuzzleSolverTest extends TestCase {
+	
+	/**
+	 * Default constructor.
+	 * 
+	 * @param name
+	 */
+	public TiluxePuzzleSolverTest(String name) {
+		super(name);
+	}
+	
+	/**
+	 * A puzzle with one solution is SOLVED with the right locations.
+	 */
+	public void testUniquePuzzleIsSolved() {
+		
+		// A piece of length 2 at 0,0 to 1,0 and a piece of length 1 at 3,2.
+		Puzzle puzzle = new Puzzle(
+				4,
+				4,
+				new int[] {2, 0, 1, 0},
+				new int[] {1, 1, 0, 1},
+				new int[] {2, 1});
+		
+		SolverResult result = new PuzzleSolver().solve(puzzle);
+		
+		assertEquals(SolverResult.SOLVED, result.getStatus());
+		assertTrue(result.hasSolution());
+		
+		for (int x = 0; x < 4; x++) {
+			for (int y = 0; y < 4; y++) {
+				
+				boolean target = (y == 0 && x < 2) || (x == 3 && y == 2);
+				
+				assertEquals(target, result.isShip(x, y));
+			}
+		}
+		
+		assertTrue(result.getSearchNodeCount() >= 1);
+		assertTrue(result.getElapsedNanos() >= 0);
+		
+		// The puzzle passed in is left as it was.
+		assertEquals(0, puzzle.getKnownCount());
+	}
+	
+	/**
+	 * A puzzle with two solutions is AMBIGUOUS, and one with none is a
+	 * CONTRADICTION.
+	 */
+	public void testAmbiguousAndContradiction() {
+		
+		PuzzleSolver solver = new PuzzleSolver();
+		
+		// Pieces at 0,0 and 2,2 or at 2,0 and 0,2.
+		Puzzle puzzle = new Puzzle(
+				4,
+				4,
+				new int[] {1, 0, 1, 0},
+				new int[] {1, 0, 1, 0},
+				new int[] {1, 1});
+		
+		SolverResult result = solver.solve(puzzle);
+		
+		assertEquals(SolverResult.AMBIGUOUS, result.getStatus());
+		assertTrue(result.hasSolution());
+		assertTrue(result.getGuessCount() > 0);
+		assertEquals(2, solver.countSolutions(puzzle, 10));
+		
+		// Revealing one location settles it.
+		puzzle.setCell(0, 0, Puzzle.SHIP);
+		
+		assertEquals(SolverResult.SOLVED, solver.solve(puzzle).getStatus());
+		
+		// The legends do not add up to the same number of locations.
+		puzzle = new Puzzle(
+				4,
+				4,
+				new int[] {2, 0, 1, 0},
+				new int[] {1, 0, 1, 0},
+				new int[] {1, 1});
+		
+		result = solver.solve(puzzle);
+		
+		assertEquals(SolverResult.CONTRADICTION, result.getStatus());
+		assertFalse(result.hasSolution());
+		assertEquals(0, solver.countSolutions(puzzle, 10));
+		
+		// Two pieces of length 1 can not sit side by side.
+		puzzle = new Puzzle(
+				4,
+				4,
+				new int[] {2, 0, 0, 0},
+				new int[] {1, 1, 0, 0},
+				new int[] {1, 1});
+		
+		assertEquals(
+				SolverResult.CONTRADICTION, solver.solve(puzzle).getStatus());
+	}
+	
+	/**
+	 * Propagation alone fills in a puzzle the rules settle, without guessing.
+	 */
+	public void testDeduce() {
+		
+		Puzzle puzzle = new Puzzle(
+				4,
+				4,
+				new int[] {0, 4, 0, 0},
+				new int[] {1, 1, 1, 1},
+				new int[] {4});
+		
+		PuzzleSolver solver = new PuzzleSolver();
+		
+		assertTrue(solver.deduce(puzzle));
+		assertEquals(16, puzzle.getKnownCount());
+		assertEquals(16, solver.getDeductionCount());
+		
+		for (int x = 0; x < 4; x++) {
+			
+			assertEquals(Puzzle.WATER, puzzle.getCell(x, 0));
+			assertEquals(Puzzle.SHIP, puzzle.getCell(x, 1));
+		}
+		
+		SolverResult result = solver.solve(puzzle);
+		
+		assertEquals(SolverResult.SOLVED, result.getStatus());
+		assertEquals(1, result.getSearchNodeCount());
+		assertEquals(0, result.getGuessCount());
+		assertEquals(0, result.getMaxDepth());
+	}
+	
+	/**
+	 * Generated boards are never a contradiction, and any board solved comes
+	 * out the same as the board.
+	 */
+	public void testGeneratedBoards() {
+		
+		DefaultBoardGenerator generator = new DefaultBoardGenerator();
+		PuzzleSolver solver = new PuzzleSolver();
+		int solvedCount = 0;
+		
+		for (int i = 0; i < 200; i++) {
+			
+			DefaultBoard board = (DefaultBoard) generator.generateCustomBoard(
+					10,
+					10,
+					new int[] {4, 3, 3, 2, 2, 2, 1, 1, 1, 1},
+					15,
+					8);
+			
+			SolverResult result = solver.solve(Puzzle.fromBoard(board));
+			
+			assertTrue(result.getStatus() != SolverResult.CONTRADICTION);
+			
+			if (result.getStatus() != SolverResult.SOLVED) {
+				continue;
+			}
+			
+			solvedCount++;
+			
+			for (int x = 0; x < 10; x++) {
+				for (int y = 0; y < 10; y++) {
+					
+					assertEquals(
+							board.getMatchState(x, y) ==
+								BoardPieceState.STATE_ALIVE,
+							result.isShip(x, y));
+				}
+			}
+		}
+		
+		assertTrue(solvedCount > 0);
+	}
+	
+	/**
+	 * Boards generated with a unique solution required solve to exactly the
+	 * board generated, however few tiles are asked for.
+	 */
+	public void testUniqueGeneration() {
+		
+		DefaultBoardGenerator generator = new DefaultBoardGenerator();
+		generator.setUniqueSolution(true);
+		
+		PuzzleSolver solver = new PuzzleSolver();
+		
+		for (int i = 0; i < 50; i++) {
+			
+			DefaultBoard board = (DefaultBoard) generator.generateCustomBoard(
+					6,
+					6,
+					new int[] {3, 2, 1, 1, 1},
+					0,
+					0);
+			
+			SolverResult result = solver.solve(Puzzle.fromBoard(board));
+			
+			assertEquals(SolverResult.SOLVED, result.getStatus());
+			
+			for (int x = 0; x < 6; x++) {
+				for (int y = 0; y < 6; y++) {
+					
+					assertEquals(
+							board.getMatchState(x, y) ==
+								BoardPieceState.STATE_ALIVE,
+							result.isShip(x, y));
+				}
+			}
+}
+
+		// Nothing is given away when not asked for.
+		generator.setUniqueSolution(false);
+		
+		DefaultBoard board = (DefaultBoard) generator.generateCustomBoard(
+				6,
+				6,
+				new int[] {3, 2, 1, 1, 1},
+				0,
+				0);
+		
+		assertEquals(0, generator.getExtraRevealCount());
+		assertEquals(0, Puzzle.fromBoard(board).getKnownCount());
+	}
+	
+	/**
+	 * Time unique 10x10 boards at the hard setting of the game, 15 empty and
+	 * 7 target tiles given away. Each board should take a few milliseconds.
+	 */
+	public void testUniqueGenerationBenchmark() {
+		
+		DefaultBoardGenerator generator = new DefaultBoardGenerator();
+		generator.setUniqueSolution(true);
+		
+		int[] pieceLengths = new int[] {4, 3, 3, 2, 2, 2, 1, 1, 1, 1};
+		int boardCount = 200;
+		int extraRevealCount = 0;
+		
+		// Warm up before timing.
+		for (int i = 0; i < boardCount; i++) {
+			generator.generateCustomBoard(10, 10, pieceLengths, 15, 7);
+		}
+		
+		long startTime = System.nanoTime();
+		
+		for (int i = 0; i < boardCount; i++) {
+			
+			assertNotNull(generator.generateCustomBoard(
+					10, 10, pieceLengths, 15, 7));
+			
+			extraRevealCount += generator.getExtraRevealCount();
+		}
+		
+		long elapsedMicros = (System.nanoTime() - startTime) / 1000;
+		
+		Log.i("TiluxePuzzleSolverTest - unique generation benchmark", 
+				(elapsedMicros / boardCount) + " us per board, " + 
+				((float) extraRevealCount / boardCount) + 
+				" extra tiles per board");
+		
+		// Loose bound so slow devices still pass.
+		assertTrue(elapsedMicros / boardCount < 50000);
+	}
+}
@@ -0,0 +1,375 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.test;
+
+// External Imports
+import java.util.Random;
+
+import android.util.Log;
+
+import com.asbtechnologies.android.tiluxe.board.BoardPiece;
+import com.asbtechnologies.android.tiluxe.board.BoardPieceState;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoard;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoardPiece;
+import com.asbtechnologies.android.tiluxe.board.solver.ShipProbabilityMap;
+
+import junit.framework.TestCase;
+
+// Internal Imports
+
+/**
+ * Unit tests for ShipProbabilityMap.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class TiluxeShipProbabilityMapTest extends TestCase {
+	
+	/** Piece lengths of the hand built 6x6 board. */
+	private static final int[] SMALL_PIECES = {2, 1, 1};
+	
+	/**
+	 * Default constructor.
+	 * 
+	 * @param name
+	 */
+	public TiluxeShipProbabilityMapTest(String name) {
+		super(name);
+	}
+	
+	/**
+	 * On a board with several solutions the map matches the share of
+	 * solutions covering each location, counted one by one, with and
+	 * without a mark ruling some of them out.
+	 */
+	public void testMatchesCountedSolutions() {
+		
+		DefaultBoard board = buildBoard();
+		ShipProbabilityMap map = new ShipProbabilityMap(1, new Random(3));
+		
+		float[] probabilities = map.estimate(board, 0.01f, 5000000L);
+		float[] expected = countSolutions(board);
+		
+		assertTrue(map.isConverged());
+		assertTrue(map.isConsistent());
+		assertCloseTo(expected, probabilities, 0.02f);
+		
+		// Both solutions with the piece of length 2 down column 1 need a
+		// target at 4,1.
+		((DefaultBoardPiece) board.getBoardPiece(4, 1)).setState(
+				BoardPieceState.STATE_DEAD);
+		
+		probabilities = map.estimate(board, 0.01f, 5000000L);
+		expected = countSolutions(board);
+		
+		assertEquals(0.0f, probabilities[4 * 6 + 1]);
+		assertCloseTo(expected, probabilities, 0.02f);
+	}
+	
+	/**
+	 * Boards with one solution settle on it, on several threads at once.
+	 */
+	public void testSettlesOnOneSolution() {
+		
+		ShipProbabilityMap map = new ShipProbabilityMap(4, new Random(5));
+		long sampleCount = 0;
+		long startTime = System.nanoTime();
+		
+		for (long seed = 1; seed <= 10; seed++) {
+			
+			DefaultBoard board =
+				TiluxeTestBoards.generateBoard(seed, 0, 0, true);
+			
+			float[] probabilities = map.estimate(
+					board, ShipProbabilityMap.DEFAULT_TOLERANCE, 2000000L);
+			
+			sampleCount += map.getSampleCount();
+			
+			assertTrue(map.isConverged());
+			
+			for (int i = 0; i < probabilities.length; i++) {
+				
+				float solution = board.getMatchState(i / 10, i % 10) ==
+					BoardPieceState.STATE_ALIVE ? 1.0f : 0.0f;
+				
+				assertEquals(solution, probabilities[i],
+						ShipProbabilityMap.DEFAULT_TOLERANCE);
+			}
+		}
+		
+		long elapsedMillis = (System.nanoTime() - startTime) / 1000000L;
+		
+		Log.i("TiluxeShipProbabilityMapTest",
+				sampleCount + " samples in " + elapsedMillis + " ms");
+	}
+	
+	/**
+	 * The map can be read while it samples in the background, stopped, and
+	 * started again after a move. Marks no solution can contain are found
+	 * without sampling.
+	 */
+	public void testBackgroundRefresh() throws InterruptedException {
+		
+		DefaultBoard board = buildBoard();
+		ShipProbabilityMap map = new ShipProbabilityMap(2, new Random(7));
+		
+		assertNull(map.getProbabilities(null));
+		assertTrue(map.isFinished());
+		
+		map.start(board, 0.0f, Long.MAX_VALUE);
+		
+		float[] probabilities = map.getProbabilities(new float[36]);
+		
+		assertEquals(36, probabilities.length);
+		
+		// Nothing in rows 0, 2 and 5 before a single fleet is sampled.
+		assertEquals(0.0f, probabilities[0]);
+		assertEquals(0.0f, probabilities[2 * 6 + 5]);
+		
+		// A tolerance of 0 is never met, so the run goes on until stopped.
+		Thread.sleep(50);
+		
+		assertFalse(map.isFinished());
+		assertTrue(map.getMatchCount() > 0);
+		
+		map.stop();
+		
+		assertTrue(map.isFinished());
+		assertTrue(map.awaitFinished(0));
+		
+		// Row 0 has no targets.
+		((DefaultBoardPiece) board.getBoardPiece(3, 0)).setState(
+				BoardPieceState.STATE_ALIVE);
+		
+		map.start(board, ShipProbabilityMap.DEFAULT_TOLERANCE, 100000L);
+		
+		assertTrue(map.isFinished());
+		assertFalse(map.isConsistent());
+		assertEquals(0, map.getSampleCount());
+		assertEquals(1.0f, map.getProbabilities(null)[3 * 6]);
+	}
+	
+	/**
+	 * Build a 6x6 board with a length 2 piece across from 1,1 and length 1
+	 * pieces at 4,3 and 1,4. The piece of length 2 can also lie down column
+	 * 1 from 1,3, with the others at 2,1 and 4,1.
+	 * 
+	 * @return Board
+	 */
+	private DefaultBoard buildBoard() {
+		
+		DefaultBoard board = new DefaultBoard(6, 6);
+		
+		board.addBoardPiece(new DefaultBoardPiece(
+				1, 1, BoardPiece.HORIZONTAL_ORIENTATION, 2,
+				BoardPieceState.STATE_ALIVE, board.generateGroupID()));
+		board.addBoardPiece(new DefaultBoardPiece(
+				4, 3, BoardPiece.HORIZONTAL_ORIENTATION, 1,
+				BoardPieceState.STATE_ALIVE, board.generateGroupID()));
+		board.addBoardPiece(new DefaultBoardPiece(
+				1, 4, BoardPiece.HORIZONTAL_ORIENTATION, 1,
+				BoardPieceState.STATE_ALIVE, board.generateGroupID()));
+		
+		return board;
+	}
+	
+	/**
+	 * Count the fleets of SMALL_PIECES matching the legends and marks of a
+	 * 6x6 board by trying every placement.
+	 * 
+	 * @param board Board to count
+	 * @return Share of the fleets covering each location
+	 */
+	private float[] countSolutions(DefaultBoard board) {
+		
+		int[] coverCounts = new int[36];
+		int[] grid = new int[36];
+		int solutionCount = placeFrom(board, 0, grid, coverCounts);
+		float[] shares = new float[36];
+		
+		assertTrue(solutionCount > 0);
+		
+		for (int i = 0; i < 36; i++) {
+			shares[i] = (float) coverCounts[i] / solutionCount;
+		}
+		
+		return shares;
+	}
+	
+	/**
+	 * Try every placement of the pieces from an index on, counting the
+	 * fleets that match.
+	 * 
+	 * @param board Board to match
+	 * @param piece Index into SMALL_PIECES of the piece to place
+	 * @param grid Piece number plus 1 covering each location, 0 if none
+	 * @param coverCounts Number of matching fleets covering each location
+	 * @return Number of matching fleets
+	 */
+	private int placeFrom(
+			DefaultBoard board,
+			int piece,
+			int[] grid,
+			int[] coverCounts) {
+		
+		if (piece == SMALL_PIECES.length) {
+			
+			if (!matchesBoard(board, grid)) {
+				return 0;
+			}
+			
+			for (int i = 0; i < 36; i++) {
+				
+				if (grid[i] != 0) {
+					coverCounts[i]++;
+				}
+			}
+			
+			return 1;
+		}
+		
+		int length = SMALL_PIECES[piece];
+		int count = 0;
+		
+		for (int x = 0; x < 6; x++) {
+			for (int y = 0; y < 6; y++) {
+				for (int down = 0; down < 2; down++) {
+					
+					if (!fits(grid, x, y, length, down == 1)) {
+						continue;
+					}
+					
+					setCells(grid, x, y, length, down == 1, piece + 1);
+					count += placeFrom(board, piece + 1, grid, coverCounts);
+					setCells(grid, x, y, length, down == 1, 0);
+				}
+			}
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Check if a piece fits on the grid without touching another.
+	 * 
+	 * @param grid Piece covering each location
+	 * @param x Column of the head of the piece
+	 * @param y Row of the head of the piece
+	 * @param length Length of the piece
+	 * @param down True for a vertical piece
+	 * @return True if the piece fits
+	 */
+	private boolean fits(int[] grid, int x, int y, int length, boolean down) {
+		
+		int width = down ? 1 : length;
+		int height = down ? length : 1;
+		
+		if (x + width > 6 || y + height > 6) {
+			return false;
+		}
+		
+		for (int cx = x - 1; cx <= x + width; cx++) {
+			for (int cy = y - 1; cy <= y + height; cy++) {
+				
+				if (cx >= 0 && cx < 6 && cy >= 0 && cy < 6 &&
+						grid[cx * 6 + cy] != 0) {
+					return false;
+				}
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Set the locations of a piece on the grid.
+	 * 
+	 * @param grid Piece covering each location
+	 * @param x Column of the head of the piece
+	 * @param y Row of the head of the piece
+	 * @param length Length of the piece
+	 * @param down True for a vertical piece
+	 * @param value Value to set
+	 */
+	private void setCells(
+			int[] grid,
+			int x,
+			int y,
+			int length,
+			boolean down,
+			int value) {
+		
+		for (int l = 0; l < length; l++) {
+			
+			if (down) {
+				grid[x * 6 + y + l] = value;
+			} else {
+				grid[(x + l) * 6 + y] = value;
+			}
+		}
+	}
+	
+	/**
+	 * Check if a fleet matches the legends and the marks of the board.
+	 * 
+	 * @param board Board to match
+	 * @param grid Piece covering each location
+	 * @return True if the fleet matches
+	 */
+	private boolean matchesBoard(DefaultBoard board, int[] grid) {
+		
+		int[] rowCounts = board.getVerticalLegend(new int[6]);
+		int[] columnCounts = board.getHorizontalLegend(new int[6]);
+		
+		for (int i = 0; i < 36; i++) {
+			
+			int state = board.getCurrentState(i / 6, i % 6);
+			
+			if (grid[i] != 0) {
+				
+				if (state == BoardPieceState.STATE_DEAD) {
+					return false;
+				}
+				
+				rowCounts[i % 6]--;
+				columnCounts[i / 6]--;
+				
+			} else if (state == BoardPieceState.STATE_ALIVE) {
+				return false;
+			}
+		}
+		
+		for (int i = 0; i < 6; i++) {
+			
+			if (rowCounts[i] != 0 || columnCounts[i] != 0) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Check every chance is close to the one expected.
+	 * 
+	 * @param expected Chances expected
+	 * @param actual Chances to check
+	 * @param tolerance Largest difference allowed
+	 */
+	private void assertCloseTo(
+			float[] expected,
+			float[] actual,
+			float tolerance) {
+		
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals("Location " + i, expected[i], actual[i], tolerance);
+		}
+	}
+}
@@ -0,0 +1,278 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.test;
+
+// External Imports
+import android.util.Log;
+
+import com.asbtechnologies.android.tiluxe.board.DefaultBoard;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoardGenerator;
+import com.asbtechnologies.android.tiluxe.board.PuzzleId;
+import com.asbtechnologies.android.tiluxe.board.solver.DifficultyEstimator;
+import com.asbtechnologies.android.tiluxe.board.solver.Puzzle;
+import com.asbtechnologies.android.tiluxe.board.solver.PuzzleSolver;
+import com.asbtechnologies.android.tiluxe.board.solver.SolverCache;
+import com.asbtechnologies.android.tiluxe.board.solver.SolverResult;
+
+import junit.framework.TestCase;
+
+// Internal Imports
+
+/**
+ * Unit tests for SolverCache.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class TiluxeSolverCacheTest extends TestCase {
+	
+	/**
+	 * Default constructor.
+	 * 
+	 * @param name
+	 */
+	public TiluxeSolverCacheTest(String name) {
+		super(name);
+	}
+	
+	/**
+	 * A result looked up is the same as solving again, for puzzles with one
+	 * solution, several and none.
+	 */
+	public void testHitsMatchSolving() {
+		
+		SolverCache cache = new SolverCache(64 * 1024, 100);
+		PuzzleSolver solver = new PuzzleSolver();
+		int[] statusCounts = new int[3];
+		
+		for (long seed = 1; seed <= 30; seed++) {
+			
+			Puzzle puzzle =
+				Puzzle.fromBoard(TiluxeTestBoards.generateBoard(
+						seed, 8, 2, seed % 3 == 1));
+			
+			// Every third puzzle gets a target in a row with none.
+			if (seed % 3 == 0) {
+				breakPuzzle(puzzle);
+			}
+			
+			SolverResult solved = cache.solve(solver, puzzle);
+			SolverResult kept = cache.solve(solver, puzzle);
+			
+			assertNotSame(solved, kept);
+			assertSameResult(solved, kept);
+			statusCounts[solved.getStatus()]++;
+		}
+		
+		assertTrue(statusCounts[SolverResult.SOLVED] > 0);
+		assertTrue(statusCounts[SolverResult.CONTRADICTION] > 0);
+		assertTrue(statusCounts[SolverResult.AMBIGUOUS] > 0);
+		assertEquals(30, cache.getHitCount());
+		assertEquals(30, cache.getMissCount());
+		assertEquals(0.5f, cache.getHitRate(), 0.0f);
+		assertEquals(0, cache.getEvictionCount());
+	}
+	
+	/**
+	 * A full cache drops the least recently used entry, and keeps within its
+	 * budget.
+	 */
+	public void testEvictsLeastRecentlyUsed() {
+		
+		int budget = 3 * SolverCache.getEntryBytes(100) + 10;
+		SolverCache cache = new SolverCache(budget, 100);
+		SolverResult result = new PuzzleSolver().solve(Puzzle.fromBoard(
+				TiluxeTestBoards.generateBoard(1, 8, 2, true)));
+		
+		assertEquals(3, cache.getCapacity());
+		assertTrue(cache.getMemoryBytes() <= budget);
+		
+		cache.put(1L, result);
+		cache.put(2L, result);
+		cache.put(3L, result);
+		
+		// Using 1 leaves 2 as the least recently used.
+		assertNotNull(cache.get(1L));
+		
+		cache.put(4L, result);
+		
+		assertEquals(3, cache.size());
+		assertEquals(1, cache.getEvictionCount());
+		assertNull(cache.get(2L));
+		assertNotNull(cache.get(1L));
+		assertNotNull(cache.get(3L));
+		assertNotNull(cache.get(4L));
+		
+		// Keys that collide in the lookup table are found after removals.
+		cache.put(4L << 32, result);
+		
+		for (long key = 5; key < 200; key++) {
+			
+			cache.put(key << 32, result);
+			
+			assertNotNull(cache.get(key << 32));
+			assertNotNull(cache.get((key - 1) << 32));
+		}
+		
+		assertEquals(3, cache.size());
+		
+		cache.clear();
+		
+		assertEquals(0, cache.size());
+		assertNull(cache.get(199L << 32));
+		
+		try {
+			new SolverCache(10, 100);
+			fail("A budget too small for one entry should be refused.");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+	}
+	
+	/**
+	 * The hash does not depend on the order of the pieces, and changes with
+	 * any location or legend.
+	 */
+	public void testHashIsCanonical() {
+		
+		int[] rowCounts = {1, 0, 2, 0};
+		int[] columnCounts = {2, 0, 1, 0};
+		Puzzle puzzle =
+			new Puzzle(4, 4, rowCounts, columnCounts, new int[] {1, 2});
+		Puzzle reordered =
+			new Puzzle(4, 4, rowCounts, columnCounts, new int[] {2, 1});
+		
+		long hash = SolverCache.hashPuzzle(puzzle);
+		
+		assertEquals(hash, SolverCache.hashPuzzle(reordered));
+		
+		reordered.setCell(3, 3, Puzzle.WATER);
+		
+		assertTrue(hash != SolverCache.hashPuzzle(reordered));
+		
+		Puzzle transposed =
+			new Puzzle(4, 4, columnCounts, rowCounts, new int[] {1, 2});
+		
+		assertTrue(hash != SolverCache.hashPuzzle(transposed));
+	}
+	
+	/**
+	 * Generating boards again from their PuzzleIds and grading them again
+	 * looks every puzzle up instead of solving it.
+	 */
+	public void testRegeneratingHits() {
+		
+		SolverCache cache = new SolverCache(256 * 1024, 100);
+		DefaultBoardGenerator generator = new DefaultBoardGenerator();
+		DifficultyEstimator estimator = new DifficultyEstimator();
+		DifficultyEstimator cachedEstimator = new DifficultyEstimator();
+		PuzzleId[] puzzleIds = new PuzzleId[20];
+		int[] scores = new int[puzzleIds.length];
+		
+		generator.setSolverCache(cache);
+		cachedEstimator.setSolverCache(cache);
+		
+		for (int i = 0; i < puzzleIds.length; i++) {
+			
+			DefaultBoard board =
+				TiluxeTestBoards.generateBoard(i + 1, 8, 2, true);
+			
+			puzzleIds[i] = board.getPuzzleId();
+			scores[i] = estimator.estimate(board);
+		}
+		
+		long startTime = System.nanoTime();
+		
+		for (int i = 0; i < puzzleIds.length; i++) {
+			generator.generateBoard(puzzleIds[i]);
+		}
+		
+		long firstNanos = System.nanoTime() - startTime;
+		long missCount = cache.getMissCount();
+		
+		assertEquals(0, cache.getHitCount());
+		
+		startTime = System.nanoTime();
+		
+		for (int i = 0; i < puzzleIds.length; i++) {
+			
+			DefaultBoard board =
+				(DefaultBoard) generator.generateBoard(puzzleIds[i]);
+			
+			assertEquals(scores[i], cachedEstimator.estimate(board));
+			assertEquals(scores[i], cachedEstimator.estimate(board));
+		}
+		
+		long secondNanos = System.nanoTime() - startTime;
+		
+		// Each grade is the puzzle the generator checked last.
+		assertEquals(missCount, cache.getMissCount());
+		assertEquals(missCount + 2 * puzzleIds.length, cache.getHitCount());
+		
+		Log.i("TiluxeSolverCacheTest",
+				"Regenerated " + puzzleIds.length + " boards in " +
+				(firstNanos / 1000) + " us, then " + (secondNanos / 1000) +
+				" us with grading. Hit rate " + cache.getHitRate() + ", " +
+				cache.size() + " of " + cache.getCapacity() + " entries.");
+	}
+	
+	/**
+	 * Put a target in the first row whose legend is 0, so the puzzle has no
+	 * solution.
+	 * 
+	 * @param puzzle Puzzle to break
+	 */
+	private void breakPuzzle(Puzzle puzzle) {
+		
+		for (int y = 0; y < puzzle.getHeight(); y++) {
+			
+			if (puzzle.getRowCount(y) == 0) {
+				
+				puzzle.setCell(0, y, Puzzle.SHIP);
+				return;
+			}
+		}
+		
+		// Every row has a target, so the last piece can not be complete.
+		for (int x = 0; x < puzzle.getWidth(); x++) {
+			puzzle.setCell(x, 0, Puzzle.SHIP);
+		}
+	}
+	
+	/**
+	 * Check two results agree in every part.
+	 * 
+	 * @param expected Result expected
+	 * @param actual Result to check
+	 */
+	private void assertSameResult(SolverResult expected, SolverResult actual) {
+		
+		assertEquals(expected.getStatus(), actual.getStatus());
+		assertEquals(expected.hasSolution(), actual.hasSolution());
+		assertEquals(expected.getDeductionCount(), actual.getDeductionCount());
+		assertEquals(
+				expected.getSearchNodeCount(), actual.getSearchNodeCount());
+		assertEquals(expected.getGuessCount(), actual.getGuessCount());
+		assertEquals(expected.getMaxDepth(), actual.getMaxDepth());
+		assertEquals(expected.getRoundCount(), actual.getRoundCount());
+		assertEquals(expected.getFitRoundCount(), actual.getFitRoundCount());
+		assertEquals(expected.getElapsedNanos(), actual.getElapsedNanos());
+		
+		for (int x = 0; x < 10; x++) {
+			for (int y = 0; y < 10; y++) {
+				
+				assertEquals(expected.isShip(x, y), actual.isShip(x, y));
+				assertEquals(
+						expected.isAmbiguousAt(x, y),
+						actual.isAmbiguousAt(x, y));
+			}
+		}
+	}
+}
@@ -36,8 +36,24 @@ public class TiluxeSuiteComprehensiveTest extends TestCase {
 		suite.addTestSuite(TiluxeBoardPieceTest.class);
 		suite.addTestSuite(TiluxeBoardTest.class);
 		suite.addTestSuite(TiluxeBoardGeneratorTest.class);
+		suite.addTestSuite(TiluxeFleetPlacerTest.class);
+		suite.addTestSuite(TiluxePuzzleSolverTest.class);
+		suite.addTestSuite(TiluxeBatchBoardGeneratorTest.class);
+		suite.addTestSuite(TiluxePuzzleIdTest.class);
+		suite.addTestSuite(TiluxeBoardCodecTest.class);
+		suite.addTestSuite(TiluxePuzzlePackTest.class);
+		suite.addTestSuite(TiluxeMoveJournalTest.class);
+		suite.addTestSuite(TiluxeMoveReplayTest.class);
+		suite.addTestSuite(TiluxeDifficultyEstimatorTest.class);
+		suite.addTestSuite(TiluxeHintEngineTest.class);
+		suite.addTestSuite(TiluxeContradictionCheckerTest.class);
+		suite.addTestSuite(TiluxeShipProbabilityMapTest.class);
+		suite.addTestSuite(TiluxeSolverCacheTest.class);
+		suite.addTestSuite(TiluxeTranspositionTableTest.class);
 		
 		// Game specific tests
+		suite.addTestSuite(TiluxeGameStateMonitorTest.class);
+		suite.addTestSuite(TiluxePuzzlePoolTest.class);
 		
 		return suite;
 	}
@@ -0,0 +1,125 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.test;
+
+// External Imports
+import java.util.Random;
+
+import com.asbtechnologies.android.tiluxe.board.BoardPieceState;
+import com.asbtechnologies.android.tiluxe.board.BoardSpec;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoard;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoardGenerator;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoardPiece;
+
+// Internal Imports
+
+/**
+ * Boards and play shared by the unit tests.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class TiluxeTestBoards {
+	
+	/** Default 10x10 fleet. */
+	public static final int[] TEN_BY_TEN_PIECES =
+		new int[] {4, 3, 3, 2, 2, 2, 1, 1, 1, 1};
+	
+	/**
+	 * Private constructor, only static methods.
+	 */
+	private TiluxeTestBoards() {
+	}
+	
+	//--------------------------------------------------------------------------
+	// Public methods
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Generate a 10x10 board with the default fleet, 15 empty tiles and 7
+	 * target tiles given away.
+	 * 
+	 * @param seed Seed of the board
+	 * @param unique True to give away tiles until it has one solution
+	 * @return Board
+	 */
+	public static DefaultBoard generateBoard(long seed, boolean unique) {
+		
+		return generateBoard(seed, 15, 7, unique);
+	}
+	
+	/**
+	 * Generate a 10x10 board with the default fleet.
+	 * 
+	 * @param seed Seed of the board
+	 * @param emptyCount Number of empty tiles given away
+	 * @param targetCount Number of target tiles given away
+	 * @param unique True to give away tiles until it has one solution
+	 * @return Board
+	 */
+	public static DefaultBoard generateBoard(
+			long seed,
+			int emptyCount,
+			int targetCount,
+			boolean unique) {
+		
+		return (DefaultBoard) new DefaultBoardGenerator().generateBoard(
+				new BoardSpec(
+						10, 10, TEN_BY_TEN_PIECES, emptyCount, targetCount,
+						unique),
+				seed);
+	}
+	
+	/**
+	 * Make random moves on the tiles that are not given away, each one
+	 * stepping a tile on to its next state as a tap would.
+	 * 
+	 * @param board Board to play on
+	 * @param random Chooses the tiles
+	 * @param moves Number of moves to make
+	 */
+	public static void play(DefaultBoard board, Random random, int moves) {
+		
+		for (int i = 0; i < moves; i++) {
+			
+			int xPos;
+			int yPos;
+			
+			do {
+				xPos = random.nextInt(board.getWidth());
+				yPos = random.nextInt(board.getHeight());
+			} while (board.getStartingState(xPos, yPos) !=
+				BoardPieceState.STATE_LIMBO);
+			
+			((DefaultBoardPiece) board.getBoardPiece(xPos, yPos))
+				.setNextState();
+		}
+	}
+	
+	/**
+	 * Get the current state of every tile, column by column.
+	 * 
+	 * @param board Board to read
+	 * @return Current BoardPieceState values
+	 */
+	public static int[] getStates(DefaultBoard board) {
+		
+		int[] states = new int[board.getWidth() * board.getHeight()];
+		
+		for (int x = 0; x < board.getWidth(); x++) {
+			for (int y = 0; y < board.getHeight(); y++) {
+				states[x * board.getHeight() + y] =
+					board.getCurrentState(x, y);
+			}
+		}
+		
+		return states;
+	}
+}
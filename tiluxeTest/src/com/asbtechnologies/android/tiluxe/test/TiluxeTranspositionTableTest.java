@@ -0,0 +1,382 @@
+/*****************************************************************************
+ *                        Copyright ASB Technologies (c) 2011
+ *                               Java Source
+ *
+ * This source is the property of ASB Technologies. Any duplication or reuse
+ * without the consent of ASB Technologies is prohibited.
+ *
+ ****************************************************************************/
+
+package com.asbtechnologies.android.tiluxe.test;
+
+// External Imports
+import java.util.Random;
+
+import android.util.Log;
+
+import com.asbtechnologies.android.tiluxe.board.BoardPieceState;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoard;
+import com.asbtechnologies.android.tiluxe.board.DefaultBoardPiece;
+import com.asbtechnologies.android.tiluxe.board.ZobristKeys;
+import com.asbtechnologies.android.tiluxe.board.solver.Puzzle;
+import com.asbtechnologies.android.tiluxe.board.solver.PuzzleSolver;
+import com.asbtechnologies.android.tiluxe.board.solver.SolverResult;
+import com.asbtechnologies.android.tiluxe.board.solver.TranspositionTable;
+
+import junit.framework.TestCase;
+
+// Internal Imports
+
+/**
+ * Unit tests for TranspositionTable, the Zobrist hashes it is keyed by and
+ * the search nodes it saves the PuzzleSolver.
+ * 
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class TiluxeTranspositionTableTest extends TestCase {
+	
+	/** Number of boards solved by the benchmark. */
+	private static final int BOARD_COUNT = 20;
+	
+	/**
+	 * Default constructor.
+	 * 
+	 * @param name
+	 */
+	public TiluxeTranspositionTableTest(String name) {
+		super(name);
+	}
+	
+	/**
+	 * The hash a board keeps as it is played matches the hash worked out
+	 * from scratch, and goes back to what it was when a move is undone.
+	 */
+	public void testBoardStateKey() {
+		
+		DefaultBoard board = TiluxeTestBoards.generateBoard(3, 15, 7, true);
+		
+		assertEquals(hashBoard(board), board.getStateKey());
+		assertEquals(
+				hashPuzzle(Puzzle.fromBoard(board)), board.getStateKey());
+		
+		Random random = new Random(17);
+		
+		for (int i = 0; i < 500; i++) {
+			
+			DefaultBoardPiece piece = (DefaultBoardPiece) board.getBoardPiece(
+					random.nextInt(10), random.nextInt(10));
+			
+			long key = board.getStateKey();
+			int state = piece.getCurrentState();
+			
+			piece.setNextState();
+			
+			if (piece.getCurrentState() != state) {
+				assertTrue(key != board.getStateKey());
+			}
+			
+			assertEquals(hashBoard(board), board.getStateKey());
+			
+			if (i % 3 == 0) {
+				
+				piece.setState(state);
+				
+				assertEquals(key, board.getStateKey());
+			}
+		}
+		
+		assertEquals(
+				new DefaultBoard(10, 10).getStateKey(),
+				new DefaultBoard(10, 10).getStateKey());
+	}
+	
+	/**
+	 * Hashes are found after they are kept, a full bucket drops its oldest
+	 * hash, and the table keeps within its budget.
+	 */
+	public void testKeepsHashes() {
+		
+		TranspositionTable table = new TranspositionTable(1000);
+		
+		assertEquals(64, table.getCapacity());
+		assertTrue(table.getMemoryBytes() <= 1000);
+		assertFalse(table.contains(0));
+		
+		table.put(0);
+		
+		assertTrue(table.contains(0));
+		assertFalse(table.contains(5));
+		
+		// Hashes 32 apart share a bucket of the 32 in the table.
+		table.put(5);
+		table.put(37);
+		
+		assertTrue(table.contains(5));
+		assertTrue(table.contains(37));
+		
+		table.put(69);
+		
+		assertFalse(table.contains(5));
+		assertTrue(table.contains(37));
+		assertTrue(table.contains(69));
+		assertEquals(3, table.size());
+		
+		table.clear();
+		
+		assertEquals(0, table.size());
+		assertFalse(table.contains(69));
+		
+		try {
+			new TranspositionTable(15);
+			fail("A budget too small for one bucket should be refused.");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+	}
+	
+	/**
+	 * Giving away tiles until a board has one solution, then solving it
+	 * again, gives the same results with a table as without it, in fewer
+	 * search nodes.
+	 */
+	public void testSavesSearchNodes() {
+		
+		PuzzleSolver plainSolver = new PuzzleSolver();
+		PuzzleSolver tableSolver = new PuzzleSolver();
+		TranspositionTable table = new TranspositionTable(1024 * 1024);
+		
+		tableSolver.setTranspositionTable(table);
+		
+		long plainNodes = 0;
+		long tableNodes = 0;
+		long plainNanos = 0;
+		long tableNanos = 0;
+		int tableHits = 0;
+		int solveCount = 0;
+		
+		for (long seed = 1; seed <= BOARD_COUNT; seed++) {
+			
+			DefaultBoard board =
+				TiluxeTestBoards.generateBoard(seed, 0, 0, false);
+			Puzzle puzzle = Puzzle.fromBoard(board);
+			
+			for (int pass = 0; pass < 2; pass++) {
+				
+				SolverResult plain;
+				SolverResult tabled;
+				
+				do {
+					
+					plain = plainSolver.solve(puzzle);
+					tabled = tableSolver.solve(puzzle);
+					
+					assertSameSolutions(plain, tabled);
+					
+					plainNodes += plain.getSearchNodeCount();
+					tableNodes += tabled.getSearchNodeCount();
+					plainNanos += plain.getElapsedNanos();
+					tableNanos += tabled.getElapsedNanos();
+					tableHits += tableSolver.getTableHitCount();
+					solveCount++;
+					
+				} while (pass == 0 && reveal(board, puzzle, plain));
+				
+				assertEquals(SolverResult.SOLVED, plain.getStatus());
+			}
+		}
+		
+		Log.i("TiluxeTranspositionTableTest",
+				solveCount + " solves in " + plainNodes + " nodes and " +
+				(plainNanos / 1000000L) + " ms, with the table " +
+				tableNodes + " nodes and " + (tableNanos / 1000000L) +
+				" ms, " + tableHits + " hits, " + table.size() + " of " +
+				table.getCapacity() + " slots used.");
+		
+		assertTrue(tableHits > 0);
+		assertTrue(tableNodes * 10 < plainNodes * 9);
+	}
+	
+	/**
+	 * Solvers on several threads can share one table, and find the same
+	 * solutions as a solver on its own.
+	 */
+	public void testSharedBetweenThreads() throws InterruptedException {
+		
+		final TranspositionTable table = new TranspositionTable(256 * 1024);
+		final Puzzle[] puzzles = new Puzzle[8];
+		final SolverResult[] expected = new SolverResult[puzzles.length];
+		final int[] failures = new int[1];
+		PuzzleSolver plainSolver = new PuzzleSolver();
+		
+		for (int i = 0; i < puzzles.length; i++) {
+			
+			puzzles[i] = Puzzle.fromBoard(
+					TiluxeTestBoards.generateBoard(i + 1, 4, 0, false));
+			expected[i] = plainSolver.solve(puzzles[i]);
+		}
+		
+		Thread[] threads = new Thread[4];
+		
+		for (int t = 0; t < threads.length; t++) {
+			
+			final int offset = t;
+			
+			threads[t] = new Thread() {
+				
+				@Override
+				public void run() {
+					
+					PuzzleSolver solver = new PuzzleSolver();
+					solver.setTranspositionTable(table);
+					
+					for (int round = 0; round < 3; round++) {
+						for (int i = 0; i < puzzles.length; i++) {
+							
+							int index = (i + offset) % puzzles.length;
+							SolverResult result = solver.solve(puzzles[index]);
+							
+							if (!hasSameSolutions(expected[index], result)) {
+								
+								synchronized (failures) {
+									failures[0]++;
+								}
+							}
+						}
+					}
+				}
+			};
+			
+			threads[t].start();
+		}
+		
+		for (int t = 0; t < threads.length; t++) {
+			threads[t].join();
+		}
+		
+		assertEquals(0, failures[0]);
+		assertTrue(table.size() > 0);
+	}
+	
+	/**
+	 * Give away the first location two solutions disagree about, as it is on
+	 * the board.
+	 * 
+	 * @param board Board with the layout of the pieces
+	 * @param puzzle Puzzle to give the location away in
+	 * @param result Result of solving the puzzle
+	 * @return True if a location was given away, false if the puzzle has
+	 * only one solution
+	 */
+	private boolean reveal(
+			DefaultBoard board,
+			Puzzle puzzle,
+			SolverResult result) {
+		
+		if (result.getStatus() != SolverResult.AMBIGUOUS) {
+			return false;
+		}
+		
+		for (int x = 0; x < 10; x++) {
+			for (int y = 0; y < 10; y++) {
+				
+				if (!result.isAmbiguousAt(x, y)) {
+					continue;
+				}
+				
+				if (board.getMatchState(x, y) == BoardPieceState.STATE_ALIVE) {
+					puzzle.setCell(x, y, Puzzle.SHIP);
+				} else {
+					puzzle.setCell(x, y, Puzzle.WATER);
+				}
+				
+				return true;
+			}
+		}
+		
+		fail("An ambiguous result has no location the solutions disagree on.");
+		return false;
+	}
+	
+	/**
+	 * Work out the hash of the current states of a 10x10 board.
+	 * 
+	 * @param board Board to hash
+	 * @return Hash
+	 */
+	private long hashBoard(DefaultBoard board) {
+		
+		long key = 0;
+		
+		for (int x = 0; x < 10; x++) {
+			for (int y = 0; y < 10; y++) {
+				key ^= ZobristKeys.getStateKey(
+						x * 10 + y, board.getCurrentState(x, y));
+			}
+		}
+		
+		return key;
+	}
+	
+	/**
+	 * Work out the hash of the known locations of a 10x10 puzzle.
+	 * 
+	 * @param puzzle Puzzle to hash
+	 * @return Hash
+	 */
+	private long hashPuzzle(Puzzle puzzle) {
+		
+		long key = 0;
+		
+		for (int x = 0; x < 10; x++) {
+			for (int y = 0; y < 10; y++) {
+				key ^= ZobristKeys.getCellKey(x * 10 + y, puzzle.getCell(x, y));
+			}
+		}
+		
+		return key;
+	}
+	
+	/**
+	 * Check two results found the same solutions.
+	 * 
+	 * @param expected Result expected
+	 * @param actual Result to check
+	 */
+	private void assertSameSolutions(
+			SolverResult expected,
+			SolverResult actual) {
+		
+		assertTrue(hasSameSolutions(expected, actual));
+	}
+	
+	/**
+	 * Check if two results found the same solutions.
+	 * 
+	 * @param expected Result expected
+	 * @param actual Result to check
+	 * @return True if the status and solutions match
+	 */
+	private boolean hasSameSolutions(
+			SolverResult expected,
+			SolverResult actual) {
+		
+		if (expected.getStatus() != actual.getStatus() ||
+				expected.hasSolution() != actual.hasSolution()) {
+			return false;
+		}
+		
+		for (int x = 0; x < 10; x++) {
+			for (int y = 0; y < 10; y++) {
+				
+				if (expected.isShip(x, y) != actual.isShip(x, y) ||
+						expected.isAmbiguousAt(x, y) !=
+							actual.isAmbiguousAt(x, y)) {
+					return false;
+				}
+			}
+		}
+		
+		return true;
+	}
+}